@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Finds the Flight Recorder events of this library. The classes which refer to the Flight Recorder API are kept in the
+ * src/main/jfr source root, which is only compiled by the jfr Maven profile, since the API is missing from older and
+ * some non-HotSpot Java 8 JDKs. Classes outside that root refer to the events through an interface, creating them with
+ * {@link #newInstance(String, Class)}; if the API or the class is missing, the events are not recorded.
+ */
+public final class FlightRecorderSupport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlightRecorderSupport.class);
+
+    private static final boolean AVAILABLE = isApiPresent();
+
+    private FlightRecorderSupport() {
+    }
+
+    /**
+     * @return True if the Flight Recorder API is present in the running JVM
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Creates an instance of a class in the src/main/jfr source root using its no argument constructor, which need not
+     * be public
+     *
+     * @param className The name of the class
+     * @param type      The type the class implements
+     * @param <T>       The type the class implements
+     * @return The instance, or null if the Flight Recorder API is not present or the class was not compiled
+     */
+    public static <T> T newInstance(final String className, final Class<T> type) {
+        if (!AVAILABLE) {
+            return null;
+        }
+
+        try {
+            final Constructor<? extends T> constructor = Class.forName(className, true, FlightRecorderSupport.class.getClassLoader())
+                    .asSubclass(type)
+                    .getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (final ClassNotFoundException ignored) {
+            LOGGER.debug("{} was not compiled into this build; its Flight Recorder events will not be recorded", className);
+            return null;
+        } catch (final ReflectiveOperationException | LinkageError | RuntimeException e) {
+            LOGGER.warn("Unable to create {}; its Flight Recorder events will not be recorded", className, e);
+            return null;
+        }
+    }
+
+    private static boolean isApiPresent() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecorderSupport.class.getClassLoader());
+            return true;
+        } catch (final ClassNotFoundException | LinkageError ignored) {
+            return false;
+        }
+    }
+}
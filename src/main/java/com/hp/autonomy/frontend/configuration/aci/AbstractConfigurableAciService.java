@@ -5,6 +5,7 @@
 
 package com.hp.autonomy.frontend.configuration.aci;
 
+import com.autonomy.aci.client.services.AciErrorException;
 import com.autonomy.aci.client.services.AciService;
 import com.autonomy.aci.client.services.Processor;
 import com.autonomy.aci.client.transport.AciServerDetails;
@@ -19,6 +20,9 @@ public abstract class AbstractConfigurableAciService implements ConfigurableAciS
 
     private final AciService aciService;
 
+    private volatile AciCallTracer tracer;
+    private volatile RequestCoalescer requestCoalescer;
+
     public AbstractConfigurableAciService(final AciService aciService) {
         this.aciService = aciService;
     }
@@ -34,7 +38,49 @@ public abstract class AbstractConfigurableAciService implements ConfigurableAciS
      */
     @Override
     public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
-        return aciService.executeAction(serverDetails, parameters, processor);
+        final RequestCoalescer requestCoalescer = this.requestCoalescer;
+
+        if (requestCoalescer == null) {
+            return send(serverDetails, parameters, processor);
+        }
+
+        return requestCoalescer.execute(serverDetails, parameters, processor, () -> send(serverDetails, parameters, processor));
+    }
+
+    /**
+     * @param tracer The tracer to record actions sent by this service with, or null to stop recording them
+     */
+    public void setTracer(final AciCallTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * @param requestCoalescer The coalescer to merge identical concurrent actions with, or null to send every action
+     */
+    public void setRequestCoalescer(final RequestCoalescer requestCoalescer) {
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    private <T> T send(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final AciCallTracer tracer = this.tracer;
+
+        if (tracer == null) {
+            return aciService.executeAction(serverDetails, parameters, processor);
+        }
+
+        final long start = System.nanoTime();
+        TraceRecord.Status status = TraceRecord.Status.FAILED;
+
+        try {
+            final T result = aciService.executeAction(serverDetails, parameters, processor);
+            status = TraceRecord.Status.SUCCESS;
+            return result;
+        } catch (final AciErrorException e) {
+            status = TraceRecord.Status.ACI_ERROR;
+            throw e;
+        } finally {
+            tracer.record(serverDetails, parameters, System.nanoTime() - start, status);
+        }
     }
 
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+
+/**
+ * An HttpClient which asks for a compressed response to every request, but leaves the response body compressed so
+ * that it can be decompressed as it is read by {@link NegotiatedAciResponseInputStream}
+ */
+@SuppressWarnings("deprecation")
+class AcceptEncodingHttpClient extends CloseableHttpClient {
+
+    static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+
+    private final CloseableHttpClient httpClient;
+
+    AcceptEncodingHttpClient(final CloseableHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    protected CloseableHttpResponse doExecute(final HttpHost target, final HttpRequest request, final HttpContext context) throws IOException {
+        if (!request.containsHeader(HttpHeaders.ACCEPT_ENCODING)) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPTED_ENCODINGS);
+        }
+
+        return httpClient.execute(target, request, context);
+    }
+
+    @Override
+    public HttpParams getParams() {
+        return httpClient.getParams();
+    }
+
+    @Override
+    public ClientConnectionManager getConnectionManager() {
+        return httpClient.getConnectionManager();
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+}
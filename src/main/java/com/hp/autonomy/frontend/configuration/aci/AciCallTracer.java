@@ -0,0 +1,262 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records the most recent ACI actions in fixed size records in a ring buffer held outside the heap, so that it can be
+ * left enabled in production. Recording an action does not lock, and copies the action and host names into the
+ * buffer rather than retaining them.
+ * <p>
+ * The buffer is divided into stripes, and each thread writes to the stripe selected by its id. A stripe is usually
+ * written by a single thread, but threads are not pinned to stripes. The sequence number of the record in each slot is
+ * therefore kept on the heap, and a writer claims its slot by atomically marking it as being written. If another writer
+ * holds the slot, or has already filled it with a newer record, the action is not recorded. Readers only accept a slot
+ * holding the sequence number expected for it, before and after copying it, so records which are being written,
+ * overwritten or out of date are skipped.
+ * <p>
+ * Action names longer than 32 characters and host names longer than 64 characters are truncated.
+ */
+public class AciCallTracer implements AciCallTracerMXBean {
+    private static final int RECORD_SIZE = 128;
+    private static final int MAX_ACTION_LENGTH = 32;
+    private static final int MAX_HOST_LENGTH = 64;
+
+    private static final int TIMESTAMP = 0;
+    private static final int LATENCY = 8;
+    private static final int PORT = 16;
+    private static final int STATUS = 20;
+    private static final int PROTOCOL = 21;
+    private static final int ACTION_LENGTH = 22;
+    private static final int HOST_LENGTH = 23;
+    private static final int ACTION = 24;
+    private static final int HOST = ACTION + MAX_ACTION_LENGTH;
+
+    private static final long EMPTY = -1L;
+    private static final long WRITING = -2L;
+
+    private static final TraceRecord.Status[] STATUSES = TraceRecord.Status.values();
+    private static final AciServerDetails.TransportProtocol[] PROTOCOLS = AciServerDetails.TransportProtocol.values();
+
+    private final ByteBuffer buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong[] positions;
+    private final int stripeMask;
+    private final int slotsPerStripe;
+
+    /**
+     * Creates a tracer with one stripe for every available processor
+     *
+     * @param capacity The number of actions to retain, which is rounded up so that every stripe has the same power of
+     *                 two number of slots
+     */
+    public AciCallTracer(final int capacity) {
+        this(capacity, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param capacity The number of actions to retain, which is rounded up so that every stripe has the same power of
+     *                 two number of slots
+     * @param stripes  The number of stripes, which is rounded up to a power of two
+     */
+    public AciCallTracer(final int capacity, final int stripes) {
+        if (capacity <= 0 || stripes <= 0) {
+            throw new IllegalArgumentException("Capacity and stripes must be positive");
+        }
+
+        final int stripeCount = ceilingPowerOfTwo(stripes);
+        slotsPerStripe = ceilingPowerOfTwo((capacity + stripeCount - 1) / stripeCount);
+        stripeMask = stripeCount - 1;
+
+        buffer = ByteBuffer.allocateDirect(stripeCount * slotsPerStripe * RECORD_SIZE);
+        sequences = new AtomicLongArray(stripeCount * slotsPerStripe);
+        positions = new AtomicLong[stripeCount];
+
+        for (int i = 0; i < stripeCount; i++) {
+            positions[i] = new AtomicLong();
+        }
+
+        for (int slot = 0; slot < sequences.length(); slot++) {
+            sequences.set(slot, EMPTY);
+        }
+    }
+
+    /**
+     * Registers the tracer with the platform MBean server
+     *
+     * @param name The object name to register the tracer under
+     * @throws JMException If the tracer could not be registered
+     */
+    public void registerMBean(final String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name));
+    }
+
+    /**
+     * Records a completed action
+     *
+     * @param serverDetails The server the action was sent to
+     * @param parameters    The parameters of the action
+     * @param nanos         The time taken by the action, in nanoseconds
+     * @param status        The outcome of the action
+     */
+    public void record(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final long nanos, final TraceRecord.Status status) {
+        final int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        final long sequence = positions[stripe].getAndIncrement();
+        final int slot = stripe * slotsPerStripe + (int) (sequence & (slotsPerStripe - 1));
+        final long previous = sequences.get(slot);
+
+        // a writer a whole ring ahead or behind this one holds the slot, or has already written a newer record to it
+        if (previous == WRITING || previous > sequence || !sequences.compareAndSet(slot, previous, WRITING)) {
+            return;
+        }
+
+        final int offset = slot * RECORD_SIZE;
+
+        try {
+            buffer.putLong(offset + TIMESTAMP, System.currentTimeMillis());
+            buffer.putLong(offset + LATENCY, nanos);
+            buffer.putInt(offset + PORT, serverDetails.getPort());
+            buffer.put(offset + STATUS, (byte) status.ordinal());
+            buffer.put(offset + PROTOCOL, (byte) serverDetails.getProtocol().ordinal());
+            buffer.put(offset + ACTION_LENGTH, (byte) putAscii(offset + ACTION, ActionParameters.findAction(parameters), MAX_ACTION_LENGTH));
+            buffer.put(offset + HOST_LENGTH, (byte) putAscii(offset + HOST, serverDetails.getHost(), MAX_HOST_LENGTH));
+        } catch (final RuntimeException e) {
+            // release the slot, whose previous record is now incomplete
+            sequences.lazySet(slot, EMPTY);
+            throw e;
+        }
+
+        sequences.lazySet(slot, sequence);
+    }
+
+    @Override
+    public int getCapacity() {
+        return positions.length * slotsPerStripe;
+    }
+
+    @Override
+    public long getRecordedCount() {
+        long count = 0;
+
+        for (final AtomicLong position : positions) {
+            count += position.get();
+        }
+
+        return count;
+    }
+
+    @Override
+    public List<TraceRecord> getRecentCalls() {
+        final List<TraceRecord> records = new ArrayList<>();
+
+        for (int stripe = 0; stripe < positions.length; stripe++) {
+            // read the last record written to each slot, oldest first, so that records in the same millisecond stay
+            // in order after sorting
+            final long position = positions[stripe].get();
+
+            for (long sequence = Math.max(0, position - slotsPerStripe); sequence < position; sequence++) {
+                final TraceRecord record = read(stripe * slotsPerStripe + (int) (sequence & (slotsPerStripe - 1)), sequence);
+
+                if (record != null) {
+                    records.add(record);
+                }
+            }
+        }
+
+        records.sort(Comparator.comparingLong(TraceRecord::getTimestamp));
+        return records;
+    }
+
+    @Override
+    public void dumpToFile(final String path) throws IOException {
+        try (final BufferedWriter writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+            dump(writer);
+        }
+    }
+
+    /**
+     * Writes the retained actions, oldest first, one per line
+     *
+     * @param writer The writer to write to
+     * @throws IOException If the actions could not be written
+     */
+    public void dump(final Writer writer) throws IOException {
+        for (final TraceRecord record : getRecentCalls()) {
+            writer.write(record.getTimestamp() + " " + record.getStatus() + ' ' + record.getProtocol().toLowerCase(Locale.ENGLISH) + "://"
+                    + record.getHost() + ':' + record.getPort() + ' ' + record.getAction() + ' ' + record.getLatency() + "us\n");
+        }
+    }
+
+    private TraceRecord read(final int slot, final long expectedSequence) {
+        if (sequences.get(slot) != expectedSequence) {
+            return null;
+        }
+
+        final int offset = slot * RECORD_SIZE;
+
+        final TraceRecord record = new TraceRecord(
+                buffer.getLong(offset + TIMESTAMP),
+                getAscii(offset + ACTION, buffer.get(offset + ACTION_LENGTH)),
+                PROTOCOLS[buffer.get(offset + PROTOCOL)].name(),
+                getAscii(offset + HOST, buffer.get(offset + HOST_LENGTH)),
+                buffer.getInt(offset + PORT),
+                buffer.getLong(offset + LATENCY) / 1000,
+                STATUSES[buffer.get(offset + STATUS)]
+        );
+
+        // discard the record if it was overwritten while it was being read
+        return sequences.get(slot) == expectedSequence ? record : null;
+    }
+
+    private int putAscii(final int offset, final CharSequence value, final int maxLength) {
+        if (value == null) {
+            return 0;
+        }
+
+        final int length = Math.min(value.length(), maxLength);
+
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            buffer.put(offset + i, c < 128 ? (byte) c : (byte) '?');
+        }
+
+        return length;
+    }
+
+    private String getAscii(final int offset, final int length) {
+        final char[] chars = new char[length];
+
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) buffer.get(offset + i);
+        }
+
+        return new String(chars);
+    }
+
+    private static int ceilingPowerOfTwo(final int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
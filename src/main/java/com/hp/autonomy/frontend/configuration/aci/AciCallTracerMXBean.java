@@ -0,0 +1,38 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Management interface of an {@link AciCallTracer}
+ */
+public interface AciCallTracerMXBean {
+
+    /**
+     * @return The maximum number of actions retained
+     */
+    int getCapacity();
+
+    /**
+     * @return The number of actions recorded since the tracer was created
+     */
+    long getRecordedCount();
+
+    /**
+     * @return The retained actions, oldest first
+     */
+    List<TraceRecord> getRecentCalls();
+
+    /**
+     * Writes the retained actions to a file, oldest first, one per line
+     *
+     * @param path The file to write
+     * @throws IOException If the file could not be written
+     */
+    void dumpToFile(String path) throws IOException;
+}
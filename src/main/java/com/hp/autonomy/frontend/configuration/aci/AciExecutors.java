@@ -0,0 +1,79 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates {@link ExecutorService}s for {@link AsyncAciService} and {@link AsyncIndexingService}.
+ * <p>
+ * On Java 21 and later each action can run on its own virtual thread, so blocking HTTP round trips do not need a large
+ * pool of platform threads. This library is compiled for Java 8, so virtual threads are created reflectively and a
+ * bounded pool of platform threads is used on older runtimes.
+ */
+public final class AciExecutors {
+
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadFactoryMethod();
+
+    private AciExecutors() {
+    }
+
+    /**
+     * @return True if the runtime supports virtual threads
+     */
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * @return An executor which runs each task on a new virtual thread
+     * @throws UnsupportedOperationException If the runtime does not support virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+        }
+
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (final IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Unable to create virtual thread executor", e);
+        }
+    }
+
+    /**
+     * @param platformThreads The number of threads to use if the runtime does not support virtual threads
+     * @return An executor using virtual threads if they are supported, or a fixed pool of daemon platform threads
+     * otherwise
+     */
+    public static ExecutorService newExecutor(final int platformThreads) {
+        if (isVirtualThreadSupported()) {
+            return newVirtualThreadExecutor();
+        }
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, "aci-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        return Executors.newFixedThreadPool(platformThreads, threadFactory);
+    }
+
+    private static Method findVirtualThreadFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (final NoSuchMethodException ignored) {
+            return null;
+        }
+    }
+}
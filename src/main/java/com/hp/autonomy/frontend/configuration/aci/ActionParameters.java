@@ -0,0 +1,42 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.transport.ActionParameter;
+
+/**
+ * Reads the values of ACI parameters, whose names are case insensitive
+ */
+public final class ActionParameters {
+    private static final String ACTION = "action";
+
+    private ActionParameters() {
+    }
+
+    /**
+     * @param parameters ACI parameters
+     * @return The value of the Action parameter, or null if there is none
+     */
+    public static String findAction(final Iterable<? extends ActionParameter<?>> parameters) {
+        return findValue(parameters, ACTION);
+    }
+
+    /**
+     * @param parameters ACI parameters
+     * @param name       The name of the parameter, compared ignoring case
+     * @return The value of the first parameter with the given name, or null if there is none or its value is null
+     */
+    public static String findValue(final Iterable<? extends ActionParameter<?>> parameters, final String name) {
+        for (final ActionParameter<?> parameter : parameters) {
+            if (name.equalsIgnoreCase(parameter.getName())) {
+                final Object value = parameter.getValue();
+                return value == null ? null : value.toString();
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of concurrent requests to a single server, adjusting the limit from measured latency using the
+ * TCP Vegas algorithm.
+ * <p>
+ * The lowest latency seen is taken as the latency of an idle server. When latency rises above it, requests are
+ * assumed to be queueing on the server and the limit is reduced; while latency stays close to it and the limit is
+ * being used, the limit is increased. Timeouts and connection failures reduce the limit by the backoff ratio. The
+ * lowest latency is periodically re-measured so the limit can recover after the server's performance changes.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int MIN_RTT_RESET_SAMPLES = 1000;
+
+    private final ConcurrencyLimit settings;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private long minRtt = Long.MAX_VALUE;
+    private int samples;
+
+    /**
+     * @param settings The settings for the limiter
+     */
+    public AdaptiveConcurrencyLimiter(final ConcurrencyLimit settings) {
+        if (settings.getMinLimit() < 1 || settings.getMaxLimit() < settings.getMinLimit()) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= minLimit <= maxLimit");
+        }
+
+        this.settings = settings;
+        limit = clamp(settings.getInitialLimit());
+    }
+
+    /**
+     * Acquires permission to send a request, waiting up to the configured maximum queue time if the limit has been
+     * reached. Every successful call must be followed by a call to {@link #release(long, boolean)}.
+     *
+     * @return True if the request may be sent; false if it should be rejected
+     */
+    public boolean acquire() {
+        lock.lock();
+
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(settings.getMaxQueueTime());
+
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    return false;
+                }
+
+                remaining = released.awaitNanos(remaining);
+            }
+
+            inFlight++;
+            return true;
+        } catch (final InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases permission acquired by {@link #acquire()} and updates the limit
+     *
+     * @param latency The time taken by the request, in nanoseconds
+     * @param dropped True if the request timed out or could not connect
+     */
+    public void release(final long latency, final boolean dropped) {
+        lock.lock();
+
+        try {
+            final int used = inFlight;
+            inFlight--;
+
+            if (dropped) {
+                limit = clamp(limit * settings.getBackoffRatio());
+            } else {
+                update(Math.max(1, latency), used);
+            }
+
+            // raising the limit may have freed more than the permit returned, so wake a waiter for every free permit
+            for (int free = (int) limit - inFlight; free > 0; free--) {
+                released.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The current limit
+     */
+    public int getLimit() {
+        lock.lock();
+
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of requests currently in flight
+     */
+    public int getInFlight() {
+        lock.lock();
+
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(final long rtt, final int used) {
+        if (++samples >= MIN_RTT_RESET_SAMPLES) {
+            samples = 0;
+            minRtt = rtt;
+        } else {
+            minRtt = Math.min(minRtt, rtt);
+        }
+
+        final double queueSize = Math.ceil(limit * (1 - (double) minRtt / rtt));
+        final double step = Math.max(1, Math.log10(limit));
+
+        if (queueSize <= 3 * step) {
+            // there is no evidence more capacity is needed unless the limit is at least half used
+            if (used * 2 >= limit) {
+                limit = clamp(limit + step);
+            }
+        } else if (queueSize > 6 * step) {
+            limit = clamp(limit - step);
+        }
+    }
+
+    private double clamp(final double value) {
+        return Math.max(settings.getMinLimit(), Math.min(settings.getMaxLimit(), value));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Sends actions with a {@link ConfigurableAciService} on an {@link Executor}, returning a {@link CompletableFuture}
+ * rather than blocking the calling thread. Use {@link AciExecutors#newExecutor(int)} to run actions on virtual threads
+ * where the runtime supports them.
+ * <p>
+ * The futures complete with the exception thrown by the underlying service if an action fails.
+ */
+public class AsyncAciService {
+
+    private final ConfigurableAciService aciService;
+    private final Executor executor;
+
+    /**
+     * @param aciService The service to send actions with
+     * @param executor   The executor to send actions on
+     */
+    public AsyncAciService(final ConfigurableAciService aciService, final Executor executor) {
+        this.aciService = aciService;
+        this.executor = executor;
+    }
+
+    /**
+     * @param parameters The parameters of the action
+     * @param processor  The processor for the response
+     * @param <T>        The type of the processed response
+     * @return A future for the processed response
+     */
+    public <T> CompletableFuture<T> executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        return CompletableFuture.supplyAsync(() -> aciService.executeAction(parameters, processor), executor);
+    }
+
+    /**
+     * Uses the provided AciServerDetails rather than those of the underlying service
+     *
+     * @param serverDetails The server to send the action to
+     * @param parameters    The parameters of the action
+     * @param processor     The processor for the response
+     * @param <T>           The type of the processed response
+     * @return A future for the processed response
+     */
+    public <T> CompletableFuture<T> executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        return CompletableFuture.supplyAsync(() -> aciService.executeAction(serverDetails, parameters, processor), executor);
+    }
+
+    /**
+     * @return The service actions are sent with
+     */
+    public ConfigurableAciService getAciService() {
+        return aciService;
+    }
+}
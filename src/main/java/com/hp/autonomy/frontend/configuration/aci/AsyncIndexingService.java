@@ -0,0 +1,58 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexCommand;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Sends index commands with a {@link ConfigurableIndexingService} on an {@link Executor}, returning a
+ * {@link CompletableFuture} rather than blocking the calling thread. Use {@link AciExecutors#newExecutor(int)} to run
+ * commands on virtual threads where the runtime supports them.
+ */
+public class AsyncIndexingService {
+
+    private final ConfigurableIndexingService indexingService;
+    private final Executor executor;
+
+    /**
+     * @param indexingService The service to send index commands with
+     * @param executor        The executor to send index commands on
+     */
+    public AsyncIndexingService(final ConfigurableIndexingService indexingService, final Executor executor) {
+        this.indexingService = indexingService;
+        this.executor = executor;
+    }
+
+    /**
+     * @param command The command to send
+     * @return A future for the index id of the command
+     */
+    public CompletableFuture<Integer> executeCommand(final IndexCommand command) {
+        return CompletableFuture.supplyAsync(() -> indexingService.executeCommand(command), executor);
+    }
+
+    /**
+     * Uses the given {@link ServerDetails} instead of those of the underlying service
+     *
+     * @param serverDetails The server to send the command to
+     * @param command       The command to send
+     * @return A future for the index id of the command
+     */
+    public CompletableFuture<Integer> executeCommand(final ServerDetails serverDetails, final IndexCommand command) {
+        return CompletableFuture.supplyAsync(() -> indexingService.executeCommand(serverDetails, command), executor);
+    }
+
+    /**
+     * @return The service index commands are sent with
+     */
+    public ConfigurableIndexingService getIndexingService() {
+        return indexingService;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.transport.AciHttpClient;
+import com.autonomy.aci.client.transport.AciHttpException;
+import com.autonomy.aci.client.transport.AciResponseInputStream;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.autonomy.aci.client.transport.impl.AciHttpClientImpl;
+import lombok.Setter;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * An {@link AciHttpClient} which asks servers that support it for compressed responses, and decompresses them as they
+ * are read by the {@link com.autonomy.aci.client.services.Processor}.
+ * <p>
+ * Whether each server supports compression is held by an {@link EndpointRegistry}. Servers whose support is unknown
+ * are asked for compressed responses unless compressByDefault is false, and whether the first response was compressed
+ * is recorded; servers which ignore the request are then sent plain requests.
+ * <p>
+ * The HttpClient should not decompress responses itself, so it should be created with content compression disabled.
+ * The aci-api HttpClientFactory negotiates compression for every server when useCompression is set, so that must not
+ * be set on a factory creating the HttpClient.
+ */
+@SuppressWarnings("JavaDoc")
+public class CompressionNegotiatingAciHttpClient implements AciHttpClient {
+
+    private final AciHttpClientImpl plainClient;
+    private final AciHttpClientImpl compressingClient;
+    private final EndpointRegistry endpointRegistry;
+
+    /**
+     * @param Whether to ask for compressed responses from servers whose support for compression is unknown. Defaults
+     * to true.
+     */
+    @Setter
+    private volatile boolean compressByDefault = true;
+
+    /**
+     * @param httpClient The HttpClient to send actions with
+     */
+    public CompressionNegotiatingAciHttpClient(final CloseableHttpClient httpClient) {
+        this(httpClient, new EndpointRegistry());
+    }
+
+    /**
+     * @param httpClient       The HttpClient to send actions with
+     * @param endpointRegistry The registry recording whether each server supports compression
+     */
+    public CompressionNegotiatingAciHttpClient(final CloseableHttpClient httpClient, final EndpointRegistry endpointRegistry) {
+        plainClient = new AciHttpClientImpl(httpClient);
+        compressingClient = new AciHttpClientImpl(new AcceptEncodingHttpClient(httpClient));
+        this.endpointRegistry = endpointRegistry;
+    }
+
+    /**
+     * @param usePostMethod True to send actions with POST rather than GET
+     */
+    public void setUsePostMethod(final boolean usePostMethod) {
+        plainClient.setUsePostMethod(usePostMethod);
+        compressingClient.setUsePostMethod(usePostMethod);
+    }
+
+    /**
+     * @param serverDetails The server
+     * @param supported     True if the server supports compression, false if it does not or null if it is unknown
+     */
+    public void setCompression(final AciServerDetails serverDetails, final Boolean supported) {
+        endpointRegistry.get(Endpoint.of(serverDetails)).setCompression(supported);
+    }
+
+    @Override
+    public AciResponseInputStream executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters) throws IOException, AciHttpException {
+        final EndpointState state = endpointRegistry.get(Endpoint.of(serverDetails));
+        final Boolean supported = state.getCompression();
+
+        if (supported == null ? !compressByDefault : !supported) {
+            return plainClient.executeAction(serverDetails, parameters);
+        }
+
+        final AciResponseInputStream response = compressingClient.executeAction(serverDetails, parameters);
+        final NegotiatedAciResponseInputStream negotiated;
+
+        try {
+            negotiated = new NegotiatedAciResponseInputStream(response);
+        } catch (final IOException e) {
+            response.close();
+            throw e;
+        }
+
+        if (supported == null) {
+            state.setCompression(negotiated.isCompressed());
+        }
+
+        return negotiated;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Settings for an {@link AdaptiveConcurrencyLimiter}
+ */
+@Data
+@Builder(toBuilder = true)
+public class ConcurrencyLimit {
+
+    /**
+     * @return The number of concurrent requests allowed before any latency has been measured
+     */
+    private final int initialLimit;
+
+    /**
+     * @return The lowest the limit may fall to
+     */
+    private final int minLimit;
+
+    /**
+     * @return The highest the limit may rise to. This should not exceed the size of the server's thread pool.
+     */
+    private final int maxLimit;
+
+    /**
+     * @return How long, in milliseconds, a request may wait for capacity before it is rejected. If zero, requests
+     * are rejected as soon as the limit is reached.
+     */
+    private final long maxQueueTime;
+
+    /**
+     * @return The factor the limit is multiplied by when a request times out or cannot connect
+     */
+    private final double backoffRatio;
+
+    @SuppressWarnings({"FieldMayBeFinal", "unused"})
+    public static class ConcurrencyLimitBuilder {
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+        private long maxQueueTime = 50;
+        private double backoffRatio = 0.9;
+    }
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciServiceException;
+
+/**
+ * Thrown when an action is rejected because too many requests are already in flight to the server
+ */
+public class ConcurrencyLimitExceededException extends AciServiceException {
+    private static final long serialVersionUID = -5410282530617203648L;
+
+    public ConcurrencyLimitExceededException(final String message) {
+        super(message);
+    }
+}
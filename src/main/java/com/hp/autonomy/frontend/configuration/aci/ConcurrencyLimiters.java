@@ -0,0 +1,44 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The {@link AdaptiveConcurrencyLimiter}s for a set of servers
+ *
+ * @param <K> The type identifying a server
+ */
+class ConcurrencyLimiters<K> {
+
+    private final ConcurrentMap<K, ConcurrencyLimit> settings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<K, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    private volatile ConcurrencyLimit defaultSettings = ConcurrencyLimit.builder().build();
+
+    void setDefaultSettings(final ConcurrencyLimit defaultSettings) {
+        this.defaultSettings = defaultSettings;
+        limiters.keySet().removeIf(key -> !settings.containsKey(key));
+    }
+
+    void setSettings(final K key, final ConcurrencyLimit limit) {
+        if (limit == null) {
+            settings.remove(key);
+        } else {
+            settings.put(key, limit);
+        }
+
+        limiters.remove(key);
+    }
+
+    AdaptiveConcurrencyLimiter get(final K key) {
+        return limiters.computeIfAbsent(key, ignored -> {
+            final ConcurrencyLimit limit = settings.get(key);
+            return new AdaptiveConcurrencyLimiter(limit == null ? defaultSettings : limit);
+        });
+    }
+}
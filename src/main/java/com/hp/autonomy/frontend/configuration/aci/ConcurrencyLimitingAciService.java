@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+
+import java.util.Set;
+
+/**
+ * A {@link ConfigurableAciService} which limits the number of concurrent actions sent to each server using an
+ * {@link AdaptiveConcurrencyLimiter}. Actions which cannot be sent within the maximum queue time are rejected with a
+ * {@link ConcurrencyLimitExceededException}.
+ */
+public class ConcurrencyLimitingAciService implements ConfigurableAciService {
+
+    private final ConfigurableAciService aciService;
+    private final ConcurrencyLimiters<AciServerDetails> limiters = new ConcurrencyLimiters<>();
+
+    /**
+     * @param aciService The service to send actions with
+     */
+    public ConcurrencyLimitingAciService(final ConfigurableAciService aciService) {
+        this.aciService = aciService;
+    }
+
+    /**
+     * @param limit The limit settings used for servers without their own settings
+     */
+    public void setDefaultLimit(final ConcurrencyLimit limit) {
+        limiters.setDefaultSettings(limit);
+    }
+
+    /**
+     * @param serverConfig The server to set the limit for. Only its ACI port is limited.
+     * @param limit        The limit settings for the server, or null to use the default settings
+     */
+    public void setLimit(final ServerConfig serverConfig, final ConcurrencyLimit limit) {
+        setLimit(serverConfig.toAciServerDetails(), limit);
+    }
+
+    /**
+     * @param serverDetails The server to set the limit for
+     * @param limit         The limit settings for the server, or null to use the default settings
+     */
+    public void setLimit(final AciServerDetails serverDetails, final ConcurrencyLimit limit) {
+        limiters.setSettings(serverDetails, limit);
+    }
+
+    /**
+     * @param serverDetails The server
+     * @return The limiter for the server
+     */
+    public AdaptiveConcurrencyLimiter getLimiter(final AciServerDetails serverDetails) {
+        return limiters.get(serverDetails);
+    }
+
+    @Override
+    public AciServerDetails getServerDetails() {
+        return aciService.getServerDetails();
+    }
+
+    @Override
+    public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final AciServerDetails serverDetails = aciService.getServerDetails();
+        final AdaptiveConcurrencyLimiter limiter = acquire(serverDetails);
+        final long start = System.nanoTime();
+        boolean dropped = false;
+
+        try {
+            return aciService.executeAction(parameters, processor);
+        } catch (final AciErrorException e) {
+            throw e;
+        } catch (final AciServiceException e) {
+            dropped = true;
+            throw e;
+        } finally {
+            limiter.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    /**
+     * Uses the provided AciServerDetails rather than those returned by {@link #getServerDetails()}
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final AdaptiveConcurrencyLimiter limiter = acquire(serverDetails);
+        final long start = System.nanoTime();
+        boolean dropped = false;
+
+        try {
+            return aciService.executeAction(serverDetails, parameters, processor);
+        } catch (final AciErrorException e) {
+            throw e;
+        } catch (final AciServiceException e) {
+            dropped = true;
+            throw e;
+        } finally {
+            limiter.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    private AdaptiveConcurrencyLimiter acquire(final AciServerDetails serverDetails) {
+        final AdaptiveConcurrencyLimiter limiter = limiters.get(serverDetails);
+
+        if (!limiter.acquire()) {
+            throw new ConcurrencyLimitExceededException("Too many concurrent requests to " + serverDetails.getHost() + ':' + serverDetails.getPort());
+        }
+
+        return limiter;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingException;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+
+import java.io.IOException;
+
+/**
+ * A {@link ConfigurableIndexingService} which limits the number of concurrent index commands sent to each server
+ * using an {@link AdaptiveConcurrencyLimiter}. These limits are separate from those of
+ * {@link ConcurrencyLimitingAciService}, as index commands are handled by a different thread pool. Commands which
+ * cannot be sent within the maximum queue time are rejected with an {@link IndexingException}.
+ */
+public class ConcurrencyLimitingIndexingService implements ConfigurableIndexingService {
+
+    private final ConfigurableIndexingService indexingService;
+    private final ConcurrencyLimiters<ServerDetails> limiters = new ConcurrencyLimiters<>();
+
+    /**
+     * @param indexingService The service to send index commands with
+     */
+    public ConcurrencyLimitingIndexingService(final ConfigurableIndexingService indexingService) {
+        this.indexingService = indexingService;
+    }
+
+    /**
+     * @param limit The limit settings used for servers without their own settings
+     */
+    public void setDefaultLimit(final ConcurrencyLimit limit) {
+        limiters.setDefaultSettings(limit);
+    }
+
+    /**
+     * @param serverConfig The server to set the limit for. Only its index port is limited.
+     * @param limit        The limit settings for the server, or null to use the default settings
+     */
+    public void setLimit(final ServerConfig serverConfig, final ConcurrencyLimit limit) {
+        setLimit(serverConfig.toServerDetails(), limit);
+    }
+
+    /**
+     * @param serverDetails The server to set the limit for
+     * @param limit         The limit settings for the server, or null to use the default settings
+     */
+    public void setLimit(final ServerDetails serverDetails, final ConcurrencyLimit limit) {
+        limiters.setSettings(serverDetails, limit);
+    }
+
+    /**
+     * @param serverDetails The server
+     * @return The limiter for the server
+     */
+    public AdaptiveConcurrencyLimiter getLimiter(final ServerDetails serverDetails) {
+        return limiters.get(serverDetails);
+    }
+
+    @Override
+    public ServerDetails getServerDetails() {
+        return indexingService.getServerDetails();
+    }
+
+    @Override
+    public int executeCommand(final IndexCommand command) throws IndexingException {
+        final AdaptiveConcurrencyLimiter limiter = acquire(indexingService.getServerDetails());
+        final long start = System.nanoTime();
+        boolean dropped = false;
+
+        try {
+            return indexingService.executeCommand(command);
+        } catch (final IndexingException e) {
+            dropped = e.getCause() instanceof IOException;
+            throw e;
+        } finally {
+            limiter.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    /**
+     * Uses the given {@link ServerDetails} instead of those returned by {@link #getServerDetails()}
+     * {@inheritDoc}
+     */
+    @Override
+    public int executeCommand(final ServerDetails serverDetails, final IndexCommand command) throws IndexingException {
+        final AdaptiveConcurrencyLimiter limiter = acquire(serverDetails);
+        final long start = System.nanoTime();
+        boolean dropped = false;
+
+        try {
+            return indexingService.executeCommand(serverDetails, command);
+        } catch (final IndexingException e) {
+            dropped = e.getCause() instanceof IOException;
+            throw e;
+        } finally {
+            limiter.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    private AdaptiveConcurrencyLimiter acquire(final ServerDetails serverDetails) {
+        final AdaptiveConcurrencyLimiter limiter = limiters.get(serverDetails);
+
+        if (!limiter.acquire()) {
+            throw new IndexingException("Too many concurrent index commands to " + serverDetails.getHost() + ':' + serverDetails.getPort());
+        }
+
+        return limiter;
+    }
+}
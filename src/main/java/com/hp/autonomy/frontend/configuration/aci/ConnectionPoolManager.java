@@ -0,0 +1,392 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.hp.autonomy.frontend.configuration.server.ConnectionPoolSettings;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import lombok.Setter;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.X509HostnameVerifier;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains one connection pool for each distinct IDOL endpoint, identified by protocol, host and port, so that the
+ * ACI, index and service ports of every server are pooled independently with the settings given by
+ * {@link ServerConfig#getConnectionPool()}.
+ * <p>
+ * Requests are sent through the client returned by {@link #getHttpClient()}, which can be shared by
+ * {@link com.autonomy.aci.client.transport.impl.AciHttpClientImpl},
+ * {@link com.autonomy.nonaci.indexing.impl.IndexingServiceImpl} and {@link CompressionNegotiatingAciHttpClient}. It
+ * sends each request through the pool for its target, creating the pool with the default settings if the endpoint has
+ * not been registered. Registering a server again applies its new settings to the existing pools.
+ * <p>
+ * The pooled clients do not decompress responses; compression is negotiated by
+ * {@link CompressionNegotiatingAciHttpClient}.
+ */
+@SuppressWarnings("JavaDoc")
+public class ConnectionPoolManager implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPoolManager.class);
+
+    /**
+     * The settings used for endpoints which have not been registered, and for any setting a registered server does
+     * not specify
+     */
+    public static final ConnectionPoolSettings DEFAULT_SETTINGS = ConnectionPoolSettings.builder()
+            .maxConnections(20)
+            .keepAlive(30000L)
+            .idleTimeout(60000L)
+            .tlsSessionReuse(true)
+            .build();
+
+    /**
+     * @param The {@link SharedTlsContext} used for HTTPS connections, which should be shared with any other clients
+     * of the same servers. This must be set before the first request is sent.
+     */
+    @Setter
+    private SharedTlsContext tlsContext;
+
+    /**
+     * @param The hostname verifier used for HTTPS connections. Defaults to
+     * {@link SSLConnectionSocketFactory#BROWSER_COMPATIBLE_HOSTNAME_VERIFIER}.
+     */
+    @Setter
+    private X509HostnameVerifier hostnameVerifier = SSLConnectionSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER;
+
+    /**
+     * @param The timeouts applied to requests made through every pool
+     */
+    @Setter
+    private RequestConfig requestConfig = RequestConfig.DEFAULT;
+
+    /**
+     * @param How often, in milliseconds, idle and expired connections are closed. Defaults to 5000.
+     */
+    @Setter
+    private long evictionInterval = 5000L;
+
+    private volatile ConnectionPoolSettings defaultSettings = DEFAULT_SETTINGS;
+
+    private final ConcurrentMap<HttpHost, ConnectionPoolSettings> registeredSettings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<HttpHost, Pool> pools = new ConcurrentHashMap<>();
+    private final CloseableHttpClient httpClient = new RoutingHttpClient();
+
+    private final Lock lock = new ReentrantLock();
+    private ScheduledExecutorService evictor;
+    private boolean closed;
+
+    /**
+     * @param defaultSettings The settings used for endpoints which have not been registered. Unset values are taken
+     *                        from {@link #DEFAULT_SETTINGS}.
+     */
+    public void setDefaultSettings(final ConnectionPoolSettings defaultSettings) {
+        this.defaultSettings = defaultSettings == null ? DEFAULT_SETTINGS : defaultSettings.merge(DEFAULT_SETTINGS);
+        pools.forEach((endpoint, pool) -> pool.configure(getSettings(endpoint)));
+    }
+
+    /**
+     * Applies the connection pool settings of the given server to its ACI port, and to its index and service ports if
+     * they are known
+     *
+     * @param serverConfig The server
+     */
+    public void register(final ServerConfig serverConfig) {
+        final ConnectionPoolSettings settings = serverConfig.getConnectionPool();
+
+        register(endpoint(serverConfig.getProtocol(), serverConfig.getHost(), serverConfig.getPort()), settings);
+
+        if (serverConfig.getIndexPort() != null) {
+            register(endpoint(serverConfig.getIndexProtocol(), serverConfig.getHost(), serverConfig.getIndexPort()), settings);
+        }
+
+        if (serverConfig.getServicePort() != null) {
+            register(endpoint(serverConfig.getServiceProtocol(), serverConfig.getHost(), serverConfig.getServicePort()), settings);
+        }
+    }
+
+    /**
+     * @return The client which sends each request through the pool for its target endpoint
+     */
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * @param endpoint The endpoint
+     * @return The settings in use for the given endpoint, with unset values taken from the default settings
+     */
+    public ConnectionPoolSettings getSettings(final HttpHost endpoint) {
+        final ConnectionPoolSettings settings = registeredSettings.get(normalise(endpoint));
+        return settings == null ? defaultSettings : settings.merge(defaultSettings);
+    }
+
+    /**
+     * @param endpoint The endpoint
+     * @return The statistics of the pool for the given endpoint, or null if no request has been sent to it
+     */
+    public PoolStats getStats(final HttpHost endpoint) {
+        final Pool pool = pools.get(normalise(endpoint));
+        return pool == null ? null : pool.connectionManager.getTotalStats();
+    }
+
+    /**
+     * Closes every pool, and every connection in them
+     */
+    @Override
+    public void close() {
+        lock.lock();
+
+        try {
+            closed = true;
+
+            if (evictor != null) {
+                evictor.shutdownNow();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (final Map.Entry<HttpHost, Pool> entry : pools.entrySet()) {
+            pools.remove(entry.getKey(), entry.getValue());
+            entry.getValue().close();
+        }
+    }
+
+    private void register(final HttpHost endpoint, final ConnectionPoolSettings settings) {
+        if (settings == null) {
+            registeredSettings.remove(endpoint);
+        } else {
+            registeredSettings.put(endpoint, settings);
+        }
+
+        final Pool pool = pools.get(endpoint);
+
+        if (pool != null) {
+            pool.configure(getSettings(endpoint));
+        }
+    }
+
+    /**
+     * @return The {@link SharedTlsContext} used for HTTPS connections
+     */
+    public SharedTlsContext getTlsContext() {
+        lock.lock();
+
+        try {
+            if (tlsContext == null) {
+                tlsContext = new SharedTlsContext();
+            }
+
+            return tlsContext;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Pool getPool(final HttpHost target) {
+        final HttpHost endpoint = normalise(target);
+        final Pool existing = pools.get(endpoint);
+
+        if (existing != null) {
+            return existing;
+        }
+
+        lock.lock();
+
+        try {
+            if (closed) {
+                throw new IllegalStateException("Connection pool manager has been closed");
+            }
+
+            if (evictor == null) {
+                evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    final Thread thread = new Thread(runnable, "idol-connection-evictor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+                evictor.scheduleWithFixedDelay(this::evictConnections, evictionInterval, evictionInterval, TimeUnit.MILLISECONDS);
+            }
+
+            return pools.computeIfAbsent(endpoint, this::createPool);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Pool createPool(final HttpHost endpoint) {
+        final ConnectionPoolSettings settings = getSettings(endpoint);
+        final Pool pool = new Pool(endpoint, settings);
+
+        LOGGER.debug("Created connection pool for {} with {}", endpoint, settings);
+
+        return pool;
+    }
+
+    private void evictConnections() {
+        for (final Pool pool : pools.values()) {
+            try {
+                pool.connectionManager.closeExpiredConnections();
+                pool.connectionManager.closeIdleConnections(pool.settings.getIdleTimeout(), TimeUnit.MILLISECONDS);
+            } catch (final RuntimeException e) {
+                LOGGER.warn("Error evicting idle connections to {}", pool.endpoint, e);
+            }
+        }
+    }
+
+    private static HttpHost endpoint(final Enum<?> protocol, final String host, final int port) {
+        return new HttpHost(host, port, protocol.name().toLowerCase(Locale.ENGLISH));
+    }
+
+    private static HttpHost normalise(final HttpHost target) {
+        final String scheme = target.getSchemeName().toLowerCase(Locale.ENGLISH);
+
+        if (target.getPort() >= 0) {
+            return target.getSchemeName().equals(scheme) ? target : new HttpHost(target.getHostName(), target.getPort(), scheme);
+        }
+
+        return new HttpHost(target.getHostName(), "https".equals(scheme) ? 443 : 80, scheme);
+    }
+
+    private class Pool implements Closeable {
+        private final HttpHost endpoint;
+        private final PoolingHttpClientConnectionManager connectionManager;
+        private final CloseableHttpClient httpClient;
+        private volatile ConnectionPoolSettings settings;
+
+        private Pool(final HttpHost endpoint, final ConnectionPoolSettings settings) {
+            this.endpoint = endpoint;
+
+            connectionManager = new PoolingHttpClientConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+                    .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                    .register("https", getTlsContext().createSocketFactory(hostnameVerifier, () -> this.settings.getTlsSessionReuse()))
+                    .build());
+
+            configure(settings);
+
+            httpClient = HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(requestConfig)
+                    .setKeepAliveStrategy((response, httpContext) -> {
+                        final long keepAlive = this.settings.getKeepAlive();
+                        final long requested = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, httpContext);
+
+                        return requested > 0 ? Math.min(requested, keepAlive) : keepAlive;
+                    })
+                    .disableContentCompression()
+                    .build();
+        }
+
+        private void configure(final ConnectionPoolSettings settings) {
+            this.settings = settings;
+
+            // every route in this pool is to the same endpoint
+            connectionManager.setMaxTotal(settings.getMaxConnections());
+            connectionManager.setDefaultMaxPerRoute(settings.getMaxConnections());
+        }
+
+        @Override
+        public void close() {
+            try {
+                httpClient.close();
+            } catch (final IOException e) {
+                LOGGER.warn("Error closing connection pool for {}", endpoint, e);
+            }
+        }
+    }
+
+    // the deprecated methods behave as those of the clients built by HttpClients
+    @SuppressWarnings("deprecation")
+    private class RoutingHttpClient extends CloseableHttpClient {
+        private final HttpParams params = new BasicHttpParams();
+
+        @Override
+        protected CloseableHttpResponse doExecute(final HttpHost target, final HttpRequest request, final HttpContext context) throws IOException {
+            return getPool(target).httpClient.execute(target, request, context);
+        }
+
+        @Override
+        public HttpParams getParams() {
+            return params;
+        }
+
+        @Override
+        public ClientConnectionManager getConnectionManager() {
+            return new ClientConnectionManager() {
+                @Override
+                public SchemeRegistry getSchemeRegistry() {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public ClientConnectionRequest requestConnection(final HttpRoute route, final Object state) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void releaseConnection(final ManagedClientConnection connection, final long validDuration, final TimeUnit timeUnit) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void closeIdleConnections(final long idleTime, final TimeUnit timeUnit) {
+                    for (final Pool pool : pools.values()) {
+                        pool.connectionManager.closeIdleConnections(idleTime, timeUnit);
+                    }
+                }
+
+                @Override
+                public void closeExpiredConnections() {
+                    for (final Pool pool : pools.values()) {
+                        pool.connectionManager.closeExpiredConnections();
+                    }
+                }
+
+                @Override
+                public void shutdown() {
+                    ConnectionPoolManager.this.close();
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            ConnectionPoolManager.this.close();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.nonaci.ServerDetails;
+import lombok.Data;
+import org.apache.http.HttpHost;
+
+import java.util.Locale;
+
+/**
+ * An IDOL endpoint, identified by its protocol, host and port. The protocol and host are case insensitive.
+ */
+@SuppressWarnings("JavaDoc")
+@Data
+public final class Endpoint {
+
+    /**
+     * @return The protocol of the endpoint, in lower case
+     */
+    private final String protocol;
+
+    /**
+     * @return The host of the endpoint, in lower case
+     */
+    private final String host;
+
+    private final int port;
+
+    /**
+     * @param protocol The protocol of the endpoint, such as http or https
+     * @param host     The host of the endpoint
+     * @param port     The port of the endpoint
+     */
+    public Endpoint(final String protocol, final String host, final int port) {
+        this.protocol = protocol.toLowerCase(Locale.ENGLISH);
+        this.host = host.toLowerCase(Locale.ENGLISH);
+        this.port = port;
+    }
+
+    /**
+     * @param serverDetails The ACI or service port of a server
+     * @return The endpoint of the port
+     */
+    public static Endpoint of(final AciServerDetails serverDetails) {
+        return new Endpoint(serverDetails.getProtocol().name(), serverDetails.getHost(), serverDetails.getPort());
+    }
+
+    /**
+     * @param serverDetails The index port of a server
+     * @return The endpoint of the port
+     */
+    public static Endpoint of(final ServerDetails serverDetails) {
+        return new Endpoint(serverDetails.getProtocol().name(), serverDetails.getHost(), serverDetails.getPort());
+    }
+
+    /**
+     * @param host The target of an HTTP request. If it has no port, the default port of its scheme is used.
+     * @return The endpoint of the target
+     */
+    public static Endpoint of(final HttpHost host) {
+        final String scheme = host.getSchemeName().toLowerCase(Locale.ENGLISH);
+        final int port = host.getPort() >= 0 ? host.getPort() : "https".equals(scheme) ? 443 : 80;
+        return new Endpoint(scheme, host.getHostName(), port);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A registry of the live state of every IDOL endpoint, shared by the services which send requests to them so that
+ * routing, limiting and metrics all see the same view of each endpoint. Requests are recorded by
+ * {@link EndpointTrackingAciService} and {@link EndpointTrackingIndexingService}, negotiated TLS protocols by a
+ * {@link SharedTlsContext} and support for compression by a {@link CompressionNegotiatingAciHttpClient}. The average
+ * latencies are read by a {@link LatencyMonitoringAciService}, and the health of Content engines by a
+ * {@link com.hp.autonomy.frontend.configuration.topology.ShardRoutingAciService}.
+ * <p>
+ * Reading and updating the registry never blocks: the states are held in a {@link ConcurrentHashMap} and their
+ * counters are striped.
+ */
+public class EndpointRegistry {
+    private static final double DEFAULT_SMOOTHING = 0.2;
+
+    private final ConcurrentMap<Endpoint, EndpointState> states = new ConcurrentHashMap<>();
+    private final double smoothing;
+
+    /**
+     * Creates a registry which weights each new latency by 0.2 in the average latency of its endpoint
+     */
+    public EndpointRegistry() {
+        this(DEFAULT_SMOOTHING);
+    }
+
+    /**
+     * @param smoothing The weight given to each new latency in the average latency of its endpoint, between 0 and 1
+     */
+    public EndpointRegistry(final double smoothing) {
+        if (smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("Smoothing must be greater than 0 and at most 1");
+        }
+
+        this.smoothing = smoothing;
+    }
+
+    /**
+     * @param endpoint The endpoint
+     * @return The state of the endpoint, which is created if it is not yet registered
+     */
+    public EndpointState get(final Endpoint endpoint) {
+        final EndpointState state = states.get(endpoint);
+        return state == null ? states.computeIfAbsent(endpoint, key -> new EndpointState(key, smoothing)) : state;
+    }
+
+    /**
+     * @param endpoint The endpoint
+     * @return The state of the endpoint, or null if it is not registered
+     */
+    public EndpointState find(final Endpoint endpoint) {
+        return states.get(endpoint);
+    }
+
+    /**
+     * @return The states of every registered endpoint. This is a live view.
+     */
+    public Collection<EndpointState> getStates() {
+        return Collections.unmodifiableCollection(states.values());
+    }
+
+    /**
+     * Registers the ACI port of the given server, and its index and service ports if they are known
+     *
+     * @param serverConfig The server
+     */
+    public void register(final ServerConfig serverConfig) {
+        get(Endpoint.of(serverConfig.toAciServerDetails()));
+
+        if (serverConfig.getServicePort() != null) {
+            get(Endpoint.of(serverConfig.toServiceServerDetails()));
+        }
+
+        if (serverConfig.getIndexPort() != null) {
+            get(Endpoint.of(serverConfig.toServerDetails()));
+        }
+    }
+
+    /**
+     * @param endpoint The endpoint to forget
+     */
+    public void remove(final Endpoint endpoint) {
+        states.remove(endpoint);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The live state of an {@link Endpoint} held by an {@link EndpointRegistry}. Every field can be read and updated
+ * concurrently without locking.
+ */
+public class EndpointState {
+    private static final long NO_LATENCY = Double.doubleToLongBits(Double.NaN);
+
+    private final Endpoint endpoint;
+    private final double smoothing;
+
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicLong averageLatency = new AtomicLong(NO_LATENCY);
+
+    private volatile Health health = Health.UNKNOWN;
+    private volatile Boolean compression;
+    private volatile String tlsProtocol;
+
+    EndpointState(final Endpoint endpoint, final double smoothing) {
+        this.endpoint = endpoint;
+        this.smoothing = smoothing;
+    }
+
+    /**
+     * @return The endpoint
+     */
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return UP if the last request to the endpoint received a response, DOWN if it could not be sent or no response
+     * was received, or UNKNOWN if no requests have completed
+     */
+    public Health getHealth() {
+        return health;
+    }
+
+    /**
+     * @param health The health of the endpoint, for example as found by a separate health check
+     */
+    public void setHealth(final Health health) {
+        this.health = health;
+    }
+
+    /**
+     * @return The number of requests to the endpoint which have not completed
+     */
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    /**
+     * @return The number of requests to the endpoint which have completed
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return The number of requests to the endpoint which could not be sent or received no response
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * @return The exponentially weighted moving average latency of the endpoint in milliseconds, or zero if no requests
+     * have completed
+     */
+    public double getAverageLatency() {
+        final double average = Double.longBitsToDouble(averageLatency.get());
+        return Double.isNaN(average) ? 0 : average;
+    }
+
+    /**
+     * @return True if the endpoint returns compressed responses, false if it does not, or null if this is unknown
+     */
+    public Boolean getCompression() {
+        return compression;
+    }
+
+    /**
+     * @param compression True if the endpoint returns compressed responses, false if it does not, or null if this is
+     *                    unknown
+     */
+    public void setCompression(final Boolean compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * @return The TLS protocol negotiated by the last handshake with the endpoint, or null if there has been none
+     */
+    public String getTlsProtocol() {
+        return tlsProtocol;
+    }
+
+    /**
+     * @param tlsProtocol The TLS protocol negotiated with the endpoint
+     */
+    public void setTlsProtocol(final String tlsProtocol) {
+        this.tlsProtocol = tlsProtocol;
+    }
+
+    /**
+     * Records the start of a request to the endpoint
+     *
+     * @return The start time, to pass to {@link #complete}
+     */
+    public long begin() {
+        inFlight.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the end of a request to the endpoint
+     *
+     * @param start  The start time returned by {@link #begin}
+     * @param failed True if the request could not be sent or received no response
+     */
+    public void complete(final long start, final boolean failed) {
+        final double latency = (System.nanoTime() - start) / 1e6;
+
+        inFlight.decrement();
+        requests.increment();
+
+        if (failed) {
+            failures.increment();
+        }
+
+        health = failed ? Health.DOWN : Health.UP;
+
+        long current;
+        double updated;
+
+        do {
+            current = averageLatency.get();
+            final double average = Double.longBitsToDouble(current);
+            updated = Double.isNaN(average) ? latency : average + smoothing * (latency - average);
+        } while (!averageLatency.compareAndSet(current, Double.doubleToLongBits(updated)));
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointState(" + endpoint + ", health=" + health + ", inFlight=" + getInFlight() + ", requests=" + getRequests()
+                + ", failures=" + getFailures() + ", averageLatency=" + getAverageLatency() + ", compression=" + compression
+                + ", tlsProtocol=" + tlsProtocol + ')';
+    }
+
+    public enum Health {
+        UNKNOWN,
+        UP,
+        DOWN
+    }
+}
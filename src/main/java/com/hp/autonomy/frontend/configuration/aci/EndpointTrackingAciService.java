@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+
+import java.util.Set;
+
+/**
+ * A {@link ConfigurableAciService} which records the in-flight count, latency and health of each server in an
+ * {@link EndpointRegistry}. Actions which return an ACI error count as successful, since the server responded.
+ */
+public class EndpointTrackingAciService implements ConfigurableAciService {
+
+    private final ConfigurableAciService aciService;
+    private final EndpointRegistry endpointRegistry;
+
+    /**
+     * @param aciService       The service to send actions with
+     * @param endpointRegistry The registry to record actions in
+     */
+    public EndpointTrackingAciService(final ConfigurableAciService aciService, final EndpointRegistry endpointRegistry) {
+        this.aciService = aciService;
+        this.endpointRegistry = endpointRegistry;
+    }
+
+    @Override
+    public AciServerDetails getServerDetails() {
+        return aciService.getServerDetails();
+    }
+
+    @Override
+    public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final EndpointState state = endpointRegistry.get(Endpoint.of(aciService.getServerDetails()));
+        final long start = state.begin();
+        boolean failed = false;
+
+        try {
+            return aciService.executeAction(parameters, processor);
+        } catch (final AciErrorException e) {
+            throw e;
+        } catch (final AciServiceException e) {
+            failed = true;
+            throw e;
+        } finally {
+            state.complete(start, failed);
+        }
+    }
+
+    /**
+     * Uses the provided AciServerDetails rather than those returned by {@link #getServerDetails()}
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final EndpointState state = endpointRegistry.get(Endpoint.of(serverDetails));
+        final long start = state.begin();
+        boolean failed = false;
+
+        try {
+            return aciService.executeAction(serverDetails, parameters, processor);
+        } catch (final AciErrorException e) {
+            throw e;
+        } catch (final AciServiceException e) {
+            failed = true;
+            throw e;
+        } finally {
+            state.complete(start, failed);
+        }
+    }
+}
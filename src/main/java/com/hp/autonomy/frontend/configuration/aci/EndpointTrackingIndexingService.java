@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingException;
+
+import java.io.IOException;
+
+/**
+ * A {@link ConfigurableIndexingService} which records the in-flight count, latency and health of each index port in
+ * an {@link EndpointRegistry}. Commands rejected by the server count as successful, since the server responded.
+ */
+public class EndpointTrackingIndexingService implements ConfigurableIndexingService {
+
+    private final ConfigurableIndexingService indexingService;
+    private final EndpointRegistry endpointRegistry;
+
+    /**
+     * @param indexingService  The service to send index commands with
+     * @param endpointRegistry The registry to record commands in
+     */
+    public EndpointTrackingIndexingService(final ConfigurableIndexingService indexingService, final EndpointRegistry endpointRegistry) {
+        this.indexingService = indexingService;
+        this.endpointRegistry = endpointRegistry;
+    }
+
+    @Override
+    public ServerDetails getServerDetails() {
+        return indexingService.getServerDetails();
+    }
+
+    @Override
+    public int executeCommand(final IndexCommand command) throws IndexingException {
+        final EndpointState state = endpointRegistry.get(Endpoint.of(indexingService.getServerDetails()));
+        final long start = state.begin();
+        boolean failed = false;
+
+        try {
+            return indexingService.executeCommand(command);
+        } catch (final IndexingException e) {
+            failed = e.getCause() instanceof IOException;
+            throw e;
+        } finally {
+            state.complete(start, failed);
+        }
+    }
+
+    /**
+     * Uses the given {@link ServerDetails} instead of those returned by {@link #getServerDetails()}
+     * {@inheritDoc}
+     */
+    @Override
+    public int executeCommand(final ServerDetails serverDetails, final IndexCommand command) throws IndexingException {
+        final EndpointState state = endpointRegistry.get(Endpoint.of(serverDetails));
+        final long start = state.begin();
+        boolean failed = false;
+
+        try {
+            return indexingService.executeCommand(serverDetails, command);
+        } catch (final IndexingException e) {
+            failed = e.getCause() instanceof IOException;
+            throw e;
+        } finally {
+            state.complete(start, failed);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.hp.autonomy.frontend.configuration.event.ConfigurationEvent;
+import com.hp.autonomy.frontend.configuration.event.ConfigurationEventBus;
+import lombok.Setter;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link ConfigurableAciService} which records each action in an {@link EndpointRegistry} and publishes a
+ * {@link ConfigurationEvent} when the average latency of a server rises above the threshold, and again when it falls
+ * back below the recovery threshold. The average is the one kept by the registry, so it is shared with everything else
+ * reading the registry and its smoothing is that of the registry. Failed actions are included in the average.
+ * <p>
+ * Actions are recorded by an {@link EndpointTrackingAciService}, so the service given to the constructor should not
+ * record them in the same registry as well.
+ */
+@SuppressWarnings("JavaDoc")
+public class LatencyMonitoringAciService implements ConfigurableAciService {
+
+    private final ConfigurableAciService aciService;
+    private final EndpointRegistry endpointRegistry;
+    private final ConfigurationEventBus eventBus;
+    private final Set<Endpoint> exceeded = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param The average latency, in milliseconds, above which a server is reported as slow. Defaults to 1000.
+     */
+    @Setter
+    private volatile double threshold = 1000;
+
+    /**
+     * @param The proportion of the threshold the average latency must fall below before a slow server is reported as
+     * recovered, so that a latency close to the threshold does not produce a stream of events. Defaults to 0.8.
+     */
+    @Setter
+    private volatile double recoveryRatio = 0.8;
+
+    /**
+     * Creates a service which records actions in a registry of its own
+     *
+     * @param aciService The service to send actions with
+     * @param eventBus   The bus to publish latency threshold events to
+     */
+    public LatencyMonitoringAciService(final ConfigurableAciService aciService, final ConfigurationEventBus eventBus) {
+        this(aciService, new EndpointRegistry(), eventBus);
+    }
+
+    /**
+     * @param aciService       The service to send actions with
+     * @param endpointRegistry The registry to record actions in and read average latencies from
+     * @param eventBus         The bus to publish latency threshold events to
+     */
+    public LatencyMonitoringAciService(
+            final ConfigurableAciService aciService,
+            final EndpointRegistry endpointRegistry,
+            final ConfigurationEventBus eventBus
+    ) {
+        this.aciService = new EndpointTrackingAciService(aciService, endpointRegistry);
+        this.endpointRegistry = endpointRegistry;
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * @param serverDetails The server
+     * @return The average latency of the server in milliseconds, or zero if no actions have been sent to it
+     */
+    public double getAverageLatency(final AciServerDetails serverDetails) {
+        final EndpointState state = endpointRegistry.find(Endpoint.of(serverDetails));
+        return state == null ? 0 : state.getAverageLatency();
+    }
+
+    @Override
+    public AciServerDetails getServerDetails() {
+        return aciService.getServerDetails();
+    }
+
+    @Override
+    public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final AciServerDetails serverDetails = aciService.getServerDetails();
+        final EndpointState state = endpointRegistry.get(Endpoint.of(serverDetails));
+        final double previous = state.getAverageLatency();
+
+        try {
+            return aciService.executeAction(parameters, processor);
+        } finally {
+            checkThreshold(serverDetails, state, previous);
+        }
+    }
+
+    /**
+     * Uses the provided AciServerDetails rather than those returned by {@link #getServerDetails()}
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final EndpointState state = endpointRegistry.get(Endpoint.of(serverDetails));
+        final double previous = state.getAverageLatency();
+
+        try {
+            return aciService.executeAction(serverDetails, parameters, processor);
+        } finally {
+            checkThreshold(serverDetails, state, previous);
+        }
+    }
+
+    private void checkThreshold(final AciServerDetails serverDetails, final EndpointState state, final double previous) {
+        final double average = state.getAverageLatency();
+
+        // adding and removing the endpoint decides which of any concurrent callers publishes the event
+        if (average > threshold && exceeded.add(state.getEndpoint())) {
+            eventBus.publish(new ConfigurationEvent(ConfigurationEvent.Type.LATENCY_THRESHOLD_EXCEEDED, serverDetails, previous, average));
+        } else if (average < threshold * recoveryRatio && exceeded.remove(state.getEndpoint())) {
+            eventBus.publish(new ConfigurationEvent(ConfigurationEvent.Type.LATENCY_THRESHOLD_RECOVERED, serverDetails, previous, average));
+        }
+    }
+}
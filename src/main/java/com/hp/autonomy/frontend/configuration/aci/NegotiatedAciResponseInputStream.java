@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.transport.AciResponseInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The response to an action for which {@link CompressionNegotiatingAciHttpClient} asked for a compressed response. If
+ * the server compressed the response, it is decompressed as it is read. The headers are those of the original
+ * response, so {@link #getContentEncoding()} reports whether the server compressed it.
+ */
+public class NegotiatedAciResponseInputStream extends AciResponseInputStream {
+
+    private final AciResponseInputStream response;
+    private final boolean compressed;
+
+    /**
+     * @param response The response to a request which asked for compression
+     * @throws IOException If the response is compressed but its compression header cannot be read
+     */
+    public NegotiatedAciResponseInputStream(final AciResponseInputStream response) throws IOException {
+        this(response, encoding(response));
+    }
+
+    private NegotiatedAciResponseInputStream(final AciResponseInputStream response, final String encoding) throws IOException {
+        super(decode(response, encoding));
+        this.response = response;
+        compressed = encoding != null;
+    }
+
+    /**
+     * @return True if the server compressed the response
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    @Override
+    public int getStatusCode() {
+        return response.getStatusCode();
+    }
+
+    @Override
+    public String getHeader(final String name) {
+        return response.getHeader(name);
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return response.getContentEncoding();
+    }
+
+    /**
+     * @return The length of the response body before decompression
+     */
+    @Override
+    public long getContentLength() {
+        return response.getContentLength();
+    }
+
+    @Override
+    public String getContentType() {
+        return response.getContentType();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            response.close();
+        }
+    }
+
+    private static String encoding(final AciResponseInputStream response) {
+        final String contentEncoding = response.getContentEncoding();
+
+        if (contentEncoding == null) {
+            return null;
+        }
+
+        final String encoding = contentEncoding.trim().toLowerCase(Locale.ENGLISH);
+        return "gzip".equals(encoding) || "x-gzip".equals(encoding) || "deflate".equals(encoding) ? encoding : null;
+    }
+
+    private static InputStream decode(final AciResponseInputStream response, final String encoding) throws IOException {
+        if (encoding == null) {
+            return response;
+        }
+
+        return "deflate".equals(encoding) ? new InflaterInputStream(response) : new GZIPInputStream(response);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciParameter;
+import com.autonomy.aci.client.util.AciParameters;
+import lombok.Setter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Pages through the results of an action which supports the Start and MaxResults parameters, such as Query or
+ * GetContent, sending the action once per page as the results are consumed.
+ * <p>
+ * Only the page being consumed is held in memory, so arbitrarily large result sets can be exported. The next page
+ * is not requested until the current page has been consumed. Paging stops when a page contains fewer results than
+ * the page size, or when the maximum number of results has been returned.
+ *
+ * @param <T> The type of each result
+ */
+@SuppressWarnings("JavaDoc")
+public class PagedAction<T> implements Iterable<T> {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    private final ConfigurableAciService aciService;
+    private final AciParameters parameters;
+    private final Processor<? extends Collection<? extends T>> pageProcessor;
+
+    /**
+     * @param The number of results requested in each page. Defaults to 100.
+     */
+    @Setter
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    /**
+     * @param The maximum number of results to return, or zero to return all results. Defaults to zero.
+     */
+    @Setter
+    private int maxResults;
+
+    /**
+     * @param aciService    The service to send the action with
+     * @param parameters    The parameters of the action. Any Start or MaxResults parameters are replaced.
+     * @param pageProcessor Reads the results from the response to each page
+     */
+    public PagedAction(final ConfigurableAciService aciService, final Collection<? extends AciParameter> parameters, final Processor<? extends Collection<? extends T>> pageProcessor) {
+        this.aciService = aciService;
+        this.parameters = new AciParameters(parameters);
+        this.pageProcessor = pageProcessor;
+    }
+
+    /**
+     * @return An iterator which sends the action again for each page. Each iterator pages through the results
+     * independently.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        if (pageSize < 1) {
+            throw new IllegalStateException("Page size must be positive");
+        }
+
+        return new PageIterator();
+    }
+
+    /**
+     * @return A sequential stream of the results, paged as for {@link #iterator()}
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED), false);
+    }
+
+    private class PageIterator implements Iterator<T> {
+        // the 1-based index of the first result of the next page
+        private int start = 1;
+        private Iterator<? extends T> page = Collections.emptyIterator();
+        private boolean lastPage;
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext()) {
+                if (lastPage) {
+                    return false;
+                }
+
+                fetch();
+            }
+
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return page.next();
+        }
+
+        private void fetch() {
+            int size = pageSize;
+
+            if (maxResults > 0) {
+                size = Math.min(size, maxResults - start + 1);
+            }
+
+            if (size <= 0) {
+                lastPage = true;
+                page = Collections.emptyIterator();
+                return;
+            }
+
+            final AciParameters pageParameters = new AciParameters(parameters);
+            pageParameters.put("Start", start);
+            pageParameters.put("MaxResults", start + size - 1);
+
+            final Collection<? extends T> results = aciService.executeAction(pageParameters, pageProcessor);
+
+            lastPage = results.size() < size;
+            start += size;
+            page = results.iterator();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import lombok.Setter;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link ConfigurableAciService} which sends actions through a separate lane for each {@link RequestPriority}, per
+ * server. Capacity is shared between the lanes in proportion to their weights when both have actions waiting; batch
+ * actions may otherwise use all capacity except that reserved for interactive actions.
+ * <p>
+ * Actions sent without a priority use the default priority, which is {@link RequestPriority#INTERACTIVE} unless
+ * changed. Code which only accepts an {@link com.autonomy.aci.client.services.AciService}, such as a batch job, can be
+ * given the view returned by {@link #forPriority(RequestPriority)}. Actions which cannot be sent because their lane is
+ * full, or which wait longer than the maximum queue time, are rejected with a
+ * {@link ConcurrencyLimitExceededException}.
+ */
+@SuppressWarnings("JavaDoc")
+public class PrioritizedAciService implements ConfigurableAciService {
+
+    private final ConfigurableAciService aciService;
+    private final ConcurrentMap<AciServerDetails, PriorityLaneSettings> settings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<AciServerDetails, PriorityLanes> lanes = new ConcurrentHashMap<>();
+
+    private volatile PriorityLaneSettings defaultSettings = PriorityLaneSettings.builder().build();
+
+    /**
+     * @param The priority of actions sent without a priority
+     */
+    @Setter
+    private volatile RequestPriority defaultPriority = RequestPriority.INTERACTIVE;
+
+    /**
+     * @param aciService The service to send actions with
+     */
+    public PrioritizedAciService(final ConfigurableAciService aciService) {
+        this.aciService = aciService;
+    }
+
+    /**
+     * @param defaultSettings The lane settings used for servers without their own settings
+     */
+    public void setDefaultSettings(final PriorityLaneSettings defaultSettings) {
+        this.defaultSettings = defaultSettings;
+        lanes.keySet().removeIf(key -> !settings.containsKey(key));
+    }
+
+    /**
+     * @param serverDetails The server
+     * @param laneSettings  The lane settings for the server, or null to use the default settings
+     */
+    public void setSettings(final AciServerDetails serverDetails, final PriorityLaneSettings laneSettings) {
+        if (laneSettings == null) {
+            settings.remove(serverDetails);
+        } else {
+            settings.put(serverDetails, laneSettings);
+        }
+
+        lanes.remove(serverDetails);
+    }
+
+    /**
+     * @param priority The priority
+     * @return A view of this service which sends all actions with the given priority
+     */
+    public ConfigurableAciService forPriority(final RequestPriority priority) {
+        return new ConfigurableAciService() {
+            @Override
+            public AciServerDetails getServerDetails() {
+                return aciService.getServerDetails();
+            }
+
+            @Override
+            public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+                return PrioritizedAciService.this.executeAction(priority, parameters, processor);
+            }
+
+            @Override
+            public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+                return PrioritizedAciService.this.executeAction(priority, serverDetails, parameters, processor);
+            }
+        };
+    }
+
+    @Override
+    public AciServerDetails getServerDetails() {
+        return aciService.getServerDetails();
+    }
+
+    @Override
+    public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        return executeAction(defaultPriority, parameters, processor);
+    }
+
+    /**
+     * Uses the provided AciServerDetails rather than those returned by {@link #getServerDetails()}
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        return executeAction(defaultPriority, serverDetails, parameters, processor);
+    }
+
+    /**
+     * Sends an action to the server returned by {@link #getServerDetails()} with the given priority
+     *
+     * @param priority   The priority of the action
+     * @param parameters The parameters of the action
+     * @param processor  The processor for the response
+     * @param <T>        The type of the processed response
+     * @return The processed response
+     * @throws ConcurrencyLimitExceededException If the action could not be sent
+     */
+    public <T> T executeAction(final RequestPriority priority, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final PriorityLanes serverLanes = acquire(aciService.getServerDetails(), priority);
+
+        try {
+            return aciService.executeAction(parameters, processor);
+        } finally {
+            serverLanes.release();
+        }
+    }
+
+    /**
+     * Sends an action to the given server with the given priority
+     *
+     * @param priority      The priority of the action
+     * @param serverDetails The server
+     * @param parameters    The parameters of the action
+     * @param processor     The processor for the response
+     * @param <T>           The type of the processed response
+     * @return The processed response
+     * @throws ConcurrencyLimitExceededException If the action could not be sent
+     */
+    public <T> T executeAction(final RequestPriority priority, final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final PriorityLanes serverLanes = acquire(serverDetails, priority);
+
+        try {
+            return aciService.executeAction(serverDetails, parameters, processor);
+        } finally {
+            serverLanes.release();
+        }
+    }
+
+    /**
+     * @param serverDetails The server
+     * @return The number of actions in flight to the server
+     */
+    public int getInFlight(final AciServerDetails serverDetails) {
+        final PriorityLanes serverLanes = lanes.get(serverDetails);
+        return serverLanes == null ? 0 : serverLanes.getInFlight();
+    }
+
+    private PriorityLanes acquire(final AciServerDetails serverDetails, final RequestPriority priority) {
+        final PriorityLanes serverLanes = lanes.computeIfAbsent(serverDetails, key -> {
+            final PriorityLaneSettings laneSettings = settings.get(key);
+            return new PriorityLanes(laneSettings == null ? defaultSettings : laneSettings);
+        });
+
+        if (!serverLanes.acquire(priority)) {
+            throw new ConcurrencyLimitExceededException("The " + priority.name().toLowerCase(Locale.ENGLISH) + " lane for " + serverDetails.getHost() + ':' + serverDetails.getPort() + " is full");
+        }
+
+        return serverLanes;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Settings for the priority lanes of a single server used by {@link PrioritizedAciService}
+ */
+@Data
+@Builder(toBuilder = true)
+public class PriorityLaneSettings {
+
+    /**
+     * @return The maximum number of requests in flight to the server, across all priorities
+     */
+    private final int capacity;
+
+    /**
+     * @return The number of in-flight requests only available to {@link RequestPriority#INTERACTIVE} requests, so
+     * interactive requests need not wait for batch requests to complete
+     */
+    private final int reservedInteractive;
+
+    /**
+     * @return The share of capacity given to interactive requests when both lanes have requests waiting, relative to
+     * the batch weight
+     */
+    private final int interactiveWeight;
+
+    /**
+     * @return The share of capacity given to batch requests when both lanes have requests waiting, relative to the
+     * interactive weight
+     */
+    private final int batchWeight;
+
+    /**
+     * @return The maximum number of requests which may wait in each lane
+     */
+    private final int maxQueued;
+
+    /**
+     * @return How long, in milliseconds, a request may wait in its lane before it is rejected
+     */
+    private final long maxQueueTime;
+
+    @SuppressWarnings({"FieldMayBeFinal", "unused"})
+    public static class PriorityLaneSettingsBuilder {
+        private int capacity = 32;
+        private int reservedInteractive = 4;
+        private int interactiveWeight = 4;
+        private int batchWeight = 1;
+        private int maxQueued = 1000;
+        private long maxQueueTime = 30000;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded lanes of waiting requests for a single server, one per {@link RequestPriority}. When capacity becomes
+ * available it is granted to the lanes using stride scheduling, so each lane with waiting requests receives a share
+ * of capacity in proportion to its weight.
+ */
+class PriorityLanes {
+
+    private static final long STRIDE_SCALE = 1L << 20;
+
+    private final PriorityLaneSettings settings;
+    private final Lock lock = new ReentrantLock();
+    private final Map<RequestPriority, Lane> lanes = new EnumMap<>(RequestPriority.class);
+
+    private int inFlight;
+
+    PriorityLanes(final PriorityLaneSettings settings) {
+        if (settings.getCapacity() < 1 || settings.getReservedInteractive() >= settings.getCapacity()) {
+            throw new IllegalArgumentException("Capacity must be positive and greater than the interactive reservation");
+        }
+
+        this.settings = settings;
+        lanes.put(RequestPriority.INTERACTIVE, new Lane(settings.getInteractiveWeight(), settings.getCapacity()));
+        lanes.put(RequestPriority.BATCH, new Lane(settings.getBatchWeight(), settings.getCapacity() - settings.getReservedInteractive()));
+    }
+
+    /**
+     * @param priority The priority of the request
+     * @return True if the request may be sent; false if its lane is full or it waited too long
+     */
+    boolean acquire(final RequestPriority priority) {
+        final Lane lane = lanes.get(priority);
+
+        lock.lock();
+
+        try {
+            if (lane.waiting.isEmpty()) {
+                activate(lane);
+
+                if (inFlight < lane.limit) {
+                    grant(lane);
+                    return true;
+                }
+            }
+
+            if (lane.waiting.size() >= settings.getMaxQueued()) {
+                return false;
+            }
+
+            final Waiter waiter = new Waiter(lock.newCondition());
+            lane.waiting.add(waiter);
+
+            long remaining = TimeUnit.MILLISECONDS.toNanos(settings.getMaxQueueTime());
+
+            try {
+                while (!waiter.granted && remaining > 0) {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (final InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (!waiter.granted) {
+                lane.waiting.remove(waiter);
+            }
+
+            return waiter.granted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases capacity acquired by {@link #acquire(RequestPriority)} and grants it to a waiting request
+     */
+    void release() {
+        lock.lock();
+
+        try {
+            inFlight--;
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getInFlight() {
+        lock.lock();
+
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatch() {
+        while (true) {
+            Lane next = null;
+
+            for (final Lane lane : lanes.values()) {
+                if (!lane.waiting.isEmpty() && inFlight < lane.limit && (next == null || lane.pass < next.pass)) {
+                    next = lane;
+                }
+            }
+
+            if (next == null) {
+                return;
+            }
+
+            final Waiter waiter = next.waiting.poll();
+            waiter.granted = true;
+            waiter.condition.signal();
+            grant(next);
+        }
+    }
+
+    private void activate(final Lane lane) {
+        // a lane must not bank credit while it is idle, or it would starve the other lane when it becomes busy
+        for (final Lane other : lanes.values()) {
+            if (other != lane && !other.waiting.isEmpty() && lane.pass < other.pass) {
+                lane.pass = other.pass;
+            }
+        }
+    }
+
+    private void grant(final Lane lane) {
+        inFlight++;
+        lane.pass += lane.stride;
+    }
+
+    private static class Lane {
+        private final long stride;
+        private final int limit;
+        private final Deque<Waiter> waiting = new ArrayDeque<>();
+        private long pass;
+
+        private Lane(final int weight, final int limit) {
+            if (weight < 1) {
+                throw new IllegalArgumentException("Lane weights must be positive");
+            }
+
+            stride = STRIDE_SCALE / weight;
+            this.limit = limit;
+        }
+    }
+
+    private static class Waiter {
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(final Condition condition) {
+            this.condition = condition;
+        }
+    }
+}
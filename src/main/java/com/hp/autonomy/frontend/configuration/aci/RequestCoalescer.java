@@ -0,0 +1,139 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import lombok.Data;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Merges identical ACI actions which are in flight at the same time, so that concurrent callers share a single round
+ * trip to the server. Actions are identical if they are sent to the same endpoint with the same parameters, compared
+ * ignoring the case of their names, and processed by equal processors. Used by {@link AbstractConfigurableAciService}.
+ * <p>
+ * Processors are compared with equals rather than by class, since generic processors such as those of a
+ * {@link com.hp.autonomy.types.idol.marshalling.ProcessorFactory} share a class whatever type they produce. Most
+ * processors do not override equals, so callers only share a round trip if they use the same processor instance.
+ * Decorators which wrap processors, such as {@link SlowCallSamplingAciService}, must delegate equals and hashCode to
+ * the processor they wrap.
+ * <p>
+ * Only the actions given to the constructor are merged; these should be read only actions whose responses do not
+ * depend on who sent them. Callers which share a round trip receive the same result object, or the same exception,
+ * so results must not be modified.
+ */
+public class RequestCoalescer {
+    private final Set<String> actions = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    private final ConcurrentMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param actions The actions which may be merged, compared ignoring case
+     */
+    public RequestCoalescer(final Set<String> actions) {
+        this.actions.addAll(actions);
+    }
+
+    /**
+     * @param actions The actions which may be merged, compared ignoring case
+     */
+    public RequestCoalescer(final String... actions) {
+        this(new HashSet<>(Arrays.asList(actions)));
+    }
+
+    /**
+     * Sends an action, or waits for an identical action which is already in flight
+     *
+     * @param serverDetails The server the action is sent to
+     * @param parameters    The parameters of the action
+     * @param processor     The processor of the response
+     * @param action        Sends the action to the server
+     * @param <T>           The type of the result
+     * @return The result of the action
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(
+            final AciServerDetails serverDetails,
+            final Set<? extends ActionParameter<?>> parameters,
+            final Processor<T> processor,
+            final Supplier<T> action
+    ) {
+        final String actionName = ActionParameters.findAction(parameters);
+
+        if (processor == null || actionName == null || !actions.contains(actionName)) {
+            return action.get();
+        }
+
+        final Key key = new Key(Endpoint.of(serverDetails), normalise(parameters), processor);
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        final CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            coalesced.increment();
+
+            try {
+                return (T) existing.join();
+            } catch (final CompletionException e) {
+                throw rethrow(e.getCause());
+            }
+        }
+
+        try {
+            final T result = action.get();
+            inFlight.remove(key, future);
+            future.complete(result);
+            return result;
+        } catch (final RuntimeException | Error e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of actions which shared the round trip of an identical action rather than being sent
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    private static Set<Object> normalise(final Set<? extends ActionParameter<?>> parameters) {
+        final Set<Object> normalised = new HashSet<>();
+
+        for (final ActionParameter<?> parameter : parameters) {
+            normalised.add(Arrays.asList(parameter.getName().toLowerCase(Locale.ENGLISH), parameter.getValue()));
+        }
+
+        return normalised;
+    }
+
+    private static RuntimeException rethrow(final Throwable cause) {
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+
+        return (RuntimeException) cause;
+    }
+
+    @Data
+    private static class Key {
+        private final Endpoint endpoint;
+        private final Set<Object> parameters;
+        private final Processor<?> processor;
+    }
+}
@@ -0,0 +1,21 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+/**
+ * The priority classes used by {@link PrioritizedAciService}
+ */
+public enum RequestPriority {
+    /**
+     * Requests a user is waiting for
+     */
+    INTERACTIVE,
+
+    /**
+     * Background and bulk requests, which may be delayed in favour of interactive requests
+     */
+    BATCH
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A token bucket limiting retries to a proportion of requests, so that retries cannot multiply the load on servers
+ * which are already failing. Every request deposits a fraction of a token and every retry withdraws a whole token.
+ * <p>
+ * A single budget should be shared by every {@link RetryingAciService} in the application, so that the limit applies
+ * to all the traffic it sends to IDOL. Depositing and withdrawing never block.
+ */
+public class RetryBudget {
+    private static final long TOKEN = 1000;
+
+    private final AtomicLong tokens;
+    private final long deposit;
+    private final long capacity;
+    private final LongAdder exhausted = new LongAdder();
+
+    /**
+     * Creates a budget allowing retries of up to a tenth of requests, with bursts of up to ten retries
+     */
+    public RetryBudget() {
+        this(0.1, 10);
+    }
+
+    /**
+     * @param ratio     The maximum number of retries per request, between 0 and 1
+     * @param maxTokens The maximum number of retries which can be saved up, and the number available when the budget
+     *                  is created
+     */
+    public RetryBudget(final double ratio, final int maxTokens) {
+        if (ratio < 0 || ratio > 1) {
+            throw new IllegalArgumentException("Ratio must be between 0 and 1");
+        }
+
+        if (maxTokens < 0) {
+            throw new IllegalArgumentException("Maximum tokens must not be negative");
+        }
+
+        deposit = Math.round(ratio * TOKEN);
+        capacity = maxTokens * TOKEN;
+        tokens = new AtomicLong(capacity);
+    }
+
+    /**
+     * Records a request, excluding retries
+     */
+    public void onRequest() {
+        long current;
+
+        do {
+            current = tokens.get();
+
+            if (current >= capacity) {
+                return;
+            }
+        } while (!tokens.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+    /**
+     * Withdraws a token for a retry if one is available
+     *
+     * @return True if the retry may be made
+     */
+    public boolean tryAcquire() {
+        long current;
+
+        do {
+            current = tokens.get();
+
+            if (current < TOKEN) {
+                exhausted.increment();
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+
+        return true;
+    }
+
+    /**
+     * @return The number of retries currently available
+     */
+    public double getAvailable() {
+        return tokens.get() / (double) TOKEN;
+    }
+
+    /**
+     * @return The number of retries which were not made because the budget was exhausted
+     */
+    public long getExhaustedCount() {
+        return exhausted.sum();
+    }
+}
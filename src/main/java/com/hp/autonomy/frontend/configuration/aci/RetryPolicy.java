@@ -0,0 +1,147 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.transport.AciHttpException;
+import com.autonomy.aci.client.transport.ActionParameter;
+import lombok.Builder;
+import lombok.Data;
+import org.apache.http.NoHttpResponseException;
+
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Settings for {@link RetryingAciService}, which decide which failed actions are retried and how long to wait before
+ * each retry
+ */
+@Data
+@Builder(toBuilder = true)
+public class RetryPolicy {
+    // the message of the AciHttpException thrown by AciHttpClientImpl for a non 2xx response
+    private static final Pattern STATUS_CODE = Pattern.compile("status code, (\\d{3}),");
+
+    /**
+     * @return The maximum number of times an action is sent, including the first
+     */
+    private final int maxAttempts;
+
+    /**
+     * @return The wait in milliseconds before the first retry, before jitter is applied
+     */
+    private final long initialBackoff;
+
+    /**
+     * @return The maximum wait in milliseconds before a retry, before jitter is applied
+     */
+    private final long maxBackoff;
+
+    /**
+     * @return The factor the wait is multiplied by after each retry
+     */
+    private final double multiplier;
+
+    /**
+     * @return The proportion of each wait which is random, between 0 and 1. With a jitter of 1, each wait is chosen
+     * uniformly between zero and the backoff, so that clients which failed together do not retry together.
+     */
+    private final double jitter;
+
+    /**
+     * @return The actions which can safely be sent more than once, compared ignoring case. Only these actions are
+     * retried.
+     */
+    private final Set<String> idempotentActions;
+
+    /**
+     * @return The HTTP status codes which mean the server may succeed if the action is retried
+     */
+    private final Set<Integer> retryableStatusCodes;
+
+    /**
+     * @return The error codes or error ids of ACI errors which mean the server may succeed if the action is retried
+     */
+    private final Set<String> retryableErrorCodes;
+
+    /**
+     * @param parameters The parameters of an action
+     * @return True if the action is idempotent
+     */
+    public boolean isIdempotent(final Set<? extends ActionParameter<?>> parameters) {
+        final String action = ActionParameters.findAction(parameters);
+
+        for (final String idempotentAction : idempotentActions) {
+            if (idempotentAction.equalsIgnoreCase(action)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Decides whether a failure is transient. An ACI error is retryable if its error code or id is retryable. Any other
+     * failure is retryable if it was caused by an HTTP response with a retryable status code, a reset or refused
+     * connection, or a server which closed the connection without responding. Timeouts are not retried, as the server
+     * may still be processing the action.
+     *
+     * @param e The failure
+     * @return True if the action may succeed if it is retried
+     */
+    public boolean isRetryable(final AciServiceException e) {
+        if (e instanceof AciErrorException) {
+            final AciErrorException error = (AciErrorException) e;
+            return retryableErrorCodes.contains(error.getErrorCode()) || retryableErrorCodes.contains(error.getErrorId());
+        }
+
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof SocketException || cause instanceof NoHttpResponseException) {
+                return true;
+            }
+
+            if (cause instanceof AciHttpException && cause.getMessage() != null) {
+                final Matcher matcher = STATUS_CODE.matcher(cause.getMessage());
+                return matcher.find() && retryableStatusCodes.contains(Integer.parseInt(matcher.group(1)));
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param retry The number of the retry, starting at 1
+     * @return The time to wait before the retry, in milliseconds
+     */
+    public long getBackoff(final int retry) {
+        final double backoff = Math.min(maxBackoff, initialBackoff * Math.pow(multiplier, retry - 1));
+        return (long) (backoff * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    @SuppressWarnings({"FieldMayBeFinal", "unused"})
+    public static class RetryPolicyBuilder {
+        private int maxAttempts = 3;
+        private long initialBackoff = 50;
+        private long maxBackoff = 2000;
+        private double multiplier = 2;
+        private double jitter = 1;
+        private Set<String> idempotentActions = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                "GetStatus", "GetVersion", "GetChildren", "GetPid", "GetLicenseInfo", "LanguageSettings", "Query",
+                "Suggest", "SuggestOnText", "GetContent", "GetQueryTagValues", "GetTagNames", "Summarize", "TermExpand",
+                "TermGetAll", "TermGetBest", "TermGetInfo", "UserRead", "UserReadRoleList", "RoleGetUserList",
+                "Highlight", "DetectLanguage"
+        )));
+        private Set<Integer> retryableStatusCodes = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(502, 503, 504)));
+        private Set<String> retryableErrorCodes = Collections.emptySet();
+    }
+}
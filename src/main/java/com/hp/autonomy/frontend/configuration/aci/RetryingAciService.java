@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * A {@link ConfigurableAciService} which retries idempotent actions which fail transiently, as decided by a
+ * {@link RetryPolicy}, waiting with exponential backoff and jitter between attempts. Each retry must be paid for from
+ * a {@link RetryBudget}; when the budget is exhausted the failure is thrown immediately.
+ * <p>
+ * Waiting blocks the calling thread. If the thread is interrupted while waiting, the last failure is thrown and the
+ * interrupt flag is restored.
+ */
+public class RetryingAciService implements ConfigurableAciService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RetryingAciService.class);
+
+    private final ConfigurableAciService aciService;
+    private final RetryPolicy retryPolicy;
+    private final RetryBudget retryBudget;
+
+    /**
+     * @param aciService  The service to send actions with
+     * @param retryPolicy The policy deciding which actions are retried
+     * @param retryBudget The budget paying for retries, which should be shared with other services
+     */
+    public RetryingAciService(final ConfigurableAciService aciService, final RetryPolicy retryPolicy, final RetryBudget retryBudget) {
+        this.aciService = aciService;
+        this.retryPolicy = retryPolicy;
+        this.retryBudget = retryBudget;
+    }
+
+    @Override
+    public AciServerDetails getServerDetails() {
+        return aciService.getServerDetails();
+    }
+
+    @Override
+    public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        return execute(parameters, () -> aciService.executeAction(parameters, processor));
+    }
+
+    /**
+     * Uses the provided AciServerDetails rather than those returned by {@link #getServerDetails()}
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        return execute(parameters, () -> aciService.executeAction(serverDetails, parameters, processor));
+    }
+
+    private <T> T execute(final Set<? extends ActionParameter<?>> parameters, final Supplier<T> action) {
+        retryBudget.onRequest();
+
+        final boolean idempotent = retryPolicy.isIdempotent(parameters);
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (final AciServiceException e) {
+                if (!idempotent || attempt >= retryPolicy.getMaxAttempts() || !retryPolicy.isRetryable(e) || !retryBudget.tryAcquire()) {
+                    throw e;
+                }
+
+                final long backoff = retryPolicy.getBackoff(attempt);
+                LOGGER.debug("Retrying action after attempt {} failed, waiting {}ms", attempt, backoff, e);
+
+                try {
+                    Thread.sleep(backoff);
+                } catch (final InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+}
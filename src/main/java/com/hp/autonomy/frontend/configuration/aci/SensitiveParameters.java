@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.transport.ActionParameter;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Formats action parameters for diagnostics, replacing the values of parameters which may hold credentials, such as
+ * Password and SecurityInfo
+ */
+final class SensitiveParameters {
+    static final String REDACTED = "<redacted>";
+
+    private static final Pattern SENSITIVE_NAME = Pattern.compile("password|securityinfo|secret|token");
+
+    private SensitiveParameters() {
+    }
+
+    /**
+     * @param name The name of a parameter
+     * @return True if the value of the parameter must not be recorded
+     */
+    static boolean isSensitive(final String name) {
+        return name != null && SENSITIVE_NAME.matcher(name.toLowerCase(Locale.ENGLISH)).find();
+    }
+
+    /**
+     * @param parameters ACI parameters
+     * @return The parameters as a query string, with sensitive values redacted
+     */
+    static String toQueryString(final Iterable<? extends ActionParameter<?>> parameters) {
+        final StringBuilder query = new StringBuilder();
+
+        for (final ActionParameter<?> parameter : parameters) {
+            if (query.length() > 0) {
+                query.append('&');
+            }
+
+            query.append(parameter.getName()).append('=').append(isSensitive(parameter.getName()) ? REDACTED : parameter.getValue());
+        }
+
+        return query.toString();
+    }
+
+    /**
+     * @param queryString A query string, which may be URL encoded
+     * @return The query string with sensitive values redacted
+     */
+    static String redact(final String queryString) {
+        if (queryString == null) {
+            return null;
+        }
+
+        final StringBuilder query = new StringBuilder();
+
+        for (final String parameter : queryString.split("&", -1)) {
+            if (query.length() > 0) {
+                query.append('&');
+            }
+
+            final int separator = parameter.indexOf('=');
+
+            if (separator >= 0 && isSensitive(parameter.substring(0, separator))) {
+                query.append(parameter, 0, separator + 1).append(REDACTED);
+            } else {
+                query.append(parameter);
+            }
+        }
+
+        return query.toString();
+    }
+}
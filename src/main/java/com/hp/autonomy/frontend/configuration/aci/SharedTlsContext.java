@@ -0,0 +1,346 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.nonaci.ServerDetails;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import lombok.Data;
+import lombok.Setter;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLContexts;
+import org.apache.http.conn.ssl.X509HostnameVerifier;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * An {@link SSLContext} shared by every HTTPS connection to IDOL, so that TLS sessions negotiated by one connection
+ * can be resumed by the next connection to the same host and port rather than repeating the full handshake. This
+ * includes the connections made by {@link ServerConfig#validate} and {@link ServerConfig#fetchServerDetails}, provided
+ * the services they are given send requests through a socket factory created by this context, for example through a
+ * {@link ConnectionPoolManager}.
+ * <p>
+ * The number and duration of full and resumed handshakes are recorded for each endpoint. If an
+ * {@link EndpointRegistry} is set, the protocol negotiated by each handshake is recorded in it.
+ */
+@SuppressWarnings("JavaDoc")
+public class SharedTlsContext {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedTlsContext.class);
+
+    private static final String TLS_1_3 = "TLSv1.3";
+
+    private final SSLContext sslContext;
+    private final HandshakeCounters total = new HandshakeCounters();
+    private final ConcurrentMap<String, HandshakeCounters> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * @param The timeout, in milliseconds, for connecting to a server when pre-warming sessions. Defaults to 5000.
+     */
+    @Setter
+    private int connectTimeout = 5000;
+
+    /**
+     * @param The time, in milliseconds, to wait for a TLS 1.3 server to send a session ticket when pre-warming
+     * sessions. Defaults to 200.
+     */
+    @Setter
+    private int sessionTicketTimeout = 200;
+
+    /**
+     * @param The registry to record the TLS protocol negotiated with each endpoint in
+     */
+    @Setter
+    private EndpointRegistry endpointRegistry;
+
+    /**
+     * Creates a context based on the standard JSSE context
+     */
+    public SharedTlsContext() {
+        this(SSLContexts.createDefault());
+    }
+
+    /**
+     * @param sslContext The context to share. Its client session cache is used to resume sessions.
+     */
+    public SharedTlsContext(final SSLContext sslContext) {
+        this.sslContext = sslContext;
+    }
+
+    /**
+     * @return The shared {@link SSLContext}
+     */
+    public SSLContext getSslContext() {
+        return sslContext;
+    }
+
+    /**
+     * @param sessionCacheSize The maximum number of sessions held for resumption, or zero for no limit
+     */
+    public void setSessionCacheSize(final int sessionCacheSize) {
+        sslContext.getClientSessionContext().setSessionCacheSize(sessionCacheSize);
+    }
+
+    /**
+     * @param sessionTimeout The time, in seconds, a session may be resumed for, or zero for no limit
+     */
+    public void setSessionTimeout(final int sessionTimeout) {
+        sslContext.getClientSessionContext().setSessionTimeout(sessionTimeout);
+    }
+
+    /**
+     * @param hostnameVerifier The hostname verifier to check server certificates with
+     * @return A socket factory which uses the shared context and records the handshakes it performs
+     */
+    public SSLConnectionSocketFactory createSocketFactory(final X509HostnameVerifier hostnameVerifier) {
+        return createSocketFactory(hostnameVerifier, () -> true);
+    }
+
+    SSLConnectionSocketFactory createSocketFactory(final X509HostnameVerifier hostnameVerifier, final BooleanSupplier reuseSessions) {
+        return new HandshakeRecordingSocketFactory(hostnameVerifier, reuseSessions);
+    }
+
+    /**
+     * Performs a handshake with every HTTPS port of the given servers, so that the first requests to them can resume
+     * the negotiated sessions. Failures are logged and otherwise ignored.
+     *
+     * @param serverConfigs The servers
+     * @param executor      The executor to perform the handshakes on
+     * @return A future which completes when every handshake has completed or failed
+     */
+    public CompletableFuture<Void> prewarm(final Collection<ServerConfig> serverConfigs, final Executor executor) {
+        final Set<InetSocketAddress> addresses = new LinkedHashSet<>();
+
+        for (final ServerConfig serverConfig : serverConfigs) {
+            if (serverConfig.getProtocol() == AciServerDetails.TransportProtocol.HTTPS) {
+                addresses.add(InetSocketAddress.createUnresolved(serverConfig.getHost(), serverConfig.getPort()));
+            }
+
+            if (serverConfig.getServicePort() != null && serverConfig.getServiceProtocol() == AciServerDetails.TransportProtocol.HTTPS) {
+                addresses.add(InetSocketAddress.createUnresolved(serverConfig.getHost(), serverConfig.getServicePort()));
+            }
+
+            if (serverConfig.getIndexPort() != null && serverConfig.getIndexProtocol() == ServerDetails.TransportProtocol.HTTPS) {
+                addresses.add(InetSocketAddress.createUnresolved(serverConfig.getHost(), serverConfig.getIndexPort()));
+            }
+        }
+
+        final List<CompletableFuture<Void>> handshakes = new ArrayList<>(addresses.size());
+
+        for (final InetSocketAddress address : addresses) {
+            handshakes.add(CompletableFuture.runAsync(() -> prewarm(address.getHostString(), address.getPort()), executor));
+        }
+
+        return CompletableFuture.allOf(handshakes.toArray(new CompletableFuture<?>[handshakes.size()]));
+    }
+
+    /**
+     * @return The handshakes performed with every endpoint
+     */
+    public Statistics getStatistics() {
+        return total.toStatistics();
+    }
+
+    /**
+     * @param host The host of the endpoint
+     * @param port The port of the endpoint
+     * @return The handshakes performed with the given endpoint
+     */
+    public Statistics getStatistics(final String host, final int port) {
+        final HandshakeCounters counters = endpoints.get(endpoint(host, port));
+        return counters == null ? new HandshakeCounters().toStatistics() : counters.toStatistics();
+    }
+
+    private void prewarm(final String host, final int port) {
+        try (final Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), connectTimeout);
+            socket.setSoTimeout(connectTimeout);
+
+            try (final SSLSocket sslSocket = (SSLSocket) sslContext.getSocketFactory().createSocket(socket, host, port, false)) {
+                handshake(sslSocket, host, port);
+
+                if (TLS_1_3.equals(sslSocket.getSession().getProtocol())) {
+                    awaitSessionTicket(sslSocket);
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to pre-warm TLS session for {}:{}", host, port);
+            LOGGER.debug("", e);
+        }
+    }
+
+    private void awaitSessionTicket(final SSLSocket socket) throws IOException {
+        // TLS 1.3 sessions can only be resumed using a ticket sent after the handshake, which is only processed when
+        // the socket is read
+        socket.setSoTimeout(sessionTicketTimeout);
+
+        try {
+            socket.getInputStream().read();
+        } catch (final SocketTimeoutException ignored) {
+            // the server has nothing else to send
+        }
+    }
+
+    private void forgetSessions(final String host, final int port) {
+        final SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+
+        for (final Enumeration<byte[]> ids = sessionContext.getIds(); ids.hasMoreElements(); ) {
+            final SSLSession session = sessionContext.getSession(ids.nextElement());
+
+            if (session != null && port == session.getPeerPort() && host.equalsIgnoreCase(session.getPeerHost())) {
+                session.invalidate();
+            }
+        }
+    }
+
+    private void handshake(final SSLSocket socket, final String host, final int port) throws IOException {
+        final long start = System.currentTimeMillis();
+        final long startNanos = System.nanoTime();
+
+        try {
+            socket.startHandshake();
+        } catch (final IOException e) {
+            record(host, port, counters -> counters.failures.increment());
+            throw e;
+        }
+
+        record(host, port, startNanos, wasResumed(socket.getSession(), start));
+        recordProtocol(host, port, socket.getSession());
+    }
+
+    private void record(final String host, final int port, final long startNanos, final boolean resumed) {
+        final long duration = System.nanoTime() - startNanos;
+
+        record(host, port, counters -> {
+            if (resumed) {
+                counters.resumed.increment();
+                counters.resumedNanos.add(duration);
+            } else {
+                counters.full.increment();
+                counters.fullNanos.add(duration);
+            }
+        });
+    }
+
+    private void record(final String host, final int port, final Consumer<HandshakeCounters> update) {
+        update.accept(total);
+        update.accept(endpoints.computeIfAbsent(endpoint(host, port), ignored -> new HandshakeCounters()));
+    }
+
+    private void recordProtocol(final String host, final int port, final SSLSession session) {
+        final EndpointRegistry registry = endpointRegistry;
+
+        if (registry != null) {
+            registry.get(new Endpoint("https", host, port)).setTlsProtocol(session.getProtocol());
+        }
+    }
+
+    private static boolean wasResumed(final SSLSession session, final long handshakeStart) {
+        // a resumed session was created by an earlier handshake
+        return session.isValid() && session.getCreationTime() < handshakeStart;
+    }
+
+    private static String endpoint(final String host, final int port) {
+        return host.toLowerCase(Locale.ENGLISH) + ':' + port;
+    }
+
+    @Data
+    public static class Statistics {
+        private final long fullHandshakes;
+        private final long resumedHandshakes;
+        private final long failedHandshakes;
+
+        /**
+         * @return The mean duration of a full handshake, in milliseconds
+         */
+        private final double meanFullHandshakeTime;
+
+        /**
+         * @return The mean duration of a resumed handshake, in milliseconds
+         */
+        private final double meanResumedHandshakeTime;
+    }
+
+    private static class HandshakeCounters {
+        private final LongAdder full = new LongAdder();
+        private final LongAdder resumed = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder fullNanos = new LongAdder();
+        private final LongAdder resumedNanos = new LongAdder();
+
+        private Statistics toStatistics() {
+            final long full = this.full.sum();
+            final long resumed = this.resumed.sum();
+
+            return new Statistics(full, resumed, failures.sum(), mean(fullNanos.sum(), full), mean(resumedNanos.sum(), resumed));
+        }
+
+        private static double mean(final long nanos, final long count) {
+            return count == 0 ? 0 : nanos / 1e6 / count;
+        }
+    }
+
+    private class HandshakeRecordingSocketFactory extends SSLConnectionSocketFactory {
+        private final BooleanSupplier reuseSessions;
+
+        private HandshakeRecordingSocketFactory(final X509HostnameVerifier hostnameVerifier, final BooleanSupplier reuseSessions) {
+            super(sslContext, hostnameVerifier);
+            this.reuseSessions = reuseSessions;
+        }
+
+        @Override
+        public Socket createLayeredSocket(final Socket socket, final String target, final int port, final HttpContext context) throws IOException {
+            final boolean reuse = reuseSessions.getAsBoolean();
+
+            if (!reuse) {
+                forgetSessions(target, port);
+            }
+
+            final long start = System.currentTimeMillis();
+            final long startNanos = System.nanoTime();
+            final Socket layeredSocket;
+
+            try {
+                // the handshake is performed before the hostname is verified
+                layeredSocket = super.createLayeredSocket(socket, target, port, context);
+            } catch (final IOException e) {
+                record(target, port, counters -> counters.failures.increment());
+                throw e;
+            }
+
+            if (layeredSocket instanceof SSLSocket) {
+                final SSLSession session = ((SSLSocket) layeredSocket).getSession();
+                record(target, port, startNanos, wasResumed(session, start));
+                recordProtocol(target, port, session);
+            }
+
+            return layeredSocket;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * An ACI action or index command captured by a {@link SlowCallSampler} because it took longer than the sampler's
+ * threshold
+ */
+@SuppressWarnings("JavaDoc")
+@Data
+public class SlowCall {
+    /**
+     * The phase from sending an ACI action until its processor is called
+     */
+    public static final String RESPONSE_PHASE = "response";
+
+    /**
+     * The phase in which the processor of an ACI action reads the response
+     */
+    public static final String PROCESSING_PHASE = "processing";
+
+    /**
+     * @return The time the call completed, in milliseconds since the epoch
+     */
+    private final long timestamp;
+
+    private final Endpoint endpoint;
+
+    /**
+     * @return The ACI action or index command
+     */
+    private final String action;
+
+    /**
+     * @return The parameters of the call, as a query string
+     */
+    private final String parameters;
+
+    /**
+     * @return The time taken by the call, in nanoseconds
+     */
+    private final long duration;
+
+    /**
+     * @return The threshold the call exceeded, in nanoseconds
+     */
+    private final long threshold;
+
+    /**
+     * @return The time taken by each phase of the call, in nanoseconds, in the order the phases ran. Phases are only
+     * known for ACI actions with a processor; see {@link #RESPONSE_PHASE} and {@link #PROCESSING_PHASE}.
+     */
+    private final Map<String, Long> phases;
+
+    private final TraceRecord.Status status;
+
+    /**
+     * @return The name of the thread which made the call
+     */
+    private final String thread;
+
+    /**
+     * @return The stack of the thread which made the call, as it completed
+     */
+    private final StackTraceElement[] stackTrace;
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.hp.autonomy.frontend.configuration.FlightRecorderSupport;
+import lombok.Setter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Captures the details of calls which take longer than a threshold tracking a high percentile of recent latencies, so
+ * that outliers can be diagnosed in production. Used by {@link SlowCallSamplingAciService} and
+ * {@link SlowCallSamplingIndexingService}, which may share a sampler.
+ * <p>
+ * Latencies are counted in a histogram with four buckets per power of two microseconds, which is halved every 1024
+ * calls so that the threshold follows recent traffic. Calls which are not slow cost an increment of the histogram.
+ * <p>
+ * Captures are rate limited. Captured calls are kept in a bounded store, the oldest being dropped when it is full, and
+ * committed as a com.hp.autonomy.frontend.configuration.SlowCall event when it is enabled in Java Flight Recorder. On
+ * runtimes without the Flight Recorder API, or in builds without the jfr profile, calls are only stored.
+ */
+@SuppressWarnings("JavaDoc")
+public class SlowCallSampler {
+    private static final int BUCKETS = 256;
+    private static final int RECALCULATION_INTERVAL = 1024;
+    @SuppressWarnings("unchecked")
+    private static final Consumer<SlowCall> FLIGHT_RECORDER = FlightRecorderSupport.newInstance(
+            "com.hp.autonomy.frontend.configuration.aci.SlowCallEvent$Committer", Consumer.class);
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private final AtomicLong calls = new AtomicLong();
+    private final Lock recalculationLock = new ReentrantLock();
+    private final AtomicLong nextCapture = new AtomicLong(Long.MIN_VALUE);
+    private final LongAdder suppressed = new LongAdder();
+
+    private final Lock storeLock = new ReentrantLock();
+    private final Deque<SlowCall> store;
+    private final int capacity;
+
+    private volatile long percentileLatency;
+
+    /**
+     * @param The percentile of recent latencies above which a call is slow, between 0 and 1. Defaults to 0.99.
+     */
+    @Setter
+    private volatile double percentile = 0.99;
+
+    /**
+     * @param The minimum threshold in milliseconds, so that calls are not captured when every call is fast. Defaults to
+     * 100.
+     */
+    @Setter
+    private volatile long minimumThreshold = 100;
+
+    /**
+     * @param The number of calls which must be counted before the percentile is used as the threshold. Until then only
+     * the minimum threshold applies. Defaults to 100.
+     */
+    @Setter
+    private volatile long minimumSamples = 100;
+
+    private volatile long captureInterval = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * @param capacity The number of captured calls to keep
+     */
+    public SlowCallSampler(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        this.capacity = capacity;
+        store = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * @param maxCapturesPerSecond The maximum rate at which calls are captured. Defaults to 1.
+     */
+    public void setMaxCapturesPerSecond(final double maxCapturesPerSecond) {
+        if (maxCapturesPerSecond <= 0) {
+            throw new IllegalArgumentException("Maximum captures per second must be positive");
+        }
+
+        captureInterval = (long) (TimeUnit.SECONDS.toNanos(1) / maxCapturesPerSecond);
+    }
+
+    /**
+     * @return The current threshold in nanoseconds
+     */
+    public long getThreshold() {
+        return Math.max(percentileLatency, TimeUnit.MILLISECONDS.toNanos(minimumThreshold));
+    }
+
+    /**
+     * Counts the latency of a completed call
+     *
+     * @param nanos The time taken by the call, in nanoseconds
+     * @return True if the call was slow and should be passed to {@link #capture}
+     */
+    public boolean sample(final long nanos) {
+        histogram.incrementAndGet(bucket(nanos));
+
+        if (calls.incrementAndGet() % RECALCULATION_INTERVAL == 0) {
+            recalculate();
+        }
+
+        if (nanos <= getThreshold()) {
+            return false;
+        }
+
+        final long now = System.nanoTime();
+        final long next = nextCapture.get();
+
+        if (now - next >= 0 || next == Long.MIN_VALUE) {
+            if (nextCapture.compareAndSet(next, now + captureInterval)) {
+                return true;
+            }
+        }
+
+        suppressed.increment();
+        return false;
+    }
+
+    /**
+     * Stores a slow call and commits it to Java Flight Recorder
+     *
+     * @param slowCall The call
+     */
+    public void capture(final SlowCall slowCall) {
+        storeLock.lock();
+
+        try {
+            if (store.size() == capacity) {
+                store.removeFirst();
+            }
+
+            store.addLast(slowCall);
+        } finally {
+            storeLock.unlock();
+        }
+
+        if (FLIGHT_RECORDER != null) {
+            FLIGHT_RECORDER.accept(slowCall);
+        }
+    }
+
+    /**
+     * @return The captured calls, oldest first
+     */
+    public List<SlowCall> getSlowCalls() {
+        storeLock.lock();
+
+        try {
+            return new ArrayList<>(store);
+        } finally {
+            storeLock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of slow calls which were not captured because of the rate limit
+     */
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    private void recalculate() {
+        // another thread is already recalculating
+        if (!recalculationLock.tryLock()) {
+            return;
+        }
+
+        try {
+            final long[] counts = new long[BUCKETS];
+            long total = 0;
+
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = histogram.get(i);
+                total += counts[i];
+            }
+
+            if (total >= minimumSamples) {
+                final long target = (long) Math.ceil(total * percentile);
+                long cumulative = 0;
+
+                for (int i = 0; i < BUCKETS; i++) {
+                    cumulative += counts[i];
+
+                    if (cumulative >= target) {
+                        percentileLatency = TimeUnit.MICROSECONDS.toNanos(upperBound(i));
+                        break;
+                    }
+                }
+            }
+
+            // decay the histogram so that old latencies carry less weight
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram.addAndGet(i, -(counts[i] / 2));
+            }
+        } finally {
+            recalculationLock.unlock();
+        }
+    }
+
+    // buckets 0 to 3 hold 0 to 3 microseconds; above that each power of two is split into four
+    static int bucket(final long nanos) {
+        final long micros = nanos / 1000;
+
+        if (micros < 4) {
+            return (int) Math.max(micros, 0);
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        final int subBucket = (int) (micros >>> (exponent - 2)) & 3;
+        return 4 * (exponent - 1) + subBucket;
+    }
+
+    // the exclusive upper bound of a bucket in microseconds
+    static long upperBound(final int bucket) {
+        if (bucket < 4) {
+            return bucket + 1;
+        }
+
+        final int exponent = bucket / 4 + 1;
+        return (5L + bucket % 4) << (exponent - 2);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciResponseInputStream;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * A {@link ConfigurableAciService} which passes the latency of every action to a {@link SlowCallSampler}, and captures
+ * the parameters, server, phase timings and stack of the actions it reports as slow. The values of parameters which may
+ * hold credentials, such as Password and SecurityInfo, are not captured.
+ */
+public class SlowCallSamplingAciService implements ConfigurableAciService {
+
+    private final ConfigurableAciService aciService;
+    private final SlowCallSampler sampler;
+
+    /**
+     * @param aciService The service to send actions with
+     * @param sampler    The sampler to report actions to
+     */
+    public SlowCallSamplingAciService(final ConfigurableAciService aciService, final SlowCallSampler sampler) {
+        this.aciService = aciService;
+        this.sampler = sampler;
+    }
+
+    @Override
+    public AciServerDetails getServerDetails() {
+        return aciService.getServerDetails();
+    }
+
+    @Override
+    public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final TimedProcessor<T> timedProcessor = processor == null ? null : new TimedProcessor<>(processor);
+        return sample(aciService.getServerDetails(), parameters, timedProcessor, () -> aciService.executeAction(parameters, timedProcessor));
+    }
+
+    /**
+     * Uses the provided AciServerDetails rather than those returned by {@link #getServerDetails()}
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final TimedProcessor<T> timedProcessor = processor == null ? null : new TimedProcessor<>(processor);
+        return sample(serverDetails, parameters, timedProcessor, () -> aciService.executeAction(serverDetails, parameters, timedProcessor));
+    }
+
+    private <T> T sample(
+            final AciServerDetails serverDetails,
+            final Set<? extends ActionParameter<?>> parameters,
+            final TimedProcessor<T> processor,
+            final Supplier<T> action
+    ) {
+        final long start = System.nanoTime();
+        TraceRecord.Status status = TraceRecord.Status.FAILED;
+
+        try {
+            final T result = action.get();
+            status = TraceRecord.Status.SUCCESS;
+            return result;
+        } catch (final AciErrorException e) {
+            status = TraceRecord.Status.ACI_ERROR;
+            throw e;
+        } finally {
+            final long duration = System.nanoTime() - start;
+
+            if (sampler.sample(duration)) {
+                sampler.capture(slowCall(serverDetails, parameters, start, duration, processor, status));
+            }
+        }
+    }
+
+    private SlowCall slowCall(
+            final AciServerDetails serverDetails,
+            final Set<? extends ActionParameter<?>> parameters,
+            final long start,
+            final long duration,
+            final TimedProcessor<?> processor,
+            final TraceRecord.Status status
+    ) {
+        final String action = ActionParameters.findAction(parameters);
+
+        final Map<String, Long> phases = new LinkedHashMap<>();
+
+        if (processor != null && processor.started != 0) {
+            phases.put(SlowCall.RESPONSE_PHASE, processor.started - start);
+
+            if (processor.finished != 0) {
+                phases.put(SlowCall.PROCESSING_PHASE, processor.finished - processor.started);
+            }
+        }
+
+        final Thread thread = Thread.currentThread();
+
+        return new SlowCall(
+                System.currentTimeMillis(),
+                Endpoint.of(serverDetails),
+                action,
+                SensitiveParameters.toQueryString(parameters),
+                duration,
+                sampler.getThreshold(),
+                Collections.unmodifiableMap(phases),
+                status,
+                thread.getName(),
+                thread.getStackTrace()
+        );
+    }
+
+    private static class TimedProcessor<T> implements Processor<T> {
+        private static final long serialVersionUID = 4625930470961732468L;
+
+        private final Processor<T> processor;
+        private transient long started;
+        private transient long finished;
+
+        private TimedProcessor(final Processor<T> processor) {
+            this.processor = processor;
+        }
+
+        @Override
+        public T process(final AciResponseInputStream aciResponse) {
+            started = System.nanoTime();
+
+            try {
+                return processor.process(aciResponse);
+            } finally {
+                finished = System.nanoTime();
+            }
+        }
+
+        // equal to any other wrapper of an equal processor, so that a RequestCoalescer below can still share round trips
+        @Override
+        public boolean equals(final Object obj) {
+            return obj == this || obj instanceof TimedProcessor && processor.equals(((TimedProcessor<?>) obj).processor);
+        }
+
+        @Override
+        public int hashCode() {
+            return processor.hashCode();
+        }
+    }
+}
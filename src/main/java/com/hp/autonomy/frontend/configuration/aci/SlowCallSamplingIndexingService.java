@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingException;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * A {@link ConfigurableIndexingService} which passes the latency of every index command to a {@link SlowCallSampler},
+ * and captures the parameters, server and stack of the commands it reports as slow. The values of parameters which may
+ * hold credentials are not captured. Commands which fail with an {@link IOException} are reported as FAILED and other
+ * {@link IndexingException}s as ACI_ERROR.
+ */
+public class SlowCallSamplingIndexingService implements ConfigurableIndexingService {
+
+    private final ConfigurableIndexingService indexingService;
+    private final SlowCallSampler sampler;
+
+    /**
+     * @param indexingService The service to send index commands with
+     * @param sampler         The sampler to report index commands to
+     */
+    public SlowCallSamplingIndexingService(final ConfigurableIndexingService indexingService, final SlowCallSampler sampler) {
+        this.indexingService = indexingService;
+        this.sampler = sampler;
+    }
+
+    @Override
+    public ServerDetails getServerDetails() {
+        return indexingService.getServerDetails();
+    }
+
+    @Override
+    public int executeCommand(final IndexCommand command) throws IndexingException {
+        return sample(indexingService.getServerDetails(), command, () -> indexingService.executeCommand(command));
+    }
+
+    /**
+     * Uses the given {@link ServerDetails} instead of those returned by {@link #getServerDetails()}
+     * {@inheritDoc}
+     */
+    @Override
+    public int executeCommand(final ServerDetails serverDetails, final IndexCommand command) throws IndexingException {
+        return sample(serverDetails, command, () -> indexingService.executeCommand(serverDetails, command));
+    }
+
+    private int sample(final ServerDetails serverDetails, final IndexCommand command, final Command action) throws IndexingException {
+        final long start = System.nanoTime();
+        TraceRecord.Status status = TraceRecord.Status.FAILED;
+
+        try {
+            final int result = action.execute();
+            status = TraceRecord.Status.SUCCESS;
+            return result;
+        } catch (final IndexingException e) {
+            status = e.getCause() instanceof IOException ? TraceRecord.Status.FAILED : TraceRecord.Status.ACI_ERROR;
+            throw e;
+        } finally {
+            final long duration = System.nanoTime() - start;
+
+            if (sampler.sample(duration)) {
+                final Thread thread = Thread.currentThread();
+
+                sampler.capture(new SlowCall(
+                        System.currentTimeMillis(),
+                        Endpoint.of(serverDetails),
+                        command.getCommand(),
+                        SensitiveParameters.redact(command.getQueryString()),
+                        duration,
+                        sampler.getThreshold(),
+                        Collections.<String, Long>emptyMap(),
+                        status,
+                        thread.getName(),
+                        thread.getStackTrace()
+                ));
+            }
+        }
+    }
+
+    private interface Command {
+        int execute() throws IndexingException;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import lombok.Data;
+
+/**
+ * An ACI action recorded by an {@link AciCallTracer}
+ */
+@SuppressWarnings("JavaDoc")
+@Data
+public class TraceRecord {
+
+    /**
+     * @return The time the action completed, in milliseconds since the epoch
+     */
+    private final long timestamp;
+
+    /**
+     * @return The name of the action, truncated to 32 characters
+     */
+    private final String action;
+
+    /**
+     * @return The protocol the action was sent with
+     */
+    private final String protocol;
+
+    /**
+     * @return The host the action was sent to, truncated to 64 characters
+     */
+    private final String host;
+
+    private final int port;
+
+    /**
+     * @return The time taken by the action, in microseconds
+     */
+    private final long latency;
+
+    private final Status status;
+
+    public enum Status {
+        /**
+         * The server returned a successful response
+         */
+        SUCCESS,
+
+        /**
+         * The server returned an ACI error
+         */
+        ACI_ERROR,
+
+        /**
+         * The action could not be sent, no response was received, or the response could not be processed
+         */
+        FAILED
+    }
+}
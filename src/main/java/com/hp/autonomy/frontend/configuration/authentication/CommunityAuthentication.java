@@ -16,6 +16,7 @@ import com.hp.autonomy.frontend.configuration.ConfigException;
 import com.hp.autonomy.frontend.configuration.LoginTypes;
 import com.hp.autonomy.frontend.configuration.SimpleComponent;
 import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import com.hp.autonomy.frontend.configuration.server.ValidationPhases;
 import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
 import com.hp.autonomy.types.idol.marshalling.ProcessorFactory;
 import lombok.Builder;
@@ -102,6 +103,19 @@ public class CommunityAuthentication extends SimpleComponent<CommunityAuthentica
         return community.validate(aciService, null, processorFactory);
     }
 
+    /**
+     * Checks that the community server details are valid, reusing the results of earlier validation phases
+     *
+     * @param aciService       The {@link AciService} to use for validation
+     * @param processorFactory The {@link ProcessorFactory} to use for validation
+     * @param phases           The validation phases of the community server
+     * @return A {@link ValidationResult} determining the validity of the server
+     * @see ServerConfig#validate(AciService, IndexingService, ProcessorFactory, ValidationPhases)
+     */
+    public ValidationResult<?> validate(final AciService aciService, final ProcessorFactory processorFactory, final ValidationPhases phases) {
+        return community.validate(aciService, null, processorFactory, phases);
+    }
+
     @SuppressWarnings("WeakerAccess")
     @JsonPOJOBuilder(withPrefix = "")
     @JsonIgnoreProperties({"cas", "singleUser", "className"}) // backwards compatibility
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.authentication;
+
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Short lived cache of the results of authenticating users against the Community server described by a
+ * {@link CommunityAuthentication}.
+ * <p>
+ * Verdicts are keyed by Community server, security method and username. Passwords are never stored: each entry holds
+ * a salted SHA-256 hash of the password it was created with, and a verdict is only returned for a matching password.
+ * The salt is random and never leaves this instance. Entries expire after the time to live and the least recently used
+ * entry is discarded once the cache is full.
+ * <p>
+ * Entries for a user should be evicted when they log out or their roles change. So that a verdict obtained before an
+ * eviction is not cached after it, callers must read {@link #getGeneration()} before authenticating against Community
+ * and pass it to {@link #put}.
+ *
+ * @param <V> The type of the cached verdict, for example the user's roles
+ */
+public class CommunityAuthenticationCache<V> {
+
+    private static final int SALT_LENGTH = 16;
+
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final byte[] salt = new byte[SALT_LENGTH];
+
+    private final Lock lock = new ReentrantLock();
+    private final LinkedHashMap<CacheKey, CacheEntry<V>> entries;
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param maximumSize The maximum number of verdicts to hold
+     * @param timeToLive  How long, in milliseconds, a verdict may be used for
+     */
+    public CommunityAuthenticationCache(final int maximumSize, final long timeToLive) {
+        if (maximumSize <= 0 || timeToLive <= 0) {
+            throw new IllegalArgumentException("Maximum size and time to live must be positive");
+        }
+
+        this.maximumSize = maximumSize;
+        timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        new SecureRandom().nextBytes(salt);
+    }
+
+    /**
+     * @param authentication The authentication configuration in use
+     * @param username       The username supplied by the user
+     * @param password       The password supplied by the user
+     * @return The cached verdict for the given credentials, or null if there is no fresh verdict for them
+     */
+    public V get(final CommunityAuthentication authentication, final String username, final String password) {
+        final CacheKey key = new CacheKey(authentication.getCommunity(), authentication.getMethod(), username);
+        final byte[] passwordHash = hash(username, password);
+
+        lock.lock();
+
+        try {
+            final CacheEntry<V> entry = entries.get(key);
+
+            if (entry != null) {
+                if (System.nanoTime() - entry.createdAt >= timeToLiveNanos) {
+                    entries.remove(key);
+                    expirations.increment();
+                } else if (MessageDigest.isEqual(entry.passwordHash, passwordHash)) {
+                    hits.increment();
+                    return entry.verdict;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * @return The current generation of the cache, which changes whenever verdicts are evicted
+     */
+    public long getGeneration() {
+        lock.lock();
+
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Caches the result of authenticating the given credentials against Community, unless verdicts have been evicted
+     * since the given generation
+     *
+     * @param authentication The authentication configuration in use
+     * @param username       The username supplied by the user
+     * @param password       The password supplied by the user
+     * @param verdict        The result of authenticating against Community
+     * @param generation     The value of {@link #getGeneration()} before authenticating against Community
+     * @return True if the verdict was cached
+     */
+    public boolean put(final CommunityAuthentication authentication, final String username, final String password, final V verdict, final long generation) {
+        final CacheKey key = new CacheKey(authentication.getCommunity(), authentication.getMethod(), username);
+        final CacheEntry<V> entry = new CacheEntry<>(hash(username, password), verdict);
+
+        lock.lock();
+
+        try {
+            if (generation != this.generation) {
+                return false;
+            }
+
+            entries.put(key, entry);
+
+            final Iterator<CacheEntry<V>> iterator = entries.values().iterator();
+
+            while (entries.size() > maximumSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                evictions.increment();
+            }
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discards all verdicts for the given user, for all Community servers and security methods. This should be called
+     * when the user logs out or their roles change.
+     *
+     * @param username The username
+     */
+    public void evict(final String username) {
+        lock.lock();
+
+        try {
+            generation++;
+
+            final Iterator<CacheKey> iterator = entries.keySet().iterator();
+
+            while (iterator.hasNext()) {
+                if (iterator.next().username.equals(username)) {
+                    iterator.remove();
+                    evictions.increment();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discards all verdicts
+     */
+    public void evictAll() {
+        lock.lock();
+
+        try {
+            generation++;
+            evictions.add(entries.size());
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return A snapshot of the cache statistics
+     */
+    public Statistics getStatistics() {
+        final int size;
+
+        lock.lock();
+
+        try {
+            size = entries.size();
+        } finally {
+            lock.unlock();
+        }
+
+        return new Statistics(size, hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+    }
+
+    private byte[] hash(final String username, final String password) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            digest.update(username.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(password.getBytes(StandardCharsets.UTF_8));
+
+            return digest.digest();
+        } catch (final NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Data
+    public static class Statistics {
+        private final int size;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+    }
+
+    @EqualsAndHashCode
+    private static class CacheKey {
+        private final ServerConfig community;
+        private final String method;
+        private final String username;
+
+        private CacheKey(final ServerConfig community, final String method, final String username) {
+            this.community = community;
+            this.method = method;
+            this.username = username;
+        }
+    }
+
+    private static class CacheEntry<V> {
+        private final byte[] passwordHash;
+        private final V verdict;
+        private final long createdAt = System.nanoTime();
+
+        private CacheEntry(final byte[] passwordHash, final V verdict) {
+            this.passwordHash = passwordHash;
+            this.verdict = verdict;
+        }
+    }
+}
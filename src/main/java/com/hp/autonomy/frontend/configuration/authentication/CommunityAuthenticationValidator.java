@@ -6,16 +6,37 @@
 package com.hp.autonomy.frontend.configuration.authentication;
 
 import com.autonomy.aci.client.services.AciService;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import com.hp.autonomy.frontend.configuration.server.ServerConfigValidator;
 import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
 import com.hp.autonomy.frontend.configuration.validation.Validator;
 import com.hp.autonomy.types.idol.marshalling.ProcessorFactory;
+import lombok.EqualsAndHashCode;
 import lombok.Setter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Validator for {@link CommunityAuthentication}
+ * <p>
+ * If a verdict time to live is set, validation results are cached per Community server and security method. Nothing
+ * is validated until a configuration is first requested. Once a cached verdict expires it is refreshed on the refresh
+ * executor while the previous verdict continues to be returned; if there is no refresh executor it is refreshed on
+ * the calling thread.
  */
 @SuppressWarnings("JavaDoc")
 public class CommunityAuthenticationValidator implements Validator<CommunityAuthentication> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommunityAuthenticationValidator.class);
+
+    // how long a verdict is kept after it was last requested
+    private static final long RETENTION = 600000L;
 
     /**
      * @param The {@link AciService} to use for validation
@@ -29,9 +50,65 @@ public class CommunityAuthenticationValidator implements Validator<CommunityAuth
     @Setter
     private ProcessorFactory processorFactory;
 
+    /**
+     * @param The {@link ServerConfigValidator} whose validation phases are shared, so that the community server is not
+     * sent the same actions again when it is also validated or warmed up elsewhere. Optional.
+     */
+    @Setter
+    private ServerConfigValidator serverConfigValidator;
+
+    /**
+     * @param How long, in milliseconds, a validation result remains fresh. Results are not cached if this is zero,
+     * which is the default.
+     */
+    @Setter
+    private long verdictTimeToLive;
+
+    /**
+     * @param The {@link Executor} used to refresh expired validation results. If not set, expired results are
+     * refreshed on the calling thread.
+     */
+    @Setter
+    private Executor refreshExecutor;
+
+    private final ConcurrentMap<VerdictKey, Verdict> verdicts = new ConcurrentHashMap<>();
+
     @Override
     public ValidationResult<?> validate(final CommunityAuthentication config) {
-        return config.validate(aciService, processorFactory);
+        if (verdictTimeToLive <= 0) {
+            return validateCommunity(config);
+        }
+
+        final VerdictKey key = new VerdictKey(config.getCommunity(), config.getMethod());
+        final Verdict verdict = verdicts.get(key);
+
+        if (verdict == null) {
+            return refresh(key, config).result;
+        }
+
+        verdict.lastUsed = System.nanoTime();
+
+        if (verdict.isExpired(verdictTimeToLive) && verdict.refreshing.compareAndSet(false, true)) {
+            if (refreshExecutor == null) {
+                return refresh(key, config, verdict).result;
+            }
+
+            try {
+                refreshExecutor.execute(() -> refresh(key, config, verdict));
+            } catch (final RejectedExecutionException e) {
+                LOGGER.debug("Unable to schedule refresh of Community validation", e);
+                verdict.refreshing.set(false);
+            }
+        }
+
+        return verdict.result;
+    }
+
+    /**
+     * Discards all cached validation results
+     */
+    public void invalidate() {
+        verdicts.clear();
     }
 
     @Override
@@ -39,4 +116,60 @@ public class CommunityAuthenticationValidator implements Validator<CommunityAuth
         return CommunityAuthentication.class;
     }
 
+    private Verdict refresh(final VerdictKey key, final CommunityAuthentication config, final Verdict expired) {
+        try {
+            return refresh(key, config);
+        } finally {
+            // allows another attempt if validation failed unexpectedly
+            expired.refreshing.set(false);
+        }
+    }
+
+    private Verdict refresh(final VerdictKey key, final CommunityAuthentication config) {
+        final Verdict verdict = new Verdict(validateCommunity(config));
+
+        // verdicts for Community servers or methods which are no longer configured are dropped once nothing has asked for
+        // them for a while; expired verdicts which are still requested are kept so they can be returned while refreshing
+        final long retention = Math.max(verdictTimeToLive, RETENTION);
+        verdicts.values().removeIf(existing -> existing.isUnusedFor(retention) && !existing.refreshing.get());
+        verdicts.put(key, verdict);
+
+        return verdict;
+    }
+
+    private ValidationResult<?> validateCommunity(final CommunityAuthentication config) {
+        return serverConfigValidator == null
+                ? config.validate(aciService, processorFactory)
+                : config.validate(aciService, processorFactory, serverConfigValidator.getPhases(config.getCommunity()));
+    }
+
+    @EqualsAndHashCode
+    private static class VerdictKey {
+        private final ServerConfig community;
+        private final String method;
+
+        private VerdictKey(final ServerConfig community, final String method) {
+            this.community = community;
+            this.method = method;
+        }
+    }
+
+    private static class Verdict {
+        private final ValidationResult<?> result;
+        private final long validatedAt = System.nanoTime();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile long lastUsed = validatedAt;
+
+        private Verdict(final ValidationResult<?> result) {
+            this.result = result;
+        }
+
+        private boolean isExpired(final long timeToLive) {
+            return System.nanoTime() - validatedAt >= TimeUnit.MILLISECONDS.toNanos(timeToLive);
+        }
+
+        private boolean isUnusedFor(final long retention) {
+            return System.nanoTime() - lastUsed >= TimeUnit.MILLISECONDS.toNanos(retention);
+        }
+    }
 }
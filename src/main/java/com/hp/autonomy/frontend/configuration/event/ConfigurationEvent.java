@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.event;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import lombok.Data;
+
+/**
+ * A change in the state of an IDOL server, published to a {@link ConfigurationEventBus}
+ */
+@SuppressWarnings("JavaDoc")
+@Data
+public class ConfigurationEvent {
+
+    /**
+     * @return The kind of change
+     */
+    private final Type type;
+
+    /**
+     * @return The ACI port of the server which changed
+     */
+    private final AciServerDetails server;
+
+    /**
+     * @return The state before the change; the class of the state depends on the {@link Type}
+     */
+    private final Object previous;
+
+    /**
+     * @return The state after the change; the class of the state depends on the {@link Type}
+     */
+    private final Object current;
+
+    /**
+     * @return The time of the change, in milliseconds since the epoch
+     */
+    private final long timestamp;
+
+    /**
+     * @param type     The kind of change
+     * @param server   The ACI port of the server which changed
+     * @param previous The state before the change
+     * @param current  The state after the change
+     */
+    public ConfigurationEvent(final Type type, final AciServerDetails server, final Object previous, final Object current) {
+        this(type, server, previous, current, System.currentTimeMillis());
+    }
+
+    /**
+     * @param type      The kind of change
+     * @param server    The ACI port of the server which changed
+     * @param previous  The state before the change
+     * @param current   The state after the change
+     * @param timestamp The time of the change, in milliseconds since the epoch
+     */
+    public ConfigurationEvent(final Type type, final AciServerDetails server, final Object previous, final Object current, final long timestamp) {
+        this.type = type;
+        this.server = server;
+        this.previous = previous;
+        this.current = current;
+        this.timestamp = timestamp;
+    }
+
+    public enum Type {
+        /**
+         * The server's configuration became valid or invalid. The states are Booleans.
+         */
+        VALIDITY_CHANGED,
+
+        /**
+         * The server became available or unavailable to its distribution server. The states are
+         * {@link com.hp.autonomy.frontend.configuration.topology.ChildEngine.Status}es.
+         */
+        HEALTH_CHANGED,
+
+        /**
+         * The server reported different index or service ports. The states are {@link ServerPorts}.
+         */
+        PORTS_CHANGED,
+
+        /**
+         * The server reported different product types. The states are
+         * {@link com.hp.autonomy.frontend.configuration.server.ServerProductTypes}.
+         */
+        PRODUCT_TYPE_CHANGED,
+
+        /**
+         * The average latency of the server rose above its threshold. The states are average latencies in
+         * milliseconds, as Doubles.
+         */
+        LATENCY_THRESHOLD_EXCEEDED,
+
+        /**
+         * The average latency of the server fell back below its threshold. The states are average latencies in
+         * milliseconds, as Doubles.
+         */
+        LATENCY_THRESHOLD_RECOVERED
+    }
+}
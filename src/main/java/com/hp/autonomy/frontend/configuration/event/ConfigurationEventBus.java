@@ -0,0 +1,79 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.event;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * An in-process bus for {@link ConfigurationEvent}s, so that consumers such as dashboards are told when the state of a
+ * server changes rather than repeatedly validating it.
+ * <p>
+ * Publishing never blocks: each subscriber has its own bounded buffer, from which the oldest event is dropped when it
+ * is full.
+ */
+public class ConfigurationEventBus {
+    private final Set<EventSubscription> subscriptions = new CopyOnWriteArraySet<>();
+
+    /**
+     * Sends an event to every subscriber
+     *
+     * @param event The event
+     */
+    public void publish(final ConfigurationEvent event) {
+        for (final EventSubscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * @param capacity The maximum number of events to buffer
+     * @return A subscription to every event, which the consumer polls for events
+     */
+    public EventSubscription subscribe(final int capacity) {
+        return add(new EventSubscription(this, capacity, null, null, null));
+    }
+
+    /**
+     * @param capacity The maximum number of events to buffer
+     * @param types    The types of event to receive
+     * @return A subscription to events of the given types, which the consumer polls for events
+     */
+    public EventSubscription subscribe(final int capacity, final Collection<ConfigurationEvent.Type> types) {
+        final Set<ConfigurationEvent.Type> typeSet = EnumSet.copyOf(types);
+        return add(new EventSubscription(this, capacity, event -> typeSet.contains(event.getType()), null, null));
+    }
+
+    /**
+     * @param capacity The maximum number of events to buffer while the listener is busy
+     * @param listener The listener to deliver every event to
+     * @param executor The executor to run the listener on. Events are delivered to the listener one at a time.
+     * @return A subscription which delivers events to the listener
+     */
+    public EventSubscription subscribe(final int capacity, final Consumer<? super ConfigurationEvent> listener, final Executor executor) {
+        return add(new EventSubscription(this, capacity, null, listener, executor));
+    }
+
+    /**
+     * @return The number of current subscriptions
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    void unsubscribe(final EventSubscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    private EventSubscription add(final EventSubscription subscription) {
+        subscriptions.add(subscription);
+        return subscription;
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A subscription to a {@link ConfigurationEventBus}. Events are held in a bounded buffer until they are consumed; when
+ * the buffer is full the oldest event is dropped to make room for the newest, so a slow consumer never delays the
+ * publisher.
+ * <p>
+ * Events are either polled by the consumer or, if the subscription has a listener, delivered to the listener on its
+ * executor in the order they were published.
+ */
+public class EventSubscription implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventSubscription.class);
+
+    private final ConfigurationEventBus eventBus;
+    private final int capacity;
+    private final Predicate<? super ConfigurationEvent> filter;
+    private final Consumer<? super ConfigurationEvent> listener;
+    private final Executor executor;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Deque<ConfigurationEvent> buffer;
+    private final AtomicBoolean delivering = new AtomicBoolean();
+    private long dropped;
+
+    EventSubscription(
+            final ConfigurationEventBus eventBus,
+            final int capacity,
+            final Predicate<? super ConfigurationEvent> filter,
+            final Consumer<? super ConfigurationEvent> listener,
+            final Executor executor
+    ) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        this.eventBus = eventBus;
+        this.capacity = capacity;
+        this.filter = filter;
+        this.listener = listener;
+        this.executor = executor;
+
+        buffer = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * @return The next event, or null if there are none
+     */
+    public ConfigurationEvent poll() {
+        lock.lock();
+
+        try {
+            return buffer.pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param timeout How long to wait for an event
+     * @param unit    The unit of the timeout
+     * @return The next event, or null if none was published before the timeout
+     * @throws InterruptedException If the thread was interrupted while waiting
+     */
+    public ConfigurationEvent poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+
+        try {
+            while (buffer.isEmpty()) {
+                if (remaining <= 0) {
+                    return null;
+                }
+
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+
+            return buffer.pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every buffered event
+     *
+     * @param events The collection to add the events to, in the order they were published
+     * @return The number of events added
+     */
+    public int drainTo(final Collection<? super ConfigurationEvent> events) {
+        lock.lock();
+
+        try {
+            final int size = buffer.size();
+            events.addAll(buffer);
+            buffer.clear();
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of events which were dropped because the buffer was full
+     */
+    public long getDroppedCount() {
+        lock.lock();
+
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops receiving events
+     */
+    @Override
+    public void close() {
+        eventBus.unsubscribe(this);
+    }
+
+    void offer(final ConfigurationEvent event) {
+        if (filter != null && !filter.test(event)) {
+            return;
+        }
+
+        lock.lock();
+
+        try {
+            if (buffer.size() == capacity) {
+                buffer.pollFirst();
+                dropped++;
+            }
+
+            buffer.addLast(event);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (listener != null) {
+            scheduleDelivery();
+        }
+    }
+
+    private void scheduleDelivery() {
+        if (delivering.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::deliver);
+            } catch (final RejectedExecutionException e) {
+                LOGGER.warn("Unable to deliver configuration events", e);
+                delivering.set(false);
+            }
+        }
+    }
+
+    private void deliver() {
+        try {
+            ConfigurationEvent event;
+
+            while ((event = poll()) != null) {
+                try {
+                    listener.accept(event);
+                } catch (final RuntimeException e) {
+                    LOGGER.warn("Error handling configuration event {}", event, e);
+                }
+            }
+        } finally {
+            delivering.set(false);
+        }
+
+        // an event may have been offered after the buffer was found to be empty but before delivery ended
+        lock.lock();
+
+        final boolean pending;
+
+        try {
+            pending = !buffer.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+
+        if (pending) {
+            scheduleDelivery();
+        }
+    }
+}
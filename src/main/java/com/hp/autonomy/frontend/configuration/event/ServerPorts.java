@@ -0,0 +1,27 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.event;
+
+import lombok.Data;
+
+/**
+ * The ports reported by an IDOL server
+ */
+@SuppressWarnings("JavaDoc")
+@Data
+public class ServerPorts {
+    private final int aciPort;
+
+    /**
+     * @return The index port, or null if the server did not report one
+     */
+    private final Integer indexPort;
+
+    /**
+     * @return The service port, or null if the server did not report one
+     */
+    private final Integer servicePort;
+}
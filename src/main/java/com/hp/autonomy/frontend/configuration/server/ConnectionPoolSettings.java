@@ -0,0 +1,73 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * How connections to the ports of a {@link ServerConfig} should be pooled. Any setting which is null takes the value
+ * of the corresponding default setting of the
+ * {@link com.hp.autonomy.frontend.configuration.aci.ConnectionPoolManager}.
+ */
+@SuppressWarnings({"JavaDoc", "WeakerAccess", "DefaultAnnotationParam"})
+@Getter
+@Builder(toBuilder = true)
+@EqualsAndHashCode
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonDeserialize(builder = ConnectionPoolSettings.ConnectionPoolSettingsBuilder.class)
+public class ConnectionPoolSettings {
+
+    /**
+     * @return The maximum number of open connections to each port of the server
+     */
+    private final Integer maxConnections;
+
+    /**
+     * @return The maximum time, in milliseconds, an idle connection is kept open for reuse. The server's Keep-Alive
+     * header is used if it asks for a shorter time.
+     */
+    private final Long keepAlive;
+
+    /**
+     * @return The time, in milliseconds, after which idle connections are closed by the background evictor
+     */
+    private final Long idleTimeout;
+
+    /**
+     * @return True if TLS sessions should be resumed when opening new HTTPS connections to the server
+     */
+    private final Boolean tlsSessionReuse;
+
+    /**
+     * @param other The settings to take unset values from
+     * @return New settings with the unset values of these settings taken from the given settings
+     */
+    public ConnectionPoolSettings merge(final ConnectionPoolSettings other) {
+        if (other == null) {
+            return this;
+        }
+
+        return builder()
+                .maxConnections(maxConnections == null ? other.maxConnections : maxConnections)
+                .keepAlive(keepAlive == null ? other.keepAlive : keepAlive)
+                .idleTimeout(idleTimeout == null ? other.idleTimeout : idleTimeout)
+                .tlsSessionReuse(tlsSessionReuse == null ? other.tlsSessionReuse : tlsSessionReuse)
+                .build();
+    }
+
+    @JsonPOJOBuilder(withPrefix = "")
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ConnectionPoolSettingsBuilder {
+    }
+}
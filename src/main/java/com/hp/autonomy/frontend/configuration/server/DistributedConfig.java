@@ -14,7 +14,6 @@ import com.autonomy.nonaci.indexing.IndexingService;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
-import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
 import com.hp.autonomy.frontend.configuration.ConfigException;
 import com.hp.autonomy.frontend.configuration.ConfigurationComponent;
 import com.hp.autonomy.frontend.configuration.SimpleComponent;
@@ -31,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
+import java.util.function.Function;
 
 /**
  * {@link ConfigurationComponent} for representing an IDOL component which:
@@ -47,7 +47,7 @@ import java.util.Collections;
 @Builder(toBuilder = true)
 @EqualsAndHashCode(callSuper = false)
 @ToString
-@JsonDeserialize(builder = DistributedConfig.DistributedConfigBuilder.class)
+@JsonDeserialize(using = DistributedConfigDeserializer.class)
 @JsonTypeName("DistributedConfig")
 public class DistributedConfig extends SimpleComponent<DistributedConfig> implements OptionalConfigurationComponent<DistributedConfig> {
 
@@ -138,12 +138,58 @@ public class DistributedConfig extends SimpleComponent<DistributedConfig> implem
      * @see ServerConfig#validate(AciService, IndexingService, ProcessorFactory)
      */
     public ValidationResult<?> validate(final AciService aciService, final IndexingService indexingService, final ProcessorFactory processorFactory) {
+        return validate(aciService, processorFactory, server -> server.validate(aciService, indexingService, processorFactory));
+    }
+
+    /**
+     * Validates the DistributedConfig as {@link #validate(AciService, IndexingService, ProcessorFactory)} does, reusing
+     * the results of earlier validation phases of each server
+     *
+     * @param aciService       The {@link AciService} to use for validation
+     * @param indexingService  The {@link IndexingService} to use for validation
+     * @param processorFactory The {@link ProcessorFactory} used to process the responses
+     * @param phases           Returns the validation phases of each server
+     * @return A validation result as described by {@link #validate(AciService, IndexingService, ProcessorFactory)}
+     */
+    public ValidationResult<?> validate(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final Function<ServerConfig, ValidationPhases> phases
+    ) {
+        return validate(aciService, processorFactory, server -> server.validate(aciService, indexingService, processorFactory, phases.apply(server)));
+    }
+
+    private ValidationResult<?> validate(
+            final AciService aciService,
+            final ProcessorFactory processorFactory,
+            final Function<ServerConfig, ValidationResult<?>> validator
+    ) {
+        final boolean isDistributed = Boolean.TRUE.equals(distributed);
+        final ValidationEvents.Phase event = ValidationEvents.distributedValidation(isDistributed);
+        event.begin();
+
+        final ValidationResult<?> result = validateServers(aciService, processorFactory, validator);
+
+        // the DAH is recorded for a distributed configuration
+        final ServerConfig server = isDistributed ? dah : standard;
+        event.commit(server == null ? null : server.getHost(), server == null ? null : server.getPort(),
+                server == null ? null : server.getProtocol(), server, result);
+
+        return result;
+    }
+
+    private ValidationResult<?> validateServers(
+            final AciService aciService,
+            final ProcessorFactory processorFactory,
+            final Function<ServerConfig, ValidationResult<?>> validator
+    ) {
         try {
             if (distributed) {
                 final DistributedValidationResultDetails distributedValidationResultDetails = new DistributedValidationResultDetails();
 
-                final ValidationResult<?> dihValidation = dih.validate(aciService, indexingService, processorFactory);
-                final ValidationResult<?> dahValidation = dah.validate(aciService, indexingService, processorFactory);
+                final ValidationResult<?> dihValidation = validator.apply(dih);
+                final ValidationResult<?> dahValidation = validator.apply(dah);
 
                 final boolean dihValid = dihValidation.isValid();
                 boolean dahValid = dahValidation.isValid();
@@ -168,7 +214,7 @@ public class DistributedConfig extends SimpleComponent<DistributedConfig> implem
 
                 return new ValidationResult<Object>(dihValid && dahValid, distributedValidationResultDetails);
             } else {
-                return standard.validate(aciService, indexingService, processorFactory);
+                return validator.apply(standard);
             }
         } catch (final RuntimeException e) {
             LOGGER.debug("Error validating config", e);
@@ -197,10 +243,6 @@ public class DistributedConfig extends SimpleComponent<DistributedConfig> implem
         return true;
     }
 
-    @JsonPOJOBuilder(withPrefix = "")
-    public static class DistributedConfigBuilder {
-    }
-
     public enum Validation {
         LANGUAGE_SETTINGS
     }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Hand written deserializer for {@link DistributedConfig}. The nested server configurations are read by
+ * {@link ServerConfigDeserializer}. Unknown properties are reported through the {@link DeserializationContext}, as they
+ * were by the builder.
+ */
+class DistributedConfigDeserializer extends StdDeserializer<DistributedConfig> {
+    private static final long serialVersionUID = -4017375284924925335L;
+
+    private final ServerConfigDeserializer serverConfigDeserializer = new ServerConfigDeserializer();
+
+    public DistributedConfigDeserializer() {
+        super(DistributedConfig.class);
+    }
+
+    @Override
+    public DistributedConfig deserialize(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.getCurrentToken();
+
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        }
+
+        final DistributedConfig.DistributedConfigBuilder builder = DistributedConfig.builder();
+
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            final String name = p.getCurrentName();
+            p.nextToken();
+
+            switch (name) {
+                case "distributed":
+                    builder.distributed(_parseBoolean(p, ctxt));
+                    break;
+                case "standard":
+                    builder.standard(serverConfigDeserializer.deserialize(p, ctxt));
+                    break;
+                case "dih":
+                    builder.dih(serverConfigDeserializer.deserialize(p, ctxt));
+                    break;
+                case "dah":
+                    builder.dah(serverConfigDeserializer.deserialize(p, ctxt));
+                    break;
+                default:
+                    handleUnknownProperty(p, ctxt, DistributedConfig.class, name);
+                    break;
+            }
+        }
+
+        if (token != JsonToken.END_OBJECT) {
+            return (DistributedConfig) ctxt.handleUnexpectedToken(DistributedConfig.class, p);
+        }
+
+        return builder.build();
+    }
+}
@@ -19,6 +19,7 @@ public class DistributedConfigValidator implements Validator<DistributedConfig>
     private AciService aciService;
     private IndexingService indexingService;
     private ProcessorFactory processorFactory;
+    private ServerConfigValidator serverConfigValidator;
 
     /**
      * @param aciService The AciService to use for validation
@@ -41,9 +42,22 @@ public class DistributedConfigValidator implements Validator<DistributedConfig>
         this.processorFactory = processorFactory;
     }
 
+    /**
+     * @param serverConfigValidator The {@link ServerConfigValidator} whose validation phases are shared, so that each
+     *                              server is not sent the same actions again when it is also validated or warmed up
+     *                              elsewhere. Optional.
+     */
+    public void setServerConfigValidator(final ServerConfigValidator serverConfigValidator) {
+        this.serverConfigValidator = serverConfigValidator;
+    }
+
     @Override
     public ValidationResult<?> validate(final DistributedConfig config) {
-        return config.validate(aciService, indexingService, processorFactory);
+        if (serverConfigValidator == null) {
+            return config.validate(aciService, indexingService, processorFactory);
+        }
+
+        return config.validate(aciService, indexingService, processorFactory, serverConfigValidator::getPhases);
     }
 
     @Override
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of compiled product type regular expressions. Configuration files for many tenants tend to share a handful of
+ * expressions, so each one is only compiled once. {@link Pattern} is immutable, so instances can be shared freely.
+ */
+final class PatternCache {
+
+    // expressions edited through the settings page would otherwise accumulate forever
+    private static final int MAX_SIZE = 256;
+
+    private static final ConcurrentMap<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
+    private PatternCache() {
+    }
+
+    /**
+     * @param regex The regular expression to compile
+     * @return The compiled pattern
+     */
+    static Pattern compile(final String regex) {
+        final Pattern pattern = PATTERNS.get(regex);
+
+        if (pattern != null) {
+            return pattern;
+        }
+
+        if (PATTERNS.size() >= MAX_SIZE) {
+            PATTERNS.clear();
+        }
+
+        return PATTERNS.computeIfAbsent(regex, Pattern::compile);
+    }
+}
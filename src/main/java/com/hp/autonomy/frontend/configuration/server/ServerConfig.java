@@ -13,10 +13,8 @@ import com.autonomy.nonaci.indexing.IndexingException;
 import com.autonomy.nonaci.indexing.IndexingService;
 import com.autonomy.nonaci.indexing.impl.IndexCommandImpl;
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
-import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
 import com.hp.autonomy.frontend.configuration.ConfigException;
 import com.hp.autonomy.frontend.configuration.SimpleComponent;
 import com.hp.autonomy.frontend.configuration.validation.OptionalConfigurationComponent;
@@ -42,7 +40,6 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -54,9 +51,8 @@ import java.util.regex.Pattern;
 @SuppressWarnings({"JavaDoc", "WeakerAccess", "DefaultAnnotationParam"})
 @Getter
 @Builder(toBuilder = true)
-@EqualsAndHashCode(callSuper = false)
 @ToString
-@JsonDeserialize(builder = ServerConfig.ServerConfigBuilder.class)
+@JsonDeserialize(using = ServerConfigDeserializer.class)
 public class ServerConfig extends SimpleComponent<ServerConfig> implements OptionalConfigurationComponent<ServerConfig> {
     private static final Logger LOGGER = LoggerFactory.getLogger(ServerConfig.class);
 
@@ -87,6 +83,13 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
      */
     private final Pattern productTypeRegex;
 
+    /**
+     * @return How connections to the ACI, index and service ports of the server should be pooled, or null to use the
+     * default settings of the {@link com.hp.autonomy.frontend.configuration.aci.ConnectionPoolManager}
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final ConnectionPoolSettings connectionPool;
+
     /**
      * Creates a new ServerConfig with the given ServerDetails for indexing
      *
@@ -101,7 +104,7 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
     }
 
     /**
-     * Fetches the index and service ports from the component
+     * Fetches the index and service ports from the component.
      *
      * @param aciService      The {@link AciService} used to discover the ports.
      * @param indexingService The {@link IndexingService} used to test the index port. This can be null if no index port is specified.
@@ -114,70 +117,151 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
             final IndexingService indexingService,
             final ProcessorFactory processorFactory,
             final Collection<String> serverProductTypes
+    ) {
+        return fetchServerDetails(aciService, indexingService, processorFactory, serverProductTypes, new ValidationPhases());
+    }
+
+    /**
+     * Fetches the index and service ports from the component, using the product types returned by GetVersion to decide
+     * how the ports are discovered.
+     *
+     * @param aciService       The {@link AciService} used to discover the ports.
+     * @param indexingService  The {@link IndexingService} used to test the index port. This can be null if no index port is specified.
+     * @param processorFactory Idol response parser generator
+     * @param phases           The results of earlier phases, which are reused where their inputs have not changed
+     * @return A new ServerConfig with its indexing and service details filled in.
+     */
+    public ServerConfig fetchServerDetails(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final ValidationPhases phases
+    ) {
+        final ServerProductTypes serverProductTypes = phases.getServerProductTypes(this, () -> getServerProductTypes(aciService, processorFactory));
+        return fetchServerDetails(aciService, indexingService, processorFactory, serverProductTypes.getNames(), phases);
+    }
+
+    private ServerConfig fetchServerDetails(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final Collection<String> serverProductTypes,
+            final ValidationPhases phases
+    ) {
+        final ValidationEvents.Phase event = ValidationEvents.fetchServerDetails();
+        event.begin();
+        String outcome = ValidationEvents.FAILED;
+
+        try {
+            final ServerConfig serverConfig = discoverServerDetails(aciService, indexingService, processorFactory, serverProductTypes, phases);
+            outcome = ValidationEvents.SUCCESS;
+            return serverConfig;
+        } finally {
+            event.commit(host, port, protocol, this, outcome);
+        }
+    }
+
+    private ServerConfig discoverServerDetails(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final Collection<String> serverProductTypes,
+            final ValidationPhases phases
     ) {
         final ServerConfigBuilder builder = toBuilder();
 
-        final Ports ports = determinePorts(aciService, processorFactory, serverProductTypes);
+        // getStatus doesn't always return ports, but does when an index port is used
+        // some versions of Distributed Connector don't return the service port from GetChildren
+        final boolean useGetStatusToDeterminePorts = indexErrorMessage != null || serverProductTypes.contains(ProductType.DISTRIBUTED_CONNECTOR.name());
+        final Ports ports = phases.getPorts(this, useGetStatusToDeterminePorts, () -> determinePorts(aciService, processorFactory, useGetStatusToDeterminePorts));
 
         if (ports.indexPort != null) {
-            final ServerDetails indexDetails = new ServerDetails();
-            indexDetails.setHost(host);
-            indexDetails.setPort(ports.indexPort);
-            boolean isIndexPortValid = false;
-
-            for (final ServerDetails.TransportProtocol protocol : Arrays.asList(ServerDetails.TransportProtocol.HTTP, ServerDetails.TransportProtocol.HTTPS)) {
-                indexDetails.setProtocol(protocol);
-
-                if (testIndexingConnection(indexDetails, indexingService, indexErrorMessage)) {
-                    // test http first. If the server is https, it will give an error (quickly),
-                    // whereas the timeout when doing https to a http server takes a really long time
-                    builder.indexProtocol(protocol);
-                    builder.indexPort(ports.indexPort);
-
-                    isIndexPortValid = true;
-                    break;
-                }
-            }
+            final int indexPort = ports.indexPort;
+            final ServerDetails.TransportProtocol indexProtocol = phases.getIndexProtocol(this, indexPort, () -> findIndexProtocol(indexPort, indexingService));
 
-            if (!isIndexPortValid) {
+            if (indexProtocol == null) {
                 throw new IllegalArgumentException("Server does not have a valid index port");
             }
+
+            builder.indexProtocol(indexProtocol);
+            builder.indexPort(indexPort);
         }
 
         final int servicePort = ports.servicePort;
+        final AciServerDetails.TransportProtocol serviceProtocol = phases.getServiceProtocol(this, servicePort, () -> findServiceProtocol(servicePort, aciService));
+
+        if (serviceProtocol == null) {
+            //Index port valid but service port invalid
+            throw new IllegalArgumentException("Server does not have a valid service port");
+        }
+
+        //Both index and service ports are valid
+        return builder
+                .serviceProtocol(serviceProtocol)
+                .servicePort(servicePort)
+                .build();
+    }
+
+    private ServerDetails.TransportProtocol findIndexProtocol(final int indexPort, final IndexingService indexingService) {
+        final ServerDetails indexDetails = new ServerDetails();
+        indexDetails.setHost(host);
+        indexDetails.setPort(indexPort);
+
+        for (final ServerDetails.TransportProtocol protocol : Arrays.asList(ServerDetails.TransportProtocol.HTTP, ServerDetails.TransportProtocol.HTTPS)) {
+            indexDetails.setProtocol(protocol);
+
+            if (testIndexingConnection(indexDetails, indexingService, indexErrorMessage)) {
+                // test http first. If the server is https, it will give an error (quickly),
+                // whereas the timeout when doing https to a http server takes a really long time
+                return protocol;
+            }
+        }
+
+        return null;
+    }
+
+    private AciServerDetails.TransportProtocol findServiceProtocol(final int servicePort, final AciService aciService) {
         final AciServerDetails servicePortDetails = new AciServerDetails();
         servicePortDetails.setHost(host);
         servicePortDetails.setPort(servicePort);
 
         for (final AciServerDetails.TransportProtocol protocol : Arrays.asList(AciServerDetails.TransportProtocol.HTTP, AciServerDetails.TransportProtocol.HTTPS)) {
             servicePortDetails.setProtocol(protocol);
-            servicePortDetails.setPort(servicePort);
 
             if (testServicePortConnection(servicePortDetails, aciService)) {
                 // test http first. If the server is https, it will give an error (quickly),
                 // whereas the timeout when doing https to a http server takes a really long time
-                builder.serviceProtocol(protocol);
-                builder.servicePort(servicePort);
-
-                //Both index and service ports are valid
-                return builder.build();
+                return protocol;
             }
         }
 
-        //Index port valid but service port invalid
-        throw new IllegalArgumentException("Server does not have a valid service port");
+        return null;
     }
 
     private Ports determinePorts(
             final AciService aciService,
             final ProcessorFactory processorFactory,
-            final Collection<String> serverProductTypes
+            final boolean useGetStatusToDeterminePorts
     ) {
+        final ValidationEvents.Phase event = ValidationEvents.determinePorts(useGetStatusToDeterminePorts ? StatusActions.GetStatus.name() : GeneralActions.GetChildren.name());
+        event.begin();
+        String outcome = ValidationEvents.FAILED;
+
         try {
-            // getStatus doesn't always return ports, but does when an index port is used
-            // some versions of Distributed Connector don't return the service port from GetChildren
-            final boolean useGetStatusToDeterminePorts = indexErrorMessage != null || serverProductTypes.contains(ProductType.DISTRIBUTED_CONNECTOR.name());
+            final Ports ports = queryPorts(aciService, processorFactory, useGetStatusToDeterminePorts);
+            outcome = ValidationEvents.SUCCESS;
+            return ports;
+        } finally {
+            event.commit(host, port, protocol, this, outcome);
+        }
+    }
 
+    private Ports queryPorts(
+            final AciService aciService,
+            final ProcessorFactory processorFactory,
+            final boolean useGetStatusToDeterminePorts
+    ) {
+        try {
             if (useGetStatusToDeterminePorts) {
                 final Processor<GetStatusResponseData> processor = processorFactory.getResponseDataProcessor(GetStatusResponseData.class);
                 final GetStatusResponseData getStatusResponseData = aciService.executeAction(toAciServerDetails(), new AciParameters(StatusActions.GetStatus.name()), processor);
@@ -195,25 +279,40 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
     }
 
     private boolean testServicePortConnection(final AciServerDetails serviceDetails, final AciService aciService) {
+        final ValidationEvents.Phase event = ValidationEvents.servicePortTest();
+        event.begin();
+        boolean result = false;
+
         try {
             aciService.executeAction(serviceDetails, new AciParameters("getstatus"), new NoopProcessor());
-            return true;
+            result = true;
         } catch (final RuntimeException ignored) {
-            return false;
         }
+
+        event.commit(serviceDetails.getHost(), serviceDetails.getPort(), serviceDetails.getProtocol(), this,
+                result ? ValidationEvents.SUCCESS : ValidationEvents.FAILED);
+
+        return result;
     }
 
     private boolean testIndexingConnection(final ServerDetails indexDetails, final IndexingService indexingService, final CharSequence errorMessage) {
+        final ValidationEvents.Phase event = ValidationEvents.indexPortTest();
+        event.begin();
+        boolean result = false;
+
         try {
             indexingService.executeCommand(indexDetails, new IndexCommandImpl("test"));
         } catch (final IndexingException e) {
             // we got back a response from the index port
-            return e.getMessage().contains(errorMessage);
+            result = e.getMessage().contains(errorMessage);
         } catch (final RuntimeException ignored) {
             // any other kind of exception is bad
         }
 
-        return false;
+        event.commit(indexDetails.getHost(), indexDetails.getPort(), indexDetails.getProtocol(), this,
+                result ? ValidationEvents.SUCCESS : ValidationEvents.FAILED);
+
+        return result;
     }
 
     /**
@@ -252,6 +351,41 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
      * </ul>
      */
     public ValidationResult<?> validate(final AciService aciService, final IndexingService indexingService, final ProcessorFactory processorFactory) {
+        return validate(aciService, indexingService, processorFactory, new ValidationPhases());
+    }
+
+    /**
+     * Validates this server, reusing the results of any phase whose inputs have not changed since it last ran with the
+     * given phases
+     *
+     * @param aciService       The {@link AciService} to use for validation
+     * @param indexingService  The {@link IndexingService} to use for validation. If the server does not support indexing
+     *                         this may be null
+     * @param processorFactory The {@link ProcessorFactory}
+     * @param phases           The results of earlier phases, which are updated
+     * @return A {@link ValidationResult} as described by {@link #validate(AciService, IndexingService, ProcessorFactory)}
+     */
+    public ValidationResult<?> validate(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final ValidationPhases phases
+    ) {
+        final ValidationEvents.Phase event = ValidationEvents.serverValidation();
+        event.begin();
+
+        final ValidationResult<?> result = validateServer(aciService, indexingService, processorFactory, phases);
+
+        event.commit(host, port, protocol, this, result);
+        return result;
+    }
+
+    private ValidationResult<?> validateServer(
+            final AciService aciService,
+            final IndexingService indexingService,
+            final ProcessorFactory processorFactory,
+            final ValidationPhases phases
+    ) {
         // if the host is blank further testing is futile
         try {
             // string doesn't matter here as we swallow the exception
@@ -260,10 +394,10 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
             return new ValidationResult<>(false, Validation.REQUIRED_FIELD_MISSING);
         }
 
-        final Collection<String> serverProductTypes;
+        final ServerProductTypes serverProductTypes;
 
         try {
-            serverProductTypes = getServerProductTypes(aciService, processorFactory);
+            serverProductTypes = phases.getServerProductTypes(this, () -> getServerProductTypes(aciService, processorFactory));
         } catch (final RuntimeException e) {
             LOGGER.debug("Error validating server version for {}", productType);
             LOGGER.debug("", e);
@@ -286,7 +420,7 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
         }
 
         try {
-            final ServerConfig serverConfig = fetchServerDetails(aciService, indexingService, processorFactory, serverProductTypes);
+            final ServerConfig serverConfig = fetchServerDetails(aciService, indexingService, processorFactory, serverProductTypes.getNames(), phases);
 
             final boolean result = serverConfig.servicePort > 0;
 
@@ -315,20 +449,31 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
         }
     }
 
-    private Collection<String> getServerProductTypes(final AciService aciService, final ProcessorFactory processorFactory) {
+    private ServerProductTypes getServerProductTypes(final AciService aciService, final ProcessorFactory processorFactory) {
         // Community's ProductName is just IDOL, so we need to check the product type
         final GetVersionResponseData versionResponseData = aciService
                 .executeAction(toAciServerDetails(),
                         new AciParameters(GeneralActions.GetVersion.name()),
                         processorFactory.getResponseDataProcessor(GetVersionResponseData.class));
 
-        return new HashSet<>(Arrays.asList(versionResponseData.getProducttypecsv().split(",")));
+        return ServerProductTypes.parse(versionResponseData.getProducttypecsv());
     }
 
-    private boolean testServerVersion(final Collection<String> serverProductTypes) {
+    /**
+     * @return The product type regular expression, or the names of the product types, that the server must match
+     */
+    String getProductTypeDescription() {
+        if (productTypeRegex != null) {
+            return productTypeRegex.pattern();
+        }
+
+        return productType == null ? null : StringUtils.join(productType, ',');
+    }
+
+    private boolean testServerVersion(final ServerProductTypes serverProductTypes) {
         return productTypeRegex == null
-                ? productType.stream().anyMatch(p -> serverProductTypes.contains(p.name()))
-                : serverProductTypes.stream().anyMatch(serverProductType -> productTypeRegex.matcher(serverProductType).matches());
+                ? productType.stream().anyMatch(serverProductTypes::contains)
+                : serverProductTypes.anyMatch(productTypeRegex);
     }
 
     /**
@@ -344,6 +489,53 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
         return true;
     }
 
+    // Pattern does not override equals, so product type regexes are compared by their source
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof ServerConfig)) {
+            return false;
+        }
+
+        final ServerConfig other = (ServerConfig) obj;
+
+        return Objects.equals(protocol, other.protocol)
+                && Objects.equals(host, other.host)
+                && Objects.equals(port, other.port)
+                && Objects.equals(indexProtocol, other.indexProtocol)
+                && Objects.equals(indexPort, other.indexPort)
+                && Objects.equals(serviceProtocol, other.serviceProtocol)
+                && Objects.equals(servicePort, other.servicePort)
+                && Objects.equals(productType, other.productType)
+                && Objects.equals(indexErrorMessage, other.indexErrorMessage)
+                && Objects.equals(getProductTypeRegexPattern(), other.getProductTypeRegexPattern())
+                && Objects.equals(connectionPool, other.connectionPool);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                protocol,
+                host,
+                port,
+                indexProtocol,
+                indexPort,
+                serviceProtocol,
+                servicePort,
+                productType,
+                indexErrorMessage,
+                getProductTypeRegexPattern(),
+                connectionPool
+        );
+    }
+
+    private String getProductTypeRegexPattern() {
+        return productTypeRegex == null ? null : productTypeRegex.pattern();
+    }
+
     public enum Validation {
         REQUIRED_FIELD_MISSING,
         CONNECTION_ERROR,
@@ -362,28 +554,21 @@ public class ServerConfig extends SimpleComponent<ServerConfig> implements Optio
     }
 
     @SuppressWarnings({"FieldMayBeFinal", "unused"})
-    @JsonPOJOBuilder(withPrefix = "")
-    @JsonIgnoreProperties(ignoreUnknown = true) // for compatibility with old AciServerDetails config files
     public static class ServerConfigBuilder {
         private AciServerDetails.TransportProtocol protocol = AciServerDetails.TransportProtocol.HTTP;
         private AciServerDetails.TransportProtocol serviceProtocol = AciServerDetails.TransportProtocol.HTTP;
         private ServerDetails.TransportProtocol indexProtocol = ServerDetails.TransportProtocol.HTTP;
         private Pattern productTypeRegex;
 
-        @JsonProperty("productTypeRegex")
-        public String getProductTypeRegexAsString() {
-            return Objects.toString(productTypeRegex);
-        }
-
-        @JsonProperty("productTypeRegex")
         public ServerConfigBuilder productTypeRegexFromString(final String productTypeRegex) {
-            this.productTypeRegex = Pattern.compile(productTypeRegex);
+            this.productTypeRegex = PatternCache.compile(productTypeRegex);
             return this;
         }
     }
 
     @AllArgsConstructor
-    private static class Ports {
+    @EqualsAndHashCode
+    static class Ports {
         final int aciPort;
         final Integer indexPort;
         final int servicePort;
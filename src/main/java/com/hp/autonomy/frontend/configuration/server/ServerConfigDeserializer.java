@@ -0,0 +1,168 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.nonaci.ServerDetails;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hand written deserializer for {@link ServerConfig}, which avoids the reflective builder invocation performed by
+ * Jackson for {@link com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder}. It accepts the same JSON as the
+ * builder did: unknown properties are ignored for compatibility with old AciServerDetails config files and unspecified
+ * protocols default to HTTP.
+ * <p>
+ * Values which are not in their usual form are handed to the standard Jackson deserializers, so error reporting and
+ * any lenient mapper settings are unchanged.
+ */
+class ServerConfigDeserializer extends StdDeserializer<ServerConfig> {
+    private static final long serialVersionUID = 3523432346553040327L;
+
+    private static final JavaType PRODUCT_TYPES_TYPE = TypeFactory.defaultInstance().constructCollectionType(Set.class, ProductType.class);
+
+    private static final Map<String, AciServerDetails.TransportProtocol> ACI_PROTOCOLS = byName(AciServerDetails.TransportProtocol.values());
+    private static final Map<String, ServerDetails.TransportProtocol> INDEX_PROTOCOLS = byName(ServerDetails.TransportProtocol.values());
+    private static final Map<String, ProductType> PRODUCT_TYPES = byName(ProductType.values());
+
+    public ServerConfigDeserializer() {
+        super(ServerConfig.class);
+    }
+
+    @Override
+    public ServerConfig deserialize(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.getCurrentToken();
+
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        }
+
+        final ServerConfig.ServerConfigBuilder builder = ServerConfig.builder();
+
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            final String name = p.getCurrentName();
+            p.nextToken();
+
+            switch (name) {
+                case "protocol":
+                    builder.protocol(readEnum(p, ctxt, AciServerDetails.TransportProtocol.class, ACI_PROTOCOLS));
+                    break;
+                case "host":
+                    builder.host(readString(p, ctxt));
+                    break;
+                case "port":
+                    builder.port(_parseInteger(p, ctxt));
+                    break;
+                case "indexProtocol":
+                    builder.indexProtocol(readEnum(p, ctxt, ServerDetails.TransportProtocol.class, INDEX_PROTOCOLS));
+                    break;
+                case "indexPort":
+                    builder.indexPort(_parseInteger(p, ctxt));
+                    break;
+                case "serviceProtocol":
+                    builder.serviceProtocol(readEnum(p, ctxt, AciServerDetails.TransportProtocol.class, ACI_PROTOCOLS));
+                    break;
+                case "servicePort":
+                    builder.servicePort(_parseInteger(p, ctxt));
+                    break;
+                case "productType":
+                    builder.productType(readProductTypes(p, ctxt));
+                    break;
+                case "indexErrorMessage":
+                    builder.indexErrorMessage(readString(p, ctxt));
+                    break;
+                case "productTypeRegex":
+                    final String productTypeRegex = readString(p, ctxt);
+                    builder.productTypeRegex(productTypeRegex == null ? null : PatternCache.compile(productTypeRegex));
+                    break;
+                case "connectionPool":
+                    builder.connectionPool(p.getCurrentToken() == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, ConnectionPoolSettings.class));
+                    break;
+                default:
+                    // for compatibility with old AciServerDetails config files
+                    p.skipChildren();
+                    break;
+            }
+        }
+
+        if (token != JsonToken.END_OBJECT) {
+            return (ServerConfig) ctxt.handleUnexpectedToken(ServerConfig.class, p);
+        }
+
+        return builder.build();
+    }
+
+    private String readString(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        return p.getCurrentToken() == JsonToken.VALUE_NULL ? null : _parseString(p, ctxt);
+    }
+
+    private Set<ProductType> readProductTypes(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        final JsonToken token = p.getCurrentToken();
+
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        if (token != JsonToken.START_ARRAY) {
+            return ctxt.readValue(p, PRODUCT_TYPES_TYPE);
+        }
+
+        final Set<ProductType> productTypes = EnumSet.noneOf(ProductType.class);
+
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            final ProductType productType = readEnum(p, ctxt, ProductType.class, PRODUCT_TYPES);
+
+            // EnumSet does not permit nulls
+            if (productType != null) {
+                productTypes.add(productType);
+            }
+        }
+
+        return productTypes;
+    }
+
+    private static <E extends Enum<E>> E readEnum(final JsonParser p, final DeserializationContext ctxt, final Class<E> type, final Map<String, E> byName) throws IOException {
+        final JsonToken token = p.getCurrentToken();
+
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        if (token == JsonToken.VALUE_STRING) {
+            final E value = byName.get(p.getText());
+
+            if (value != null) {
+                return value;
+            }
+        }
+
+        return ctxt.readValue(p, type);
+    }
+
+    private static <E extends Enum<E>> Map<String, E> byName(final E[] values) {
+        final Map<String, E> byName = new HashMap<>();
+
+        for (final E value : values) {
+            byName.put(value.name(), value);
+        }
+
+        return byName;
+    }
+}
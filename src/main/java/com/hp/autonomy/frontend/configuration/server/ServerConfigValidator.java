@@ -7,18 +7,40 @@ package com.hp.autonomy.frontend.configuration.server;
 
 import com.autonomy.aci.client.services.AciService;
 import com.autonomy.nonaci.indexing.IndexingService;
+import com.hp.autonomy.frontend.configuration.event.ConfigurationEvent;
+import com.hp.autonomy.frontend.configuration.event.ConfigurationEventBus;
+import com.hp.autonomy.frontend.configuration.event.ServerPorts;
 import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
 import com.hp.autonomy.frontend.configuration.validation.Validator;
 import com.hp.autonomy.types.idol.marshalling.ProcessorFactory;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * A {@link Validator} for {@link ServerConfig}
+ * <p>
+ * If a phase time to live is set, the results of the network phases of validation are retained for each server, so
+ * that validating an edited configuration only repeats the phases affected by the fields which changed. Changing the
+ * protocol, host or port repeats every phase; changing the product type only repeats the product type check; changing
+ * the index error message only repeats the index port probe.
+ * <p>
+ * If an event bus is set, changes to the validity, ports and product types of each server are published to it.
  */
 public class ServerConfigValidator implements Validator<ServerConfig> {
+    // how long the state of a server is kept after it was last used, to detect changes to it
+    private static final long RETENTION = 600000L;
 
     private AciService aciService;
     private IndexingService indexingService;
     private ProcessorFactory processorFactory;
+    private long phaseTimeToLive;
+    private ConfigurationEventBus eventBus;
+
+    private final ConcurrentMap<List<?>, ValidationPhases> phases = new ConcurrentHashMap<>();
 
     /**
      * @param processorFactory The {@link ProcessorFactory} to use for validation
@@ -43,13 +65,96 @@ public class ServerConfigValidator implements Validator<ServerConfig> {
         this.indexingService = indexingService;
     }
 
+    /**
+     * @param phaseTimeToLive How long, in milliseconds, the result of each validation phase may be reused for. Results
+     *                        are not reused if this is zero, which is the default.
+     */
+    public void setPhaseTimeToLive(final long phaseTimeToLive) {
+        this.phaseTimeToLive = phaseTimeToLive;
+    }
+
+    /**
+     * @param eventBus The bus to publish changes to the state of each server to
+     */
+    public void setEventBus(final ConfigurationEventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
     @Override
     public ValidationResult<?> validate(final ServerConfig config) {
-        return config.validate(aciService, indexingService, processorFactory);
+        if (phaseTimeToLive <= 0 && eventBus == null) {
+            return config.validate(aciService, indexingService, processorFactory);
+        }
+
+        final ValidationPhases serverPhases = getPhases(config);
+        final Boolean previousValidity = serverPhases.getLastValidity();
+        final ServerProductTypes previousProductTypes = serverPhases.getLastServerProductTypes();
+        final ServerConfig.Ports previousPorts = serverPhases.getLastPorts();
+
+        final ValidationResult<?> result = config.validate(aciService, indexingService, processorFactory, serverPhases);
+        serverPhases.setLastValidity(result.isValid());
+
+        if (eventBus != null) {
+            publishChanges(config, previousValidity, previousProductTypes, previousPorts, serverPhases);
+        }
+
+        return result;
+    }
+
+    /**
+     * @param config The server
+     * @return The results of the validation phases retained for the server, which should be used by anything else
+     * validating the server or fetching its details so that each action is only sent once. Results are only retained
+     * if a phase time to live is set.
+     */
+    public ValidationPhases getPhases(final ServerConfig config) {
+        final List<?> endpoint = Arrays.asList(config.getProtocol(), config.getHost(), config.getPort());
+        final ValidationPhases serverPhases = phases.get(endpoint);
+
+        if (serverPhases != null) {
+            // phases shared with other validators and the warm-up must not be evicted while they are still in use
+            serverPhases.markUsed();
+            return serverPhases;
+        }
+
+        // configurations replaced through the settings page would otherwise never be evicted
+        final long evictBefore = System.currentTimeMillis() - Math.max(phaseTimeToLive, RETENTION);
+        phases.values().removeIf(existing -> existing.getLastUsed() < evictBefore);
+        return phases.computeIfAbsent(endpoint, key -> new ValidationPhases(Math.max(phaseTimeToLive, 0)));
+    }
+
+    /**
+     * Discards the retained results of every validation phase
+     */
+    public void invalidate() {
+        phases.clear();
     }
 
     @Override
     public Class<ServerConfig> getSupportedClass() {
         return ServerConfig.class;
     }
+
+    private void publishChanges(
+            final ServerConfig config,
+            final Boolean previousValidity,
+            final ServerProductTypes previousProductTypes,
+            final ServerConfig.Ports previousPorts,
+            final ValidationPhases serverPhases
+    ) {
+        publishChange(config, ConfigurationEvent.Type.PRODUCT_TYPE_CHANGED, previousProductTypes, serverPhases.getLastServerProductTypes());
+        publishChange(config, ConfigurationEvent.Type.PORTS_CHANGED, toServerPorts(previousPorts), toServerPorts(serverPhases.getLastPorts()));
+        publishChange(config, ConfigurationEvent.Type.VALIDITY_CHANGED, previousValidity, serverPhases.getLastValidity());
+    }
+
+    private void publishChange(final ServerConfig config, final ConfigurationEvent.Type type, final Object previous, final Object current) {
+        // the first result for a server is not a change
+        if (previous != null && !Objects.equals(previous, current)) {
+            eventBus.publish(new ConfigurationEvent(type, config.toAciServerDetails(), previous, current));
+        }
+    }
+
+    private static ServerPorts toServerPorts(final ServerConfig.Ports ports) {
+        return ports == null ? null : new ServerPorts(ports.aciPort, ports.indexPort, ports.servicePort);
+    }
 }
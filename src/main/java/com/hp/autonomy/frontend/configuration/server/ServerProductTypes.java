@@ -0,0 +1,177 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The product types reported by a server in the autn:producttypecsv field of the GetVersion action.
+ * <p>
+ * Names which correspond to a {@link ProductType} are resolved without allocating a substring for each token. Any other
+ * names are retained as strings so they can still be matched against a product type regular expression.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public final class ServerProductTypes {
+
+    // product types bucketed by the length of their name; the bucket is then scanned comparing characters in place
+    private static final ProductType[][] PRODUCT_TYPES_BY_LENGTH;
+
+    static {
+        int maxLength = 0;
+
+        for (final ProductType productType : ProductType.values()) {
+            maxLength = Math.max(maxLength, productType.name().length());
+        }
+
+        final List<List<ProductType>> buckets = new ArrayList<>(maxLength + 1);
+
+        for (int i = 0; i <= maxLength; i++) {
+            buckets.add(new ArrayList<>());
+        }
+
+        for (final ProductType productType : ProductType.values()) {
+            buckets.get(productType.name().length()).add(productType);
+        }
+
+        PRODUCT_TYPES_BY_LENGTH = new ProductType[maxLength + 1][];
+
+        for (int i = 0; i <= maxLength; i++) {
+            PRODUCT_TYPES_BY_LENGTH[i] = buckets.get(i).toArray(new ProductType[0]);
+        }
+    }
+
+    /**
+     * @return The reported product types which correspond to a {@link ProductType}
+     */
+    private final Set<ProductType> productTypes;
+
+    /**
+     * @return The reported product types which do not correspond to any {@link ProductType}
+     */
+    private final List<String> unknownProductTypes;
+
+    private ServerProductTypes(final Set<ProductType> productTypes, final List<String> unknownProductTypes) {
+        this.productTypes = Collections.unmodifiableSet(productTypes);
+        this.unknownProductTypes = Collections.unmodifiableList(unknownProductTypes);
+    }
+
+    /**
+     * Parses the value of the autn:producttypecsv field. Empty tokens are ignored.
+     *
+     * @param productTypeCsv The comma separated product types
+     * @return The parsed product types
+     */
+    public static ServerProductTypes parse(final CharSequence productTypeCsv) {
+        final EnumSet<ProductType> productTypes = EnumSet.noneOf(ProductType.class);
+        final List<String> unknownProductTypes = new ArrayList<>(0);
+
+        final int length = productTypeCsv.length();
+        int start = 0;
+
+        for (int i = 0; i <= length; i++) {
+            if (i == length || productTypeCsv.charAt(i) == ',') {
+                if (i > start) {
+                    final ProductType productType = lookup(productTypeCsv, start, i);
+
+                    if (productType == null) {
+                        unknownProductTypes.add(productTypeCsv.subSequence(start, i).toString());
+                    } else {
+                        productTypes.add(productType);
+                    }
+                }
+
+                start = i + 1;
+            }
+        }
+
+        return new ServerProductTypes(productTypes, unknownProductTypes);
+    }
+
+    private static ProductType lookup(final CharSequence csv, final int start, final int end) {
+        final int tokenLength = end - start;
+
+        if (tokenLength >= PRODUCT_TYPES_BY_LENGTH.length) {
+            return null;
+        }
+
+        for (final ProductType candidate : PRODUCT_TYPES_BY_LENGTH[tokenLength]) {
+            final String name = candidate.name();
+            int i = 0;
+
+            while (i < tokenLength && name.charAt(i) == csv.charAt(start + i)) {
+                i++;
+            }
+
+            if (i == tokenLength) {
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param productType The product type to test for
+     * @return True if the server reported the given product type
+     */
+    public boolean contains(final ProductType productType) {
+        return productTypes.contains(productType);
+    }
+
+    /**
+     * @param pattern The pattern to test against
+     * @return True if any reported product type, known or unknown, matches the pattern in its entirety
+     */
+    public boolean anyMatch(final Pattern pattern) {
+        Matcher matcher = null;
+
+        for (final ProductType productType : productTypes) {
+            matcher = matcher == null ? pattern.matcher(productType.name()) : matcher.reset(productType.name());
+
+            if (matcher.matches()) {
+                return true;
+            }
+        }
+
+        for (final String unknownProductType : unknownProductTypes) {
+            matcher = matcher == null ? pattern.matcher(unknownProductType) : matcher.reset(unknownProductType);
+
+            if (matcher.matches()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The names of all the reported product types, known and unknown
+     */
+    public Collection<String> getNames() {
+        final Collection<String> names = new ArrayList<>(productTypes.size() + unknownProductTypes.size());
+
+        for (final ProductType productType : productTypes) {
+            names.add(productType.name());
+        }
+
+        names.addAll(unknownProductTypes);
+
+        return names;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.hp.autonomy.frontend.configuration.FlightRecorderSupport;
+import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
+
+/**
+ * Flight Recorder events for each phase of validating a {@link ServerConfig} or {@link DistributedConfig}. An event is
+ * only populated and committed if it is enabled and exceeds its threshold, so the phases cost little when Flight
+ * Recorder is not recording them.
+ * <p>
+ * This class does not refer to the Flight Recorder API, which is missing from older and some non-HotSpot Java 8
+ * runtimes. The events themselves are created by FlightRecorderValidationEvents in the src/main/jfr source root, which
+ * is created through {@link FlightRecorderSupport}; if the API or that class is missing, every phase is a no-op.
+ */
+final class ValidationEvents {
+    static final String SUCCESS = "SUCCESS";
+    static final String FAILED = "FAILED";
+    static final String VALID = "VALID";
+
+    private static final Factory FLIGHT_RECORDER = FlightRecorderSupport.newInstance(
+            "com.hp.autonomy.frontend.configuration.server.FlightRecorderValidationEvents", Factory.class);
+
+    private static final Phase NOOP = new Phase() {
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public boolean shouldCommit() {
+            return false;
+        }
+
+        @Override
+        public void commit(final String host, final Integer port, final Enum<?> protocol, final ServerConfig server, final String outcome) {
+        }
+    };
+
+    private ValidationEvents() {
+    }
+
+    static Phase serverValidation() {
+        return FLIGHT_RECORDER != null ? FLIGHT_RECORDER.serverValidation() : NOOP;
+    }
+
+    static Phase fetchServerDetails() {
+        return FLIGHT_RECORDER != null ? FLIGHT_RECORDER.fetchServerDetails() : NOOP;
+    }
+
+    /**
+     * @param action The action sent to find the ports
+     */
+    static Phase determinePorts(final String action) {
+        return FLIGHT_RECORDER != null ? FLIGHT_RECORDER.determinePorts(action) : NOOP;
+    }
+
+    static Phase servicePortTest() {
+        return FLIGHT_RECORDER != null ? FLIGHT_RECORDER.servicePortTest() : NOOP;
+    }
+
+    static Phase indexPortTest() {
+        return FLIGHT_RECORDER != null ? FLIGHT_RECORDER.indexPortTest() : NOOP;
+    }
+
+    /**
+     * @param distributed True if a DAH and DIH pair is being validated
+     */
+    static Phase distributedValidation(final boolean distributed) {
+        return FLIGHT_RECORDER != null ? FLIGHT_RECORDER.distributedValidation(distributed) : NOOP;
+    }
+
+    /**
+     * Creates the Flight Recorder event for each phase
+     */
+    interface Factory {
+        Phase serverValidation();
+
+        Phase fetchServerDetails();
+
+        Phase determinePorts(String action);
+
+        Phase servicePortTest();
+
+        Phase indexPortTest();
+
+        Phase distributedValidation(boolean distributed);
+    }
+
+    /**
+     * A phase of validation, timed from {@link #begin()} until it is committed
+     */
+    interface Phase {
+        void begin();
+
+        boolean shouldCommit();
+
+        /**
+         * Sets the fields and commits the event if it should be committed
+         *
+         * @param server The server whose product type is recorded
+         */
+        void commit(String host, Integer port, Enum<?> protocol, ServerConfig server, String outcome);
+
+        /**
+         * Sets the fields and commits the event if it should be committed, with an outcome of VALID if the result is
+         * valid and otherwise INVALID followed by its data
+         *
+         * @param server The server whose product type is recorded
+         */
+        default void commit(final String host, final Integer port, final Enum<?> protocol, final ServerConfig server, final ValidationResult<?> result) {
+            if (shouldCommit()) {
+                commit(host, port, protocol, server, result.isValid() ? VALID : "INVALID: " + result.getData());
+            }
+        }
+    }
+}
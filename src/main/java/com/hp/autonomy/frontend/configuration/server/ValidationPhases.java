@@ -0,0 +1,189 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The results of the network phases of {@link ServerConfig#validate}, retained so that validating an edited
+ * configuration only repeats the phases affected by the fields which changed. Each result is stored with the fields
+ * it depends on and is reused while they are unchanged and the result has not expired:
+ * <ul>
+ * <li>GetVersion depends on the protocol, host and port</li>
+ * <li>Port discovery also depends on whether GetStatus or GetChildren is used, which depends on the index error
+ * message</li>
+ * <li>The index probe also depends on the index port and the index error message</li>
+ * <li>The service probe also depends on the service port</li>
+ * </ul>
+ * Checking the product type is not a network phase, so it is always repeated. Failures are not retained.
+ * <p>
+ * The most recent results are kept after they expire, along with the outcome of the last validation, so that changes
+ * to them can be detected.
+ * <p>
+ * The phases of a server can be shared by everything which validates it or fetches its details, so that each action
+ * is only sent once; {@link ServerConfigValidator#getPhases} returns those it retains.
+ */
+public class ValidationPhases {
+    private final long timeToLive;
+
+    private volatile Phase<ServerProductTypes> version;
+    private volatile Phase<ServerConfig.Ports> ports;
+    private volatile Phase<Enum<?>> indexProtocol;
+    private volatile Phase<Enum<?>> serviceProtocol;
+    private volatile Boolean lastValidity;
+    private volatile long lastUsed = System.currentTimeMillis();
+
+    /**
+     * Creates phases which retain nothing
+     */
+    public ValidationPhases() {
+        this(0);
+    }
+
+    /**
+     * @param timeToLive How long, in milliseconds, each result may be reused for
+     */
+    public ValidationPhases(final long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    ServerProductTypes getServerProductTypes(final ServerConfig config, final Supplier<ServerProductTypes> phase) {
+        final List<?> key = endpoint(config);
+        final Phase<ServerProductTypes> current = version;
+
+        if (isReusable(current, key)) {
+            return current.result;
+        }
+
+        final ServerProductTypes result = phase.get();
+        version = new Phase<>(key, result);
+        return result;
+    }
+
+    ServerConfig.Ports getPorts(final ServerConfig config, final boolean useGetStatus, final Supplier<ServerConfig.Ports> phase) {
+        final List<?> key = Arrays.asList(endpoint(config), useGetStatus);
+        final Phase<ServerConfig.Ports> current = ports;
+
+        if (isReusable(current, key)) {
+            return current.result;
+        }
+
+        final ServerConfig.Ports result = phase.get();
+        ports = new Phase<>(key, result);
+        return result;
+    }
+
+    /**
+     * @return The protocol of the index port, or null if neither protocol is valid
+     */
+    @SuppressWarnings("unchecked")
+    <P extends Enum<P>> P getIndexProtocol(final ServerConfig config, final int indexPort, final Supplier<P> phase) {
+        final List<?> key = Arrays.asList(endpoint(config), indexPort, config.getIndexErrorMessage());
+        final Phase<Enum<?>> current = indexProtocol;
+
+        if (isReusable(current, key)) {
+            return (P) current.result;
+        }
+
+        final P result = phase.get();
+
+        if (result != null) {
+            indexProtocol = new Phase<>(key, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The protocol of the service port, or null if neither protocol is valid
+     */
+    @SuppressWarnings("unchecked")
+    <P extends Enum<P>> P getServiceProtocol(final ServerConfig config, final int servicePort, final Supplier<P> phase) {
+        final List<?> key = Arrays.asList(endpoint(config), servicePort);
+        final Phase<Enum<?>> current = serviceProtocol;
+
+        if (isReusable(current, key)) {
+            return (P) current.result;
+        }
+
+        final P result = phase.get();
+
+        if (result != null) {
+            serviceProtocol = new Phase<>(key, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The product types found by the most recent GetVersion, or null if it has not succeeded
+     */
+    ServerProductTypes getLastServerProductTypes() {
+        final Phase<ServerProductTypes> current = version;
+        return current == null ? null : current.result;
+    }
+
+    /**
+     * @return The ports found by the most recent port discovery, or null if it has not succeeded
+     */
+    ServerConfig.Ports getLastPorts() {
+        final Phase<ServerConfig.Ports> current = ports;
+        return current == null ? null : current.result;
+    }
+
+    /**
+     * @return True if the last validation succeeded, false if it failed or null if there has not been one
+     */
+    Boolean getLastValidity() {
+        return lastValidity;
+    }
+
+    /**
+     * @param valid The outcome of a validation
+     */
+    void setLastValidity(final boolean valid) {
+        lastValidity = valid;
+    }
+
+    /**
+     * Records that the phases are in use, by a validation or by anything else sharing them
+     */
+    void markUsed() {
+        lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * @return The time the phases were last used, in milliseconds since the epoch
+     */
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    private boolean isReusable(final Phase<?> phase, final List<?> key) {
+        return phase != null && phase.key.equals(key) && !phase.isExpired(timeToLive);
+    }
+
+    private static List<?> endpoint(final ServerConfig config) {
+        return Arrays.asList(config.getProtocol(), config.getHost(), config.getPort());
+    }
+
+    private static class Phase<T> {
+        private final List<?> key;
+        private final T result;
+        private final long created = System.currentTimeMillis();
+
+        private Phase(final List<?> key, final T result) {
+            this.key = key;
+            this.result = result;
+        }
+
+        private boolean isExpired(final long timeToLive) {
+            return System.currentTimeMillis() - created >= timeToLive;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.snapshot;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+/**
+ * A binary snapshot of IDOL configuration components, written by {@link ConfigSnapshotWriter}. The snapshot is memory
+ * mapped when opened and each component is only decoded the first time it is requested.
+ * <p>
+ * A snapshot should only be used if {@link #isCurrent(byte[])} returns true for the current contents of the JSON
+ * configuration file. Otherwise the JSON should be parsed as usual and the snapshot regenerated.
+ */
+public class ConfigSnapshot {
+
+    static final int MAGIC = 0x49444f4c;
+    static final short VERSION = 5;
+
+    private final int enumFingerprint;
+    private final long sourceChecksum;
+    private final Map<String, EntryLocation> locations;
+    private final ByteBuffer data;
+    private final ConcurrentMap<String, Object> decoded = new ConcurrentHashMap<>();
+
+    private ConfigSnapshot(final ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 4 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a configuration snapshot");
+        }
+
+        try {
+            final short version = buffer.getShort();
+
+            if (version != VERSION) {
+                throw new IOException("Unsupported configuration snapshot version " + version);
+            }
+
+            enumFingerprint = buffer.getInt();
+            sourceChecksum = buffer.getLong();
+
+            final int size = buffer.getInt();
+
+            if (size < 0) {
+                throw new IOException("Corrupt configuration snapshot");
+            }
+
+            final Map<String, EntryLocation> locations = new LinkedHashMap<>();
+
+            for (int i = 0; i < size; i++) {
+                final String key = SnapshotCodec.readString(buffer);
+                final EntryType type = EntryType.fromCode(buffer.get());
+                final int offset = buffer.getInt();
+                final int length = buffer.getInt();
+
+                locations.put(key, new EntryLocation(type, offset, length));
+            }
+
+            this.locations = Collections.unmodifiableMap(locations);
+            data = buffer.slice();
+        } catch (final BufferUnderflowException e) {
+            throw new IOException("Truncated configuration snapshot", e);
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("Corrupt configuration snapshot", e);
+        }
+
+        for (final EntryLocation location : locations.values()) {
+            if (location.offset < 0 || location.length < 0 || location.offset > data.limit() - location.length) {
+                throw new IOException("Truncated configuration snapshot");
+            }
+        }
+    }
+
+    /**
+     * Memory maps the given snapshot file
+     *
+     * @param path The snapshot file
+     * @return The snapshot
+     * @throws IOException If the file could not be read or is not a snapshot in a supported format
+     */
+    public static ConfigSnapshot open(final Path path) throws IOException {
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ConfigSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @param buffer A buffer containing a snapshot, positioned at its start
+     * @return The snapshot
+     * @throws IOException If the buffer does not contain a snapshot in a supported format
+     */
+    public static ConfigSnapshot read(final ByteBuffer buffer) throws IOException {
+        return new ConfigSnapshot(buffer.slice());
+    }
+
+    /**
+     * @param sourceJson The current contents of the JSON configuration file
+     * @return True if this snapshot was generated from the given JSON by a compatible version of this library
+     */
+    public boolean isCurrent(final byte[] sourceJson) {
+        return enumFingerprint == SnapshotCodec.ENUM_FINGERPRINT && sourceChecksum == checksum(sourceJson);
+    }
+
+    /**
+     * @return The keys of the components in this snapshot
+     */
+    public Set<String> getKeys() {
+        return locations.keySet();
+    }
+
+    /**
+     * Returns the component with the given key, decoding it if this is the first time it has been requested
+     *
+     * @param key  The key the component was stored with
+     * @param type The type of the component
+     * @param <T>  The type of the component
+     * @return The component, or null if there is no component with the given key
+     * @throws IllegalArgumentException If the component with the given key is not of the given type
+     */
+    public <T> T get(final String key, final Class<T> type) {
+        final EntryLocation location = locations.get(key);
+
+        if (location == null) {
+            return null;
+        }
+
+        if (!type.equals(location.type.getComponentType())) {
+            throw new IllegalArgumentException(key + " is a " + location.type.getComponentType().getSimpleName() + ", not a " + type.getSimpleName());
+        }
+
+        return type.cast(decoded.computeIfAbsent(key, ignored -> {
+            final ByteBuffer entry = data.duplicate();
+            entry.position(location.offset);
+            entry.limit(location.offset + location.length);
+
+            return location.type.read(entry.slice());
+        }));
+    }
+
+    static long checksum(final byte[] bytes) {
+        final CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    private static class EntryLocation {
+        private final EntryType type;
+        private final int offset;
+        private final int length;
+
+        private EntryLocation(final EntryType type, final int offset, final int length) {
+            this.type = type;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
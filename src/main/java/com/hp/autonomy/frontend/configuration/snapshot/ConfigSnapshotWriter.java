@@ -0,0 +1,142 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.snapshot;
+
+import com.hp.autonomy.frontend.configuration.authentication.CommunityAuthentication;
+import com.hp.autonomy.frontend.configuration.server.DistributedConfig;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds a snapshot file which can be read by {@link ConfigSnapshot}. Snapshots are derived data: the JSON
+ * configuration file remains the source of truth and its bytes are checksummed into the snapshot, so a snapshot can be
+ * regenerated whenever {@link ConfigSnapshot#isCurrent(byte[])} returns false.
+ */
+public class ConfigSnapshotWriter {
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * @param key          The key used to retrieve the component from the snapshot
+     * @param serverConfig The component to store
+     * @return This writer
+     * @throws IOException If the component could not be encoded
+     */
+    public ConfigSnapshotWriter serverConfig(final String key, final ServerConfig serverConfig) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SnapshotCodec.writeServerConfig(new DataOutputStream(bytes), serverConfig);
+        return add(key, EntryType.SERVER_CONFIG, bytes);
+    }
+
+    /**
+     * @param key               The key used to retrieve the component from the snapshot
+     * @param distributedConfig The component to store
+     * @return This writer
+     * @throws IOException If the component could not be encoded
+     */
+    public ConfigSnapshotWriter distributedConfig(final String key, final DistributedConfig distributedConfig) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SnapshotCodec.writeDistributedConfig(new DataOutputStream(bytes), distributedConfig);
+        return add(key, EntryType.DISTRIBUTED_CONFIG, bytes);
+    }
+
+    /**
+     * @param key                     The key used to retrieve the component from the snapshot
+     * @param communityAuthentication The component to store
+     * @return This writer
+     * @throws IOException If the component could not be encoded
+     */
+    public ConfigSnapshotWriter communityAuthentication(final String key, final CommunityAuthentication communityAuthentication) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SnapshotCodec.writeCommunityAuthentication(new DataOutputStream(bytes), communityAuthentication);
+        return add(key, EntryType.COMMUNITY_AUTHENTICATION, bytes);
+    }
+
+    /**
+     * Writes the snapshot to the given stream
+     *
+     * @param sourceJson   The contents of the JSON configuration file the components were read from
+     * @param outputStream The stream to write to
+     * @throws IOException If the stream could not be written to
+     */
+    public void write(final byte[] sourceJson, final OutputStream outputStream) throws IOException {
+        final DataOutputStream out = new DataOutputStream(outputStream);
+
+        out.writeInt(ConfigSnapshot.MAGIC);
+        out.writeShort(ConfigSnapshot.VERSION);
+        out.writeInt(SnapshotCodec.ENUM_FINGERPRINT);
+        out.writeLong(ConfigSnapshot.checksum(sourceJson));
+        out.writeInt(entries.size());
+
+        int offset = 0;
+
+        for (final Map.Entry<String, Entry> entry : entries.entrySet()) {
+            SnapshotCodec.writeString(out, entry.getKey());
+            out.writeByte(entry.getValue().type.getCode());
+            out.writeInt(offset);
+            out.writeInt(entry.getValue().bytes.length);
+
+            offset += entry.getValue().bytes.length;
+        }
+
+        for (final Entry entry : entries.values()) {
+            out.write(entry.bytes);
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Writes the snapshot to the given file. The file is replaced atomically where the file system supports it, so
+     * concurrent readers never observe a partially written snapshot.
+     *
+     * @param sourceJson The contents of the JSON configuration file the components were read from
+     * @param path       The file to write to
+     * @throws IOException If the file could not be written
+     */
+    public void write(final byte[] sourceJson, final Path path) throws IOException {
+        final Path parent = path.toAbsolutePath().getParent();
+        final Path temporary = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+
+        try {
+            try (final OutputStream outputStream = Files.newOutputStream(temporary)) {
+                write(sourceJson, outputStream);
+            }
+
+            try {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final IOException ignored) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private ConfigSnapshotWriter add(final String key, final EntryType type, final ByteArrayOutputStream bytes) {
+        entries.put(key, new Entry(type, bytes.toByteArray()));
+        return this;
+    }
+
+    private static class Entry {
+        private final EntryType type;
+        private final byte[] bytes;
+
+        private Entry(final EntryType type, final byte[] bytes) {
+            this.type = type;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.snapshot;
+
+import com.hp.autonomy.frontend.configuration.authentication.CommunityAuthentication;
+import com.hp.autonomy.frontend.configuration.server.DistributedConfig;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The types of component which can be stored in a snapshot. The codes are written to the snapshot file and must not be
+ * changed.
+ */
+enum EntryType {
+    SERVER_CONFIG(1, ServerConfig.class) {
+        @Override
+        Object read(final ByteBuffer in) {
+            return SnapshotCodec.readServerConfig(in);
+        }
+    },
+    DISTRIBUTED_CONFIG(2, DistributedConfig.class) {
+        @Override
+        Object read(final ByteBuffer in) {
+            return SnapshotCodec.readDistributedConfig(in);
+        }
+    },
+    COMMUNITY_AUTHENTICATION(3, CommunityAuthentication.class) {
+        @Override
+        Object read(final ByteBuffer in) {
+            return SnapshotCodec.readCommunityAuthentication(in);
+        }
+    };
+
+    private final byte code;
+    private final Class<?> componentType;
+
+    EntryType(final int code, final Class<?> componentType) {
+        this.code = (byte) code;
+        this.componentType = componentType;
+    }
+
+    abstract Object read(ByteBuffer in);
+
+    byte getCode() {
+        return code;
+    }
+
+    Class<?> getComponentType() {
+        return componentType;
+    }
+
+    static EntryType fromCode(final byte code) {
+        for (final EntryType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown snapshot entry type " + code);
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.snapshot;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.nonaci.ServerDetails;
+import com.hp.autonomy.frontend.configuration.authentication.CommunityAuthentication;
+import com.hp.autonomy.frontend.configuration.authentication.UsernameAndPassword;
+import com.hp.autonomy.frontend.configuration.server.ConnectionPoolSettings;
+import com.hp.autonomy.frontend.configuration.server.DistributedConfig;
+import com.hp.autonomy.frontend.configuration.server.ProductType;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Binary encoding of the IDOL configuration components. Enums are stored as ordinals and product types as a bitset of
+ * ordinals, so {@link #ENUM_FINGERPRINT} must be compared before decoding a snapshot written by another build.
+ */
+final class SnapshotCodec {
+
+    private static final byte NULL = -1;
+
+    private static final AciServerDetails.TransportProtocol[] ACI_PROTOCOLS = AciServerDetails.TransportProtocol.values();
+    private static final ServerDetails.TransportProtocol[] INDEX_PROTOCOLS = ServerDetails.TransportProtocol.values();
+    private static final ProductType[] PRODUCT_TYPES = ProductType.values();
+
+    /**
+     * Checksum of the enum constants whose ordinals are written to snapshots. Any change to the constants or their
+     * order invalidates existing snapshots.
+     */
+    static final int ENUM_FINGERPRINT = enumFingerprint(ACI_PROTOCOLS, INDEX_PROTOCOLS, PRODUCT_TYPES);
+
+    private SnapshotCodec() {
+    }
+
+    static void writeServerConfig(final DataOutput out, final ServerConfig serverConfig) throws IOException {
+        if (serverConfig == null) {
+            out.writeByte(NULL);
+            return;
+        }
+
+        out.writeByte(0);
+        writeEnum(out, serverConfig.getProtocol());
+        writeString(out, serverConfig.getHost());
+        writeInteger(out, serverConfig.getPort());
+        writeEnum(out, serverConfig.getIndexProtocol());
+        writeInteger(out, serverConfig.getIndexPort());
+        writeEnum(out, serverConfig.getServiceProtocol());
+        writeInteger(out, serverConfig.getServicePort());
+        writeProductTypes(out, serverConfig.getProductType());
+        writeString(out, serverConfig.getIndexErrorMessage());
+
+        final Pattern productTypeRegex = serverConfig.getProductTypeRegex();
+        writeString(out, productTypeRegex == null ? null : productTypeRegex.pattern());
+        writeConnectionPoolSettings(out, serverConfig.getConnectionPool());
+    }
+
+    static ServerConfig readServerConfig(final ByteBuffer in) {
+        if (in.get() == NULL) {
+            return null;
+        }
+
+        final ServerConfig.ServerConfigBuilder builder = ServerConfig.builder()
+                .protocol(readEnum(in, ACI_PROTOCOLS))
+                .host(readString(in))
+                .port(readInteger(in))
+                .indexProtocol(readEnum(in, INDEX_PROTOCOLS))
+                .indexPort(readInteger(in))
+                .serviceProtocol(readEnum(in, ACI_PROTOCOLS))
+                .servicePort(readInteger(in))
+                .productType(readProductTypes(in))
+                .indexErrorMessage(readString(in));
+
+        final String productTypeRegex = readString(in);
+
+        if (productTypeRegex != null) {
+            builder.productTypeRegexFromString(productTypeRegex);
+        }
+
+        return builder
+                .connectionPool(readConnectionPoolSettings(in))
+                .build();
+    }
+
+    private static void writeConnectionPoolSettings(final DataOutput out, final ConnectionPoolSettings settings) throws IOException {
+        if (settings == null) {
+            out.writeByte(NULL);
+            return;
+        }
+
+        out.writeByte(0);
+        writeInteger(out, settings.getMaxConnections());
+        writeLong(out, settings.getKeepAlive());
+        writeLong(out, settings.getIdleTimeout());
+        writeBoolean(out, settings.getTlsSessionReuse());
+    }
+
+    private static ConnectionPoolSettings readConnectionPoolSettings(final ByteBuffer in) {
+        if (in.get() == NULL) {
+            return null;
+        }
+
+        return ConnectionPoolSettings.builder()
+                .maxConnections(readInteger(in))
+                .keepAlive(readLong(in))
+                .idleTimeout(readLong(in))
+                .tlsSessionReuse(readBoolean(in))
+                .build();
+    }
+
+    static void writeDistributedConfig(final DataOutput out, final DistributedConfig distributedConfig) throws IOException {
+        writeBoolean(out, distributedConfig.getDistributed());
+        writeServerConfig(out, distributedConfig.getStandard());
+        writeServerConfig(out, distributedConfig.getDih());
+        writeServerConfig(out, distributedConfig.getDah());
+    }
+
+    static DistributedConfig readDistributedConfig(final ByteBuffer in) {
+        return DistributedConfig.builder()
+                .distributed(readBoolean(in))
+                .standard(readServerConfig(in))
+                .dih(readServerConfig(in))
+                .dah(readServerConfig(in))
+                .build();
+    }
+
+    static void writeCommunityAuthentication(final DataOutput out, final CommunityAuthentication communityAuthentication) throws IOException {
+        final UsernameAndPassword defaultLogin = communityAuthentication.getDefaultLogin();
+
+        if (defaultLogin == null) {
+            out.writeByte(NULL);
+        } else {
+            out.writeByte(0);
+            writeString(out, defaultLogin.getUsername());
+            writeString(out, defaultLogin.getPassword());
+        }
+
+        writeServerConfig(out, communityAuthentication.getCommunity());
+        writeString(out, communityAuthentication.getMethod());
+    }
+
+    static CommunityAuthentication readCommunityAuthentication(final ByteBuffer in) {
+        final UsernameAndPassword defaultLogin = in.get() == NULL ? null : UsernameAndPassword.builder()
+                .username(readString(in))
+                .password(readString(in))
+                .build();
+
+        return CommunityAuthentication.builder()
+                .defaultLogin(defaultLogin)
+                .community(readServerConfig(in))
+                .method(readString(in))
+                .build();
+    }
+
+    static void writeString(final DataOutput out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    static String readString(final ByteBuffer in) {
+        final int length = in.getInt();
+
+        if (length == NULL) {
+            return null;
+        }
+
+        if (length < 0 || length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+
+        final byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeEnum(final DataOutput out, final Enum<?> value) throws IOException {
+        out.writeByte(value == null ? NULL : value.ordinal());
+    }
+
+    private static <E extends Enum<E>> E readEnum(final ByteBuffer in, final E[] values) {
+        final byte ordinal = in.get();
+        return ordinal == NULL ? null : values[ordinal];
+    }
+
+    private static void writeInteger(final DataOutput out, final Integer value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else {
+            out.writeByte(0);
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(final ByteBuffer in) {
+        return in.get() == NULL ? null : in.getInt();
+    }
+
+    private static void writeLong(final DataOutput out, final Long value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else {
+            out.writeByte(0);
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(final ByteBuffer in) {
+        return in.get() == NULL ? null : in.getLong();
+    }
+
+    private static void writeBoolean(final DataOutput out, final Boolean value) throws IOException {
+        out.writeByte(value == null ? NULL : value ? 1 : 0);
+    }
+
+    private static Boolean readBoolean(final ByteBuffer in) {
+        final byte value = in.get();
+        return value == NULL ? null : value == 1;
+    }
+
+    // Written as the number of words in the bitset followed by the words, so that any number of product types fit
+    private static void writeProductTypes(final DataOutput out, final Set<ProductType> productTypes) throws IOException {
+        if (productTypes == null) {
+            out.writeByte(NULL);
+            return;
+        }
+
+        final BitSet ordinals = new BitSet(PRODUCT_TYPES.length);
+
+        for (final ProductType productType : productTypes) {
+            ordinals.set(productType.ordinal());
+        }
+
+        final long[] words = ordinals.toLongArray();
+        out.writeByte(words.length);
+
+        for (final long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    private static Set<ProductType> readProductTypes(final ByteBuffer in) {
+        final byte length = in.get();
+
+        if (length == NULL) {
+            return null;
+        }
+
+        final long[] words = new long[length];
+
+        for (int i = 0; i < length; i++) {
+            words[i] = in.getLong();
+        }
+
+        final BitSet ordinals = BitSet.valueOf(words);
+        final Set<ProductType> productTypes = EnumSet.noneOf(ProductType.class);
+
+        for (final ProductType productType : PRODUCT_TYPES) {
+            if (ordinals.get(productType.ordinal())) {
+                productTypes.add(productType);
+            }
+        }
+
+        return productTypes;
+    }
+
+    private static int enumFingerprint(final Enum<?>[]... enums) {
+        final CRC32 crc = new CRC32();
+
+        for (final Enum<?>[] values : enums) {
+            for (final Enum<?> value : values) {
+                crc.update(value.name().getBytes(StandardCharsets.UTF_8));
+                crc.update(',');
+            }
+
+            crc.update(';');
+        }
+
+        return (int) crc.getValue();
+    }
+}
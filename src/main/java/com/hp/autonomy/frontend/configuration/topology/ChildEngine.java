@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.topology;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.nonaci.ServerDetails;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An engine reported by the GetChildren action of a DAH or DIH. If the engine is itself a distribution server, its
+ * own children are included.
+ */
+@Data
+@Builder(toBuilder = true)
+public class ChildEngine {
+
+    /**
+     * @return The position of the engine in its parent's list of children
+     */
+    private final int number;
+
+    private final AciServerDetails.TransportProtocol protocol;
+    private final String host;
+    private final int port;
+
+    /**
+     * @return The service port of the engine, if it was reported by the parent
+     */
+    private final Integer servicePort;
+
+    /**
+     * @return The index port of the engine, if it was reported by the parent
+     */
+    private final Integer indexPort;
+
+    private final Status status;
+
+    /**
+     * @return The children of this engine. This will be empty unless the engine is itself a DAH or DIH.
+     */
+    private final List<ChildEngine> children;
+
+    /**
+     * @return True if the engine is available
+     */
+    public boolean isHealthy() {
+        return status != Status.DOWN;
+    }
+
+    /**
+     * @return True if the engine is a distribution server with children of its own
+     */
+    public boolean isDistributor() {
+        return children != null && !children.isEmpty();
+    }
+
+    /**
+     * @return The children of this engine, or an empty list if it has none
+     */
+    public List<ChildEngine> getChildren() {
+        return children == null ? Collections.emptyList() : children;
+    }
+
+    /**
+     * @return The ACI details of this engine
+     */
+    public AciServerDetails toAciServerDetails() {
+        return new AciServerDetails(protocol, host, port);
+    }
+
+    /**
+     * @return The index details of this engine, or null if no index port was reported
+     */
+    public ServerDetails toServerDetails() {
+        if (indexPort == null) {
+            return null;
+        }
+
+        final ServerDetails serverDetails = new ServerDetails();
+        serverDetails.setHost(host);
+        serverDetails.setPort(indexPort);
+        serverDetails.setProtocol(protocol == AciServerDetails.TransportProtocol.HTTPS ? ServerDetails.TransportProtocol.HTTPS : ServerDetails.TransportProtocol.HTTP);
+
+        return serverDetails;
+    }
+
+    public enum Status {
+        /**
+         * The parent reports the engine as available and it responded when last contacted
+         */
+        UP,
+
+        /**
+         * The parent reports the engine as unavailable, or it could not be contacted
+         */
+        DOWN,
+
+        /**
+         * The parent did not report a status for the engine
+         */
+        UNKNOWN
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.topology;
+
+import com.autonomy.aci.client.services.ProcessorException;
+import com.autonomy.aci.client.services.impl.AbstractStAXProcessor;
+import com.autonomy.aci.client.services.impl.ErrorProcessor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads the autn:engine elements from the response to the GetChildren action of a DAH or DIH. The engines returned
+ * have no children of their own; the protocol is taken from the parent, as GetChildren does not report it.
+ */
+class GetChildrenProcessor extends AbstractStAXProcessor<List<ChildEngine>> {
+    private static final long serialVersionUID = -2530485417826519565L;
+
+    private final AciServerDetails.TransportProtocol protocol;
+
+    GetChildrenProcessor(final AciServerDetails.TransportProtocol protocol) {
+        this.protocol = protocol;
+        setErrorProcessor(new ErrorProcessor());
+    }
+
+    @Override
+    public List<ChildEngine> process(final XMLStreamReader reader) {
+        try {
+            if (isErrorResponse(reader)) {
+                processErrorResponse(reader);
+            }
+
+            final List<ChildEngine> engines = new ArrayList<>();
+
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamReader.START_ELEMENT && "engine".equalsIgnoreCase(localName(reader))) {
+                    engines.add(readEngine(reader, engines.size()));
+                }
+            }
+
+            return engines;
+        } catch (final XMLStreamException e) {
+            throw new ProcessorException("Unable to parse GetChildren response", e);
+        }
+    }
+
+    private ChildEngine readEngine(final XMLStreamReader reader, final int position) throws XMLStreamException {
+        final Map<String, String> fields = new HashMap<>();
+
+        while (reader.hasNext()) {
+            final int event = reader.next();
+
+            if (event == XMLStreamReader.START_ELEMENT) {
+                final String name = localName(reader).toLowerCase(Locale.ENGLISH);
+                fields.put(name, reader.getElementText().trim());
+            } else if (event == XMLStreamReader.END_ELEMENT) {
+                // end of the engine element
+                break;
+            }
+        }
+
+        final Integer number = parseInteger(fields.get("number"));
+
+        return ChildEngine.builder()
+                .number(number == null ? position : number)
+                .protocol(protocol)
+                .host(fields.get("host"))
+                .port(parsePort(fields))
+                .servicePort(parseInteger(fields.get("serviceport")))
+                .indexPort(parseInteger(fields.get("indexport")))
+                .status(parseStatus(fields.get("status")))
+                .build();
+    }
+
+    private static int parsePort(final Map<String, String> fields) {
+        final Integer port = parseInteger(fields.containsKey("port") ? fields.get("port") : fields.get("aciport"));
+
+        if (port == null) {
+            throw new ProcessorException("GetChildren response contains an engine without a port");
+        }
+
+        return port;
+    }
+
+    private static ChildEngine.Status parseStatus(final String status) {
+        if (status == null || status.isEmpty()) {
+            return ChildEngine.Status.UNKNOWN;
+        }
+
+        final String upperCase = status.toUpperCase(Locale.ENGLISH);
+
+        return upperCase.startsWith("UP") || upperCase.startsWith("ONLINE") || "1".equals(upperCase)
+                ? ChildEngine.Status.UP
+                : ChildEngine.Status.DOWN;
+    }
+
+    private static Integer parseInteger(final String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return Integer.valueOf(value);
+        } catch (final NumberFormatException ignored) {
+            return null;
+        }
+    }
+
+    static String localName(final XMLStreamReader reader) {
+        // the processor is not namespace aware, so the name may include the autn prefix
+        final String name = reader.getLocalName();
+        return name.substring(name.indexOf(':') + 1);
+    }
+}
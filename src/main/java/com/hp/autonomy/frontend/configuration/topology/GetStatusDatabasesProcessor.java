@@ -0,0 +1,58 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.topology;
+
+import com.autonomy.aci.client.services.ProcessorException;
+import com.autonomy.aci.client.services.impl.AbstractStAXProcessor;
+import com.autonomy.aci.client.services.impl.ErrorProcessor;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the names of the databases from the response to the GetStatus action of a Content engine
+ */
+class GetStatusDatabasesProcessor extends AbstractStAXProcessor<List<String>> {
+    private static final long serialVersionUID = 4183565250731532896L;
+
+    GetStatusDatabasesProcessor() {
+        setErrorProcessor(new ErrorProcessor());
+    }
+
+    @Override
+    public List<String> process(final XMLStreamReader reader) {
+        try {
+            if (isErrorResponse(reader)) {
+                processErrorResponse(reader);
+            }
+
+            final List<String> databases = new ArrayList<>();
+            boolean inDatabase = false;
+
+            while (reader.hasNext()) {
+                final int event = reader.next();
+
+                if (event == XMLStreamReader.START_ELEMENT) {
+                    final String name = GetChildrenProcessor.localName(reader);
+
+                    if ("database".equalsIgnoreCase(name)) {
+                        inDatabase = true;
+                    } else if (inDatabase && "name".equalsIgnoreCase(name)) {
+                        databases.add(reader.getElementText().trim());
+                    }
+                } else if (event == XMLStreamReader.END_ELEMENT && "database".equalsIgnoreCase(GetChildrenProcessor.localName(reader))) {
+                    inDatabase = false;
+                }
+            }
+
+            return databases;
+        } catch (final XMLStreamException e) {
+            throw new ProcessorException("Unable to parse GetStatus response", e);
+        }
+    }
+}
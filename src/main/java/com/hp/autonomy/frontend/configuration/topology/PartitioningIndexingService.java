@@ -0,0 +1,382 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.topology;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingException;
+import com.autonomy.nonaci.indexing.PostData;
+import com.autonomy.nonaci.indexing.impl.IndexCommandImpl;
+import com.hp.autonomy.frontend.configuration.aci.ConfigurableIndexingService;
+import lombok.Setter;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link ConfigurableIndexingService} which sends batches of index commands directly to the children of a DIH,
+ * partitioning them according to a {@link DistributionMode}, rather than sending every command through the DIH.
+ * <p>
+ * Only commands which add or replace documents are partitioned. Deletions and commands which affect whole databases
+ * must reach every child, so they are always sent to the DIH, which distributes them itself. Commands are also sent to
+ * the DIH returned by {@link #getServerDetails()} when the topology below the DIH has not been discovered, when the
+ * chosen child is down or has no index port, or when no child can be chosen for a command. If a child refuses a
+ * connection, its remaining commands are sent to the DIH instead; any other failure is thrown, since the child may
+ * already have received the command.
+ * <p>
+ * The distribution modes are not those of the DIH. In particular, {@link DistributionMode#REFERENCE_HASH} only sends
+ * replacements to the child holding a document if the document was added in the same mode, with the same hash and the
+ * same children.
+ */
+@SuppressWarnings("JavaDoc")
+public class PartitioningIndexingService implements ConfigurableIndexingService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitioningIndexingService.class);
+
+    private static final int DIH = -1;
+
+    private static final Set<String> PARTITIONED_COMMANDS = new HashSet<>(Arrays.asList(
+            IndexCommand.CMD_DREADD,
+            IndexCommand.CMD_DREADDDATA,
+            IndexCommand.CMD_DREREPLACE
+    ));
+
+    private static final String IDX_REFERENCE = "#DREREFERENCE";
+    private static final String IDX_DOC_ID = "#DREDOCID";
+    private static final Pattern XML_REFERENCE = Pattern.compile("<DREREFERENCE>\\s*(.*?)\\s*</DREREFERENCE>");
+
+    private final ConfigurableIndexingService indexingService;
+    private final TopologyDiscoveryService topologyDiscoveryService;
+    private final Supplier<AciServerDetails> dihServerDetails;
+
+    private final ConcurrentMap<String, ServerDetails> databaseOwners = new ConcurrentHashMap<>();
+    private final AtomicInteger nextChild = new AtomicInteger();
+
+    /**
+     * @param How commands are assigned to children. Defaults to {@link DistributionMode#ROUND_ROBIN}.
+     */
+    @Setter
+    private DistributionMode distributionMode = DistributionMode.ROUND_ROBIN;
+
+    /**
+     * @param The {@link Executor} used to send commands to each child in parallel. If not set, children are sent
+     * their commands in turn on the calling thread.
+     */
+    @Setter
+    private Executor executor;
+
+    /**
+     * @param Extracts the references of the documents in a command in {@link DistributionMode#REFERENCE_HASH} mode, or
+     * returns null if they cannot be determined. The default reads the #DREREFERENCE fields of the IDX or XML posted
+     * with the command, if the posted data is repeatable.
+     */
+    @Setter
+    private Function<IndexCommand, Collection<String>> referenceExtractor = PartitioningIndexingService::readReferences;
+
+    /**
+     * @param Hashes references in {@link DistributionMode#REFERENCE_HASH} mode. Defaults to {@link String#hashCode()}.
+     */
+    @Setter
+    private ToIntFunction<String> referenceHash = String::hashCode;
+
+    /**
+     * @param indexingService          The {@link ConfigurableIndexingService} whose server details identify the DIH
+     * @param topologyDiscoveryService The source of the topology below the DIH
+     * @param dihServerDetails         Supplies the ACI details of the DIH, as used for topology discovery
+     */
+    public PartitioningIndexingService(
+            final ConfigurableIndexingService indexingService,
+            final TopologyDiscoveryService topologyDiscoveryService,
+            final Supplier<AciServerDetails> dihServerDetails
+    ) {
+        this.indexingService = indexingService;
+        this.topologyDiscoveryService = topologyDiscoveryService;
+        this.dihServerDetails = dihServerDetails;
+    }
+
+    /**
+     * Records that a database is held by the given child, for use in {@link DistributionMode#DATABASE} mode
+     *
+     * @param database The name of the database
+     * @param child    The index details of the child holding the database
+     */
+    public void mapDatabase(final String database, final ServerDetails child) {
+        databaseOwners.put(database.toLowerCase(Locale.ENGLISH), child);
+    }
+
+    @Override
+    public ServerDetails getServerDetails() {
+        return indexingService.getServerDetails();
+    }
+
+    @Override
+    public int executeCommand(final IndexCommand command) throws IndexingException {
+        return executeCommands(Collections.singletonList(command)).get(0);
+    }
+
+    /**
+     * Uses the given {@link ServerDetails} and never partitions the command
+     * {@inheritDoc}
+     */
+    @Override
+    public int executeCommand(final ServerDetails serverDetails, final IndexCommand command) throws IndexingException {
+        return indexingService.executeCommand(serverDetails, command);
+    }
+
+    /**
+     * Partitions the given commands between the children of the DIH and sends each child its commands, in order
+     *
+     * @param commands The commands to send
+     * @return The index id returned for each command, in the order the commands were given
+     * @throws IndexingException If any command failed
+     */
+    public List<Integer> executeCommands(final List<? extends IndexCommand> commands) throws IndexingException {
+        final List<ServerDetails> children = getChildren();
+        final Map<Integer, List<Integer>> partitions = new LinkedHashMap<>();
+
+        for (int i = 0; i < commands.size(); i++) {
+            final int child = children.isEmpty() ? DIH : choose(commands.get(i), children);
+            partitions.computeIfAbsent(child, ignored -> new ArrayList<>()).add(i);
+        }
+
+        final int[] indexIds = new int[commands.size()];
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(partitions.size());
+
+        for (final Map.Entry<Integer, List<Integer>> partition : partitions.entrySet()) {
+            final ServerDetails target = partition.getKey() == DIH ? null : children.get(partition.getKey());
+            final Runnable task = () -> send(target, commands, partition.getValue(), indexIds);
+
+            if (executor == null || partitions.size() == 1) {
+                task.run();
+            } else {
+                futures.add(CompletableFuture.runAsync(task, executor));
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+        } catch (final CompletionException e) {
+            throw e.getCause() instanceof IndexingException ? (IndexingException) e.getCause() : new IndexingException(e.getCause());
+        }
+
+        final List<Integer> result = new ArrayList<>(indexIds.length);
+
+        for (final int indexId : indexIds) {
+            result.add(indexId);
+        }
+
+        return result;
+    }
+
+    private void send(final ServerDetails child, final List<? extends IndexCommand> commands, final List<Integer> positions, final int[] indexIds) {
+        ServerDetails target = child;
+
+        for (final int position : positions) {
+            final IndexCommand command = commands.get(position);
+
+            if (target == null) {
+                indexIds[position] = indexingService.executeCommand(command);
+                continue;
+            }
+
+            try {
+                indexIds[position] = indexingService.executeCommand(target, command);
+            } catch (final IndexingException e) {
+                // only retry commands which the child cannot have received
+                if (!isConnectFailure(e.getCause()) || command.getPostData() != null && !command.getPostData().isRepeatable()) {
+                    throw e;
+                }
+
+                LOGGER.warn("Unable to contact DIH child {}:{}, sending remaining commands to DIH", target.getHost(), target.getPort());
+                LOGGER.debug("Child indexing failed", e);
+
+                target = null;
+                indexIds[position] = indexingService.executeCommand(command);
+            }
+        }
+    }
+
+    private List<ServerDetails> getChildren() {
+        final Topology topology = topologyDiscoveryService.findTopology(dihServerDetails.get());
+
+        if (topology == null) {
+            return Collections.emptyList();
+        }
+
+        final List<ServerDetails> children = new ArrayList<>();
+
+        for (final ChildEngine engine : topology.getLeaves()) {
+            final ServerDetails serverDetails = engine.toServerDetails();
+
+            if (serverDetails == null) {
+                // the DIH did not report an index port, so the child cannot be targeted
+                return Collections.emptyList();
+            }
+
+            // unhealthy children remain in the list so hashing and database ownership are stable
+            children.add(engine.isHealthy() ? serverDetails : null);
+        }
+
+        return children;
+    }
+
+    private int choose(final IndexCommand command, final List<ServerDetails> children) {
+        final String name = command.getCommand().toUpperCase(Locale.ENGLISH);
+
+        if (!PARTITIONED_COMMANDS.contains(name)) {
+            return DIH;
+        }
+
+        final int child;
+
+        switch (distributionMode) {
+            case DATABASE:
+                final String database = command instanceof IndexCommandImpl ? ((IndexCommandImpl) command).get(IndexCommand.PARAM_DRE_DBNAME) : null;
+                final ServerDetails owner = database == null ? null : databaseOwners.get(database.toLowerCase(Locale.ENGLISH));
+                child = owner == null ? DIH : children.indexOf(owner);
+                break;
+            case REFERENCE_HASH:
+                child = hashReferences(referenceExtractor.apply(command), children.size());
+                break;
+            default:
+                // a replaced document could be held by any child
+                child = IndexCommand.CMD_DREREPLACE.equals(name) ? DIH : nextHealthy(children);
+                break;
+        }
+
+        return child == DIH || children.get(child) == null ? DIH : child;
+    }
+
+    private int hashReferences(final Collection<String> references, final int children) {
+        if (references == null || references.isEmpty()) {
+            return DIH;
+        }
+
+        int child = DIH;
+
+        for (final String reference : references) {
+            final int referenceChild = (referenceHash.applyAsInt(reference) & Integer.MAX_VALUE) % children;
+
+            if (child != DIH && child != referenceChild) {
+                // the documents belong to different children, so the command cannot be sent to one of them
+                return DIH;
+            }
+
+            child = referenceChild;
+        }
+
+        return child;
+    }
+
+    private int nextHealthy(final List<ServerDetails> children) {
+        for (int attempt = 0; attempt < children.size(); attempt++) {
+            final int child = (nextChild.getAndIncrement() & Integer.MAX_VALUE) % children.size();
+
+            if (children.get(child) != null) {
+                return child;
+            }
+        }
+
+        return DIH;
+    }
+
+    private static boolean isConnectFailure(final Throwable cause) {
+        return cause instanceof ConnectException
+                || cause instanceof NoRouteToHostException
+                || cause instanceof UnknownHostException
+                || cause instanceof ConnectTimeoutException;
+    }
+
+    private static Collection<String> readReferences(final IndexCommand command) {
+        final PostData postData = command.getPostData();
+
+        // reading other data would consume it before it could be sent
+        if (postData == null || !postData.isRepeatable()) {
+            return null;
+        }
+
+        final Set<String> references = new LinkedHashSet<>();
+
+        try (final Reader reader = new InputStreamReader(postData.getContent(), StandardCharsets.UTF_8);
+             final BufferedReader bufferedReader = new BufferedReader(reader)) {
+            String line;
+
+            while ((line = bufferedReader.readLine()) != null) {
+                final String trimmed = line.trim();
+
+                if (trimmed.startsWith(IDX_DOC_ID)) {
+                    // the document is identified by a docid, which differs between children
+                    return null;
+                } else if (trimmed.startsWith(IDX_REFERENCE)) {
+                    references.add(trimmed.substring(IDX_REFERENCE.length()).trim());
+                } else {
+                    final Matcher matcher = XML_REFERENCE.matcher(trimmed);
+
+                    while (matcher.find()) {
+                        references.add(matcher.group(1));
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.debug("Unable to read references from {} command", command.getCommand(), e);
+            return null;
+        }
+
+        return references;
+    }
+
+    /**
+     * The ways in which commands may be assigned to the children of a DIH
+     */
+    public enum DistributionMode {
+        /**
+         * Each command is sent to the child holding the database named in its DREDbName parameter
+         */
+        DATABASE,
+
+        /**
+         * Each command is sent to a child chosen by hashing the references of its documents. Commands whose documents
+         * would be sent to different children are sent to the DIH.
+         */
+        REFERENCE_HASH,
+
+        /**
+         * Additions are sent to each healthy child in turn. Replacements are sent to the DIH.
+         */
+        ROUND_ROBIN
+    }
+}
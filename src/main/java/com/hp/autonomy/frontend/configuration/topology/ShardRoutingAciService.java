@@ -0,0 +1,249 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.topology;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.services.ProcessorException;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.autonomy.aci.client.util.AciParameters;
+import com.hp.autonomy.frontend.configuration.aci.ActionParameters;
+import com.hp.autonomy.frontend.configuration.aci.ConfigurableAciService;
+import com.hp.autonomy.frontend.configuration.aci.Endpoint;
+import com.hp.autonomy.frontend.configuration.aci.EndpointRegistry;
+import com.hp.autonomy.frontend.configuration.aci.EndpointState;
+import com.hp.autonomy.types.requests.idol.actions.status.StatusActions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link ConfigurableAciService} which sends actions that only concern databases held by a single Content engine
+ * directly to that engine, rather than to the DAH returned by {@link #getServerDetails()}.
+ * <p>
+ * An action is only routed directly if:
+ * <ol>
+ * <li>It is one of the routed actions (GetContent by default)</li>
+ * <li>Its DatabaseMatch parameter names at least one database</li>
+ * <li>Every named database is known to be held by the same engine, and by no other engine, so databases which are
+ * mirrored across engines are left for the DAH to balance</li>
+ * <li>That engine was healthy when the topology below the DAH was last discovered</li>
+ * <li>If an {@link EndpointRegistry} is set, that engine is not DOWN in the registry</li>
+ * </ol>
+ * Anything else, including actions sent while the topology is unknown, is sent to the DAH as usual. If the owning
+ * engine cannot be contacted the action is retried against the DAH and the engine is marked DOWN in the registry, so
+ * that later actions go straight to the DAH until the engine is next contacted successfully, for example by
+ * {@link #learnDatabases()}.
+ */
+public class ShardRoutingAciService implements ConfigurableAciService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardRoutingAciService.class);
+
+    private static final Pattern DATABASE_SEPARATOR = Pattern.compile("[+,\\s]+");
+
+    private final ConfigurableAciService aciService;
+    private final TopologyDiscoveryService topologyDiscoveryService;
+    private final ConcurrentMap<String, Set<AciServerDetails>> databaseOwners = new ConcurrentHashMap<>();
+
+    private volatile Set<String> routedActions = Collections.singleton("getcontent");
+    private volatile EndpointRegistry endpointRegistry;
+
+    /**
+     * @param aciService               The {@link ConfigurableAciService} whose server details identify the DAH
+     * @param topologyDiscoveryService The source of the topology below the DAH
+     */
+    public ShardRoutingAciService(final ConfigurableAciService aciService, final TopologyDiscoveryService topologyDiscoveryService) {
+        this.aciService = aciService;
+        this.topologyDiscoveryService = topologyDiscoveryService;
+    }
+
+    /**
+     * @param routedActions The names of the actions which may be sent directly to a Content engine. These must only
+     *                      read from the database named in their DatabaseMatch parameter.
+     */
+    public void setRoutedActions(final Collection<String> routedActions) {
+        final Set<String> actions = new HashSet<>();
+
+        for (final String action : routedActions) {
+            actions.add(action.toLowerCase(Locale.ENGLISH));
+        }
+
+        this.routedActions = Collections.unmodifiableSet(actions);
+    }
+
+    /**
+     * @param endpointRegistry The registry the health of each Content engine is read from and recorded in. Optional.
+     */
+    public void setEndpointRegistry(final EndpointRegistry endpointRegistry) {
+        this.endpointRegistry = endpointRegistry;
+    }
+
+    /**
+     * Records that a database is held by the given engine, in addition to any other engines already known to hold it
+     *
+     * @param database The name of the database
+     * @param engine   The Content engine holding the database
+     */
+    public void mapDatabase(final String database, final AciServerDetails engine) {
+        databaseOwners.computeIfAbsent(database.toLowerCase(Locale.ENGLISH), key -> ConcurrentHashMap.newKeySet()).add(engine);
+    }
+
+    /**
+     * Discovers the topology below the DAH if necessary, then sends GetStatus to each healthy Content engine to learn
+     * which databases it holds. Engines which cannot be contacted are skipped.
+     *
+     * @return The engines holding each database
+     * @throws AciServiceException If the DAH could not be contacted
+     */
+    public Map<String, Set<AciServerDetails>> learnDatabases() {
+        final Topology topology = topologyDiscoveryService.getTopology(aciService.getServerDetails());
+
+        for (final ChildEngine engine : topology.getHealthyLeaves()) {
+            final AciServerDetails serverDetails = engine.toAciServerDetails();
+
+            try {
+                for (final String database : aciService.executeAction(serverDetails, new AciParameters(StatusActions.GetStatus.name()), new GetStatusDatabasesProcessor())) {
+                    mapDatabase(database, serverDetails);
+                }
+
+                setHealth(serverDetails, EndpointState.Health.UP);
+            } catch (final AciErrorException | ProcessorException e) {
+                // the engine responded, so it is healthy
+                LOGGER.debug("Unable to read databases from {}:{}", serverDetails.getHost(), serverDetails.getPort(), e);
+                setHealth(serverDetails, EndpointState.Health.UP);
+            } catch (final AciServiceException e) {
+                LOGGER.debug("Unable to read databases from {}:{}", serverDetails.getHost(), serverDetails.getPort(), e);
+                setHealth(serverDetails, EndpointState.Health.DOWN);
+            }
+        }
+
+        return getDatabaseOwners();
+    }
+
+    /**
+     * @return The engines holding each database, keyed by lower case database name
+     */
+    public Map<String, Set<AciServerDetails>> getDatabaseOwners() {
+        final Map<String, Set<AciServerDetails>> owners = new HashMap<>();
+
+        for (final Map.Entry<String, Set<AciServerDetails>> entry : databaseOwners.entrySet()) {
+            owners.put(entry.getKey(), Collections.unmodifiableSet(new HashSet<>(entry.getValue())));
+        }
+
+        return Collections.unmodifiableMap(owners);
+    }
+
+    @Override
+    public AciServerDetails getServerDetails() {
+        return aciService.getServerDetails();
+    }
+
+    @Override
+    public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        final AciServerDetails owner = findOwner(parameters);
+
+        if (owner != null) {
+            try {
+                return aciService.executeAction(owner, parameters, processor);
+            } catch (final AciErrorException e) {
+                throw e;
+            } catch (final AciServiceException e) {
+                LOGGER.debug("Unable to contact {}:{}, sending action to DAH", owner.getHost(), owner.getPort(), e);
+                setHealth(owner, EndpointState.Health.DOWN);
+            }
+        }
+
+        return aciService.executeAction(parameters, processor);
+    }
+
+    /**
+     * Uses the provided AciServerDetails and never routes the action
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+        return aciService.executeAction(serverDetails, parameters, processor);
+    }
+
+    private AciServerDetails findOwner(final Iterable<? extends ActionParameter<?>> parameters) {
+        if (databaseOwners.isEmpty()) {
+            return null;
+        }
+
+        final String action = ActionParameters.findAction(parameters);
+        final String databaseMatch = ActionParameters.findValue(parameters, "databasematch");
+
+        if (action == null || databaseMatch == null || !routedActions.contains(action.toLowerCase(Locale.ENGLISH))) {
+            return null;
+        }
+
+        AciServerDetails owner = null;
+
+        for (final String database : DATABASE_SEPARATOR.split(databaseMatch.trim())) {
+            if (database.isEmpty()) {
+                continue;
+            }
+
+            final Set<AciServerDetails> owners = databaseOwners.get(database.toLowerCase(Locale.ENGLISH));
+
+            if (owners == null || owners.size() != 1) {
+                return null;
+            }
+
+            final AciServerDetails databaseOwner = owners.iterator().next();
+
+            if (owner != null && !owner.equals(databaseOwner)) {
+                return null;
+            }
+
+            owner = databaseOwner;
+        }
+
+        final Topology topology = topologyDiscoveryService.findTopology(aciService.getServerDetails());
+
+        if (owner == null || topology == null) {
+            return null;
+        }
+
+        for (final ChildEngine engine : topology.getHealthyLeaves()) {
+            if (owner.equals(engine.toAciServerDetails())) {
+                return isDown(owner) ? null : owner;
+            }
+        }
+
+        return null;
+    }
+
+    private boolean isDown(final AciServerDetails engine) {
+        final EndpointRegistry registry = endpointRegistry;
+
+        if (registry == null) {
+            return false;
+        }
+
+        final EndpointState state = registry.find(Endpoint.of(engine));
+        return state != null && state.getHealth() == EndpointState.Health.DOWN;
+    }
+
+    private void setHealth(final AciServerDetails engine, final EndpointState.Health health) {
+        final EndpointRegistry registry = endpointRegistry;
+
+        if (registry != null) {
+            registry.get(Endpoint.of(engine)).setHealth(health);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.topology;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The engines below a DAH or DIH, as discovered by {@link TopologyDiscoveryService}
+ */
+@Data
+public class Topology {
+
+    /**
+     * @return The distribution server the topology was discovered from
+     */
+    private final AciServerDetails root;
+
+    /**
+     * @return The direct children of the root
+     */
+    private final List<ChildEngine> children;
+
+    /**
+     * @return The time the topology was discovered, in milliseconds since the epoch
+     */
+    private final long discoveredAt;
+
+    public Topology(final AciServerDetails root, final List<ChildEngine> children, final long discoveredAt) {
+        this.root = root;
+        this.children = Collections.unmodifiableList(new ArrayList<>(children));
+        this.discoveredAt = discoveredAt;
+    }
+
+    /**
+     * @return The engines which are not themselves distribution servers, in the order they were discovered
+     */
+    public List<ChildEngine> getLeaves() {
+        final List<ChildEngine> leaves = new ArrayList<>();
+        addLeaves(children, leaves);
+        return leaves;
+    }
+
+    /**
+     * @return The leaf engines which were available when the topology was discovered
+     */
+    public List<ChildEngine> getHealthyLeaves() {
+        final List<ChildEngine> leaves = getLeaves();
+        leaves.removeIf(engine -> !engine.isHealthy());
+        return leaves;
+    }
+
+    private static void addLeaves(final Iterable<ChildEngine> engines, final List<ChildEngine> leaves) {
+        for (final ChildEngine engine : engines) {
+            if (engine.isDistributor()) {
+                addLeaves(engine.getChildren(), leaves);
+            } else {
+                leaves.add(engine);
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.topology;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.ProcessorException;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.util.AciParameters;
+import com.hp.autonomy.frontend.configuration.event.ConfigurationEvent;
+import com.hp.autonomy.frontend.configuration.event.ConfigurationEventBus;
+import com.hp.autonomy.frontend.configuration.event.ServerPorts;
+import com.hp.autonomy.frontend.configuration.server.DistributedConfig;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import com.hp.autonomy.types.requests.idol.actions.general.GeneralActions;
+import lombok.Setter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Discovers the engines below a DAH or DIH by sending GetChildren to it, and recursively to any of its children which
+ * are themselves distribution servers.
+ * <p>
+ * Topologies are held in memory once discovered. Refreshing a topology only sends GetChildren to the root and to the
+ * engines which were previously found to be distribution servers: engines already known to be leaves are taken from
+ * the new response without being contacted again.
+ * <p>
+ * If an event bus is set, changes to the status and ports of the engines found by a refresh are published to it.
+ */
+@SuppressWarnings("JavaDoc")
+public class TopologyDiscoveryService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TopologyDiscoveryService.class);
+
+    private static final int DEFAULT_MAX_DEPTH = 4;
+
+    private final AciService aciService;
+    private final ConcurrentMap<AciServerDetails, Topology> topologies = new ConcurrentHashMap<>();
+
+    /**
+     * @param The maximum number of levels of distribution servers to descend through. Defaults to 4.
+     */
+    @Setter
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+
+    /**
+     * @param The bus to publish changes to the status and ports of child engines to
+     */
+    @Setter
+    private ConfigurationEventBus eventBus;
+
+    /**
+     * @param aciService The {@link AciService} used to send GetChildren
+     */
+    public TopologyDiscoveryService(final AciService aciService) {
+        this.aciService = aciService;
+    }
+
+    /**
+     * Returns the topology below the given distribution server, discovering it if it is not already known
+     *
+     * @param root The DAH or DIH
+     * @return The topology below the root
+     * @throws AciServiceException If the root could not be contacted
+     */
+    public Topology getTopology(final AciServerDetails root) {
+        final Topology topology = topologies.get(root);
+        return topology == null ? refresh(root) : topology;
+    }
+
+    /**
+     * @param root The DAH or DIH
+     * @return The topology below the root, or null if it has not been discovered
+     */
+    public Topology findTopology(final AciServerDetails root) {
+        return topologies.get(root);
+    }
+
+    /**
+     * Discovers the topologies below the DAH and DIH of the given config. Nothing is discovered if the config is not
+     * distributed.
+     *
+     * @param distributedConfig The config
+     * @return The topologies of the DAH and DIH, in that order
+     * @throws AciServiceException If either distribution server could not be contacted
+     */
+    public List<Topology> discover(final DistributedConfig distributedConfig) {
+        if (!Boolean.TRUE.equals(distributedConfig.getDistributed())) {
+            return Collections.emptyList();
+        }
+
+        final List<Topology> discovered = new ArrayList<>();
+
+        for (final ServerConfig serverConfig : new ServerConfig[]{distributedConfig.getDah(), distributedConfig.getDih()}) {
+            if (serverConfig != null) {
+                discovered.add(getTopology(serverConfig.toAciServerDetails()));
+            }
+        }
+
+        return discovered;
+    }
+
+    /**
+     * Rediscovers the topology below the given distribution server
+     *
+     * @param root The DAH or DIH
+     * @return The new topology
+     * @throws AciServiceException If the root could not be contacted
+     */
+    public Topology refresh(final AciServerDetails root) {
+        final Map<AciServerDetails, ChildEngine> known = new HashMap<>();
+        final Topology previous = topologies.get(root);
+
+        if (previous != null) {
+            index(previous.getChildren(), known);
+        }
+
+        final Set<AciServerDetails> visited = new HashSet<>();
+        visited.add(root);
+
+        final Topology topology = new Topology(root, discoverChildren(root, 0, visited, known), System.currentTimeMillis());
+        topologies.put(root, topology);
+
+        if (eventBus != null && previous != null) {
+            publishChanges(topology.getChildren(), known);
+        }
+
+        return topology;
+    }
+
+    /**
+     * Rediscovers all known topologies. Topologies whose root cannot be contacted are left unchanged.
+     */
+    public void refreshAll() {
+        for (final AciServerDetails root : topologies.keySet()) {
+            try {
+                refresh(root);
+            } catch (final AciServiceException | ProcessorException e) {
+                LOGGER.warn("Unable to refresh topology of {}:{}", root.getHost(), root.getPort());
+                LOGGER.debug("Topology refresh failed", e);
+            }
+        }
+    }
+
+    /**
+     * @return All topologies discovered so far
+     */
+    public Collection<Topology> getTopologies() {
+        return Collections.unmodifiableCollection(topologies.values());
+    }
+
+    /**
+     * Forgets the topology below the given distribution server
+     *
+     * @param root The DAH or DIH
+     */
+    public void remove(final AciServerDetails root) {
+        topologies.remove(root);
+    }
+
+    private List<ChildEngine> discoverChildren(final AciServerDetails parent, final int depth, final Set<AciServerDetails> visited, final Map<AciServerDetails, ChildEngine> known) {
+        final List<ChildEngine> reported = aciService.executeAction(parent, new AciParameters(GeneralActions.GetChildren.name()), new GetChildrenProcessor(parent.getProtocol()));
+        final List<ChildEngine> children = new ArrayList<>(reported.size());
+
+        for (final ChildEngine child : reported) {
+            children.add(describe(child, depth + 1, visited, known));
+        }
+
+        return children;
+    }
+
+    private ChildEngine describe(final ChildEngine child, final int depth, final Set<AciServerDetails> visited, final Map<AciServerDetails, ChildEngine> known) {
+        final AciServerDetails details = child.toAciServerDetails();
+        final ChildEngine previous = known.get(details);
+
+        // guards against cycles and engines shared between distribution servers
+        if (depth > maxDepth || !visited.add(details) || child.getStatus() == ChildEngine.Status.DOWN) {
+            return child;
+        }
+
+        if (previous != null && !previous.isDistributor() && previous.getStatus() == ChildEngine.Status.UP) {
+            return child.getStatus() == ChildEngine.Status.UNKNOWN ? child.toBuilder().status(ChildEngine.Status.UP).build() : child;
+        }
+
+        try {
+            return child.toBuilder()
+                    .status(ChildEngine.Status.UP)
+                    .children(discoverChildren(details, depth, visited, known))
+                    .build();
+        } catch (final AciErrorException ignored) {
+            // engines which do not distribute do not support GetChildren
+            return child.toBuilder().status(ChildEngine.Status.UP).build();
+        } catch (final AciServiceException | ProcessorException e) {
+            LOGGER.debug("Unable to contact child engine {}:{}", details.getHost(), details.getPort(), e);
+            return child.toBuilder().status(ChildEngine.Status.DOWN).build();
+        }
+    }
+
+    private void publishChanges(final Iterable<ChildEngine> engines, final Map<AciServerDetails, ChildEngine> known) {
+        for (final ChildEngine engine : engines) {
+            final AciServerDetails details = engine.toAciServerDetails();
+            final ChildEngine previous = known.get(details);
+
+            if (previous != null) {
+                if (previous.getStatus() != engine.getStatus()) {
+                    eventBus.publish(new ConfigurationEvent(ConfigurationEvent.Type.HEALTH_CHANGED, details, previous.getStatus(), engine.getStatus()));
+                }
+
+                final ServerPorts previousPorts = toServerPorts(previous);
+                final ServerPorts ports = toServerPorts(engine);
+
+                if (!Objects.equals(previousPorts, ports)) {
+                    eventBus.publish(new ConfigurationEvent(ConfigurationEvent.Type.PORTS_CHANGED, details, previousPorts, ports));
+                }
+            }
+
+            publishChanges(engine.getChildren(), known);
+        }
+    }
+
+    private static ServerPorts toServerPorts(final ChildEngine engine) {
+        return new ServerPorts(engine.getPort(), engine.getIndexPort(), engine.getServicePort());
+    }
+
+    private static void index(final Iterable<ChildEngine> engines, final Map<AciServerDetails, ChildEngine> known) {
+        for (final ChildEngine engine : engines) {
+            known.put(engine.toAciServerDetails(), engine);
+            index(engine.getChildren(), known);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.warmup;
+
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
+import lombok.Data;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The outcome of a warm-up performed by a {@link WarmUpService}
+ */
+@SuppressWarnings("JavaDoc")
+@Data
+public class WarmUpReport {
+
+    /**
+     * @return The result of validating each enabled component, keyed by component name
+     */
+    private final Map<String, ValidationResult<?>> validationResults;
+
+    /**
+     * @return The time, in milliseconds from the start of the warm-up, at which each component had been validated,
+     * keyed by component name
+     */
+    private final Map<String, Long> readyTimes;
+
+    /**
+     * @return The details fetched for each server, including its index and service ports, keyed by the configured server
+     */
+    private final Map<ServerConfig, ServerConfig> serverDetails;
+
+    /**
+     * @return The servers whose details could not be fetched
+     */
+    private final Set<ServerConfig> failedServers;
+
+    /**
+     * @return The duration of the warm-up, in milliseconds
+     */
+    private final long duration;
+
+    /**
+     * @return True if every component is valid
+     */
+    public boolean isValid() {
+        for (final ValidationResult<?> result : validationResults.values()) {
+            if (!result.isValid()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
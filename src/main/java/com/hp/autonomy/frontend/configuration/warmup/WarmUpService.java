@@ -0,0 +1,332 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.warmup;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.nonaci.indexing.IndexingService;
+import com.hp.autonomy.frontend.configuration.LoginTypes;
+import com.hp.autonomy.frontend.configuration.aci.AciExecutors;
+import com.hp.autonomy.frontend.configuration.aci.ConnectionPoolManager;
+import com.hp.autonomy.frontend.configuration.aci.EndpointRegistry;
+import com.hp.autonomy.frontend.configuration.aci.SharedTlsContext;
+import com.hp.autonomy.frontend.configuration.authentication.CommunityAuthentication;
+import com.hp.autonomy.frontend.configuration.server.DistributedConfig;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import com.hp.autonomy.frontend.configuration.server.ServerConfigValidator;
+import com.hp.autonomy.frontend.configuration.server.ValidationPhases;
+import com.hp.autonomy.frontend.configuration.validation.OptionalConfigurationComponent;
+import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
+import com.hp.autonomy.frontend.configuration.validation.ValidationService;
+import com.hp.autonomy.types.idol.marshalling.ProcessorFactory;
+import lombok.Setter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Prepares an application to accept traffic by validating its IDOL configuration in parallel rather than serially.
+ * <p>
+ * The servers used by each component are found first: a {@link ServerConfig} uses itself, a {@link DistributedConfig}
+ * uses either its DIH and DAH or its standard server and a {@link CommunityAuthentication} uses its Community server
+ * unless it uses the default login. Each distinct server is then warmed up concurrently: it is registered with the
+ * {@link ConnectionPoolManager}, its TLS sessions are pre-warmed, and its index and service ports and protocols are
+ * fetched and registered with the connection pools, the {@link SharedTlsContext} and the {@link EndpointRegistry}.
+ * Each component is validated by the {@link ValidationService} as soon as its own servers have been warmed up, so the
+ * time taken to become ready is that of the slowest component rather than the sum of them all.
+ * <p>
+ * Server details are fetched through the validation phases of the {@link ServerConfigValidator}, so that the actions
+ * sent to fetch them are not sent again when the components are validated. This requires the validators of the
+ * components to share that ServerConfigValidator and for it to have a phase time to live longer than the warm-up;
+ * otherwise each server is sent its actions once to fetch its details and again to validate it.
+ * <p>
+ * Disabled components are not validated. The connection pool manager, TLS context, endpoint registry and server config
+ * validator are optional.
+ */
+@SuppressWarnings("JavaDoc")
+public class WarmUpService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarmUpService.class);
+
+    private static final int DEFAULT_PLATFORM_THREADS = 16;
+
+    /**
+     * @param The {@link ValidationService} used to validate each component
+     */
+    @Setter
+    private ValidationService<?> validationService;
+
+    /**
+     * @param The {@link AciService} used to fetch server details
+     */
+    @Setter
+    private AciService aciService;
+
+    /**
+     * @param The {@link IndexingService} used to test index ports
+     */
+    @Setter
+    private IndexingService indexingService;
+
+    /**
+     * @param The {@link ProcessorFactory} used to parse ACI responses
+     */
+    @Setter
+    private ProcessorFactory processorFactory;
+
+    /**
+     * @param The {@link ServerConfigValidator} whose validation phases are used to fetch server details
+     */
+    @Setter
+    private ServerConfigValidator serverConfigValidator;
+
+    /**
+     * @param The {@link ConnectionPoolManager} servers are registered with
+     */
+    @Setter
+    private ConnectionPoolManager connectionPoolManager;
+
+    /**
+     * @param The {@link SharedTlsContext} whose sessions are pre-warmed. If not set, the context of the connection pool
+     * manager is used if there is one.
+     */
+    @Setter
+    private SharedTlsContext tlsContext;
+
+    /**
+     * @param The {@link EndpointRegistry} the ports of each server are registered with
+     */
+    @Setter
+    private EndpointRegistry endpointRegistry;
+
+    /**
+     * @param The {@link Executor} servers are warmed up and components validated on. If not set, virtual threads are
+     * used where supported, otherwise a pool of 16 platform threads.
+     */
+    @Setter
+    private Executor executor;
+
+    private final Lock lock = new ReentrantLock();
+    private volatile CompletableFuture<WarmUpReport> warmUp;
+
+    /**
+     * Starts warming up the given components. Any previous warm-up is superseded.
+     *
+     * @param components The configuration components, keyed by name
+     * @return A future which completes with the report once every component has been validated
+     */
+    public CompletableFuture<WarmUpReport> warmUp(final Map<String, ? extends OptionalConfigurationComponent<?>> components) {
+        final long start = System.nanoTime();
+        final Executor executor = getExecutor();
+        final SharedTlsContext tlsContext = getTlsContext();
+
+        final Map<String, Set<ServerConfig>> dependencies = new LinkedHashMap<>();
+        final Set<ServerConfig> servers = new LinkedHashSet<>();
+
+        for (final Map.Entry<String, ? extends OptionalConfigurationComponent<?>> entry : components.entrySet()) {
+            final OptionalConfigurationComponent<?> component = entry.getValue();
+
+            if (component != null && !Boolean.FALSE.equals(component.getEnabled())) {
+                final Set<ServerConfig> componentServers = getServers(component);
+                dependencies.put(entry.getKey(), componentServers);
+                servers.addAll(componentServers);
+            }
+        }
+
+        LOGGER.debug("Warming up {} components using {} servers", dependencies.size(), servers.size());
+
+        final Map<ServerConfig, ServerConfig> serverDetails = new ConcurrentHashMap<>();
+        final Set<ServerConfig> failedServers = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        final Map<ServerConfig, CompletableFuture<Void>> serverWarmUps = new LinkedHashMap<>();
+
+        for (final ServerConfig server : servers) {
+            serverWarmUps.put(server, warmUp(server, tlsContext, executor).handle((fetched, e) -> {
+                if (e == null) {
+                    serverDetails.put(server, fetched);
+                } else {
+                    LOGGER.warn("Unable to fetch server details for {}:{}", server.getHost(), server.getPort());
+                    LOGGER.debug("", e);
+                    failedServers.add(server);
+                }
+
+                return null;
+            }));
+        }
+
+        final Map<String, ValidationResult<?>> validationResults = new ConcurrentHashMap<>();
+        final Map<String, Long> readyTimes = new ConcurrentHashMap<>();
+        final List<CompletableFuture<Void>> validations = new ArrayList<>(dependencies.size());
+
+        for (final Map.Entry<String, Set<ServerConfig>> entry : dependencies.entrySet()) {
+            final String name = entry.getKey();
+            final OptionalConfigurationComponent<?> component = components.get(name);
+
+            validations.add(allOf(serverWarmUps, entry.getValue()).thenRunAsync(() -> {
+                final ValidationResult<?> result = validate(name, component);
+
+                if (result != null) {
+                    validationResults.put(name, result);
+                }
+
+                readyTimes.put(name, millisSince(start));
+            }, executor));
+        }
+
+        final CompletableFuture<WarmUpReport> warmUp = CompletableFuture.allOf(validations.toArray(new CompletableFuture<?>[validations.size()]))
+                .thenApply(ignored -> {
+                    final WarmUpReport report = new WarmUpReport(validationResults, readyTimes, serverDetails, failedServers, millisSince(start));
+                    LOGGER.info("Warm up completed in {} ms; configuration is {}", report.getDuration(), report.isValid() ? "valid" : "invalid");
+                    return report;
+                });
+
+        this.warmUp = warmUp;
+        return warmUp;
+    }
+
+    /**
+     * @return True if the latest warm-up has completed
+     */
+    public boolean isComplete() {
+        final CompletableFuture<WarmUpReport> warmUp = this.warmUp;
+        return warmUp != null && warmUp.isDone();
+    }
+
+    /**
+     * @return True if the latest warm-up has completed and every component is valid
+     */
+    public boolean isReady() {
+        final WarmUpReport report = getReport();
+        return report != null && report.isValid();
+    }
+
+    /**
+     * @return The report of the latest warm-up, or null if it has not completed
+     */
+    public WarmUpReport getReport() {
+        final CompletableFuture<WarmUpReport> warmUp = this.warmUp;
+        return warmUp != null && warmUp.isDone() && !warmUp.isCompletedExceptionally() ? warmUp.join() : null;
+    }
+
+    private CompletableFuture<ServerConfig> warmUp(final ServerConfig server, final SharedTlsContext tlsContext, final Executor executor) {
+        if (connectionPoolManager != null) {
+            connectionPoolManager.register(server);
+        }
+
+        final CompletableFuture<Void> handshakes = tlsContext == null
+                ? CompletableFuture.completedFuture(null)
+                : tlsContext.prewarm(Collections.singleton(server), executor);
+
+        return handshakes
+                .thenApplyAsync(ignored -> server.fetchServerDetails(aciService, indexingService, processorFactory, getPhases(server)), executor)
+                .thenCompose(fetched -> {
+                    if (connectionPoolManager != null) {
+                        connectionPoolManager.register(fetched);
+                    }
+
+                    if (endpointRegistry != null) {
+                        endpointRegistry.register(fetched);
+                    }
+
+                    // pre-warms the newly discovered index and service ports; the ACI port session is resumed
+                    return tlsContext == null
+                            ? CompletableFuture.completedFuture(fetched)
+                            : tlsContext.prewarm(Collections.singleton(fetched), executor).thenApply(ignored -> fetched);
+                });
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private ValidationResult<?> validate(final String name, final OptionalConfigurationComponent<?> component) {
+        try {
+            return validationService.validate((OptionalConfigurationComponent) component);
+        } catch (final RuntimeException e) {
+            LOGGER.warn("Error validating {}", name, e);
+            return new ValidationResult<>(false);
+        }
+    }
+
+    private Executor getExecutor() {
+        lock.lock();
+
+        try {
+            if (executor == null) {
+                executor = AciExecutors.newExecutor(DEFAULT_PLATFORM_THREADS);
+            }
+
+            return executor;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private SharedTlsContext getTlsContext() {
+        if (tlsContext == null && connectionPoolManager != null) {
+            return connectionPoolManager.getTlsContext();
+        }
+
+        return tlsContext;
+    }
+
+    private ValidationPhases getPhases(final ServerConfig server) {
+        return serverConfigValidator == null ? new ValidationPhases() : serverConfigValidator.getPhases(server);
+    }
+
+    private static Set<ServerConfig> getServers(final OptionalConfigurationComponent<?> component) {
+        final Set<ServerConfig> servers = new HashSet<>();
+
+        if (component instanceof ServerConfig) {
+            servers.add((ServerConfig) component);
+        } else if (component instanceof DistributedConfig) {
+            final DistributedConfig distributedConfig = (DistributedConfig) component;
+
+            if (Boolean.TRUE.equals(distributedConfig.getDistributed())) {
+                addServer(servers, distributedConfig.getDih());
+                addServer(servers, distributedConfig.getDah());
+            } else {
+                addServer(servers, distributedConfig.getStandard());
+            }
+        } else if (component instanceof CommunityAuthentication) {
+            final CommunityAuthentication communityAuthentication = (CommunityAuthentication) component;
+
+            if (!LoginTypes.DEFAULT.equalsIgnoreCase(communityAuthentication.getMethod())) {
+                addServer(servers, communityAuthentication.getCommunity());
+            }
+        }
+
+        return servers;
+    }
+
+    private static void addServer(final Collection<ServerConfig> servers, final ServerConfig server) {
+        if (server != null) {
+            servers.add(server);
+        }
+    }
+
+    private static CompletableFuture<Void> allOf(final Map<ServerConfig, CompletableFuture<Void>> serverWarmUps, final Collection<ServerConfig> servers) {
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(servers.size());
+
+        for (final ServerConfig server : servers) {
+            futures.add(serverWarmUps.get(server));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
+    }
+
+    private static long millisSince(final long start) {
+        return (System.nanoTime() - start) / 1000000L;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.util.function.Consumer;
+
+/**
+ * Flight Recorder event committed by a {@link SlowCallSampler} for each captured call. The stack trace of the event is
+ * that of the thread which made the call. The sampler creates a {@link Committer} through
+ * {@link com.hp.autonomy.frontend.configuration.FlightRecorderSupport}, so this class is only loaded once the Flight
+ * Recorder API is known to be present.
+ */
+@Name("com.hp.autonomy.frontend.configuration.SlowCall")
+@Label("Slow IDOL Call")
+@Description("An ACI action or index command which took longer than the slow call threshold")
+@Category({"IDOL", "Configuration"})
+class SlowCallEvent extends Event {
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Action")
+    String action;
+
+    @Label("Parameters")
+    String parameters;
+
+    @Label("Status")
+    String status;
+
+    @Label("Call Duration")
+    @Timespan
+    long callDuration;
+
+    @Label("Threshold")
+    @Timespan
+    long threshold;
+
+    @Label("Response Time")
+    @Description("Time until the response processor was called, if known")
+    @Timespan
+    long responseTime;
+
+    @Label("Processing Time")
+    @Description("Time taken by the response processor, if known")
+    @Timespan
+    long processingTime;
+
+    /**
+     * Commits an event for the given call if the event is enabled
+     *
+     * @param slowCall The captured call
+     */
+    static void commit(final SlowCall slowCall) {
+        final SlowCallEvent event = new SlowCallEvent();
+
+        if (event.isEnabled()) {
+            final Endpoint endpoint = slowCall.getEndpoint();
+            event.endpoint = endpoint.getProtocol() + "://" + endpoint.getHost() + ':' + endpoint.getPort();
+            event.action = slowCall.getAction();
+            event.parameters = slowCall.getParameters();
+            event.status = slowCall.getStatus().name();
+            event.callDuration = slowCall.getDuration();
+            event.threshold = slowCall.getThreshold();
+
+            final Long responseTime = slowCall.getPhases().get(SlowCall.RESPONSE_PHASE);
+            final Long processingTime = slowCall.getPhases().get(SlowCall.PROCESSING_PHASE);
+            event.responseTime = responseTime == null ? Long.MIN_VALUE : responseTime;
+            event.processingTime = processingTime == null ? Long.MIN_VALUE : processingTime;
+
+            event.commit();
+        }
+    }
+
+    static class Committer implements Consumer<SlowCall> {
+        @Override
+        public void accept(final SlowCall slowCall) {
+            commit(slowCall);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Flight Recorder events behind {@link ValidationEvents}, which creates this class through
+ * {@link com.hp.autonomy.frontend.configuration.FlightRecorderSupport} once the Flight Recorder API is known to be
+ * present.
+ */
+final class FlightRecorderValidationEvents implements ValidationEvents.Factory {
+
+    @Override
+    public ValidationEvents.Phase serverValidation() {
+        return new ServerValidation();
+    }
+
+    @Override
+    public ValidationEvents.Phase fetchServerDetails() {
+        return new FetchServerDetails();
+    }
+
+    @Override
+    public ValidationEvents.Phase determinePorts(final String action) {
+        final DeterminePorts event = new DeterminePorts();
+        event.action = action;
+        return event;
+    }
+
+    @Override
+    public ValidationEvents.Phase servicePortTest() {
+        return new ServicePortTest();
+    }
+
+    @Override
+    public ValidationEvents.Phase indexPortTest() {
+        return new IndexPortTest();
+    }
+
+    @Override
+    public ValidationEvents.Phase distributedValidation(final boolean distributed) {
+        final DistributedValidation event = new DistributedValidation();
+        event.distributed = distributed;
+        return event;
+    }
+
+    @Category({"IDOL", "Configuration", "Validation"})
+    abstract static class Phase extends Event implements ValidationEvents.Phase {
+        @Label("Host")
+        String host;
+
+        @Label("Port")
+        int port;
+
+        @Label("Protocol")
+        String protocol;
+
+        @Label("Product Type")
+        @Description("The product types or product type regular expression the server must match")
+        String productType;
+
+        @Label("Outcome")
+        String outcome;
+
+        @Override
+        public void commit(final String host, final Integer port, final Enum<?> protocol, final ServerConfig server, final String outcome) {
+            if (shouldCommit()) {
+                this.host = host;
+                this.port = port == null ? 0 : port;
+                this.protocol = protocol == null ? null : protocol.name();
+                productType = server == null ? null : server.getProductTypeDescription();
+                this.outcome = outcome;
+                commit();
+            }
+        }
+    }
+
+    @Name("com.hp.autonomy.frontend.configuration.ServerValidation")
+    @Label("Server Validation")
+    @Description("Validation of the configuration of an IDOL server")
+    static class ServerValidation extends Phase {
+    }
+
+    @Name("com.hp.autonomy.frontend.configuration.FetchServerDetails")
+    @Label("Fetch Server Details")
+    @Description("Discovery of the index and service ports and protocols of an IDOL server")
+    static class FetchServerDetails extends Phase {
+    }
+
+    @Name("com.hp.autonomy.frontend.configuration.DeterminePorts")
+    @Label("Determine Ports")
+    @Description("The GetStatus or GetChildren action sent to find the ports of an IDOL server")
+    static class DeterminePorts extends Phase {
+        @Label("Action")
+        String action;
+    }
+
+    @Name("com.hp.autonomy.frontend.configuration.ServicePortTest")
+    @Label("Service Port Test")
+    @Description("A test of a protocol on the service port of an IDOL server")
+    static class ServicePortTest extends Phase {
+    }
+
+    @Name("com.hp.autonomy.frontend.configuration.IndexPortTest")
+    @Label("Index Port Test")
+    @Description("A test of a protocol on the index port of an IDOL server")
+    static class IndexPortTest extends Phase {
+    }
+
+    @Name("com.hp.autonomy.frontend.configuration.DistributedValidation")
+    @Label("Distributed Validation")
+    @Description("Validation of a standalone server, or of a DAH and DIH pair")
+    static class DistributedValidation extends Phase {
+        @Label("Distributed")
+        boolean distributed;
+    }
+}
@@ -0,0 +1,641 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.services.ProcessorException;
+import com.autonomy.aci.client.transport.AciResponseInputStream;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.nonaci.ServerDetails;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import com.hp.autonomy.types.idol.marshalling.ProcessorFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.commons.io.IOUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * An embeddable IDOL server for tests which need real HTTP or HTTPS connections. It listens on an ACI port and a
+ * service port, and on an index port if indexing is enabled, all on the loopback interface.
+ * <p>
+ * The ACI and service ports answer GetVersion, GetStatus, GetChildren, GetPid and LanguageSettings, and the index
+ * port accepts any DRE index command, in the formats returned by IDOL. Latency, ACI errors, HTTP errors and hung
+ * requests can be injected at any time, either for every action or only for the actions given to
+ * {@link #setFaultyActions(Set)}.
+ * <p>
+ * HTTPS servers use a self-signed certificate for localhost and 127.0.0.1; clients should use
+ * {@link #clientSslContext()} to trust it. Responses can be read with the processors of {@link #processorFactory()}.
+ */
+@SuppressWarnings({"WeakerAccess", "JavaDoc"})
+public class FakeIdolServer implements Closeable {
+
+    public static final String INDEX_ERROR_MESSAGE = "Bad command or file name";
+
+    private static final String KEY_STORE = "/com/hp/autonomy/frontend/configuration/fake-idol.jks";
+    private static final char[] KEY_STORE_PASSWORD = "fakeidol".toCharArray();
+    private static final String HOST = "localhost";
+
+    private final boolean https;
+    private final String productTypeCsv;
+    private final String version;
+    private final boolean indexing;
+    private final List<String> databases;
+    private final List<FakeIdolServer> children;
+
+    private final ExecutorService executor;
+    private final HttpServer aciServer;
+    private final HttpServer serviceServer;
+    private final HttpServer indexServer;
+
+    private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger indexId = new AtomicInteger();
+    private final AtomicReference<CountDownLatch> hangs = new AtomicReference<>(new CountDownLatch(1));
+
+    /**
+     * @param The fixed latency, in milliseconds, added to every affected request
+     */
+    @Setter
+    private volatile long latency;
+
+    /**
+     * @param The maximum random latency, in milliseconds, added to every affected request in addition to the fixed
+     * latency
+     */
+    @Setter
+    private volatile long latencyJitter;
+
+    /**
+     * @param The probability that an affected ACI action returns an IDOL error response
+     */
+    @Setter
+    private volatile double errorRate;
+
+    /**
+     * @param The probability that an affected request receives an HTTP 503 response
+     */
+    @Setter
+    private volatile double httpErrorRate;
+
+    /**
+     * @param The probability that an affected request hangs until {@link #releaseHungRequests()} is called or the
+     * server is closed
+     */
+    @Setter
+    private volatile double hangRate;
+
+    private volatile Set<String> faultyActions = Collections.emptySet();
+
+    @Getter
+    private volatile boolean started;
+
+    @Builder
+    private FakeIdolServer(
+            final boolean https,
+            final String productTypeCsv,
+            final String version,
+            final boolean indexing,
+            final List<String> databases,
+            final List<FakeIdolServer> children
+    ) throws IOException {
+        this.https = https;
+        this.productTypeCsv = productTypeCsv == null ? "AXE" : productTypeCsv;
+        this.version = version == null ? "11.4.0" : version;
+        this.indexing = indexing;
+        this.databases = databases == null ? Collections.singletonList("News") : new ArrayList<>(databases);
+        this.children = children == null ? Collections.emptyList() : new ArrayList<>(children);
+
+        executor = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "fake-idol");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        aciServer = createServer(new FaultInjectingHandler(this::handleAction, false));
+        serviceServer = createServer(new FaultInjectingHandler(this::handleAction, false));
+        indexServer = indexing ? createServer(new FaultInjectingHandler(this::handleIndexCommand, true)) : null;
+    }
+
+    /**
+     * Starts listening on every port
+     *
+     * @return This server
+     */
+    public FakeIdolServer start() {
+        aciServer.start();
+        serviceServer.start();
+
+        if (indexServer != null) {
+            indexServer.start();
+        }
+
+        started = true;
+        return this;
+    }
+
+    /**
+     * Stops the server, releasing any hung requests
+     */
+    @Override
+    public void close() {
+        started = false;
+        releaseHungRequests();
+
+        aciServer.stop(0);
+        serviceServer.stop(0);
+
+        if (indexServer != null) {
+            indexServer.stop(0);
+        }
+
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param faultyActions The actions, in any case, which faults are injected into. Index commands are named by their
+     *                      command, for example DREADDDATA. If empty, faults are injected into every request.
+     */
+    public void setFaultyActions(final Set<String> faultyActions) {
+        final Set<String> actions = new HashSet<>();
+
+        for (final String action : faultyActions) {
+            actions.add(action.toLowerCase(Locale.ENGLISH));
+        }
+
+        this.faultyActions = actions;
+    }
+
+    /**
+     * Allows every request which is currently hung to complete
+     */
+    public void releaseHungRequests() {
+        hangs.getAndSet(new CountDownLatch(1)).countDown();
+    }
+
+    /**
+     * @param action The action or index command
+     * @return The number of requests received for the action, including those with injected faults
+     */
+    public long getRequestCount(final String action) {
+        final LongAdder count = requestCounts.get(action.toLowerCase(Locale.ENGLISH));
+        return count == null ? 0 : count.sum();
+    }
+
+    public String getHost() {
+        return HOST;
+    }
+
+    public int getAciPort() {
+        return aciServer.getAddress().getPort();
+    }
+
+    public int getServicePort() {
+        return serviceServer.getAddress().getPort();
+    }
+
+    public Integer getIndexPort() {
+        return indexServer == null ? null : indexServer.getAddress().getPort();
+    }
+
+    /**
+     * @return The details of the ACI port
+     */
+    public AciServerDetails getAciServerDetails() {
+        return new AciServerDetails(aciProtocol(), HOST, getAciPort());
+    }
+
+    /**
+     * @return The details of the index port, or null if indexing is not enabled
+     */
+    public ServerDetails getIndexServerDetails() {
+        if (indexServer == null) {
+            return null;
+        }
+
+        final ServerDetails serverDetails = new ServerDetails();
+        serverDetails.setProtocol(https ? ServerDetails.TransportProtocol.HTTPS : ServerDetails.TransportProtocol.HTTP);
+        serverDetails.setHost(HOST);
+        serverDetails.setPort(getIndexPort());
+
+        return serverDetails;
+    }
+
+    /**
+     * @return A ServerConfig describing the ACI port of this server, as it would be entered by a user
+     */
+    public ServerConfig getServerConfig() {
+        return ServerConfig.builder()
+                .protocol(aciProtocol())
+                .host(HOST)
+                .port(getAciPort())
+                .indexErrorMessage(indexing ? INDEX_ERROR_MESSAGE : null)
+                .build();
+    }
+
+    /**
+     * @return An SSLContext which trusts the certificate of every HTTPS FakeIdolServer
+     */
+    public static SSLContext clientSslContext() {
+        try {
+            final TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory.init(loadKeyStore());
+
+            final SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, trustManagerFactory.getTrustManagers(), null);
+            return sslContext;
+        } catch (final GeneralSecurityException | IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return A ProcessorFactory whose processors read the response data returned by every FakeIdolServer, throwing an
+     * AciErrorException for error responses
+     */
+    @SuppressWarnings("unchecked")
+    public static ProcessorFactory processorFactory() {
+        final ProcessorFactory processorFactory = mock(ProcessorFactory.class);
+        when(processorFactory.getResponseDataProcessor(any(Class.class))).thenAnswer(invocation -> new ResponseDataProcessor<>((Class<?>) invocation.getArguments()[0]));
+        when(processorFactory.getVoidProcessor()).thenReturn(new ResponseDataProcessor<>(Void.class));
+        return processorFactory;
+    }
+
+    private AciServerDetails.TransportProtocol aciProtocol() {
+        return https ? AciServerDetails.TransportProtocol.HTTPS : AciServerDetails.TransportProtocol.HTTP;
+    }
+
+    private HttpServer createServer(final HttpHandler handler) throws IOException {
+        final InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        final HttpServer server;
+
+        if (https) {
+            final HttpsServer httpsServer = HttpsServer.create(address, 0);
+            httpsServer.setHttpsConfigurator(new HttpsConfigurator(serverSslContext()));
+            server = httpsServer;
+        } else {
+            server = HttpServer.create(address, 0);
+        }
+
+        server.setExecutor(executor);
+        server.createContext("/", handler);
+
+        return server;
+    }
+
+    private Response handleAction(final String path, final Map<String, String> parameters) {
+        final String action = parameters.getOrDefault("action", "");
+
+        switch (action.toLowerCase(Locale.ENGLISH)) {
+            case "getversion":
+                return Response.aci(action, "<autn:version>" + version + "</autn:version>"
+                        + "<autn:build>1544286</autn:build>"
+                        + "<autn:commoncomponentsbuild>1544286</autn:commoncomponentsbuild>"
+                        + "<autn:aciversion>" + version + "</autn:aciversion>"
+                        + "<autn:intellectualpropertyversion>" + version + "</autn:intellectualpropertyversion>"
+                        + "<autn:producttype>" + productTypeCsv.replace(',', '|') + "</autn:producttype>"
+                        + "<autn:producttypecsv>" + productTypeCsv + "</autn:producttypecsv>");
+            case "getstatus":
+                return Response.aci(action, getStatus());
+            case "getchildren":
+                return Response.aci(action, getChildren());
+            case "getpid":
+                return Response.aci(action, "<autn:pid>" + ManagementFactory.getRuntimeMXBean().getName().split("@")[0] + "</autn:pid>");
+            case "languagesettings":
+                return Response.aci(action, "<autn:defaultlanguagetype>englishUTF8</autn:defaultlanguagetype>"
+                        + "<autn:defaultencoding>UTF8</autn:defaultencoding>"
+                        + "<autn:language><autn:name>ENGLISH</autn:name>"
+                        + "<autn:stemming>true</autn:stemming><autn:stoplist>englishstop.dat</autn:stoplist>"
+                        + "<autn:languagetypes><autn:languagetype><autn:name>englishUTF8</autn:name><autn:encoding>UTF8</autn:encoding></autn:languagetype></autn:languagetypes>"
+                        + "</autn:language>");
+            default:
+                return Response.aciError(action, "ERRORUNKNOWNACTION", "Action '" + action + "' not recognised");
+        }
+    }
+
+    private String getStatus() {
+        final StringBuilder status = new StringBuilder()
+                .append("<autn:product>").append(productTypeCsv).append("</autn:product>")
+                .append("<autn:version>").append(version).append("</autn:version>")
+                .append("<autn:aciport>").append(getAciPort()).append("</autn:aciport>")
+                .append("<autn:serviceport>").append(getServicePort()).append("</autn:serviceport>");
+
+        if (indexServer != null) {
+            status.append("<autn:indexport>").append(getIndexPort()).append("</autn:indexport>");
+        }
+
+        status.append("<autn:databases>");
+
+        for (int i = 0; i < databases.size(); i++) {
+            status.append("<autn:database><autn:name>").append(databases.get(i)).append("</autn:name>")
+                    .append("<autn:internal>false</autn:internal><autn:readonly>false</autn:readonly>")
+                    .append("<autn:documents>0</autn:documents><autn:sections>0</autn:sections>")
+                    .append("<autn:number>").append(i).append("</autn:number></autn:database>");
+        }
+
+        return status.append("</autn:databases>").toString();
+    }
+
+    private String getChildren() {
+        if (children.isEmpty()) {
+            return "<autn:port>" + getAciPort() + "</autn:port><autn:serviceport>" + getServicePort() + "</autn:serviceport>";
+        }
+
+        final StringBuilder engines = new StringBuilder();
+
+        for (int i = 0; i < children.size(); i++) {
+            final FakeIdolServer child = children.get(i);
+
+            engines.append("<autn:engine>")
+                    .append("<autn:number>").append(i).append("</autn:number>")
+                    .append("<autn:host>").append(HOST).append("</autn:host>")
+                    .append("<autn:port>").append(child.getAciPort()).append("</autn:port>")
+                    .append("<autn:serviceport>").append(child.getServicePort()).append("</autn:serviceport>");
+
+            if (child.getIndexPort() != null) {
+                engines.append("<autn:indexport>").append(child.getIndexPort()).append("</autn:indexport>");
+            }
+
+            engines.append("<autn:status>").append(child.isStarted() ? "UP" : "DOWN").append("</autn:status>")
+                    .append("</autn:engine>");
+        }
+
+        return engines.toString();
+    }
+
+    private Response handleIndexCommand(final String path, final Map<String, String> parameters) {
+        final String command = commandName(path);
+
+        if (command.toUpperCase(Locale.ENGLISH).startsWith("DRE")) {
+            return new Response(200, "text/plain", "INDEXID=" + indexId.incrementAndGet() + "\n");
+        }
+
+        return new Response(200, "text/plain", INDEX_ERROR_MESSAGE + "\n");
+    }
+
+    private void count(final String action) {
+        requestCounts.computeIfAbsent(action.toLowerCase(Locale.ENGLISH), ignored -> new LongAdder()).increment();
+    }
+
+    private SSLContext serverSslContext() throws IOException {
+        try {
+            final KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagerFactory.init(loadKeyStore(), KEY_STORE_PASSWORD);
+
+            final SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+            return sslContext;
+        } catch (final GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static KeyStore loadKeyStore() throws IOException {
+        try (final InputStream inputStream = FakeIdolServer.class.getResourceAsStream(KEY_STORE)) {
+            final KeyStore keyStore = KeyStore.getInstance("JKS");
+            keyStore.load(inputStream, KEY_STORE_PASSWORD);
+            return keyStore;
+        } catch (final GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String commandName(final String path) {
+        final String command = path.startsWith("/") ? path.substring(1) : path;
+        final int end = command.indexOf('/');
+        return end < 0 ? command : command.substring(0, end);
+    }
+
+    private static Map<String, String> parseParameters(final String query, final Map<String, String> parameters) throws UnsupportedEncodingException {
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+
+        for (final String pair : query.split("&")) {
+            final int equals = pair.indexOf('=');
+
+            if (equals > 0) {
+                final String name = URLDecoder.decode(pair.substring(0, equals), "UTF-8").toLowerCase(Locale.ENGLISH);
+                parameters.put(name, URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+            }
+        }
+
+        return parameters;
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(String path, Map<String, String> parameters);
+    }
+
+    @Data
+    private static class Response {
+        private final int status;
+        private final String contentType;
+        private final String body;
+
+        private static Response aci(final String action, final String responseData) {
+            return new Response(200, "text/xml", "<?xml version='1.0' encoding='UTF-8' ?>"
+                    + "<autnresponse xmlns:autn='http://schemas.autonomy.com/aci/'>"
+                    + "<action>" + action.toUpperCase(Locale.ENGLISH) + "</action>"
+                    + "<response>SUCCESS</response>"
+                    + "<responsedata>" + responseData + "</responsedata>"
+                    + "</autnresponse>");
+        }
+
+        private static Response aciError(final String action, final String errorCode, final String description) {
+            final String upperCaseAction = action.toUpperCase(Locale.ENGLISH);
+
+            return new Response(200, "text/xml", "<?xml version='1.0' encoding='UTF-8' ?>"
+                    + "<autnresponse xmlns:autn='http://schemas.autonomy.com/aci/'>"
+                    + "<action>" + upperCaseAction + "</action>"
+                    + "<response>ERROR</response>"
+                    + "<responsedata><error>"
+                    + "<errorid>AXE" + upperCaseAction + "-2147438053</errorid>"
+                    + "<rawerrorid>0x80000000</rawerrorid>"
+                    + "<errorstring>" + errorCode + "</errorstring>"
+                    + "<errordescription>" + description + "</errordescription>"
+                    + "<errorcode>" + errorCode + "</errorcode>"
+                    + "<errortime>" + new Date() + "</errortime>"
+                    + "</error></responsedata>"
+                    + "</autnresponse>");
+        }
+    }
+
+    /**
+     * Reads the response data into the properties of the given type named by its elements, ignoring elements which
+     * contain other elements
+     */
+    private static class ResponseDataProcessor<T> implements Processor<T> {
+        private static final long serialVersionUID = 2841379582016483527L;
+
+        private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+
+        private final Class<T> type;
+
+        private ResponseDataProcessor(final Class<T> type) {
+            this.type = type;
+        }
+
+        @Override
+        public T process(final AciResponseInputStream aciResponse) {
+            final Document document;
+
+            try {
+                document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(aciResponse);
+            } catch (final ParserConfigurationException | SAXException | IOException e) {
+                throw new ProcessorException("Unable to parse response", e);
+            }
+
+            if (!"SUCCESS".equals(document.getElementsByTagName("response").item(0).getTextContent())) {
+                final Element error = (Element) document.getElementsByTagName("error").item(0);
+                final AciErrorException exception = new AciErrorException(error.getElementsByTagName("errordescription").item(0).getTextContent());
+                exception.setErrorCode(error.getElementsByTagName("errorcode").item(0).getTextContent());
+                throw exception;
+            }
+
+            final Map<String, String> properties = new HashMap<>();
+            final NodeList nodes = document.getElementsByTagName("responsedata").item(0).getChildNodes();
+
+            for (int i = 0; i < nodes.getLength(); i++) {
+                final Node node = nodes.item(i);
+
+                if (node instanceof Element && ((Element) node).getElementsByTagName("*").getLength() == 0) {
+                    final String name = node.getNodeName();
+                    properties.put(name.substring(name.indexOf(':') + 1), node.getTextContent());
+                }
+            }
+
+            return type == Void.class ? null : OBJECT_MAPPER.convertValue(properties, type);
+        }
+    }
+
+    private class FaultInjectingHandler implements HttpHandler {
+        private final Handler handler;
+        private final boolean indexPort;
+
+        private FaultInjectingHandler(final Handler handler, final boolean indexPort) {
+            this.handler = handler;
+            this.indexPort = indexPort;
+        }
+
+        @Override
+        public void handle(final HttpExchange exchange) throws IOException {
+            try {
+                final String path = exchange.getRequestURI().getPath();
+                final Map<String, String> parameters = parseParameters(exchange.getRequestURI().getRawQuery(), new HashMap<>());
+
+                if ("POST".equalsIgnoreCase(exchange.getRequestMethod())
+                        && String.valueOf(exchange.getRequestHeaders().getFirst("Content-Type")).startsWith("application/x-www-form-urlencoded")) {
+                    parseParameters(IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8), parameters);
+                }
+
+                final String action = indexPort ? commandName(path) : parameters.getOrDefault("action", "");
+
+                count(action);
+
+                final Response response = injectFaults(action) ? fault(action, path, parameters) : handler.handle(path, parameters);
+                final byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+
+                // the aci-api StAX processors require exactly text/xml
+                exchange.getResponseHeaders().set("Content-Type", response.contentType);
+                exchange.sendResponseHeaders(response.status, body.length);
+
+                try (final OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+            } catch (final InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private boolean injectFaults(final String action) {
+            final Set<String> actions = faultyActions;
+            return actions.isEmpty() || actions.contains(action.toLowerCase(Locale.ENGLISH));
+        }
+
+        private Response fault(final String action, final String path, final Map<String, String> parameters) throws InterruptedException {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final long delay = latency + (latencyJitter > 0 ? random.nextLong(latencyJitter + 1) : 0);
+
+            if (delay > 0) {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            }
+
+            if (random.nextDouble() < hangRate) {
+                hangs.get().await();
+            }
+
+            if (random.nextDouble() < httpErrorRate) {
+                return new Response(503, "text/plain", "Service Unavailable");
+            }
+
+            if (!indexPort && random.nextDouble() < errorRate) {
+                return Response.aciError(action, "ERRORENGINEBUSY", "The engine is too busy to process the request");
+            }
+
+            return handler.handle(path, parameters);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.autonomy.aci.client.util.AciParameters;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class AciCallTracerTest {
+    private static final AciServerDetails SERVER = new AciServerDetails(AciServerDetails.TransportProtocol.HTTPS, "example.com", 9000);
+
+    private AciCallTracer tracer;
+
+    @Before
+    public void setUp() {
+        tracer = new AciCallTracer(4, 1);
+    }
+
+    @Test
+    public void testRecordsAreRead() {
+        tracer.record(SERVER, new AciParameters("GetStatus"), 2500000L, TraceRecord.Status.SUCCESS);
+
+        final List<TraceRecord> records = tracer.getRecentCalls();
+        assertThat(records.size(), is(1));
+
+        final TraceRecord record = records.get(0);
+        assertThat(record.getAction(), is("GetStatus"));
+        assertThat(record.getProtocol(), is("HTTPS"));
+        assertThat(record.getHost(), is("example.com"));
+        assertThat(record.getPort(), is(9000));
+        assertThat(record.getLatency(), is(2500L));
+        assertThat(record.getStatus(), is(TraceRecord.Status.SUCCESS));
+    }
+
+    @Test
+    public void testOldestRecordsAreOverwritten() {
+        for (int i = 0; i < 6; i++) {
+            tracer.record(SERVER, new AciParameters("Action" + i), 0, TraceRecord.Status.SUCCESS);
+        }
+
+        final List<TraceRecord> records = tracer.getRecentCalls();
+        assertThat(tracer.getRecordedCount(), is(6L));
+        assertThat(records.size(), is(4));
+        assertThat(records.get(0).getAction(), is("Action2"));
+        assertThat(records.get(3).getAction(), is("Action5"));
+    }
+
+    @Test
+    public void testConcurrentWritersDoNotTearRecords() throws InterruptedException {
+        final AciCallTracer sharedTracer = new AciCallTracer(8, 1);
+        final Thread[] writers = new Thread[4];
+        final long deadline = System.currentTimeMillis() + 200;
+
+        for (int i = 0; i < writers.length; i++) {
+            final int port = 9000 + i;
+            final AciServerDetails server = new AciServerDetails("host" + port, port);
+            final AciParameters parameters = new AciParameters("Action" + port);
+
+            writers[i] = new Thread(() -> {
+                while (System.currentTimeMillis() < deadline) {
+                    sharedTracer.record(server, parameters, port * 1000L, TraceRecord.Status.SUCCESS);
+                }
+            });
+
+            writers[i].start();
+        }
+
+        while (System.currentTimeMillis() < deadline) {
+            for (final TraceRecord record : sharedTracer.getRecentCalls()) {
+                assertThat(record.getHost(), is("host" + record.getPort()));
+                assertThat(record.getAction(), is("Action" + record.getPort()));
+                assertThat(record.getLatency(), is((long) record.getPort()));
+            }
+        }
+
+        for (final Thread writer : writers) {
+            writer.join();
+        }
+
+        // actions are dropped while writers contend for a slot, but not once they stop
+        for (int i = 0; i < 8; i++) {
+            sharedTracer.record(SERVER, new AciParameters("GetStatus"), 0, TraceRecord.Status.SUCCESS);
+        }
+
+        assertThat(sharedTracer.getRecentCalls().size(), is(8));
+    }
+
+    @Test
+    public void testLongNamesAreTruncated() {
+        final StringBuilder host = new StringBuilder();
+
+        for (int i = 0; i < 10; i++) {
+            host.append("abcdefghij");
+        }
+
+        final AciServerDetails server = new AciServerDetails(host.toString(), 9000);
+        tracer.record(server, new AciParameters("AnActionWithAVeryLongNameIndeedThatGoesOnAndOn"), 0, TraceRecord.Status.FAILED);
+
+        final TraceRecord record = tracer.getRecentCalls().get(0);
+        assertThat(record.getAction(), is("AnActionWithAVeryLongNameIndeedT"));
+        assertThat(record.getHost(), is(host.substring(0, 64)));
+    }
+
+    @Test
+    public void testCapacityIsRoundedUp() {
+        assertThat(new AciCallTracer(10, 3).getCapacity(), is(16));
+    }
+
+    @Test
+    public void testDump() throws IOException {
+        tracer.record(SERVER, new AciParameters("GetStatus"), 1000000L, TraceRecord.Status.ACI_ERROR);
+
+        final StringWriter writer = new StringWriter();
+        tracer.dump(writer);
+
+        assertThat(writer.toString(), startsWith(tracer.getRecentCalls().get(0).getTimestamp() + " ACI_ERROR https://example.com:9000 GetStatus 1000us"));
+    }
+
+    @Test
+    public void testServiceRecordsActions() {
+        final AbstractConfigurableAciService aciService = new TracedAciService(new AciService() {
+            @Override
+            public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+                final Object action = parameters.iterator().next().getValue();
+
+                if ("Unknown".equals(action)) {
+                    throw new AciErrorException("Unknown action");
+                }
+
+                if ("Unreachable".equals(action)) {
+                    throw new AciServiceException("Connection refused");
+                }
+
+                return null;
+            }
+        });
+
+        aciService.setTracer(tracer);
+        aciService.executeAction(new AciParameters("GetStatus"), null);
+
+        for (final String action : new String[]{"Unknown", "Unreachable"}) {
+            try {
+                aciService.executeAction(new AciParameters(action), null);
+                fail("Expected an AciServiceException");
+            } catch (final AciServiceException ignored) {
+            }
+        }
+
+        final List<TraceRecord> records = tracer.getRecentCalls();
+        assertThat(records.get(0).getStatus(), is(TraceRecord.Status.SUCCESS));
+        assertThat(records.get(1).getStatus(), is(TraceRecord.Status.ACI_ERROR));
+        assertThat(records.get(2).getStatus(), is(TraceRecord.Status.FAILED));
+    }
+
+    private static class TracedAciService extends AbstractConfigurableAciService {
+        private TracedAciService(final AciService aciService) {
+            super(aciService);
+        }
+
+        @Override
+        public AciServerDetails getServerDetails() {
+            return SERVER;
+        }
+    }
+}
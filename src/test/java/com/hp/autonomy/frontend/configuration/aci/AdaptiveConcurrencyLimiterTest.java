@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class AdaptiveConcurrencyLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(5);
+
+    @Test
+    public void rejectsRequestsOverLimit() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(ConcurrencyLimit.builder().initialLimit(2).maxQueueTime(0).build());
+
+        assertThat(limiter.acquire(), is(true));
+        assertThat(limiter.acquire(), is(true));
+        assertThat(limiter.acquire(), is(false));
+        assertThat(limiter.getInFlight(), is(2));
+    }
+
+    @Test
+    public void increasesLimitWhileLatencyIsSteady() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(ConcurrencyLimit.builder().initialLimit(10).build());
+
+        saturate(limiter, FAST, 5);
+
+        assertThat(limiter.getLimit(), is(greaterThan(10)));
+    }
+
+    @Test
+    public void decreasesLimitWhenLatencyRises() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(ConcurrencyLimit.builder().initialLimit(50).build());
+
+        saturate(limiter, FAST, 1);
+        final int limit = limiter.getLimit();
+        saturate(limiter, SLOW, 1);
+
+        assertThat(limiter.getLimit(), is(lessThan(limit)));
+    }
+
+    @Test
+    public void backsOffWhenRequestsAreDropped() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(ConcurrencyLimit.builder().initialLimit(100).backoffRatio(0.5).build());
+
+        limiter.acquire();
+        limiter.release(FAST, true);
+
+        assertThat(limiter.getLimit(), is(50));
+    }
+
+    @Test
+    public void neverFallsBelowMinimum() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(ConcurrencyLimit.builder().initialLimit(4).minLimit(2).backoffRatio(0.1).build());
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire();
+            limiter.release(FAST, true);
+        }
+
+        assertThat(limiter.getLimit(), is(2));
+    }
+
+    @Test
+    public void wakesEveryQueuedRequestTheLimitAllows() throws InterruptedException {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(ConcurrencyLimit.builder().initialLimit(2).maxQueueTime(2000).build());
+        limiter.acquire();
+        limiter.acquire();
+
+        final CountDownLatch acquired = new CountDownLatch(2);
+        final List<Thread> queued = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            final Thread thread = new Thread(() -> {
+                if (limiter.acquire()) {
+                    acquired.countDown();
+                }
+            });
+
+            thread.start();
+            queued.add(thread);
+        }
+
+        for (final Thread thread : queued) {
+            while (thread.getState() != Thread.State.TIMED_WAITING) {
+                Thread.sleep(1L);
+            }
+        }
+
+        // a steady latency with the limit in use raises the limit from 2 to 3, leaving two free permits
+        limiter.release(FAST, false);
+
+        assertThat(limiter.getLimit(), is(3));
+        assertThat(acquired.await(1, TimeUnit.SECONDS), is(true));
+        assertThat(limiter.getInFlight(), is(3));
+
+        for (final Thread thread : queued) {
+            thread.join();
+        }
+    }
+
+    private static void saturate(final AdaptiveConcurrencyLimiter limiter, final long latency, final int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            final int limit = limiter.getLimit();
+
+            for (int i = 0; i < limit; i++) {
+                limiter.acquire();
+            }
+
+            for (int i = 0; i < limit; i++) {
+                limiter.release(latency, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.util.AciParameters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncAciServiceTest {
+    @Mock
+    private ConfigurableAciService aciService;
+    @Mock
+    private Processor<String> processor;
+
+    private ExecutorService executor;
+    private AsyncAciService asyncAciService;
+
+    @Before
+    public void setUp() {
+        executor = AciExecutors.newExecutor(2);
+        asyncAciService = new AsyncAciService(aciService, executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void completesWithProcessedResponse() throws Exception {
+        final AciParameters parameters = new AciParameters("Query");
+        when(aciService.executeAction(parameters, processor)).thenReturn("result");
+
+        assertThat(asyncAciService.executeAction(parameters, processor).get(5, TimeUnit.SECONDS), is("result"));
+    }
+
+    @Test
+    public void usesGivenServerDetails() throws Exception {
+        final AciServerDetails serverDetails = new AciServerDetails("content", 9100);
+        final AciParameters parameters = new AciParameters("Query");
+        when(aciService.executeAction(serverDetails, parameters, processor)).thenReturn("result");
+
+        assertThat(asyncAciService.executeAction(serverDetails, parameters, processor).get(5, TimeUnit.SECONDS), is("result"));
+    }
+
+    @Test
+    public void completesExceptionallyWhenActionFails() throws Exception {
+        final AciParameters parameters = new AciParameters("Query");
+        when(aciService.executeAction(parameters, processor)).thenThrow(new AciErrorException("Invalid query"));
+
+        try {
+            asyncAciService.executeAction(parameters, processor).get(5, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(AciErrorException.class));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.impl.AciServiceImpl;
+import com.autonomy.aci.client.util.AciParameters;
+import com.hp.autonomy.frontend.configuration.FakeIdolServer;
+import com.hp.autonomy.types.idol.marshalling.processors.NoopProcessor;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class CompressionNegotiatingAciHttpClientTest {
+    private EndpointRegistry endpointRegistry;
+
+    @Before
+    public void setUp() {
+        endpointRegistry = new EndpointRegistry();
+    }
+
+    @Test
+    public void testUncompressedResponsesAreRecorded() throws IOException {
+        try (final FakeIdolServer server = FakeIdolServer.builder().build().start();
+             final CloseableHttpClient httpClient = HttpClients.custom().disableContentCompression().build()) {
+            final AciServiceImpl aciService = new AciServiceImpl(new CompressionNegotiatingAciHttpClient(httpClient, endpointRegistry));
+            aciService.executeAction(server.getAciServerDetails(), new AciParameters("GetStatus"), new NoopProcessor());
+
+            assertThat(endpointRegistry.find(Endpoint.of(server.getAciServerDetails())).getCompression(), is(false));
+        }
+    }
+
+    @Test
+    public void testNothingIsRecordedWithoutCompressingByDefault() throws IOException {
+        try (final FakeIdolServer server = FakeIdolServer.builder().build().start();
+             final CloseableHttpClient httpClient = HttpClients.custom().disableContentCompression().build()) {
+            final CompressionNegotiatingAciHttpClient aciHttpClient = new CompressionNegotiatingAciHttpClient(httpClient, endpointRegistry);
+            aciHttpClient.setCompressByDefault(false);
+
+            new AciServiceImpl(aciHttpClient).executeAction(server.getAciServerDetails(), new AciParameters("GetStatus"), new NoopProcessor());
+
+            assertThat(endpointRegistry.find(Endpoint.of(server.getAciServerDetails())).getCompression(), is(nullValue()));
+        }
+    }
+}
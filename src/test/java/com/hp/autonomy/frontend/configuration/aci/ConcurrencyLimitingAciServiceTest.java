@@ -0,0 +1,83 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.util.AciParameters;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConcurrencyLimitingAciServiceTest {
+    private static final AciServerDetails CONTENT = new AciServerDetails("content", 9100);
+    private static final AciServerDetails OTHER = new AciServerDetails("other", 9100);
+
+    @Mock
+    private ConfigurableAciService aciService;
+    @Mock
+    private Processor<String> processor;
+
+    private ConcurrencyLimitingAciService concurrencyLimitingAciService;
+
+    @Before
+    public void setUp() {
+        when(aciService.getServerDetails()).thenReturn(CONTENT);
+        concurrencyLimitingAciService = new ConcurrencyLimitingAciService(aciService);
+    }
+
+    @Test
+    public void releasesPermitAfterAction() {
+        final AciParameters parameters = new AciParameters("Query");
+        when(aciService.executeAction(parameters, processor)).thenReturn("result");
+
+        assertThat(concurrencyLimitingAciService.executeAction(parameters, processor), is("result"));
+        assertThat(concurrencyLimitingAciService.getLimiter(CONTENT).getInFlight(), is(0));
+    }
+
+    @Test
+    public void backsOffAfterConnectionFailure() {
+        concurrencyLimitingAciService.setLimit(CONTENT, ConcurrencyLimit.builder().initialLimit(10).backoffRatio(0.5).build());
+        final AciParameters parameters = new AciParameters("Query");
+        when(aciService.executeAction(parameters, processor)).thenThrow(new AciServiceException("Connection refused"));
+
+        try {
+            concurrencyLimitingAciService.executeAction(parameters, processor);
+            fail("Expected AciServiceException");
+        } catch (final AciServiceException ignored) {
+            assertThat(concurrencyLimitingAciService.getLimiter(CONTENT).getLimit(), is(5));
+            assertThat(concurrencyLimitingAciService.getLimiter(CONTENT).getInFlight(), is(0));
+        }
+    }
+
+    @Test(expected = ConcurrencyLimitExceededException.class)
+    public void rejectsActionsOverLimit() {
+        concurrencyLimitingAciService.setLimit(CONTENT, ConcurrencyLimit.builder().initialLimit(1).maxQueueTime(0).build());
+        concurrencyLimitingAciService.getLimiter(CONTENT).acquire();
+
+        concurrencyLimitingAciService.executeAction(new AciParameters("Query"), processor);
+    }
+
+    @Test
+    public void limitsServersSeparately() {
+        concurrencyLimitingAciService.setDefaultLimit(ConcurrencyLimit.builder().initialLimit(1).maxQueueTime(0).build());
+        concurrencyLimitingAciService.getLimiter(CONTENT).acquire();
+
+        final AciParameters parameters = new AciParameters("Query");
+        when(aciService.executeAction(OTHER, parameters, processor)).thenReturn("result");
+
+        assertThat(concurrencyLimitingAciService.executeAction(OTHER, parameters, processor), is("result"));
+    }
+}
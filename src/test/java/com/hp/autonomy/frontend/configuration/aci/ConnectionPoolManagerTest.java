@@ -0,0 +1,216 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.services.impl.AciServiceImpl;
+import com.autonomy.aci.client.transport.impl.AciHttpClientImpl;
+import com.autonomy.aci.client.util.AciParameters;
+import com.autonomy.nonaci.indexing.IndexingException;
+import com.autonomy.nonaci.indexing.IndexingService;
+import com.autonomy.nonaci.indexing.impl.IndexCommandImpl;
+import com.autonomy.nonaci.indexing.impl.IndexingServiceImpl;
+import com.hp.autonomy.frontend.configuration.FakeIdolServer;
+import com.hp.autonomy.frontend.configuration.server.ConnectionPoolSettings;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpHost;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ConnectionPoolManagerTest {
+    private static final Processor<String> STRING_PROCESSOR = aciResponseInputStream -> {
+        try {
+            return IOUtils.toString(aciResponseInputStream, StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    };
+
+    private FakeIdolServer server;
+    private SharedTlsContext tlsContext;
+    private ConnectionPoolManager connectionPoolManager;
+    private AciService aciService;
+
+    @Before
+    public void setUp() throws IOException {
+        server = FakeIdolServer.builder()
+                .https(true)
+                .indexing(true)
+                .build()
+                .start();
+
+        tlsContext = new SharedTlsContext(FakeIdolServer.clientSslContext());
+
+        connectionPoolManager = new ConnectionPoolManager();
+        connectionPoolManager.setTlsContext(tlsContext);
+
+        aciService = new AciServiceImpl(new AciHttpClientImpl(connectionPoolManager.getHttpClient()));
+    }
+
+    @After
+    public void tearDown() {
+        connectionPoolManager.close();
+        server.close();
+    }
+
+    @Test
+    public void testNewConnectionsResumeTlsSession() throws InterruptedException {
+        // connections are not kept alive, so every request needs a new connection
+        register(ConnectionPoolSettings.builder().keepAlive(1L).build());
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(aciService.executeAction(server.getAciServerDetails(), new AciParameters("GetStatus"), STRING_PROCESSOR), containsString("<response>SUCCESS</response>"));
+            Thread.sleep(10);
+        }
+
+        final SharedTlsContext.Statistics statistics = tlsContext.getStatistics(server.getHost(), server.getAciPort());
+        assertThat(statistics.getFullHandshakes(), is(1L));
+        assertThat(statistics.getResumedHandshakes(), is(4L));
+    }
+
+    @Test
+    public void testTlsSessionsAreNotReusedIfDisabled() throws InterruptedException {
+        register(ConnectionPoolSettings.builder().keepAlive(1L).tlsSessionReuse(false).build());
+
+        for (int i = 0; i < 3; i++) {
+            aciService.executeAction(server.getAciServerDetails(), new AciParameters("GetStatus"), STRING_PROCESSOR);
+            Thread.sleep(10);
+        }
+
+        final SharedTlsContext.Statistics statistics = tlsContext.getStatistics(server.getHost(), server.getAciPort());
+        assertThat(statistics.getFullHandshakes(), is(3L));
+        assertThat(statistics.getResumedHandshakes(), is(0L));
+    }
+
+    @Test
+    public void testPoolIsLimitedToMaxConnections() throws Exception {
+        register(ConnectionPoolSettings.builder().maxConnections(2).build());
+        server.setLatency(50);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(6);
+
+        try {
+            final List<Future<String>> responses = new ArrayList<>();
+
+            for (int i = 0; i < 6; i++) {
+                responses.add(executor.submit(() -> aciService.executeAction(server.getAciServerDetails(), new AciParameters("GetVersion"), STRING_PROCESSOR)));
+            }
+
+            for (final Future<String> response : responses) {
+                assertThat(response.get(), containsString("<autn:producttypecsv>AXE</autn:producttypecsv>"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        final HttpHost endpoint = new HttpHost(server.getHost(), server.getAciPort(), "https");
+        assertThat(connectionPoolManager.getStats(endpoint).getMax(), is(2));
+        assertThat(connectionPoolManager.getStats(endpoint).getAvailable(), is(2));
+        assertThat(server.getRequestCount("GetVersion"), is(6L));
+    }
+
+    @Test
+    public void testIndexCommandsUseTheIndexPortPool() {
+        register(null);
+
+        final IndexingService indexingService = new IndexingServiceImpl(connectionPoolManager.getHttpClient());
+
+        assertThat(indexingService.executeCommand(server.getIndexServerDetails(), new IndexCommandImpl("DREADDDATA")), greaterThanOrEqualTo(1));
+
+        try {
+            indexingService.executeCommand(server.getIndexServerDetails(), new IndexCommandImpl("test"));
+            fail("Expected an IndexingException");
+        } catch (final IndexingException e) {
+            assertThat(e.getMessage(), containsString(FakeIdolServer.INDEX_ERROR_MESSAGE));
+        }
+
+        assertThat(connectionPoolManager.getStats(new HttpHost(server.getHost(), server.getIndexPort(), "https")).getAvailable(), is(1));
+    }
+
+    @Test
+    public void testNegotiatedTlsProtocolIsRegistered() {
+        final EndpointRegistry endpointRegistry = new EndpointRegistry();
+        tlsContext.setEndpointRegistry(endpointRegistry);
+        register(null);
+
+        aciService.executeAction(server.getAciServerDetails(), new AciParameters("GetStatus"), STRING_PROCESSOR);
+
+        final EndpointState state = endpointRegistry.find(new Endpoint("https", server.getHost(), server.getAciPort()));
+        assertThat(state.getTlsProtocol(), startsWith("TLSv1"));
+    }
+
+    @Test(expected = AciServiceException.class)
+    public void testHttpErrorsAreReported() {
+        register(null);
+        server.setHttpErrorRate(1);
+
+        aciService.executeAction(server.getAciServerDetails(), new AciParameters("GetStatus"), STRING_PROCESSOR);
+    }
+
+    @Test(expected = AciServiceException.class)
+    public void testHungRequestsTimeOut() {
+        connectionPoolManager.setRequestConfig(RequestConfig.custom().setSocketTimeout(200).build());
+        register(null);
+        server.setHangRate(1);
+
+        aciService.executeAction(server.getAciServerDetails(), new AciParameters("GetStatus"), STRING_PROCESSOR);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testLegacyClientMethodsAreSupported() {
+        register(null);
+        aciService.executeAction(server.getAciServerDetails(), new AciParameters("GetStatus"), STRING_PROCESSOR);
+
+        final HttpHost host = new HttpHost(server.getHost(), server.getAciPort(), "https");
+        final HttpClient httpClient = connectionPoolManager.getHttpClient();
+        assertThat(httpClient.getParams() == null, is(false));
+
+        httpClient.getConnectionManager().closeIdleConnections(0, TimeUnit.MILLISECONDS);
+        assertThat(connectionPoolManager.getStats(host).getAvailable(), is(0));
+
+        httpClient.getConnectionManager().shutdown();
+
+        try {
+            aciService.executeAction(server.getAciServerDetails(), new AciParameters("GetStatus"), STRING_PROCESSOR);
+            fail("Expected the connection pool manager to be closed");
+        } catch (final IllegalStateException ignored) {
+        }
+    }
+
+    private void register(final ConnectionPoolSettings settings) {
+        final ServerConfig serverConfig = server.getServerConfig().toBuilder()
+                .indexProtocol(server.getIndexServerDetails().getProtocol())
+                .indexPort(server.getIndexPort())
+                .connectionPool(settings)
+                .build();
+
+        connectionPoolManager.register(serverConfig);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.autonomy.aci.client.util.AciParameters;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import org.apache.http.HttpHost;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class EndpointRegistryTest {
+    private static final AciServerDetails SERVER = new AciServerDetails(AciServerDetails.TransportProtocol.HTTP, "Example.com", 9000);
+
+    private EndpointRegistry endpointRegistry;
+    private EndpointTrackingAciService aciService;
+    private Supplier<String> response;
+
+    @Before
+    public void setUp() {
+        endpointRegistry = new EndpointRegistry();
+        aciService = new EndpointTrackingAciService(new StubAciService(), endpointRegistry);
+        response = () -> "OK";
+    }
+
+    @Test
+    public void testEndpointsAreCaseInsensitive() {
+        assertThat(Endpoint.of(SERVER), is(new Endpoint("http", "example.com", 9000)));
+        assertThat(Endpoint.of(new HttpHost("EXAMPLE.COM", -1, "HTTPS")), is(new Endpoint("https", "example.com", 443)));
+    }
+
+    @Test
+    public void testSuccessfulActionsAreRecorded() {
+        response = () -> {
+            // the action is in flight while it is executing
+            assertThat(state().getInFlight(), is(1L));
+            sleep();
+            return "OK";
+        };
+
+        aciService.executeAction(new AciParameters("GetStatus"), null);
+
+        final EndpointState state = state();
+        assertThat(state.getHealth(), is(EndpointState.Health.UP));
+        assertThat(state.getInFlight(), is(0L));
+        assertThat(state.getRequests(), is(1L));
+        assertThat(state.getFailures(), is(0L));
+        assertThat(state.getAverageLatency(), is(greaterThan(0.0)));
+    }
+
+    @Test
+    public void testConnectionFailuresMarkTheEndpointDown() {
+        response = () -> {
+            throw new AciServiceException("Connection refused");
+        };
+
+        try {
+            aciService.executeAction(new AciParameters("GetStatus"), null);
+            fail("Expected an AciServiceException");
+        } catch (final AciServiceException ignored) {
+        }
+
+        assertThat(state().getHealth(), is(EndpointState.Health.DOWN));
+        assertThat(state().getFailures(), is(1L));
+        assertThat(state().getInFlight(), is(0L));
+    }
+
+    @Test
+    public void testAciErrorsDoNotMarkTheEndpointDown() {
+        response = () -> {
+            throw new AciErrorException("Unknown action");
+        };
+
+        try {
+            aciService.executeAction(new AciParameters("Unknown"), null);
+            fail("Expected an AciErrorException");
+        } catch (final AciErrorException ignored) {
+        }
+
+        assertThat(state().getHealth(), is(EndpointState.Health.UP));
+        assertThat(state().getFailures(), is(0L));
+    }
+
+    @Test
+    public void testAverageLatencyIsSmoothed() {
+        final EndpointRegistry halfSmoothing = new EndpointRegistry(0.5);
+        final EndpointState state = halfSmoothing.get(Endpoint.of(SERVER));
+
+        state.complete(System.nanoTime() - 100000000L, false);
+        state.complete(System.nanoTime() - 300000000L, false);
+
+        assertThat(Math.round(state.getAverageLatency() / 10), is(20L));
+    }
+
+    @Test
+    public void testRegisterServer() {
+        endpointRegistry.register(ServerConfig.builder()
+                .host("example.com")
+                .port(9000)
+                .servicePort(9002)
+                .build());
+
+        assertThat(endpointRegistry.find(new Endpoint("http", "example.com", 9002)), is(notNullValue()));
+        assertThat(endpointRegistry.find(new Endpoint("http", "example.com", 9001)), is(nullValue()));
+        assertThat(endpointRegistry.getStates().size(), is(2));
+    }
+
+    private EndpointState state() {
+        return endpointRegistry.find(Endpoint.of(SERVER));
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class StubAciService implements ConfigurableAciService {
+        @Override
+        public AciServerDetails getServerDetails() {
+            return SERVER;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+            return (T) response.get();
+        }
+
+        @Override
+        public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+            return executeAction(parameters, processor);
+        }
+    }
+}
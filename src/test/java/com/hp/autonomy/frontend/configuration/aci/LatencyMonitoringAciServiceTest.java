@@ -0,0 +1,114 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.autonomy.aci.client.util.AciParameters;
+import com.hp.autonomy.frontend.configuration.event.ConfigurationEvent;
+import com.hp.autonomy.frontend.configuration.event.ConfigurationEventBus;
+import com.hp.autonomy.frontend.configuration.event.EventSubscription;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class LatencyMonitoringAciServiceTest {
+    private static final AciServerDetails SERVER = new AciServerDetails("example.com", 9000);
+    private static final long LATENCY = 20;
+
+    private volatile boolean failing;
+    private EndpointRegistry endpointRegistry;
+    private EventSubscription subscription;
+    private LatencyMonitoringAciService aciService;
+
+    @Before
+    public void setUp() {
+        final ConfigurationEventBus eventBus = new ConfigurationEventBus();
+        subscription = eventBus.subscribe(10);
+        endpointRegistry = new EndpointRegistry();
+
+        aciService = new LatencyMonitoringAciService(new StubAciService(), endpointRegistry, eventBus);
+        aciService.setThreshold(LATENCY / 2);
+    }
+
+    @Test
+    public void testLatencyIsRecordedInTheRegistry() {
+        aciService.executeAction(new AciParameters("GetStatus"), null);
+
+        final EndpointState state = endpointRegistry.find(Endpoint.of(SERVER));
+
+        assertThat(state.getRequests(), is(1L));
+        assertThat(state.getAverageLatency(), is(greaterThan((double) LATENCY / 2)));
+        assertThat(aciService.getAverageLatency(SERVER), is(state.getAverageLatency()));
+    }
+
+    @Test
+    public void testCrossingTheThresholdIsPublishedOnce() {
+        aciService.executeAction(new AciParameters("GetStatus"), null);
+        aciService.executeAction(new AciParameters("GetStatus"), null);
+
+        assertThat(subscription.poll().getType(), is(ConfigurationEvent.Type.LATENCY_THRESHOLD_EXCEEDED));
+        assertThat(subscription.poll(), is(nullValue()));
+    }
+
+    @Test
+    public void testRecoveryIsPublished() {
+        aciService.executeAction(new AciParameters("GetStatus"), null);
+        aciService.setThreshold(LATENCY * 100);
+        aciService.executeAction(new AciParameters("GetStatus"), null);
+
+        assertThat(subscription.poll().getType(), is(ConfigurationEvent.Type.LATENCY_THRESHOLD_EXCEEDED));
+        assertThat(subscription.poll().getType(), is(ConfigurationEvent.Type.LATENCY_THRESHOLD_RECOVERED));
+    }
+
+    @Test
+    public void testFailuresAreRecorded() {
+        failing = true;
+
+        try {
+            aciService.executeAction(new AciParameters("GetStatus"), null);
+            fail("Expected an AciServiceException");
+        } catch (final AciServiceException ignored) {
+            assertThat(endpointRegistry.find(Endpoint.of(SERVER)).getHealth(), is(EndpointState.Health.DOWN));
+        }
+    }
+
+    private class StubAciService implements ConfigurableAciService {
+        @Override
+        public AciServerDetails getServerDetails() {
+            return SERVER;
+        }
+
+        @Override
+        public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+            return executeAction(SERVER, parameters, processor);
+        }
+
+        @Override
+        public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+            try {
+                Thread.sleep(LATENCY);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (failing) {
+                throw new AciServiceException("Connection refused");
+            }
+
+            return null;
+        }
+    }
+}
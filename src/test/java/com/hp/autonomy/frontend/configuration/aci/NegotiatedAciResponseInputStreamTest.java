@@ -0,0 +1,114 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.transport.AciResponseInputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class NegotiatedAciResponseInputStreamTest {
+
+    private static final String RESPONSE = "<autnresponse><action>GETSTATUS</action><response>SUCCESS</response></autnresponse>";
+
+    @Test
+    public void testGzipResponseIsDecompressed() throws IOException {
+        final byte[] body = gzip(RESPONSE);
+
+        try (final NegotiatedAciResponseInputStream stream = new NegotiatedAciResponseInputStream(new TestResponse(body, "gzip"))) {
+            assertThat(stream.isCompressed(), is(true));
+            assertThat(stream.getContentLength(), is((long) body.length));
+            assertThat(IOUtils.toString(stream, StandardCharsets.UTF_8), is(RESPONSE));
+        }
+    }
+
+    @Test
+    public void testDeflateResponseIsDecompressed() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (final OutputStream deflater = new DeflaterOutputStream(bytes)) {
+            deflater.write(RESPONSE.getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (final NegotiatedAciResponseInputStream stream = new NegotiatedAciResponseInputStream(new TestResponse(bytes.toByteArray(), " Deflate "))) {
+            assertThat(stream.isCompressed(), is(true));
+            assertThat(IOUtils.toString(stream, StandardCharsets.UTF_8), is(RESPONSE));
+        }
+    }
+
+    @Test
+    public void testUncompressedResponseIsPassedThrough() throws IOException {
+        try (final NegotiatedAciResponseInputStream stream = new NegotiatedAciResponseInputStream(new TestResponse(RESPONSE.getBytes(StandardCharsets.UTF_8), null))) {
+            assertThat(stream.isCompressed(), is(false));
+            assertThat(IOUtils.toString(stream, StandardCharsets.UTF_8), is(RESPONSE));
+        }
+    }
+
+    @Test
+    public void testUnknownEncodingIsPassedThrough() throws IOException {
+        try (final NegotiatedAciResponseInputStream stream = new NegotiatedAciResponseInputStream(new TestResponse(RESPONSE.getBytes(StandardCharsets.UTF_8), "br"))) {
+            assertThat(stream.isCompressed(), is(false));
+            assertThat(stream.getContentEncoding(), is("br"));
+            assertThat(IOUtils.toString(stream, StandardCharsets.UTF_8), is(RESPONSE));
+        }
+    }
+
+    private static byte[] gzip(final String value) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (final OutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static class TestResponse extends AciResponseInputStream {
+        private final long contentLength;
+        private final String contentEncoding;
+
+        private TestResponse(final byte[] body, final String contentEncoding) {
+            super(new ByteArrayInputStream(body));
+            contentLength = body.length;
+            this.contentEncoding = contentEncoding;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return 200;
+        }
+
+        @Override
+        public String getHeader(final String name) {
+            return "Content-Encoding".equalsIgnoreCase(name) ? contentEncoding : null;
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return contentEncoding;
+        }
+
+        @Override
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public String getContentType() {
+            return "application/xml";
+        }
+    }
+}
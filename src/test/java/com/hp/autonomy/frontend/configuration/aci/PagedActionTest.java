@@ -0,0 +1,105 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.util.AciParameters;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PagedActionTest {
+    private static final int TOTAL_RESULTS = 25;
+
+    @Mock
+    private ConfigurableAciService aciService;
+    @Mock
+    private Processor<List<Integer>> pageProcessor;
+
+    private final List<String> pages = new ArrayList<>();
+
+    private PagedAction<Integer> pagedAction;
+
+    @Before
+    public void setUp() {
+        when(aciService.executeAction(any(AciParameters.class), any(Processor.class))).thenAnswer(new Answer<List<Integer>>() {
+            @Override
+            public List<Integer> answer(final InvocationOnMock invocation) {
+                final AciParameters parameters = (AciParameters) invocation.getArguments()[0];
+                final int start = Integer.parseInt(parameters.get("Start"));
+                final int maxResults = Integer.parseInt(parameters.get("MaxResults"));
+                pages.add(start + "-" + maxResults);
+
+                final List<Integer> results = new ArrayList<>();
+
+                for (int i = start; i <= Math.min(maxResults, TOTAL_RESULTS); i++) {
+                    results.add(i);
+                }
+
+                return results;
+            }
+        });
+
+        final AciParameters parameters = new AciParameters("Query");
+        parameters.add("Text", "*");
+        parameters.add("Start", 5);
+
+        pagedAction = new PagedAction<>(aciService, parameters, pageProcessor);
+        pagedAction.setPageSize(10);
+    }
+
+    @Test
+    public void pagesThroughAllResults() {
+        assertThat(pagedAction.stream().collect(Collectors.toList()), hasSize(TOTAL_RESULTS));
+        assertThat(pages, contains("1-10", "11-20", "21-30"));
+    }
+
+    @Test
+    public void onlyRequestsPagesAsTheyAreConsumed() {
+        final Iterator<Integer> iterator = pagedAction.iterator();
+
+        for (int i = 1; i <= 10; i++) {
+            assertThat(iterator.next(), is(i));
+        }
+
+        assertThat(pages, contains("1-10"));
+    }
+
+    @Test
+    public void stopsAtMaxResults() {
+        pagedAction.setMaxResults(15);
+
+        assertThat(pagedAction.stream().count(), is(15L));
+        assertThat(pages, contains("1-10", "11-15"));
+    }
+
+    @Test
+    public void stopsAfterShortPage() {
+        pagedAction.setPageSize(25);
+
+        assertThat(pagedAction.stream().count(), is(25L));
+        verify(aciService, times(2)).executeAction(any(AciParameters.class), any(Processor.class));
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class PriorityLanesTest {
+
+    @Test
+    public void reservesCapacityForInteractiveRequests() {
+        final PriorityLanes lanes = new PriorityLanes(PriorityLaneSettings.builder().capacity(2).reservedInteractive(1).maxQueueTime(0).build());
+
+        assertThat(lanes.acquire(RequestPriority.BATCH), is(true));
+        assertThat(lanes.acquire(RequestPriority.BATCH), is(false));
+        assertThat(lanes.acquire(RequestPriority.INTERACTIVE), is(true));
+        assertThat(lanes.getInFlight(), is(2));
+    }
+
+    @Test
+    public void rejectsRequestsWhenLaneIsFull() {
+        final PriorityLanes lanes = new PriorityLanes(PriorityLaneSettings.builder().capacity(1).reservedInteractive(0).maxQueued(0).build());
+
+        assertThat(lanes.acquire(RequestPriority.INTERACTIVE), is(true));
+        assertThat(lanes.acquire(RequestPriority.INTERACTIVE), is(false));
+    }
+
+    @Test(timeout = 10000)
+    public void grantsReleasedCapacityToWaitingRequest() throws InterruptedException {
+        final PriorityLanes lanes = new PriorityLanes(PriorityLaneSettings.builder().capacity(1).reservedInteractive(0).build());
+        final AtomicBoolean acquired = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        assertThat(lanes.acquire(RequestPriority.INTERACTIVE), is(true));
+
+        final Thread waiter = new Thread(() -> {
+            acquired.set(lanes.acquire(RequestPriority.BATCH));
+            done.countDown();
+        });
+
+        waiter.start();
+        assertThat(done.await(100, TimeUnit.MILLISECONDS), is(false));
+
+        lanes.release();
+
+        assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(acquired.get(), is(true));
+        assertThat(lanes.getInFlight(), is(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsReservationOfAllCapacity() {
+        new PriorityLanes(PriorityLaneSettings.builder().capacity(2).reservedInteractive(2).build());
+    }
+}
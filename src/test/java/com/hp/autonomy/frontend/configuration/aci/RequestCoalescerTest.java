@@ -0,0 +1,277 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciResponseInputStream;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.autonomy.aci.client.util.AciParameters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RequestCoalescerTest {
+    private static final AciServerDetails SERVER = new AciServerDetails("example.com", 9000);
+    private static final int CALLERS = 4;
+
+    private final Processor<Object> processor = aciResponse -> null;
+
+    private AtomicInteger requests;
+    private CountDownLatch release;
+    private volatile RuntimeException failure;
+    private RequestCoalescer requestCoalescer;
+    private AbstractConfigurableAciService aciService;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        requests = new AtomicInteger();
+        release = new CountDownLatch(1);
+        requestCoalescer = new RequestCoalescer("GetStatus", "Query");
+
+        aciService = new AbstractConfigurableAciService(new StubAciService()) {
+            @Override
+            public AciServerDetails getServerDetails() {
+                return SERVER;
+            }
+        };
+
+        aciService.setRequestCoalescer(requestCoalescer);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testIdenticalActionsShareARequest() throws Exception {
+        final List<Future<Object>> results = submit(CALLERS, i -> query("cat"));
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+
+        for (final Future<Object> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS), is(sameInstance(results.get(0).get())));
+        }
+
+        assertThat(requests.get(), is(1));
+    }
+
+    @Test
+    public void testDifferentParametersAreNotShared() throws Exception {
+        final List<Future<Object>> results = submit(2, i -> query(i == 0 ? "cat" : "dog"));
+        awaitRequests(2);
+        release.countDown();
+
+        for (final Future<Object> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(requestCoalescer.getCoalescedCount(), is(0L));
+    }
+
+    @Test
+    public void testParameterNamesAreCaseInsensitive() throws Exception {
+        final List<Future<Object>> results = submit(2, i -> {
+            final AciParameters parameters = new AciParameters("Query");
+            parameters.add(i == 0 ? "Text" : "TEXT", "cat");
+            return parameters;
+        });
+
+        awaitCoalesced(1);
+        release.countDown();
+
+        assertThat(results.get(1).get(5, TimeUnit.SECONDS), is(sameInstance(results.get(0).get())));
+        assertThat(requests.get(), is(1));
+    }
+
+    @Test
+    public void testOtherActionsAreNotShared() throws Exception {
+        submit(2, i -> new AciParameters("GetVersion"));
+        awaitRequests(2);
+    }
+
+    @Test
+    public void testActionsThroughASlowCallSamplerAreShared() throws Exception {
+        final SlowCallSamplingAciService samplingAciService = new SlowCallSamplingAciService(aciService, new SlowCallSampler(2));
+        final List<Future<Object>> results = new ArrayList<>();
+
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> samplingAciService.executeAction(query("cat"), processor)));
+        }
+
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+
+        for (final Future<Object> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(requestCoalescer.getCoalescedCount(), is(greaterThan(0L)));
+        assertThat(requests.get(), is(1));
+    }
+
+    @Test
+    public void testGenericProcessorsOfDifferentTypesAreNotShared() throws Exception {
+        final Processor<String> stringProcessor = new TypedProcessor<>(String.class);
+        final Processor<Integer> integerProcessor = new TypedProcessor<>(Integer.class);
+
+        final Future<?> first = executor.submit(() -> {
+            aciService.executeAction(query("cat"), stringProcessor);
+        });
+
+        final Future<?> second = executor.submit(() -> {
+            aciService.executeAction(query("cat"), integerProcessor);
+        });
+
+        awaitRequests(2);
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        assertThat(requestCoalescer.getCoalescedCount(), is(0L));
+    }
+
+    @Test
+    public void testFailuresAreShared() throws Exception {
+        failure = new AciServiceException("Connection refused");
+
+        final List<Future<Object>> results = submit(CALLERS, i -> query("cat"));
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+
+        for (final Future<Object> result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail("Expected an AciServiceException");
+            } catch (final ExecutionException e) {
+                assertThat(e.getCause(), is(instanceOf(AciServiceException.class)));
+            }
+        }
+
+        assertThat(requests.get(), is(1));
+    }
+
+    @Test
+    public void testCompletedActionsAreSentAgain() {
+        release.countDown();
+
+        aciService.executeAction(query("cat"), processor);
+        aciService.executeAction(query("cat"), processor);
+
+        assertThat(requests.get(), is(2));
+    }
+
+    private List<Future<Object>> submit(final int callers, final ParametersFactory parametersFactory) {
+        final List<Future<Object>> results = new ArrayList<>();
+
+        for (int i = 0; i < callers; i++) {
+            final AciParameters parameters = parametersFactory.create(i);
+            results.add(executor.submit(() -> aciService.executeAction(parameters, processor)));
+        }
+
+        return results;
+    }
+
+    private void awaitCoalesced(final long count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+
+        while (requestCoalescer.getCoalescedCount() < count) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for actions to be coalesced");
+            }
+
+            Thread.sleep(1);
+        }
+    }
+
+    private void awaitRequests(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+
+        while (requests.get() < count) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for requests");
+            }
+
+            Thread.sleep(1);
+        }
+    }
+
+    private static AciParameters query(final String text) {
+        final AciParameters parameters = new AciParameters("Query");
+        parameters.add("Text", text);
+        return parameters;
+    }
+
+    // like the response data processors of a ProcessorFactory, every instance has the same class
+    private static class TypedProcessor<T> implements Processor<T> {
+        private static final long serialVersionUID = -3370374187420167384L;
+
+        private final Class<T> type;
+
+        private TypedProcessor(final Class<T> type) {
+            this.type = type;
+        }
+
+        @Override
+        public T process(final AciResponseInputStream aciResponse) {
+            return type.cast(null);
+        }
+    }
+
+    private interface ParametersFactory {
+        AciParameters create(int caller);
+    }
+
+    private class StubAciService implements AciService {
+        @Override
+        public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+            return executeAction(SERVER, parameters, processor);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+            requests.incrementAndGet();
+
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+
+            return (T) new Object();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.services.impl.AciServiceImpl;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.autonomy.aci.client.transport.impl.AciHttpClientImpl;
+import com.autonomy.aci.client.util.AciParameters;
+import com.hp.autonomy.frontend.configuration.FakeIdolServer;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.Set;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RetryingAciServiceTest {
+    private static final AciServerDetails SERVER = new AciServerDetails("example.com", 9000);
+
+    private Queue<RuntimeException> failures;
+    private int attempts;
+    private RetryPolicy retryPolicy;
+    private RetryBudget retryBudget;
+    private RetryingAciService aciService;
+
+    @Before
+    public void setUp() {
+        failures = new LinkedList<>();
+        attempts = 0;
+        retryPolicy = RetryPolicy.builder().initialBackoff(1).build();
+        retryBudget = new RetryBudget(0.1, 10);
+        aciService = new RetryingAciService(new StubAciService(), retryPolicy, retryBudget);
+    }
+
+    @Test
+    public void testTransientFailuresAreRetried() {
+        failures.add(new AciServiceException(new SocketException("Connection reset")));
+        failures.add(new AciServiceException(new SocketException("Connection reset")));
+
+        assertThat(aciService.executeAction(new AciParameters("GetStatus"), null), is("OK"));
+        assertThat(attempts, is(3));
+    }
+
+    @Test
+    public void testAttemptsAreLimited() {
+        for (int i = 0; i < 5; i++) {
+            failures.add(new AciServiceException(new SocketException("Connection reset")));
+        }
+
+        expectFailure("GetStatus");
+        assertThat(attempts, is(3));
+    }
+
+    @Test
+    public void testNonIdempotentActionsAreNotRetried() {
+        failures.add(new AciServiceException(new SocketException("Connection reset")));
+
+        expectFailure("DREADD");
+        assertThat(attempts, is(1));
+    }
+
+    @Test
+    public void testTimeoutsAreNotRetried() {
+        failures.add(new AciServiceException(new SocketTimeoutException("Read timed out")));
+
+        expectFailure("GetStatus");
+        assertThat(attempts, is(1));
+    }
+
+    @Test
+    public void testAciErrorsAreRetriedByCode() {
+        final AciErrorException busy = new AciErrorException("Busy");
+        busy.setErrorCode("ERRORBUSY");
+        final AciErrorException unknown = new AciErrorException("Unknown action");
+        unknown.setErrorCode("ERRORUNKNOWNACTION");
+
+        aciService = new RetryingAciService(new StubAciService(), retryPolicy.toBuilder()
+                .retryableErrorCodes(Collections.singleton("ERRORBUSY"))
+                .build(), retryBudget);
+
+        failures.add(busy);
+        failures.add(unknown);
+
+        expectFailure("GetStatus");
+        assertThat(attempts, is(2));
+    }
+
+    @Test
+    public void testRetriesAreLimitedByBudget() {
+        aciService = new RetryingAciService(new StubAciService(), retryPolicy, new RetryBudget(0.1, 1));
+
+        failures.add(new AciServiceException(new SocketException("Connection reset")));
+        failures.add(new AciServiceException(new SocketException("Connection reset")));
+
+        expectFailure("GetStatus");
+        assertThat(attempts, is(2));
+    }
+
+    @Test
+    public void testBudgetIsRefilledByRequests() {
+        final RetryBudget budget = new RetryBudget(0.25, 1);
+
+        assertThat(budget.tryAcquire(), is(true));
+        assertThat(budget.tryAcquire(), is(false));
+
+        for (int i = 0; i < 4; i++) {
+            budget.onRequest();
+        }
+
+        assertThat(budget.tryAcquire(), is(true));
+        assertThat(budget.getExhaustedCount(), is(1L));
+    }
+
+    @Test
+    public void testBackoffGrowsExponentially() {
+        final RetryPolicy policy = RetryPolicy.builder().initialBackoff(100).maxBackoff(300).jitter(0).build();
+
+        assertThat(policy.getBackoff(1), is(100L));
+        assertThat(policy.getBackoff(2), is(200L));
+        assertThat(policy.getBackoff(3), is(300L));
+    }
+
+    @Test
+    public void testServiceUnavailableIsRetried() throws IOException {
+        try (final FakeIdolServer server = FakeIdolServer.builder().build().start();
+             final CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            server.setHttpErrorRate(1);
+
+            final AciServiceImpl delegate = new AciServiceImpl(new AciHttpClientImpl(httpClient));
+            final RetryingAciService retryingAciService = new RetryingAciService(new AbstractConfigurableAciService(delegate) {
+                @Override
+                public AciServerDetails getServerDetails() {
+                    return server.getAciServerDetails();
+                }
+            }, retryPolicy, retryBudget);
+
+            try {
+                retryingAciService.executeAction(new AciParameters("GetStatus"), aciResponse -> null);
+                fail("Expected an AciServiceException");
+            } catch (final AciServiceException ignored) {
+            }
+
+            assertThat(server.getRequestCount("GetStatus"), is(3L));
+        }
+    }
+
+    private void expectFailure(final String action) {
+        try {
+            aciService.executeAction(new AciParameters(action), null);
+            fail("Expected an AciServiceException");
+        } catch (final AciServiceException ignored) {
+        }
+    }
+
+    private class StubAciService implements ConfigurableAciService {
+        @Override
+        public AciServerDetails getServerDetails() {
+            return SERVER;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+            attempts++;
+
+            final RuntimeException failure = failures.poll();
+
+            if (failure != null) {
+                throw failure;
+            }
+
+            return (T) "OK";
+        }
+
+        @Override
+        public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+            return executeAction(parameters, processor);
+        }
+    }
+}
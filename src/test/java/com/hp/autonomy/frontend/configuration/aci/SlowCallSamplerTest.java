@@ -0,0 +1,149 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.aci;
+
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.autonomy.aci.client.util.AciParameters;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class SlowCallSamplerTest {
+    private static final AciServerDetails SERVER = new AciServerDetails("example.com", 9000);
+
+    private SlowCallSampler sampler;
+
+    @Before
+    public void setUp() {
+        sampler = new SlowCallSampler(2);
+        sampler.setMinimumThreshold(0);
+        sampler.setMaxCapturesPerSecond(1000000);
+    }
+
+    @Test
+    public void testBucketsCoverTheirLatencies() {
+        for (long micros = 0; micros < 100000; micros++) {
+            final int bucket = SlowCallSampler.bucket(TimeUnit.MICROSECONDS.toNanos(micros));
+            assertThat(micros, is(lessThan(SlowCallSampler.upperBound(bucket))));
+
+            if (bucket > 0) {
+                assertThat(micros, is(greaterThan(SlowCallSampler.upperBound(bucket - 1) - 1)));
+            }
+        }
+    }
+
+    @Test
+    public void testThresholdFollowsPercentile() {
+        for (int i = 0; i < 1024; i++) {
+            sampler.sample(TimeUnit.MILLISECONDS.toNanos(i % 200 == 0 ? 500 : 10));
+        }
+
+        // fewer than 1% of calls took 500ms, so the 99th percentile is in the bucket holding 10ms
+        assertThat(sampler.getThreshold(), is(greaterThan(TimeUnit.MILLISECONDS.toNanos(10))));
+        assertThat(sampler.getThreshold(), is(lessThan(TimeUnit.MILLISECONDS.toNanos(13))));
+
+        assertThat(sampler.sample(TimeUnit.MILLISECONDS.toNanos(10)), is(false));
+        assertThat(sampler.sample(TimeUnit.MILLISECONDS.toNanos(500)), is(true));
+    }
+
+    @Test
+    public void testMinimumThreshold() {
+        sampler.setMinimumThreshold(1000);
+
+        assertThat(sampler.sample(TimeUnit.MILLISECONDS.toNanos(999)), is(false));
+        assertThat(sampler.sample(TimeUnit.MILLISECONDS.toNanos(1001)), is(true));
+    }
+
+    @Test
+    public void testCapturesAreRateLimited() {
+        sampler.setMaxCapturesPerSecond(0.001);
+
+        assertThat(sampler.sample(1), is(true));
+        assertThat(sampler.sample(1), is(false));
+        assertThat(sampler.getSuppressedCount(), is(1L));
+    }
+
+    @Test
+    public void testStoreIsBounded() {
+        for (int i = 0; i < 3; i++) {
+            sampler.capture(slowCall("Action" + i));
+        }
+
+        final List<SlowCall> slowCalls = sampler.getSlowCalls();
+        assertThat(slowCalls.size(), is(2));
+        assertThat(slowCalls.get(0).getAction(), is("Action1"));
+        assertThat(slowCalls.get(1).getAction(), is("Action2"));
+    }
+
+    @Test
+    public void testServiceCapturesSlowActions() {
+        final SlowCallSamplingAciService aciService = new SlowCallSamplingAciService(new ConfigurableAciService() {
+            @Override
+            public AciServerDetails getServerDetails() {
+                return SERVER;
+            }
+
+            @Override
+            public <T> T executeAction(final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+                return executeAction(SERVER, parameters, processor);
+            }
+
+            @Override
+            public <T> T executeAction(final AciServerDetails serverDetails, final Set<? extends ActionParameter<?>> parameters, final Processor<T> processor) {
+                sleep();
+                return processor.process(null);
+            }
+        }, sampler);
+
+        final AciParameters parameters = new AciParameters("Query");
+        parameters.add("Text", "cat");
+        parameters.add("SecurityInfo", "token");
+
+        aciService.executeAction(parameters, aciResponse -> {
+            sleep();
+            return null;
+        });
+
+        final SlowCall slowCall = sampler.getSlowCalls().get(0);
+        assertThat(slowCall.getEndpoint(), is(Endpoint.of(SERVER)));
+        assertThat(slowCall.getAction(), is("Query"));
+        assertThat(slowCall.getParameters(), is("Action=Query&Text=cat&SecurityInfo=<redacted>"));
+        assertThat(slowCall.getStatus(), is(TraceRecord.Status.SUCCESS));
+        assertThat(slowCall.getPhases().get(SlowCall.RESPONSE_PHASE), is(greaterThan(TimeUnit.MILLISECONDS.toNanos(4))));
+        assertThat(slowCall.getPhases().get(SlowCall.PROCESSING_PHASE), is(greaterThan(TimeUnit.MILLISECONDS.toNanos(4))));
+        assertThat(slowCall.getStackTrace().length, is(greaterThan(0)));
+    }
+
+    @Test
+    public void testSensitiveParametersAreRedacted() {
+        assertThat(SensitiveParameters.redact("DREDbName=News&Password=secret&UserPassword=&Docs=a%3Db"),
+                is("DREDbName=News&Password=<redacted>&UserPassword=<redacted>&Docs=a%3Db"));
+    }
+
+    private static SlowCall slowCall(final String action) {
+        return new SlowCall(0, Endpoint.of(SERVER), action, "", 0, 0, Collections.<String, Long>emptyMap(),
+                TraceRecord.Status.SUCCESS, "main", new StackTraceElement[0]);
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
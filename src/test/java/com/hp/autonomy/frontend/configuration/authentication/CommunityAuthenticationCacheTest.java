@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.authentication;
+
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class CommunityAuthenticationCacheTest {
+    private final CommunityAuthentication authentication = CommunityAuthentication.builder()
+            .community(ServerConfig.builder().host("localhost").port(9030).build())
+            .method("autonomy")
+            .build();
+
+    @Test
+    public void returnsVerdictForMatchingPassword() {
+        final CommunityAuthenticationCache<String> cache = new CommunityAuthenticationCache<>(10, 60000L);
+        cache.put(authentication, "alice", "secret", "ROLE_USER", cache.getGeneration());
+
+        assertThat(cache.get(authentication, "alice", "secret"), is("ROLE_USER"));
+        assertThat(cache.get(authentication, "alice", "wrong"), is(nullValue()));
+        assertThat(cache.get(authentication, "bob", "secret"), is(nullValue()));
+
+        final CommunityAuthenticationCache.Statistics statistics = cache.getStatistics();
+        assertThat(statistics.getHits(), is(1L));
+        assertThat(statistics.getMisses(), is(2L));
+    }
+
+    @Test
+    public void separatesSecurityMethods() {
+        final CommunityAuthenticationCache<String> cache = new CommunityAuthenticationCache<>(10, 60000L);
+        cache.put(authentication, "alice", "secret", "ROLE_USER", cache.getGeneration());
+
+        final CommunityAuthentication ldap = authentication.toBuilder().method("ldap").build();
+
+        assertThat(cache.get(ldap, "alice", "secret"), is(nullValue()));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        final CommunityAuthenticationCache<String> cache = new CommunityAuthenticationCache<>(2, 60000L);
+        cache.put(authentication, "alice", "secret", "ROLE_USER", cache.getGeneration());
+        cache.put(authentication, "bob", "secret", "ROLE_USER", cache.getGeneration());
+        cache.get(authentication, "alice", "secret");
+        cache.put(authentication, "carol", "secret", "ROLE_USER", cache.getGeneration());
+
+        assertThat(cache.get(authentication, "bob", "secret"), is(nullValue()));
+        assertThat(cache.get(authentication, "alice", "secret"), is("ROLE_USER"));
+        assertThat(cache.getStatistics().getEvictions(), is(1L));
+    }
+
+    @Test
+    public void evictsUser() {
+        final CommunityAuthenticationCache<String> cache = new CommunityAuthenticationCache<>(10, 60000L);
+        cache.put(authentication, "alice", "secret", "ROLE_USER", cache.getGeneration());
+        cache.put(authentication, "bob", "secret", "ROLE_USER", cache.getGeneration());
+        cache.evict("alice");
+
+        assertThat(cache.get(authentication, "alice", "secret"), is(nullValue()));
+        assertThat(cache.get(authentication, "bob", "secret"), is("ROLE_USER"));
+    }
+
+    @Test
+    public void expiresVerdicts() throws InterruptedException {
+        final CommunityAuthenticationCache<String> cache = new CommunityAuthenticationCache<>(10, 1L);
+        cache.put(authentication, "alice", "secret", "ROLE_USER", cache.getGeneration());
+        Thread.sleep(5L);
+
+        assertThat(cache.get(authentication, "alice", "secret"), is(nullValue()));
+        assertThat(cache.getStatistics().getExpirations(), is(1L));
+        assertThat(cache.getStatistics().getSize(), is(0));
+    }
+
+    @Test
+    public void ignoresVerdictsObtainedBeforeEviction() {
+        final CommunityAuthenticationCache<String> cache = new CommunityAuthenticationCache<>(10, 60000L);
+        final long generation = cache.getGeneration();
+        cache.evict("alice");
+
+        assertThat(cache.put(authentication, "alice", "secret", "ROLE_ADMIN", generation), is(false));
+        assertThat(cache.get(authentication, "alice", "secret"), is(nullValue()));
+
+        final long evictedAll = cache.getGeneration();
+        cache.evictAll();
+
+        assertThat(cache.put(authentication, "alice", "secret", "ROLE_USER", evictedAll), is(false));
+        assertThat(cache.put(authentication, "alice", "secret", "ROLE_USER", cache.getGeneration()), is(true));
+        assertThat(cache.get(authentication, "alice", "secret"), is("ROLE_USER"));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.authentication;
+
+import com.autonomy.aci.client.services.AciService;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
+import com.hp.autonomy.types.idol.marshalling.ProcessorFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CommunityAuthenticationValidatorTest {
+    @Mock
+    private AciService aciService;
+    @Mock
+    private ProcessorFactory processorFactory;
+    @Mock
+    private CommunityAuthentication communityAuthentication;
+
+    private final ValidationResult<?> validationResult = new ValidationResult<>(true);
+
+    private CommunityAuthenticationValidator validator;
+
+    @Before
+    public void setUp() {
+        when(communityAuthentication.getCommunity()).thenReturn(ServerConfig.builder().host("localhost").port(9030).build());
+        when(communityAuthentication.getMethod()).thenReturn("autonomy");
+        Mockito.<ValidationResult<?>>when(communityAuthentication.validate(aciService, processorFactory)).thenReturn(validationResult);
+
+        validator = new CommunityAuthenticationValidator();
+        validator.setAciService(aciService);
+        validator.setProcessorFactory(processorFactory);
+    }
+
+    @Test
+    public void validatesEveryTimeByDefault() {
+        validator.validate(communityAuthentication);
+        validator.validate(communityAuthentication);
+
+        verify(communityAuthentication, times(2)).validate(aciService, processorFactory);
+    }
+
+    @Test
+    public void reusesFreshVerdict() {
+        validator.setVerdictTimeToLive(60000L);
+
+        assertThat(validator.validate(communityAuthentication), is(sameInstance((Object) validationResult)));
+        assertThat(validator.validate(communityAuthentication), is(sameInstance((Object) validationResult)));
+
+        verify(communityAuthentication, times(1)).validate(aciService, processorFactory);
+    }
+
+    @Test
+    public void refreshesExpiredVerdictInBackground() throws InterruptedException {
+        final List<Runnable> refreshes = new ArrayList<>();
+        validator.setVerdictTimeToLive(1L);
+        validator.setRefreshExecutor(refreshes::add);
+
+        validator.validate(communityAuthentication);
+        Thread.sleep(5L);
+
+        assertThat(validator.validate(communityAuthentication), is(sameInstance((Object) validationResult)));
+        assertThat(validator.validate(communityAuthentication), is(sameInstance((Object) validationResult)));
+        assertThat(refreshes.size(), is(1));
+        verify(communityAuthentication, times(1)).validate(aciService, processorFactory);
+
+        refreshes.get(0).run();
+        verify(communityAuthentication, times(2)).validate(aciService, processorFactory);
+    }
+
+    @Test
+    public void keepsExpiredVerdictsForOtherConfigurations() throws InterruptedException {
+        final CommunityAuthentication otherAuthentication = Mockito.mock(CommunityAuthentication.class);
+        when(otherAuthentication.getCommunity()).thenReturn(ServerConfig.builder().host("localhost").port(9030).build());
+        when(otherAuthentication.getMethod()).thenReturn("ldap");
+        Mockito.<ValidationResult<?>>when(otherAuthentication.validate(aciService, processorFactory)).thenReturn(validationResult);
+
+        final List<Runnable> refreshes = new ArrayList<>();
+        validator.setVerdictTimeToLive(1L);
+        validator.setRefreshExecutor(refreshes::add);
+
+        validator.validate(communityAuthentication);
+        validator.validate(otherAuthentication);
+        Thread.sleep(5L);
+
+        validator.validate(otherAuthentication);
+        refreshes.get(0).run();
+
+        assertThat(validator.validate(communityAuthentication), is(sameInstance((Object) validationResult)));
+        verify(communityAuthentication, times(1)).validate(aciService, processorFactory);
+        assertThat(refreshes.size(), is(2));
+    }
+
+    @Test
+    public void invalidateDiscardsVerdicts() {
+        validator.setVerdictTimeToLive(60000L);
+
+        validator.validate(communityAuthentication);
+        validator.invalidate();
+        validator.validate(communityAuthentication);
+
+        verify(communityAuthentication, times(2)).validate(aciService, processorFactory);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.event;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class ConfigurationEventBusTest {
+    private static final AciServerDetails SERVER = new AciServerDetails("example.com", 9000);
+
+    private ConfigurationEventBus eventBus;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        eventBus = new ConfigurationEventBus();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testEventsArePolledInOrder() {
+        final EventSubscription subscription = eventBus.subscribe(10);
+
+        eventBus.publish(validityChanged(true, false));
+        eventBus.publish(validityChanged(false, true));
+
+        assertThat(subscription.poll().getCurrent(), is((Object) false));
+        assertThat(subscription.poll().getCurrent(), is((Object) true));
+        assertThat(subscription.poll(), is(nullValue()));
+    }
+
+    @Test
+    public void testOldestEventsAreDroppedWhenFull() {
+        final EventSubscription subscription = eventBus.subscribe(2);
+
+        for (int i = 0; i < 5; i++) {
+            eventBus.publish(new ConfigurationEvent(ConfigurationEvent.Type.LATENCY_THRESHOLD_EXCEEDED, SERVER, 0.0, (double) i));
+        }
+
+        final List<ConfigurationEvent> events = new ArrayList<>();
+
+        assertThat(subscription.drainTo(events), is(2));
+        assertThat(events.get(0).getCurrent(), is((Object) 3.0));
+        assertThat(events.get(1).getCurrent(), is((Object) 4.0));
+        assertThat(subscription.getDroppedCount(), is(3L));
+    }
+
+    @Test
+    public void testSubscriptionsOnlyReceiveTheirTypes() {
+        final EventSubscription subscription = eventBus.subscribe(10, Collections.singleton(ConfigurationEvent.Type.PORTS_CHANGED));
+
+        eventBus.publish(validityChanged(true, false));
+        eventBus.publish(new ConfigurationEvent(ConfigurationEvent.Type.PORTS_CHANGED, SERVER, new ServerPorts(9000, null, 9002), new ServerPorts(9000, null, 9012)));
+
+        assertThat(subscription.poll().getType(), is(ConfigurationEvent.Type.PORTS_CHANGED));
+        assertThat(subscription.poll(), is(nullValue()));
+    }
+
+    @Test
+    public void testPollWaitsForEvent() throws InterruptedException {
+        final EventSubscription subscription = eventBus.subscribe(10);
+
+        executor.execute(() -> eventBus.publish(validityChanged(true, false)));
+
+        assertThat(subscription.poll(5, TimeUnit.SECONDS).getType(), is(ConfigurationEvent.Type.VALIDITY_CHANGED));
+        assertThat(subscription.poll(10, TimeUnit.MILLISECONDS), is(nullValue()));
+    }
+
+    @Test
+    public void testListenerReceivesEvents() throws InterruptedException {
+        final BlockingQueue<ConfigurationEvent> received = new LinkedBlockingQueue<>();
+        eventBus.subscribe(10, received::add, executor);
+
+        eventBus.publish(validityChanged(true, false));
+        eventBus.publish(validityChanged(false, true));
+
+        assertThat(received.poll(5, TimeUnit.SECONDS).getCurrent(), is((Object) false));
+        assertThat(received.poll(5, TimeUnit.SECONDS).getCurrent(), is((Object) true));
+    }
+
+    @Test
+    public void testClosedSubscriptionsReceiveNothing() {
+        final EventSubscription subscription = eventBus.subscribe(10);
+        subscription.close();
+
+        eventBus.publish(validityChanged(true, false));
+
+        assertThat(subscription.poll(), is(nullValue()));
+        assertThat(eventBus.getSubscriberCount(), is(0));
+    }
+
+    private static ConfigurationEvent validityChanged(final boolean previous, final boolean current) {
+        return new ConfigurationEvent(ConfigurationEvent.Type.VALIDITY_CHANGED, SERVER, previous, current);
+    }
+}
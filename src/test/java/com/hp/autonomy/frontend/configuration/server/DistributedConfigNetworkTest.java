@@ -0,0 +1,147 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.impl.AciServiceImpl;
+import com.autonomy.aci.client.transport.impl.AciHttpClientImpl;
+import com.autonomy.nonaci.indexing.IndexingService;
+import com.autonomy.nonaci.indexing.impl.IndexingServiceImpl;
+import com.hp.autonomy.frontend.configuration.FakeIdolServer;
+import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
+import com.hp.autonomy.types.idol.marshalling.ProcessorFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+
+import static com.hp.autonomy.frontend.configuration.server.IsValidMatcher.valid;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Validates {@link DistributedConfig}s of {@link FakeIdolServer}s over HTTP
+ */
+public class DistributedConfigNetworkTest {
+    private FakeIdolServer dih;
+    private FakeIdolServer dah;
+    private FakeIdolServer content;
+    private CloseableHttpClient httpClient;
+
+    private AciService aciService;
+    private IndexingService indexingService;
+    private ProcessorFactory processorFactory;
+
+    @Before
+    public void setUp() throws IOException {
+        dih = FakeIdolServer.builder().productTypeCsv("DIH").indexing(true).build().start();
+        dah = FakeIdolServer.builder().productTypeCsv("DAH").build().start();
+        content = FakeIdolServer.builder().productTypeCsv("AXE").indexing(true).build().start();
+
+        httpClient = HttpClients.createDefault();
+        aciService = new AciServiceImpl(new AciHttpClientImpl(httpClient));
+        indexingService = new IndexingServiceImpl(httpClient);
+        processorFactory = FakeIdolServer.processorFactory();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        httpClient.close();
+
+        for (final FakeIdolServer server : Arrays.asList(dih, dah, content)) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testValidateDistributed() {
+        final ValidationResult<?> result = distributedConfig().validate(aciService, indexingService, processorFactory);
+
+        assertThat(result, is(valid()));
+        assertThat(dah.getRequestCount("LanguageSettings"), is(1L));
+    }
+
+    @Test
+    public void testValidateStandard() {
+        final DistributedConfig distributedConfig = DistributedConfig.builder()
+                .distributed(false)
+                .standard(serverConfig(content, ProductType.AXE))
+                .build();
+
+        assertThat(distributedConfig.validate(aciService, indexingService, processorFactory), is(valid()));
+    }
+
+    @Test
+    public void testLanguageSettingsErrorInvalidatesTheDah() {
+        dah.setFaultyActions(Collections.singleton("LanguageSettings"));
+        dah.setErrorRate(1);
+
+        final ValidationResult<?> result = distributedConfig().validate(aciService, indexingService, processorFactory);
+        final DistributedConfig.DistributedValidationResultDetails details = (DistributedConfig.DistributedValidationResultDetails) result.getData();
+
+        assertThat(result, is(not(valid())));
+        assertThat(details.getDihValidationResult(), is(nullValue()));
+        assertThat(details.getDahValidationResult().getData(), is((Object) DistributedConfig.Validation.LANGUAGE_SETTINGS));
+    }
+
+    @Test
+    public void testUnreachableDihIsReported() {
+        final DistributedConfig distributedConfig = distributedConfig();
+        dih.close();
+
+        final ValidationResult<?> result = distributedConfig.validate(aciService, indexingService, processorFactory);
+        final DistributedConfig.DistributedValidationResultDetails details = (DistributedConfig.DistributedValidationResultDetails) result.getData();
+
+        assertThat(result, is(not(valid())));
+        assertThat(details.getDihValidationResult().getData(), is((Object) ServerConfig.Validation.CONNECTION_ERROR));
+        assertThat(details.getDahValidationResult(), is(nullValue()));
+    }
+
+    @Test
+    public void testSharedValidationPhasesAreReused() {
+        final ServerConfigValidator serverConfigValidator = new ServerConfigValidator();
+        serverConfigValidator.setAciService(aciService);
+        serverConfigValidator.setIndexingService(indexingService);
+        serverConfigValidator.setProcessorFactory(processorFactory);
+        serverConfigValidator.setPhaseTimeToLive(60000L);
+
+        final DistributedConfigValidator validator = new DistributedConfigValidator();
+        validator.setAciService(aciService);
+        validator.setIndexingService(indexingService);
+        validator.setProcessorFactory(processorFactory);
+        validator.setServerConfigValidator(serverConfigValidator);
+
+        final DistributedConfig distributedConfig = distributedConfig();
+        serverConfigValidator.validate(distributedConfig.getDah());
+
+        assertThat(validator.validate(distributedConfig), is(valid()));
+        assertThat(validator.validate(distributedConfig), is(valid()));
+        assertThat(dah.getRequestCount("GetVersion"), is(1L));
+        assertThat(dih.getRequestCount("GetVersion"), is(1L));
+    }
+
+    private DistributedConfig distributedConfig() {
+        return DistributedConfig.builder()
+                .distributed(true)
+                .dih(serverConfig(dih, ProductType.DIH))
+                .dah(serverConfig(dah, ProductType.DAH))
+                .build();
+    }
+
+    private static ServerConfig serverConfig(final FakeIdolServer server, final ProductType productType) {
+        return server.getServerConfig().toBuilder()
+                .productType(EnumSet.of(productType))
+                .build();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.impl.AciServiceImpl;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.impl.AciHttpClientImpl;
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexingService;
+import com.autonomy.nonaci.indexing.impl.IndexingServiceImpl;
+import com.hp.autonomy.frontend.configuration.FakeIdolServer;
+import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
+import com.hp.autonomy.types.idol.marshalling.ProcessorFactory;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import static com.hp.autonomy.frontend.configuration.server.IsValidMatcher.valid;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Validates and fetches the details of {@link FakeIdolServer}s over HTTP and HTTPS
+ */
+public class ServerConfigNetworkTest {
+    private static final int SOCKET_TIMEOUT = 2000;
+
+    private final List<FakeIdolServer> servers = new ArrayList<>();
+
+    private CloseableHttpClient httpClient;
+    private AciService aciService;
+    private IndexingService indexingService;
+    private ProcessorFactory processorFactory;
+
+    @Before
+    public void setUp() {
+        // FakeIdolServer never answers a TLS handshake on an HTTP port, so the HTTPS probe of an HTTP port must time out
+        httpClient = HttpClients.custom()
+                .setSslcontext(FakeIdolServer.clientSslContext())
+                .setDefaultSocketConfig(SocketConfig.custom().setSoTimeout(SOCKET_TIMEOUT).build())
+                .build();
+
+        aciService = new AciServiceImpl(new AciHttpClientImpl(httpClient));
+        indexingService = new IndexingServiceImpl(httpClient);
+        processorFactory = FakeIdolServer.processorFactory();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        httpClient.close();
+
+        for (final FakeIdolServer server : servers) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testValidateOverHttp() throws IOException {
+        final FakeIdolServer server = start(FakeIdolServer.builder().indexing(true));
+
+        assertThat(serverConfig(server, ProductType.AXE).validate(aciService, indexingService, processorFactory), is(valid()));
+    }
+
+    @Test
+    public void testValidateOverHttps() throws IOException {
+        final FakeIdolServer server = start(FakeIdolServer.builder().https(true).indexing(true));
+
+        assertThat(serverConfig(server, ProductType.AXE).validate(aciService, indexingService, processorFactory), is(valid()));
+    }
+
+    @Test
+    public void testValidateRejectsTheWrongProductType() throws IOException {
+        final FakeIdolServer server = start(FakeIdolServer.builder());
+
+        final ValidationResult<?> result = serverConfig(server, ProductType.DAH).validate(aciService, indexingService, processorFactory);
+
+        assertThat(result, is(not(valid())));
+        assertThat(result.getData(), is(instanceOf(ServerConfig.IncorrectServerType.class)));
+    }
+
+    @Test
+    public void testValidateReportsUnreachableServers() throws IOException {
+        final ServerConfig serverConfig;
+
+        try (final FakeIdolServer server = FakeIdolServer.builder().build().start()) {
+            serverConfig = serverConfig(server, ProductType.AXE);
+        }
+
+        final ValidationResult<?> result = serverConfig.validate(aciService, indexingService, processorFactory);
+
+        assertThat(result, is(not(valid())));
+        assertThat(result.getData(), is((Object) ServerConfig.Validation.CONNECTION_ERROR));
+    }
+
+    @Test
+    public void testValidateRejectsAnIndexPortWithTheWrongErrorMessage() throws IOException {
+        final FakeIdolServer server = start(FakeIdolServer.builder().indexing(true));
+        final ServerConfig serverConfig = serverConfig(server, ProductType.AXE).toBuilder()
+                .indexErrorMessage("Unknown command")
+                .build();
+
+        final ValidationResult<?> result = serverConfig.validate(aciService, indexingService, processorFactory);
+
+        assertThat(result, is(not(valid())));
+        assertThat(result.getData(), is((Object) ServerConfig.Validation.FETCH_PORT_ERROR));
+    }
+
+    @Test
+    public void testFetchServerDetailsOverHttp() throws IOException {
+        final FakeIdolServer server = start(FakeIdolServer.builder().indexing(true));
+
+        final ServerConfig fetched = serverConfig(server, ProductType.AXE).fetchServerDetails(aciService, indexingService, processorFactory, Collections.singleton("AXE"));
+
+        assertThat(fetched.getServicePort(), is(server.getServicePort()));
+        assertThat(fetched.getServiceProtocol(), is(AciServerDetails.TransportProtocol.HTTP));
+        assertThat(fetched.getIndexPort(), is(server.getIndexPort()));
+        assertThat(fetched.getIndexProtocol(), is(ServerDetails.TransportProtocol.HTTP));
+        // the index port is only returned by GetStatus
+        assertThat(server.getRequestCount("GetStatus"), is(2L));
+        assertThat(server.getRequestCount("GetChildren"), is(0L));
+    }
+
+    @Test
+    public void testFetchServerDetailsOverHttps() throws IOException {
+        final FakeIdolServer server = start(FakeIdolServer.builder().https(true).indexing(true));
+
+        final ServerConfig fetched = serverConfig(server, ProductType.AXE).fetchServerDetails(aciService, indexingService, processorFactory, Collections.singleton("AXE"));
+
+        // HTTP is tried first on the service and index ports
+        assertThat(fetched.getServicePort(), is(server.getServicePort()));
+        assertThat(fetched.getServiceProtocol(), is(AciServerDetails.TransportProtocol.HTTPS));
+        assertThat(fetched.getIndexPort(), is(server.getIndexPort()));
+        assertThat(fetched.getIndexProtocol(), is(ServerDetails.TransportProtocol.HTTPS));
+    }
+
+    @Test
+    public void testFetchServerDetailsWithoutAnIndexPort() throws IOException {
+        final FakeIdolServer server = start(FakeIdolServer.builder());
+
+        final ServerConfig fetched = serverConfig(server, ProductType.AXE).fetchServerDetails(aciService, indexingService, processorFactory, Collections.singleton("AXE"));
+
+        assertThat(fetched.getServicePort(), is(server.getServicePort()));
+        assertThat(fetched.getIndexPort(), is((Integer) null));
+        assertThat(server.getRequestCount("GetChildren"), is(1L));
+    }
+
+    private FakeIdolServer start(final FakeIdolServer.FakeIdolServerBuilder builder) throws IOException {
+        final FakeIdolServer server = builder.build().start();
+        servers.add(server);
+        return server;
+    }
+
+    private static ServerConfig serverConfig(final FakeIdolServer server, final ProductType productType) {
+        return server.getServerConfig().toBuilder()
+                .productType(EnumSet.of(productType))
+                .build();
+    }
+}
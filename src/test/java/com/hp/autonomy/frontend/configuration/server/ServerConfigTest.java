@@ -40,6 +40,7 @@ import static com.hp.autonomy.frontend.configuration.server.IsValidMatcher.valid
 import static com.hp.autonomy.frontend.configuration.server.ServerConfigTest.IsAciParameter.aciParameter;
 import static com.hp.autonomy.frontend.configuration.server.SetContainingItems.isSetWithItems;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNot.not;
 import static org.junit.Assert.assertThat;
@@ -424,6 +425,42 @@ public class ServerConfigTest extends ConfigurationComponentTest<ServerConfig> {
         assertThat(validationResult, is(valid()));
     }
 
+    @Test
+    public void testDeserializeProductTypeRegexAndUnknownProperties() throws IOException {
+        final ServerConfig serverConfig = json.parseObject("{\"host\": \"localhost\", \"port\": 9000, \"productTypeRegex\": \".*?CONNECTOR\", \"aclEncryptionKey\": \"legacy\"}");
+
+        assertThat(serverConfig.getProductTypeRegex().pattern(), is(".*?CONNECTOR"));
+        assertThat(serverConfig.getProtocol(), is(AciServerDetails.TransportProtocol.HTTP));
+        assertThat(json.parseObject(json.write(serverConfig).getJson()), is(serverConfig));
+    }
+
+    @Test
+    public void testProductTypeRegexesAreComparedByPattern() {
+        final ServerConfig serverConfig = ServerConfig.builder()
+                .host("localhost")
+                .port(9000)
+                .productTypeRegex(Pattern.compile(".*?CONNECTOR"))
+                .build();
+
+        final ServerConfig other = serverConfig.toBuilder()
+                .productTypeRegex(Pattern.compile(".*?CONNECTOR"))
+                .build();
+
+        assertThat(other, is(serverConfig));
+        assertThat(other.hashCode(), is(serverConfig.hashCode()));
+        assertThat(other.toBuilder().productTypeRegex(Pattern.compile(".*?SERVER")).build(), is(not(serverConfig)));
+    }
+
+    @Test
+    public void testDeserializeConnectionPool() throws IOException {
+        final ServerConfig serverConfig = json.parseObject("{\"host\": \"localhost\", \"port\": 9000, \"connectionPool\": {\"maxConnections\": 50, \"tlsSessionReuse\": false}}");
+
+        assertThat(serverConfig.getConnectionPool().getMaxConnections(), is(50));
+        assertThat(serverConfig.getConnectionPool().getTlsSessionReuse(), is(false));
+        assertThat(serverConfig.getConnectionPool().getKeepAlive(), is(nullValue()));
+        assertThat(json.parseObject(json.write(serverConfig).getJson()), is(serverConfig));
+    }
+
     @Override
     protected Class<ServerConfig> getType() {
         return ServerConfig.class;
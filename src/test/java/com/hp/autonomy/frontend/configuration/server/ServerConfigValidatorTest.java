@@ -0,0 +1,199 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingException;
+import com.autonomy.nonaci.indexing.IndexingService;
+import com.hp.autonomy.frontend.configuration.event.ConfigurationEvent;
+import com.hp.autonomy.frontend.configuration.event.ConfigurationEventBus;
+import com.hp.autonomy.frontend.configuration.event.EventSubscription;
+import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
+import com.hp.autonomy.types.idol.marshalling.ProcessorFactory;
+import com.hp.autonomy.types.idol.responses.GetStatusResponseData;
+import com.hp.autonomy.types.idol.responses.GetVersionResponseData;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Collections;
+
+import static com.hp.autonomy.frontend.configuration.server.IsValidMatcher.valid;
+import static com.hp.autonomy.frontend.configuration.server.ServerConfigTest.IsAciParameter.aciParameter;
+import static com.hp.autonomy.frontend.configuration.server.SetContainingItems.isSetWithItems;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ServerConfigValidatorTest {
+    private static final String INDEX_ERROR_MESSAGE = "Bad command or file name";
+
+    @Mock
+    private AciService aciService;
+    @Mock
+    private IndexingService indexingService;
+    @Mock
+    private ProcessorFactory processorFactory;
+
+    private ServerConfigValidator validator;
+    private ServerConfig serverConfig;
+
+    @Before
+    public void setUp() {
+        final GetVersionResponseData getVersionResponseData = new GetVersionResponseData();
+        getVersionResponseData.setProducttypecsv(ProductType.AXE.name());
+
+        final GetStatusResponseData getStatusResponseData = new GetStatusResponseData();
+        getStatusResponseData.setAciport(7666);
+        getStatusResponseData.setIndexport(7667);
+        getStatusResponseData.setServiceport(7668);
+
+        when(aciService.executeAction(
+                argThat(new IsAciServerDetails(null, 7666)),
+                argThat(isSetWithItems(aciParameter("action", "GetVersion"))),
+                any()
+        )).thenReturn(getVersionResponseData);
+
+        when(aciService.executeAction(
+                argThat(new IsAciServerDetails(null, 7666)),
+                argThat(isSetWithItems(aciParameter("action", "GetStatus"))),
+                any()
+        )).thenReturn(getStatusResponseData);
+
+        when(indexingService.executeCommand(any(), any(IndexCommand.class))).thenThrow(new IndexingException(INDEX_ERROR_MESSAGE));
+
+        validator = new ServerConfigValidator();
+        validator.setAciService(aciService);
+        validator.setIndexingService(indexingService);
+        validator.setProcessorFactory(processorFactory);
+        validator.setPhaseTimeToLive(60000);
+
+        serverConfig = ServerConfig.builder()
+                .host("example.com")
+                .port(7666)
+                .productType(Collections.singleton(ProductType.AXE))
+                .indexErrorMessage(INDEX_ERROR_MESSAGE)
+                .build();
+
+        assertThat(validator.validate(serverConfig), is(valid()));
+    }
+
+    @Test
+    public void testUnchangedConfigIsNotProbedAgain() {
+        assertThat(validator.validate(serverConfig), is(valid()));
+
+        verifyGetVersion(1);
+        verifyGetStatus(1);
+        verifyIndexProbe(1);
+    }
+
+    @Test
+    public void testIndexErrorMessageChangeOnlyProbesIndexPort() {
+        assertThat(validator.validate(serverConfig.toBuilder().indexErrorMessage("file name").build()), is(valid()));
+
+        verifyGetVersion(1);
+        verifyGetStatus(1);
+        verifyIndexProbe(2);
+    }
+
+    @Test
+    public void testProductTypeChangeOnlyChecksProductType() {
+        final ValidationResult<?> result = validator.validate(serverConfig.toBuilder().productType(Collections.singleton(ProductType.DAH)).build());
+
+        assertThat(result.getData(), is(new ServerConfig.IncorrectServerType(Collections.singletonList(ProductType.DAH.getFriendlyName()))));
+        verifyGetVersion(1);
+        verifyGetStatus(1);
+        verifyIndexProbe(1);
+    }
+
+    @Test
+    public void testHostChangeRepeatsEveryPhase() {
+        assertThat(validator.validate(serverConfig.toBuilder().host("example.org").build()), is(valid()));
+
+        verifyGetVersion(2);
+        verifyGetStatus(2);
+        verifyIndexProbe(2);
+    }
+
+    @Test
+    public void testInvalidateRepeatsEveryPhase() {
+        validator.invalidate();
+
+        assertThat(validator.validate(serverConfig), is(valid()));
+
+        verifyGetVersion(2);
+        verifyGetStatus(2);
+        verifyIndexProbe(2);
+    }
+
+    @Test
+    public void testSharedPhasesAreMarkedUsed() throws InterruptedException {
+        final ValidationPhases phases = validator.getPhases(serverConfig);
+        final long created = phases.getLastUsed();
+        Thread.sleep(5);
+
+        assertThat(validator.getPhases(serverConfig), is(sameInstance(phases)));
+        assertThat(phases.getLastUsed(), is(greaterThan(created)));
+    }
+
+    @Test
+    public void testFailedProbesAreRepeated() {
+        final ServerConfig wrongMessage = serverConfig.toBuilder().indexErrorMessage("ERRORPARAMBAD").build();
+
+        assertThat(validator.validate(wrongMessage).getData(), is(ServerConfig.Validation.FETCH_PORT_ERROR));
+        assertThat(validator.validate(wrongMessage).getData(), is(ServerConfig.Validation.FETCH_PORT_ERROR));
+
+        // the initial probe, then HTTP and HTTPS for each attempt
+        verifyIndexProbe(5);
+        verifyGetStatus(1);
+    }
+
+    @Test
+    public void testValidityChangesArePublished() {
+        final ConfigurationEventBus eventBus = new ConfigurationEventBus();
+        final EventSubscription subscription = eventBus.subscribe(10);
+        validator.setEventBus(eventBus);
+
+        validator.validate(serverConfig.toBuilder().indexErrorMessage("ERRORPARAMBAD").build());
+
+        final ConfigurationEvent event = subscription.poll();
+        assertThat(event.getType(), is(ConfigurationEvent.Type.VALIDITY_CHANGED));
+        assertThat(event.getPrevious(), is((Object) true));
+        assertThat(event.getCurrent(), is((Object) false));
+        assertThat(subscription.poll(), is(nullValue()));
+    }
+
+    private void verifyGetVersion(final int times) {
+        verify(aciService, times(times)).executeAction(
+                argThat(new IsAciServerDetails(null, 7666)),
+                argThat(isSetWithItems(aciParameter("action", "GetVersion"))),
+                any()
+        );
+    }
+
+    private void verifyGetStatus(final int times) {
+        verify(aciService, times(times)).executeAction(
+                argThat(new IsAciServerDetails(null, 7666)),
+                argThat(isSetWithItems(aciParameter("action", "GetStatus"))),
+                any()
+        );
+    }
+
+    private void verifyIndexProbe(final int times) {
+        verify(indexingService, times(times)).executeCommand(any(), any(IndexCommand.class));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class ServerProductTypesTest {
+    @Test
+    public void parsesKnownProductTypes() {
+        final ServerProductTypes serverProductTypes = ServerProductTypes.parse("AXE,DAH,IDOLPROXY");
+
+        assertThat(serverProductTypes.getProductTypes(), is(EnumSet.of(ProductType.AXE, ProductType.DAH, ProductType.IDOLPROXY)));
+        assertThat(serverProductTypes.getUnknownProductTypes(), is(empty()));
+        assertThat(serverProductTypes.contains(ProductType.DAH), is(true));
+        assertThat(serverProductTypes.contains(ProductType.DIH), is(false));
+    }
+
+    @Test
+    public void retainsUnknownProductTypes() {
+        final ServerProductTypes serverProductTypes = ServerProductTypes.parse("AX,FILESYSTEMCONNECTOR,AXEE,QMS");
+
+        assertThat(serverProductTypes.getProductTypes(), is(EnumSet.of(ProductType.QMS)));
+        assertThat(serverProductTypes.getUnknownProductTypes(), contains("AX", "FILESYSTEMCONNECTOR", "AXEE"));
+        assertThat(serverProductTypes.getNames(), containsInAnyOrder("AX", "FILESYSTEMCONNECTOR", "AXEE", "QMS"));
+    }
+
+    @Test
+    public void ignoresEmptyTokens() {
+        final ServerProductTypes serverProductTypes = ServerProductTypes.parse(",UASERVER,,");
+
+        assertThat(serverProductTypes.getProductTypes(), is(EnumSet.of(ProductType.UASERVER)));
+        assertThat(serverProductTypes.getUnknownProductTypes(), is(empty()));
+        assertThat(ServerProductTypes.parse("").getNames(), is(empty()));
+    }
+
+    @Test
+    public void matchesKnownAndUnknownProductTypes() {
+        final ServerProductTypes serverProductTypes = ServerProductTypes.parse("DISTRIBUTED_CONNECTOR,FILESYSTEMCONNECTOR");
+
+        assertThat(serverProductTypes.anyMatch(Pattern.compile(".*FILESYSTEM.*")), is(true));
+        assertThat(serverProductTypes.anyMatch(Pattern.compile("DISTRIBUTED_.*")), is(true));
+        assertThat(serverProductTypes.anyMatch(Pattern.compile("CONNECTOR")), is(false));
+    }
+}
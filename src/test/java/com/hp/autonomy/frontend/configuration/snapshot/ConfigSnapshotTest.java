@@ -0,0 +1,145 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.snapshot;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.hp.autonomy.frontend.configuration.authentication.CommunityAuthentication;
+import com.hp.autonomy.frontend.configuration.authentication.UsernameAndPassword;
+import com.hp.autonomy.frontend.configuration.server.DistributedConfig;
+import com.hp.autonomy.frontend.configuration.server.ProductType;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ConfigSnapshotTest {
+    private static final byte[] SOURCE_JSON = "{\"content\": {}}".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void roundTripsComponents() throws IOException {
+        final ServerConfig dah = ServerConfig.builder()
+                .protocol(AciServerDetails.TransportProtocol.HTTPS)
+                .host("dah.example.com")
+                .port(9060)
+                .servicePort(9062)
+                .productType(EnumSet.of(ProductType.DAH, ProductType.IDOLPROXY))
+                .build();
+
+        final ServerConfig dih = ServerConfig.builder()
+                .host("dih.example.com")
+                .port(9070)
+                .indexPort(9071)
+                .indexErrorMessage("BADLY FORMATTED REQUEST")
+                .productType(EnumSet.of(ProductType.DIH))
+                .build();
+
+        final DistributedConfig distributedConfig = DistributedConfig.builder()
+                .distributed(true)
+                .dah(dah)
+                .dih(dih)
+                .build();
+
+        final ServerConfig connector = ServerConfig.builder()
+                .host("connector.example.com")
+                .port(7000)
+                .productTypeRegexFromString(".*?CONNECTOR")
+                .build();
+
+        final CommunityAuthentication communityAuthentication = CommunityAuthentication.builder()
+                .community(ServerConfig.builder().host("community.example.com").port(9030).build())
+                .defaultLogin(UsernameAndPassword.builder().username("admin").password("secret").build())
+                .method("autonomy")
+                .build();
+
+        final Path path = temporaryFolder.getRoot().toPath().resolve("config.snapshot");
+
+        new ConfigSnapshotWriter()
+                .distributedConfig("content", distributedConfig)
+                .serverConfig("connector", connector)
+                .communityAuthentication("login", communityAuthentication)
+                .write(SOURCE_JSON, path);
+
+        final ConfigSnapshot snapshot = ConfigSnapshot.open(path);
+
+        assertThat(snapshot.getKeys(), contains("content", "connector", "login"));
+        assertThat(snapshot.get("content", DistributedConfig.class), is(distributedConfig));
+        assertThat(snapshot.get("connector", ServerConfig.class), is(connector));
+        assertThat(snapshot.get("login", CommunityAuthentication.class), is(communityAuthentication));
+        assertThat(snapshot.get("missing", ServerConfig.class), is(nullValue()));
+    }
+
+    @Test
+    public void detectsChangedSource() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("config.snapshot");
+
+        new ConfigSnapshotWriter()
+                .serverConfig("server", ServerConfig.builder().host("localhost").port(9000).build())
+                .write(SOURCE_JSON, path);
+
+        final ConfigSnapshot snapshot = ConfigSnapshot.open(path);
+
+        assertThat(snapshot.isCurrent(SOURCE_JSON), is(true));
+        assertThat(snapshot.isCurrent("{\"content\": {\"port\": 9001}}".getBytes(StandardCharsets.UTF_8)), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsWrongComponentType() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("config.snapshot");
+
+        new ConfigSnapshotWriter()
+                .serverConfig("server", ServerConfig.builder().host("localhost").port(9000).build())
+                .write(SOURCE_JSON, path);
+
+        ConfigSnapshot.open(path).get("server", DistributedConfig.class);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        final Path path = temporaryFolder.newFile("config.json").toPath();
+        Files.write(path, SOURCE_JSON);
+
+        ConfigSnapshot.open(path);
+    }
+
+    @Test
+    public void rejectsTruncatedSnapshots() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        new ConfigSnapshotWriter()
+                .serverConfig("server", ServerConfig.builder().host("localhost").port(9000).build())
+                .write(SOURCE_JSON, outputStream);
+
+        final byte[] bytes = outputStream.toByteArray();
+
+        for (int length = 0; length < bytes.length; length++) {
+            try {
+                ConfigSnapshot.read(ByteBuffer.wrap(Arrays.copyOf(bytes, length)));
+                fail("Expected an IOException for a snapshot truncated to " + length + " bytes");
+            } catch (final IOException ignored) {
+            }
+        }
+
+        assertThat(ConfigSnapshot.read(ByteBuffer.wrap(bytes)).get("server", ServerConfig.class).getPort(), is(9000));
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.topology;
+
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.nonaci.ServerDetails;
+import com.autonomy.nonaci.indexing.IndexCommand;
+import com.autonomy.nonaci.indexing.IndexingException;
+import com.autonomy.nonaci.indexing.impl.IndexCommandImpl;
+import com.hp.autonomy.frontend.configuration.aci.ConfigurableIndexingService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PartitioningIndexingServiceTest {
+    private static final AciServerDetails DIH = new AciServerDetails("dih", 9000);
+    private static final ServerDetails CHILD_A = serverDetails("content-a", 9101);
+    private static final ServerDetails CHILD_B = serverDetails("content-b", 9201);
+
+    @Mock
+    private ConfigurableIndexingService indexingService;
+    @Mock
+    private TopologyDiscoveryService topologyDiscoveryService;
+
+    private PartitioningIndexingService partitioningIndexingService;
+
+    @Before
+    public void setUp() {
+        when(topologyDiscoveryService.findTopology(DIH)).thenReturn(new Topology(DIH, Arrays.asList(
+                engine("content-a", 9100, ChildEngine.Status.UP),
+                engine("content-b", 9200, ChildEngine.Status.UP)
+        ), System.currentTimeMillis()));
+
+        partitioningIndexingService = new PartitioningIndexingService(indexingService, topologyDiscoveryService, () -> DIH);
+    }
+
+    @Test
+    public void roundRobinsBetweenChildren() {
+        final IndexCommand first = command("NewsA", "doc-1");
+        final IndexCommand second = command("NewsA", "doc-2");
+        when(indexingService.executeCommand(CHILD_A, first)).thenReturn(1);
+        when(indexingService.executeCommand(CHILD_B, second)).thenReturn(2);
+
+        assertThat(partitioningIndexingService.executeCommands(Arrays.asList(first, second)), contains(1, 2));
+    }
+
+    @Test
+    public void partitionsByDatabase() {
+        partitioningIndexingService.setDistributionMode(PartitioningIndexingService.DistributionMode.DATABASE);
+        partitioningIndexingService.mapDatabase("NewsB", CHILD_B);
+
+        final IndexCommand mapped = command("NewsB", "doc-1");
+        final IndexCommand unmapped = command("NewsC", "doc-2");
+        when(indexingService.executeCommand(CHILD_B, mapped)).thenReturn(1);
+        when(indexingService.executeCommand(unmapped)).thenReturn(2);
+
+        assertThat(partitioningIndexingService.executeCommands(Arrays.asList(mapped, unmapped)), contains(1, 2));
+    }
+
+    @Test
+    public void partitionsByReferenceHash() {
+        partitioningIndexingService.setDistributionMode(PartitioningIndexingService.DistributionMode.REFERENCE_HASH);
+
+        final IndexCommand first = command("NewsA", "doc-1");
+        final IndexCommand second = command("NewsA", "doc-1");
+        when(indexingService.executeCommand(any(ServerDetails.class), eq(first))).thenReturn(1);
+
+        partitioningIndexingService.executeCommands(Arrays.asList(first, second));
+
+        final ServerDetails child = (("doc-1".hashCode() & Integer.MAX_VALUE) % 2) == 0 ? CHILD_A : CHILD_B;
+        verify(indexingService, times(2)).executeCommand(eq(child), any(IndexCommand.class));
+    }
+
+    @Test
+    public void readsReferencesFromXml() {
+        partitioningIndexingService.setDistributionMode(PartitioningIndexingService.DistributionMode.REFERENCE_HASH);
+        partitioningIndexingService.setReferenceHash(reference -> "doc-2".equals(reference) ? 1 : 0);
+
+        final IndexCommandImpl command = new IndexCommandImpl(IndexCommand.CMD_DREADDDATA);
+        command.setPostData("<DOCUMENTS><DOCUMENT><DREREFERENCE>doc-2</DREREFERENCE></DOCUMENT></DOCUMENTS>");
+        when(indexingService.executeCommand(CHILD_B, command)).thenReturn(1);
+
+        assertThat(partitioningIndexingService.executeCommands(Arrays.asList(command)), contains(1));
+    }
+
+    @Test
+    public void sendsDocumentsForDifferentChildrenToDih() {
+        partitioningIndexingService.setDistributionMode(PartitioningIndexingService.DistributionMode.REFERENCE_HASH);
+        partitioningIndexingService.setReferenceHash(reference -> "doc-2".equals(reference) ? 1 : 0);
+
+        final IndexCommand command = command("NewsA", "doc-1", "doc-2");
+        when(indexingService.executeCommand(command)).thenReturn(1);
+
+        assertThat(partitioningIndexingService.executeCommands(Arrays.asList(command)), contains(1));
+        verify(indexingService, never()).executeCommand(any(ServerDetails.class), any(IndexCommand.class));
+    }
+
+    @Test
+    public void sendsDeletionsToDih() {
+        partitioningIndexingService.setDistributionMode(PartitioningIndexingService.DistributionMode.REFERENCE_HASH);
+
+        final IndexCommandImpl command = new IndexCommandImpl(IndexCommand.CMD_DREDELETEREF);
+        command.put(IndexCommand.PARAM_DOCS, "doc-1");
+        when(indexingService.executeCommand(command)).thenReturn(1);
+
+        assertThat(partitioningIndexingService.executeCommands(Arrays.asList(command)), contains(1));
+        verify(indexingService, never()).executeCommand(any(ServerDetails.class), any(IndexCommand.class));
+    }
+
+    @Test
+    public void sendsReplacementsToDihWhenRoundRobin() {
+        final IndexCommandImpl command = new IndexCommandImpl(IndexCommand.CMD_DREREPLACE);
+        command.setPostData("#DREREFERENCE doc-1\n#DREFIELDNAME TITLE\n#DREFIELDVALUE Cat\n#DREENDDATAREFERENCE\n");
+        when(indexingService.executeCommand(command)).thenReturn(1);
+
+        assertThat(partitioningIndexingService.executeCommands(Arrays.asList(command)), contains(1));
+        verify(indexingService, never()).executeCommand(any(ServerDetails.class), any(IndexCommand.class));
+    }
+
+    @Test
+    public void sendsToDihWhenTopologyIsUnknown() {
+        when(topologyDiscoveryService.findTopology(DIH)).thenReturn(null);
+
+        final IndexCommand command = command("NewsA", "doc-1");
+        when(indexingService.executeCommand(command)).thenReturn(3);
+
+        assertThat(partitioningIndexingService.executeCommands(Arrays.asList(command)), contains(3));
+        verify(indexingService, never()).executeCommand(any(ServerDetails.class), any(IndexCommand.class));
+    }
+
+    @Test
+    public void fallsBackToDihWhenChildCannotBeContacted() {
+        final IndexCommand command = command("NewsA", "doc-1");
+        when(indexingService.executeCommand(CHILD_A, command)).thenThrow(new IndexingException("Unable to execute the Index command", new ConnectException("Connection refused")));
+        when(indexingService.executeCommand(command)).thenReturn(4);
+
+        assertThat(partitioningIndexingService.executeCommands(Arrays.asList(command)), contains(4));
+    }
+
+    @Test(expected = IndexingException.class)
+    public void doesNotFallBackWhenChildTimesOut() {
+        final IndexCommand command = command("NewsA", "doc-1");
+        when(indexingService.executeCommand(CHILD_A, command)).thenThrow(new IndexingException("Unable to execute the Index command", new SocketTimeoutException("Read timed out")));
+
+        partitioningIndexingService.executeCommands(Arrays.asList(command));
+    }
+
+    private static IndexCommand command(final String database, final String... references) {
+        final StringBuilder idx = new StringBuilder();
+
+        for (final String reference : references) {
+            idx.append("#DREREFERENCE ").append(reference).append("\n#DREDBNAME ").append(database).append("\n#DREENDDOC\n");
+        }
+
+        final IndexCommandImpl command = new IndexCommandImpl(IndexCommand.CMD_DREADDDATA);
+        command.put(IndexCommand.PARAM_DRE_DBNAME, database);
+        command.setPostData(idx.append("#DREENDDATAREFERENCE\n").toString());
+        return command;
+    }
+
+    private static ChildEngine engine(final String host, final int port, final ChildEngine.Status status) {
+        return ChildEngine.builder()
+                .protocol(AciServerDetails.TransportProtocol.HTTP)
+                .host(host)
+                .port(port)
+                .indexPort(port + 1)
+                .status(status)
+                .build();
+    }
+
+    private static ServerDetails serverDetails(final String host, final int port) {
+        final ServerDetails serverDetails = new ServerDetails();
+        serverDetails.setHost(host);
+        serverDetails.setPort(port);
+        serverDetails.setProtocol(ServerDetails.TransportProtocol.HTTP);
+        return serverDetails;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.topology;
+
+import com.autonomy.aci.client.services.AciErrorException;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.util.AciParameters;
+import com.hp.autonomy.frontend.configuration.aci.ConfigurableAciService;
+import com.hp.autonomy.frontend.configuration.aci.Endpoint;
+import com.hp.autonomy.frontend.configuration.aci.EndpointRegistry;
+import com.hp.autonomy.frontend.configuration.aci.EndpointState;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ShardRoutingAciServiceTest {
+    private static final AciServerDetails DAH = new AciServerDetails("dah", 9000);
+    private static final AciServerDetails CONTENT_A = new AciServerDetails("content-a", 9100);
+    private static final AciServerDetails CONTENT_B = new AciServerDetails("content-b", 9200);
+
+    @Mock
+    private ConfigurableAciService aciService;
+    @Mock
+    private TopologyDiscoveryService topologyDiscoveryService;
+    @Mock
+    private Processor<String> processor;
+
+    private ShardRoutingAciService shardRoutingAciService;
+
+    @Before
+    public void setUp() {
+        when(aciService.getServerDetails()).thenReturn(DAH);
+        when(topologyDiscoveryService.findTopology(DAH)).thenReturn(new Topology(DAH, Arrays.asList(
+                engine(CONTENT_A, ChildEngine.Status.UP),
+                engine(CONTENT_B, ChildEngine.Status.DOWN)
+        ), System.currentTimeMillis()));
+
+        shardRoutingAciService = new ShardRoutingAciService(aciService, topologyDiscoveryService);
+        shardRoutingAciService.mapDatabase("NewsA", CONTENT_A);
+        shardRoutingAciService.mapDatabase("NewsB", CONTENT_B);
+    }
+
+    @Test
+    public void routesSingleDatabaseAction() {
+        final AciParameters parameters = getContent("newsa");
+        when(aciService.executeAction(CONTENT_A, parameters, processor)).thenReturn("direct");
+
+        assertThat(shardRoutingAciService.executeAction(parameters, processor), is("direct"));
+        verify(aciService, never()).executeAction(parameters, processor);
+    }
+
+    @Test
+    public void sendsMultipleDatabaseActionToDah() {
+        final AciParameters parameters = getContent("NewsA+NewsB");
+        when(aciService.executeAction(parameters, processor)).thenReturn("dah");
+
+        assertThat(shardRoutingAciService.executeAction(parameters, processor), is("dah"));
+    }
+
+    @Test
+    public void routesActionForDatabasesOnOneEngine() {
+        shardRoutingAciService.mapDatabase("Archive", CONTENT_A);
+        final AciParameters parameters = getContent("NewsA+Archive");
+        when(aciService.executeAction(CONTENT_A, parameters, processor)).thenReturn("direct");
+
+        assertThat(shardRoutingAciService.executeAction(parameters, processor), is("direct"));
+        verify(aciService, never()).executeAction(parameters, processor);
+    }
+
+    @Test
+    public void sendsSharedDatabaseActionToDah() {
+        final AciServerDetails contentC = new AciServerDetails("content-c", 9300);
+        when(topologyDiscoveryService.findTopology(DAH)).thenReturn(new Topology(DAH, Arrays.asList(
+                engine(CONTENT_A, ChildEngine.Status.UP),
+                engine(contentC, ChildEngine.Status.UP)
+        ), System.currentTimeMillis()));
+
+        shardRoutingAciService.mapDatabase("NewsA", contentC);
+        final AciParameters parameters = getContent("NewsA");
+        when(aciService.executeAction(parameters, processor)).thenReturn("dah");
+
+        assertThat(shardRoutingAciService.executeAction(parameters, processor), is("dah"));
+        assertThat(shardRoutingAciService.getDatabaseOwners().get("newsa"), is(new HashSet<>(Arrays.asList(CONTENT_A, contentC))));
+        verify(aciService, never()).executeAction(any(AciServerDetails.class), any(AciParameters.class), eq(processor));
+    }
+
+    @Test
+    public void sendsOtherActionsToDah() {
+        final AciParameters parameters = new AciParameters("Query");
+        parameters.add("DatabaseMatch", "NewsA");
+        when(aciService.executeAction(parameters, processor)).thenReturn("dah");
+
+        assertThat(shardRoutingAciService.executeAction(parameters, processor), is("dah"));
+    }
+
+    @Test
+    public void sendsActionToDahIfOwnerIsDown() {
+        final AciParameters parameters = getContent("NewsB");
+        when(aciService.executeAction(parameters, processor)).thenReturn("dah");
+
+        assertThat(shardRoutingAciService.executeAction(parameters, processor), is("dah"));
+        verify(aciService, never()).executeAction(eq(CONTENT_B), any(AciParameters.class), eq(processor));
+    }
+
+    @Test
+    public void sendsActionToDahIfTopologyIsUnknown() {
+        when(topologyDiscoveryService.findTopology(DAH)).thenReturn(null);
+        final AciParameters parameters = getContent("NewsA");
+        when(aciService.executeAction(parameters, processor)).thenReturn("dah");
+
+        assertThat(shardRoutingAciService.executeAction(parameters, processor), is("dah"));
+    }
+
+    @Test
+    public void fallsBackToDahIfOwnerCannotBeContacted() {
+        final AciParameters parameters = getContent("NewsA");
+        when(aciService.executeAction(CONTENT_A, parameters, processor)).thenThrow(new AciServiceException("Connection refused"));
+        when(aciService.executeAction(parameters, processor)).thenReturn("dah");
+
+        assertThat(shardRoutingAciService.executeAction(parameters, processor), is("dah"));
+    }
+
+    @Test
+    public void sendsActionToDahIfOwnerIsDownInRegistry() {
+        final EndpointRegistry endpointRegistry = new EndpointRegistry();
+        endpointRegistry.get(Endpoint.of(CONTENT_A)).setHealth(EndpointState.Health.DOWN);
+        shardRoutingAciService.setEndpointRegistry(endpointRegistry);
+
+        final AciParameters parameters = getContent("NewsA");
+        when(aciService.executeAction(parameters, processor)).thenReturn("dah");
+
+        assertThat(shardRoutingAciService.executeAction(parameters, processor), is("dah"));
+        verify(aciService, never()).executeAction(eq(CONTENT_A), any(AciParameters.class), eq(processor));
+    }
+
+    @Test
+    public void recordsOwnerAsDownIfItCannotBeContacted() {
+        final EndpointRegistry endpointRegistry = new EndpointRegistry();
+        shardRoutingAciService.setEndpointRegistry(endpointRegistry);
+
+        final AciParameters parameters = getContent("NewsA");
+        when(aciService.executeAction(CONTENT_A, parameters, processor)).thenThrow(new AciServiceException("Connection refused"));
+        when(aciService.executeAction(parameters, processor)).thenReturn("dah");
+
+        shardRoutingAciService.executeAction(parameters, processor);
+
+        assertThat(endpointRegistry.find(Endpoint.of(CONTENT_A)).getHealth(), is(EndpointState.Health.DOWN));
+    }
+
+    @Test(expected = AciErrorException.class)
+    public void doesNotRetryErrorResponses() {
+        final AciParameters parameters = getContent("NewsA");
+        when(aciService.executeAction(CONTENT_A, parameters, processor)).thenThrow(new AciErrorException("Invalid reference"));
+
+        shardRoutingAciService.executeAction(parameters, processor);
+    }
+
+    private static AciParameters getContent(final String databaseMatch) {
+        final AciParameters parameters = new AciParameters("GetContent");
+        parameters.add("Reference", "doc-1");
+        parameters.add("DatabaseMatch", databaseMatch);
+        return parameters;
+    }
+
+    private static ChildEngine engine(final AciServerDetails serverDetails, final ChildEngine.Status status) {
+        return ChildEngine.builder()
+                .protocol(serverDetails.getProtocol())
+                .host(serverDetails.getHost())
+                .port(serverDetails.getPort())
+                .status(status)
+                .build();
+    }
+}
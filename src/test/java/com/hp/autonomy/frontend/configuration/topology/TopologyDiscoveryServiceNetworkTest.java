@@ -0,0 +1,117 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.topology;
+
+import com.autonomy.aci.client.services.impl.AciServiceImpl;
+import com.autonomy.aci.client.transport.impl.AciHttpClientImpl;
+import com.hp.autonomy.frontend.configuration.FakeIdolServer;
+import com.hp.autonomy.frontend.configuration.event.ConfigurationEvent;
+import com.hp.autonomy.frontend.configuration.event.ConfigurationEventBus;
+import com.hp.autonomy.frontend.configuration.event.EventSubscription;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Discovers the topology of {@link FakeIdolServer}s over HTTP
+ */
+public class TopologyDiscoveryServiceNetworkTest {
+    private FakeIdolServer healthy;
+    private FakeIdolServer failing;
+    private FakeIdolServer stopped;
+    private FakeIdolServer dah;
+    private CloseableHttpClient httpClient;
+
+    private TopologyDiscoveryService topologyDiscoveryService;
+
+    @Before
+    public void setUp() throws IOException {
+        healthy = FakeIdolServer.builder().productTypeCsv("AXE").indexing(true).build().start();
+        failing = FakeIdolServer.builder().productTypeCsv("AXE").build().start();
+        stopped = FakeIdolServer.builder().productTypeCsv("AXE").build();
+
+        dah = FakeIdolServer.builder()
+                .productTypeCsv("DAH")
+                .children(Arrays.asList(healthy, failing, stopped))
+                .build()
+                .start();
+
+        failing.setHttpErrorRate(1);
+
+        httpClient = HttpClients.createDefault();
+        topologyDiscoveryService = new TopologyDiscoveryService(new AciServiceImpl(new AciHttpClientImpl(httpClient)));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        httpClient.close();
+
+        for (final FakeIdolServer server : Arrays.asList(dah, healthy, failing, stopped)) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testDiscoverChildren() {
+        final Topology topology = topologyDiscoveryService.getTopology(dah.getAciServerDetails());
+        final List<ChildEngine> leaves = topology.getLeaves();
+
+        assertThat(leaves, hasSize(3));
+        assertThat(leaves.get(0).getStatus(), is(ChildEngine.Status.UP));
+        assertThat(leaves.get(0).getPort(), is(healthy.getAciPort()));
+        assertThat(leaves.get(0).getIndexPort(), is(healthy.getIndexPort()));
+        assertThat(leaves.get(1).getStatus(), is(ChildEngine.Status.DOWN));
+        assertThat(leaves.get(2).getStatus(), is(ChildEngine.Status.DOWN));
+
+        assertThat(topology.getHealthyLeaves(), hasSize(1));
+        assertThat(healthy.getRequestCount("GetChildren"), is(1L));
+        assertThat(stopped.getRequestCount("GetChildren"), is(0L));
+    }
+
+    @Test
+    public void testRefreshReprobesRecoveredChildren() {
+        topologyDiscoveryService.getTopology(dah.getAciServerDetails());
+
+        failing.setHttpErrorRate(0);
+
+        final Topology topology = topologyDiscoveryService.refresh(dah.getAciServerDetails());
+
+        assertThat(topology.getHealthyLeaves(), hasSize(2));
+        // the healthy leaf is not probed again
+        assertThat(healthy.getRequestCount("GetChildren"), is(1L));
+    }
+
+    @Test
+    public void testRefreshPublishesHealthChanges() {
+        final ConfigurationEventBus eventBus = new ConfigurationEventBus();
+        final EventSubscription subscription = eventBus.subscribe(10);
+        topologyDiscoveryService.setEventBus(eventBus);
+
+        topologyDiscoveryService.getTopology(dah.getAciServerDetails());
+        assertThat(subscription.poll(), is(nullValue()));
+
+        failing.setHttpErrorRate(0);
+        topologyDiscoveryService.refresh(dah.getAciServerDetails());
+
+        final ConfigurationEvent event = subscription.poll();
+        assertThat(event.getType(), is(ConfigurationEvent.Type.HEALTH_CHANGED));
+        assertThat(event.getServer().getPort(), is(failing.getAciPort()));
+        assertThat(event.getPrevious(), is((Object) ChildEngine.Status.DOWN));
+        assertThat(event.getCurrent(), is((Object) ChildEngine.Status.UP));
+        assertThat(subscription.poll(), is(nullValue()));
+    }
+}
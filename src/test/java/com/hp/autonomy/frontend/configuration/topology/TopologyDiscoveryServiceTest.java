@@ -0,0 +1,159 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.topology;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.services.Processor;
+import com.autonomy.aci.client.services.impl.AbstractStAXProcessor;
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TopologyDiscoveryServiceTest {
+    private static final AciServerDetails ROOT = new AciServerDetails("dah", 9000);
+    private static final AciServerDetails CHILD_DAH = new AciServerDetails("child-dah", 9300);
+
+    private static final String ERROR = "<autnresponse><action>GETCHILDREN</action><response>ERROR</response><responsedata>" +
+            "<error><errorid>AXEGETCHILDREN</errorid><errorstring>Unknown action</errorstring></error></responsedata></autnresponse>";
+
+    @Mock
+    private AciService aciService;
+
+    private final Map<Integer, String> responses = new HashMap<>();
+
+    private TopologyDiscoveryService topologyDiscoveryService;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setUp() {
+        responses.put(9000, getChildrenResponse(engine(0, "content-a", 9100, "UP"), engine(1, "content-b", 9200, "UP"), engine(2, "child-dah", 9300, "UP")));
+        responses.put(9300, getChildrenResponse(engine(0, "content-c", 9400, "UP")));
+
+        when(aciService.executeAction(any(AciServerDetails.class), anyParameters(), any(Processor.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                final AciServerDetails serverDetails = (AciServerDetails) invocation.getArguments()[0];
+
+                if (serverDetails.getPort() == 9200) {
+                    throw new AciServiceException("Connection refused");
+                }
+
+                final String response = responses.containsKey(serverDetails.getPort()) ? responses.get(serverDetails.getPort()) : ERROR;
+                final XMLInputFactory factory = XMLInputFactory.newInstance();
+                factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+                final XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(response));
+
+                return ((AbstractStAXProcessor<?>) invocation.getArguments()[2]).process(reader);
+            }
+        });
+
+        topologyDiscoveryService = new TopologyDiscoveryService(aciService);
+    }
+
+    @Test
+    public void discoversNestedChildren() {
+        final Topology topology = topologyDiscoveryService.getTopology(ROOT);
+
+        assertThat(topology.getChildren(), hasSize(3));
+        assertThat(topology.getChildren().get(2).isDistributor(), is(true));
+        assertThat(hosts(topology.getLeaves()), contains("content-a", "content-b", "content-c"));
+    }
+
+    @Test
+    public void marksUnreachableChildrenDown() {
+        final Topology topology = topologyDiscoveryService.getTopology(ROOT);
+
+        assertThat(topology.getChildren().get(1).getStatus(), is(ChildEngine.Status.DOWN));
+        assertThat(hosts(topology.getHealthyLeaves()), contains("content-a", "content-c"));
+    }
+
+    @Test
+    public void readsPortsFromResponse() {
+        final ChildEngine engine = topologyDiscoveryService.getTopology(ROOT).getChildren().get(0);
+
+        assertThat(engine.getPort(), is(9100));
+        assertThat(engine.getIndexPort(), is(9101));
+        assertThat(engine.toAciServerDetails(), is(new AciServerDetails("content-a", 9100)));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void refreshOnlyContactsDistributionServers() {
+        topologyDiscoveryService.getTopology(ROOT);
+        topologyDiscoveryService.refresh(ROOT);
+
+        verify(aciService, times(2)).executeAction(eq(ROOT), anyParameters(), any(Processor.class));
+        verify(aciService, times(2)).executeAction(eq(CHILD_DAH), anyParameters(), any(Processor.class));
+        verify(aciService, times(1)).executeAction(eq(new AciServerDetails("content-a", 9100)), anyParameters(), any(Processor.class));
+    }
+
+    @Test
+    public void refreshPicksUpNewChildren() {
+        topologyDiscoveryService.getTopology(ROOT);
+        responses.put(9300, getChildrenResponse(engine(0, "content-c", 9400, "UP"), engine(1, "content-d", 9500, "UP")));
+
+        assertThat(hosts(topologyDiscoveryService.refresh(ROOT).getLeaves()), contains("content-a", "content-b", "content-c", "content-d"));
+        assertThat(hosts(topologyDiscoveryService.getTopology(ROOT).getLeaves()), hasSize(4));
+    }
+
+    private static Set<? extends ActionParameter<?>> anyParameters() {
+        return any();
+    }
+
+    private static List<String> hosts(final List<ChildEngine> engines) {
+        final List<String> hosts = new ArrayList<>();
+
+        for (final ChildEngine engine : engines) {
+            hosts.add(engine.getHost());
+        }
+
+        return hosts;
+    }
+
+    private static String getChildrenResponse(final String... engines) {
+        final StringBuilder builder = new StringBuilder("<autnresponse xmlns:autn=\"http://schemas.autonomy.com/aci/\">" +
+                "<action>GETCHILDREN</action><response>SUCCESS</response><responsedata>");
+
+        for (final String engine : engines) {
+            builder.append(engine);
+        }
+
+        return builder.append("</responsedata></autnresponse>").toString();
+    }
+
+    private static String engine(final int number, final String host, final int port, final String status) {
+        return "<autn:engine><autn:number>" + number + "</autn:number><autn:host>" + host + "</autn:host>" +
+                "<autn:port>" + port + "</autn:port><autn:indexport>" + (port + 1) + "</autn:indexport>" +
+                "<autn:status>" + status + "</autn:status></autn:engine>";
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.warmup;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.AciServiceException;
+import com.autonomy.aci.client.transport.AciServerDetails;
+import com.autonomy.aci.client.transport.ActionParameter;
+import com.hp.autonomy.frontend.configuration.LoginTypes;
+import com.hp.autonomy.frontend.configuration.authentication.CommunityAuthentication;
+import com.hp.autonomy.frontend.configuration.server.DistributedConfig;
+import com.hp.autonomy.frontend.configuration.server.ProductType;
+import com.hp.autonomy.frontend.configuration.server.ServerConfig;
+import com.hp.autonomy.frontend.configuration.server.ServerConfigValidator;
+import com.hp.autonomy.frontend.configuration.validation.OptionalConfigurationComponent;
+import com.hp.autonomy.frontend.configuration.validation.ValidationResult;
+import com.hp.autonomy.frontend.configuration.validation.ValidationService;
+import com.hp.autonomy.types.idol.marshalling.ProcessorFactory;
+import com.hp.autonomy.types.idol.responses.GetChildrenResponseData;
+import com.hp.autonomy.types.idol.responses.GetStatusResponseData;
+import com.hp.autonomy.types.idol.responses.GetVersionResponseData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WarmUpServiceTest {
+    private static final long LATENCY = 150;
+
+    @Mock
+    private AciService aciService;
+    @Mock
+    private ProcessorFactory processorFactory;
+    @Mock
+    private ValidationService<?> validationService;
+
+    private ExecutorService executor;
+    private WarmUpService warmUpService;
+
+    @Before
+    public void setUp() {
+        when(aciService.executeAction(any(AciServerDetails.class), any(), any())).thenAnswer(invocation -> {
+            final AciServerDetails serverDetails = invocation.getArgumentAt(0, AciServerDetails.class);
+            final String action = getAction(invocation.getArgumentAt(1, Set.class));
+            Thread.sleep(LATENCY);
+
+            if ("unreachable".equals(serverDetails.getHost())) {
+                throw new AciServiceException("Connection refused");
+            }
+
+            if ("GetVersion".equals(action)) {
+                final GetVersionResponseData responseData = new GetVersionResponseData();
+                responseData.setProducttypecsv("connector".equals(serverDetails.getHost()) ? "DISTRIBUTED_CONNECTOR" : "AXE");
+                return responseData;
+            }
+
+            if ("GetStatus".equals(action)) {
+                final GetStatusResponseData responseData = new GetStatusResponseData();
+                responseData.setAciport(serverDetails.getPort());
+                responseData.setServiceport(serverDetails.getPort() + 2);
+                return responseData;
+            }
+
+            final GetChildrenResponseData responseData = new GetChildrenResponseData();
+            responseData.setPort(serverDetails.getPort());
+            responseData.setServiceport(serverDetails.getPort() + 2);
+            return responseData;
+        });
+
+        doReturn(new ValidationResult<>(true)).when(validationService).validate(any());
+
+        executor = Executors.newFixedThreadPool(8);
+
+        warmUpService = new WarmUpService();
+        warmUpService.setAciService(aciService);
+        warmUpService.setProcessorFactory(processorFactory);
+        warmUpService.setValidationService(validationService);
+        warmUpService.setExecutor(executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testWarmUp() {
+        final ServerConfig content = server("content", 9000);
+        final ServerConfig community = server("community", 9030);
+
+        final Map<String, OptionalConfigurationComponent<?>> components = new LinkedHashMap<>();
+        components.put("content", content);
+        components.put("distributed", DistributedConfig.builder().distributed(false).standard(content).build());
+        components.put("login", CommunityAuthentication.builder().method("autonomy").community(community).build());
+
+        assertThat(warmUpService.isComplete(), is(false));
+
+        final WarmUpReport report = warmUpService.warmUp(components).join();
+
+        assertThat(report.isValid(), is(true));
+        assertThat(report.getValidationResults().keySet(), containsInAnyOrder("content", "distributed", "login"));
+        assertThat(report.getServerDetails().get(content).getServicePort(), is(9002));
+        assertThat(report.getServerDetails().get(community).getServicePort(), is(9032));
+        assertThat(warmUpService.isComplete(), is(true));
+        assertThat(warmUpService.isReady(), is(true));
+
+        // the content server is shared but only warmed up once
+        verify(aciService, times(3)).executeAction(argThat(new IsHost("content")), any(), any());
+    }
+
+    @Test
+    public void testServersAreWarmedUpInParallel() {
+        final Map<String, OptionalConfigurationComponent<?>> components = new LinkedHashMap<>();
+
+        for (int i = 0; i < 4; i++) {
+            components.put("server" + i, server("server" + i, 9000));
+        }
+
+        final WarmUpReport report = warmUpService.warmUp(components).join();
+
+        // fetching the details of each server takes three requests
+        assertThat(report.getDuration(), is(lessThan(4 * 3 * LATENCY)));
+        assertThat(report.getServerDetails().size(), is(4));
+    }
+
+    @Test
+    public void testFailedServersAreReported() {
+        final ServerConfig unreachable = server("unreachable", 9000);
+        doReturn(new ValidationResult<>(false)).when(validationService).validate(unreachable);
+
+        final Map<String, OptionalConfigurationComponent<?>> components = new LinkedHashMap<>();
+        components.put("content", server("content", 9000));
+        components.put("unreachable", unreachable);
+
+        final WarmUpReport report = warmUpService.warmUp(components).join();
+
+        assertThat(report.isValid(), is(false));
+        assertThat(report.getFailedServers(), contains(unreachable));
+        assertThat(report.getReadyTimes(), hasKey("unreachable"));
+        assertThat(warmUpService.isComplete(), is(true));
+        assertThat(warmUpService.isReady(), is(false));
+    }
+
+    @Test
+    public void testDefaultLoginHasNoServers() {
+        final CommunityAuthentication login = CommunityAuthentication.builder().method(LoginTypes.DEFAULT).build();
+
+        final WarmUpReport report = warmUpService.warmUp(Collections.singletonMap("login", login)).join();
+
+        assertThat(report.isValid(), is(true));
+        assertThat(report.getServerDetails().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testReportedProductTypesDecideHowPortsAreFetched() {
+        final ServerConfig connector = ServerConfig.builder()
+                .protocol(AciServerDetails.TransportProtocol.HTTP)
+                .host("connector")
+                .port(7000)
+                .productTypeRegex(Pattern.compile(".*CONNECTOR"))
+                .build();
+
+        final WarmUpReport report = warmUpService.warmUp(Collections.singletonMap("connector", connector)).join();
+
+        // some versions of Distributed Connector don't return the service port from GetChildren
+        assertThat(report.getServerDetails().get(connector).getServicePort(), is(7002));
+        verify(aciService).executeAction(any(AciServerDetails.class), argThat(new IsAction("GetStatus")), any());
+        verify(aciService, never()).executeAction(any(AciServerDetails.class), argThat(new IsAction("GetChildren")), any());
+    }
+
+    @Test
+    public void testValidationReusesTheRequestsOfTheWarmUp() {
+        final ServerConfigValidator serverConfigValidator = new ServerConfigValidator();
+        serverConfigValidator.setAciService(aciService);
+        serverConfigValidator.setProcessorFactory(processorFactory);
+        serverConfigValidator.setPhaseTimeToLive(60000L);
+
+        doAnswer(invocation -> serverConfigValidator.validate(invocation.getArgumentAt(0, ServerConfig.class)))
+                .when(validationService).validate(any());
+
+        warmUpService.setServerConfigValidator(serverConfigValidator);
+
+        final WarmUpReport report = warmUpService.warmUp(Collections.singletonMap("content", server("content", 9000))).join();
+
+        assertThat(report.isValid(), is(true));
+        verify(aciService, times(3)).executeAction(argThat(new IsHost("content")), any(), any());
+    }
+
+    private static String getAction(final Set<? extends ActionParameter<?>> parameters) {
+        for (final ActionParameter<?> parameter : parameters) {
+            if ("action".equalsIgnoreCase(parameter.getName())) {
+                return String.valueOf(parameter.getValue());
+            }
+        }
+
+        return null;
+    }
+
+    private static ServerConfig server(final String host, final int port) {
+        return ServerConfig.builder()
+                .protocol(AciServerDetails.TransportProtocol.HTTP)
+                .host(host)
+                .port(port)
+                .productType(Collections.singleton(ProductType.AXE))
+                .build();
+    }
+
+    private static class IsHost extends ArgumentMatcher<AciServerDetails> {
+        private final String host;
+
+        private IsHost(final String host) {
+            this.host = host;
+        }
+
+        @Override
+        public boolean matches(final Object argument) {
+            return argument instanceof AciServerDetails && host.equals(((AciServerDetails) argument).getHost());
+        }
+    }
+
+    private static class IsAction extends ArgumentMatcher<Set<? extends ActionParameter<?>>> {
+        private final String action;
+
+        private IsAction(final String action) {
+            this.action = action;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean matches(final Object argument) {
+            return argument instanceof Set && action.equals(getAction((Set<? extends ActionParameter<?>>) argument));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2013-2015 Hewlett-Packard Development Company, L.P.
+ * Licensed under the MIT License (the "License"); you may not use this file except in compliance with the License.
+ */
+
+package com.hp.autonomy.frontend.configuration.server;
+
+import com.autonomy.aci.client.services.AciService;
+import com.autonomy.aci.client.services.Processor;
+import com.hp.autonomy.types.idol.marshalling.ProcessorFactory;
+import com.hp.autonomy.types.idol.responses.GetChildrenResponseData;
+import com.hp.autonomy.types.idol.responses.GetVersionResponseData;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.hp.autonomy.frontend.configuration.server.ServerConfigTest.IsAciParameter.aciParameter;
+import static com.hp.autonomy.frontend.configuration.server.SetContainingItems.isSetWithItems;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ValidationEventsTest {
+    private static final String PREFIX = "com.hp.autonomy.frontend.configuration.";
+
+    @Mock
+    private Processor<GetVersionResponseData> getVersionProcessor;
+    @Mock
+    private AciService aciService;
+    @Mock
+    private ProcessorFactory processorFactory;
+
+    private Recording recording;
+
+    @Before
+    public void setUp() {
+        when(processorFactory.getResponseDataProcessor(GetVersionResponseData.class)).thenReturn(getVersionProcessor);
+
+        recording = new Recording();
+
+        for (final String name : new String[]{"ServerValidation", "FetchServerDetails", "DeterminePorts", "ServicePortTest", "IndexPortTest", "DistributedValidation"}) {
+            recording.enable(PREFIX + name);
+        }
+
+        recording.start();
+    }
+
+    @After
+    public void tearDown() {
+        recording.close();
+    }
+
+    @Test
+    public void testValidationPhasesAreRecorded() throws IOException {
+        final GetVersionResponseData getVersionResponseData = new GetVersionResponseData();
+        getVersionResponseData.setProducttypecsv(ProductType.SERVICECOORDINATOR.name());
+
+        final GetChildrenResponseData getChildrenResponseData = new GetChildrenResponseData();
+        getChildrenResponseData.setPort(6666);
+        getChildrenResponseData.setServiceport(6668);
+
+        when(aciService.executeAction(
+                argThat(new IsAciServerDetails("example.com", 6666)),
+                argThat(isSetWithItems(aciParameter("action", "GetVersion"))),
+                any()
+        )).thenReturn(getVersionResponseData);
+
+        when(aciService.executeAction(
+                argThat(new IsAciServerDetails("example.com", 6666)),
+                argThat(isSetWithItems(aciParameter("action", "GetChildren"))),
+                any()
+        )).thenReturn(getChildrenResponseData);
+
+        ServerConfig.builder()
+                .host("example.com")
+                .port(6666)
+                .productType(Collections.singleton(ProductType.SERVICECOORDINATOR))
+                .build()
+                .validate(aciService, null, processorFactory);
+
+        final Map<String, RecordedEvent> events = readEvents();
+
+        final RecordedEvent validation = events.get("ServerValidation");
+        assertThat(validation.getString("host"), is("example.com"));
+        assertThat(validation.getInt("port"), is(6666));
+        assertThat(validation.getString("protocol"), is("HTTP"));
+        assertThat(validation.getString("productType"), is("SERVICECOORDINATOR"));
+        assertThat(validation.getString("outcome"), is("VALID"));
+
+        assertThat(events.get("FetchServerDetails").getString("outcome"), is("SUCCESS"));
+        assertThat(events.get("DeterminePorts").getString("action"), is("GetChildren"));
+        assertThat(events.get("ServicePortTest").getInt("port"), is(6668));
+        assertThat(events.get("ServicePortTest").getString("outcome"), is("SUCCESS"));
+    }
+
+    @Test
+    public void testInvalidResultsAreRecorded() throws IOException {
+        DistributedConfig.builder()
+                .distributed(false)
+                .standard(ServerConfig.builder().host("").port(6666).build())
+                .build()
+                .validate(aciService, null, processorFactory);
+
+        final Map<String, RecordedEvent> events = readEvents();
+
+        assertThat(events.get("ServerValidation").getString("outcome"), is("INVALID: REQUIRED_FIELD_MISSING"));
+        assertThat(events.get("DistributedValidation").getBoolean("distributed"), is(false));
+        assertThat(events.get("DistributedValidation").getString("outcome"), is("INVALID: REQUIRED_FIELD_MISSING"));
+    }
+
+    private Map<String, RecordedEvent> readEvents() throws IOException {
+        recording.stop();
+
+        final Path file = Files.createTempFile("validation", ".jfr");
+
+        try {
+            recording.dump(file);
+            final List<RecordedEvent> recordedEvents = RecordingFile.readAllEvents(file);
+
+            final Map<String, RecordedEvent> events = new HashMap<>();
+
+            for (final RecordedEvent event : recordedEvents) {
+                events.put(event.getEventType().getName().substring(PREFIX.length()), event);
+            }
+
+            return events;
+        } finally {
+            Files.delete(file);
+        }
+    }
+}